@@ -467,6 +467,13 @@ public class ImpExp {
 			}
 		}
 
+		// hand log messages over to a dedicated writer thread
+		if (logging.getQueue().isSet()) {
+			log.enableAsynchronousLogging(logging.getQueue().getCapacity(),
+					logging.getQueue().getOverflowPolicy(),
+					logging.getQueue().getSampleRate());
+		}
+
 		// printing shell command to log file
 		if (logging.getFile().isSet()) {
 			StringBuilder msg = new StringBuilder("*** Command line arguments: ");
@@ -41,6 +41,9 @@ import java.awt.*;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class StyledConsoleLogger implements ConsoleLogger {
     private final int MAX_LINE_COUNT = 10000;
@@ -52,6 +55,10 @@ public class StyledConsoleLogger implements ConsoleLogger {
     private final PrintStream out;
     private final PrintStream err;
 
+    // messages are collected and inserted into the document in batches
+    private final Queue<Message> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isScheduled = new AtomicBoolean();
+
     public StyledConsoleLogger(JTextPane textPane, Charset encoding) {
         this.textPane = textPane;
         this.encoding = encoding;
@@ -102,7 +109,16 @@ public class StyledConsoleLogger implements ConsoleLogger {
     }
 
     private void log(String msg, Style style) {
-        SwingUtilities.invokeLater(() -> {
+        messages.offer(new Message(msg, style));
+        if (isScheduled.compareAndSet(false, true))
+            SwingUtilities.invokeLater(this::insertMessages);
+    }
+
+    private void insertMessages() {
+        isScheduled.set(false);
+
+        Message message;
+        while ((message = messages.poll()) != null) {
             try {
                 if (textPane.getStyledDocument().getDefaultRootElement().getElementCount() > MAX_LINE_COUNT)
                     textPane.setText("...truncating console output after " + MAX_LINE_COUNT + " log messages...\n");
@@ -110,11 +126,11 @@ public class StyledConsoleLogger implements ConsoleLogger {
                 if (textPane.getCaretPosition() != doc.getLength())
                     textPane.setCaretPosition(doc.getLength());
 
-                doc.insertString(doc.getLength(), msg + "\n", style);
+                doc.insertString(doc.getLength(), message.msg + "\n", message.style);
             } catch (Throwable e) {
                 //
             }
-        });
+        }
     }
 
     @Override
@@ -139,4 +155,14 @@ public class StyledConsoleLogger implements ConsoleLogger {
 
         return printStream;
     }
+
+    private static final class Message {
+        private final String msg;
+        private final Style style;
+
+        private Message(String msg, Style style) {
+            this.msg = msg;
+            this.style = style;
+        }
+    }
 }
@@ -286,6 +286,17 @@ public class GeometryObject {
 			this.srid = srid;
 	}
 
+	public GeometryObject copy(double[][] coordinates, int srid) {
+		if (coordinates.length != this.coordinates.length)
+			throw new IllegalArgumentException("Number of coordinate arrays does not match number of geometry elements.");
+
+		GeometryObject geometryObject = new GeometryObject(geometryType, dimension, srid);
+		geometryObject.elementTypes = elementTypes;
+		geometryObject.coordinates = coordinates;
+
+		return geometryObject;
+	}
+
 	public GeometryObject toEnvelope() {
 		GeometryObject envelope = new GeometryObject(GeometryType.ENVELOPE, dimension, srid);
 		envelope.elementTypes = new ElementType[]{ElementType.BOUNDING_RECTANGLE};
@@ -0,0 +1,146 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.database;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="AdaptiveBatchingType", propOrder={
+		"minFeatureBatchValue",
+		"maxFeatureBatchValue",
+		"minGmlIdCacheBatchValue",
+		"maxGmlIdCacheBatchValue",
+		"minTempBatchValue",
+		"maxTempBatchValue",
+		"samplesPerAdaptation"
+		})
+public class AdaptiveBatching {
+	@XmlAttribute(required=false)
+	private Boolean active = false;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer minFeatureBatchValue = 5;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer maxFeatureBatchValue = 500;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer minGmlIdCacheBatchValue = 100;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer maxGmlIdCacheBatchValue = 10000;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer minTempBatchValue = 100;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer maxTempBatchValue = 10000;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer samplesPerAdaptation = 10;
+
+	public AdaptiveBatching() {
+	}
+
+	public boolean isSet() {
+		if (active != null)
+			return active.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getActive() {
+		return active;
+	}
+
+	public void setActive(Boolean active) {
+		this.active = active;
+	}
+
+	public Integer getMinFeatureBatchValue() {
+		return minFeatureBatchValue;
+	}
+
+	public void setMinFeatureBatchValue(Integer minFeatureBatchValue) {
+		if (isValid(minFeatureBatchValue))
+			this.minFeatureBatchValue = minFeatureBatchValue;
+	}
+
+	public Integer getMaxFeatureBatchValue() {
+		return maxFeatureBatchValue;
+	}
+
+	public void setMaxFeatureBatchValue(Integer maxFeatureBatchValue) {
+		if (isValid(maxFeatureBatchValue))
+			this.maxFeatureBatchValue = maxFeatureBatchValue;
+	}
+
+	public Integer getMinGmlIdCacheBatchValue() {
+		return minGmlIdCacheBatchValue;
+	}
+
+	public void setMinGmlIdCacheBatchValue(Integer minGmlIdCacheBatchValue) {
+		if (isValid(minGmlIdCacheBatchValue))
+			this.minGmlIdCacheBatchValue = minGmlIdCacheBatchValue;
+	}
+
+	public Integer getMaxGmlIdCacheBatchValue() {
+		return maxGmlIdCacheBatchValue;
+	}
+
+	public void setMaxGmlIdCacheBatchValue(Integer maxGmlIdCacheBatchValue) {
+		if (isValid(maxGmlIdCacheBatchValue))
+			this.maxGmlIdCacheBatchValue = maxGmlIdCacheBatchValue;
+	}
+
+	public Integer getMinTempBatchValue() {
+		return minTempBatchValue;
+	}
+
+	public void setMinTempBatchValue(Integer minTempBatchValue) {
+		if (isValid(minTempBatchValue))
+			this.minTempBatchValue = minTempBatchValue;
+	}
+
+	public Integer getMaxTempBatchValue() {
+		return maxTempBatchValue;
+	}
+
+	public void setMaxTempBatchValue(Integer maxTempBatchValue) {
+		if (isValid(maxTempBatchValue))
+			this.maxTempBatchValue = maxTempBatchValue;
+	}
+
+	public Integer getSamplesPerAdaptation() {
+		return samplesPerAdaptation;
+	}
+
+	public void setSamplesPerAdaptation(Integer samplesPerAdaptation) {
+		if (samplesPerAdaptation != null && samplesPerAdaptation > 0)
+			this.samplesPerAdaptation = samplesPerAdaptation;
+	}
+
+	private boolean isValid(Integer batchValue) {
+		return batchValue != null && batchValue > 0 && batchValue <= Database.MAX_BATCH_SIZE;
+	}
+
+}
@@ -34,7 +34,8 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name="UpdateBatchingType", propOrder={
 		"featureBatchValue",
 		"gmlIdCacheBatchValue",
-		"tempBatchValue"
+		"tempBatchValue",
+		"adaptiveBatching"
 		})
 public class UpdateBatching {
 	@XmlElement(required=true, defaultValue="20")
@@ -46,8 +47,10 @@ public class UpdateBatching {
 	@XmlElement(required=true, defaultValue="1000")
 	@XmlSchemaType(name="positiveInteger")
 	private Integer tempBatchValue = 1000;
+	private AdaptiveBatching adaptiveBatching;
 	
 	public UpdateBatching() {
+		adaptiveBatching = new AdaptiveBatching();
 	}
 
 	public Integer getFeatureBatchValue() {
@@ -79,5 +82,14 @@ public class UpdateBatching {
 				tempBatchValue <= Database.MAX_BATCH_SIZE)
 			this.tempBatchValue = tempBatchValue;
 	}
+
+	public AdaptiveBatching getAdaptiveBatching() {
+		return adaptiveBatching;
+	}
+
+	public void setAdaptiveBatching(AdaptiveBatching adaptiveBatching) {
+		if (adaptiveBatching != null)
+			this.adaptiveBatching = adaptiveBatching;
+	}
 	
 }
@@ -28,6 +28,8 @@
 
 package org.citydb.config.project.exporter;
 
+import org.citydb.config.project.general.FastPath;
+
 import javax.xml.bind.annotation.XmlType;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import java.util.LinkedHashMap;
@@ -36,16 +38,19 @@ import java.util.Map;
 @XmlType(name="CityGMLOptionsType", propOrder={
         "writeProductHeader",
         "gmlEnvelope",
-        "namespaces"
+        "namespaces",
+        "fastPath"
 })
 public class CityGMLOptions {
     private Boolean writeProductHeader;
     private GMLEnvelope gmlEnvelope;
     @XmlJavaTypeAdapter(NamespaceAdapter.class)
     private LinkedHashMap<String, Namespace> namespaces;
+    private FastPath fastPath;
 
     public CityGMLOptions() {
         gmlEnvelope = new GMLEnvelope();
+        fastPath = new FastPath();
     }
 
     public boolean isWriteProductHeader() {
@@ -75,4 +80,13 @@ public class CityGMLOptions {
     public Map<String, Namespace> getNamespaces() {
         return namespaces;
     }
+
+    public FastPath getFastPath() {
+        return fastPath;
+    }
+
+    public void setFastPath(FastPath fastPath) {
+        if (fastPath != null)
+            this.fastPath = fastPath;
+    }
 }
@@ -35,7 +35,8 @@ import javax.xml.bind.annotation.XmlType;
 		"exportTextureFiles",
 		"overwriteTextureFiles",
 		"uniqueTextureFileNames",
-		"texturePath"
+		"texturePath",
+		"textureAtlas"
 })
 public class ExportAppearance {
 	@XmlElement(name="export", required=true, defaultValue="true")
@@ -46,9 +47,11 @@ public class ExportAppearance {
 	private Boolean overwriteTextureFiles = true;
 	private Boolean uniqueTextureFileNames = true;
 	private TexturePath texturePath;
+	private TextureAtlas textureAtlas;
 
 	public ExportAppearance() {
 		texturePath = new TexturePath();
+		textureAtlas = new TextureAtlas();
 	}
 
 	public boolean isSetExportAppearance() {
@@ -120,4 +123,13 @@ public class ExportAppearance {
 			this.texturePath = texturePath;
 	}
 
+	public TextureAtlas getTextureAtlas() {
+		return textureAtlas;
+	}
+
+	public void setTextureAtlas(TextureAtlas textureAtlas) {
+		if (textureAtlas != null)
+			this.textureAtlas = textureAtlas;
+	}
+
 }
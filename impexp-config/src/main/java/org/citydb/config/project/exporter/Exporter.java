@@ -47,6 +47,7 @@ import javax.xml.bind.annotation.XmlType;
 		"xslTransformation",
 		"metadataProvider",
 		"cityGMLOptions",
+		"incrementalExport",
 		"resources"
 })
 public class Exporter {
@@ -63,6 +64,7 @@ public class Exporter {
 	private XSLTransformation xslTransformation;
 	private String metadataProvider;
 	private CityGMLOptions cityGMLOptions;
+	private IncrementalExport incrementalExport;
 	private Resources resources;
 
 	public Exporter() {
@@ -76,6 +78,7 @@ public class Exporter {
 		xlink = new XLink();
 		xslTransformation = new XSLTransformation();
 		cityGMLOptions = new CityGMLOptions();
+		incrementalExport = new IncrementalExport();
 		resources = new Resources();
 	}
 
@@ -189,6 +192,15 @@ public class Exporter {
 			this.cityGMLOptions = cityGMLOptions;
 	}
 
+	public IncrementalExport getIncrementalExport() {
+		return incrementalExport;
+	}
+
+	public void setIncrementalExport(IncrementalExport incrementalExport) {
+		if (incrementalExport != null)
+			this.incrementalExport = incrementalExport;
+	}
+
 	public Resources getResources() {
 		return resources;
 	}
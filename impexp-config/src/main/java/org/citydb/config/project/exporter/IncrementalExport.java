@@ -0,0 +1,71 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.exporter;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="IncrementalExportType", propOrder={
+		"stateFile",
+		"writeDeleteList"
+})
+public class IncrementalExport {
+	@XmlAttribute
+	private boolean active = false;
+	private String stateFile;
+	private boolean writeDeleteList = true;
+
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	public boolean isSetStateFile() {
+		return stateFile != null && !stateFile.trim().isEmpty();
+	}
+
+	public String getStateFile() {
+		return stateFile;
+	}
+
+	public void setStateFile(String stateFile) {
+		this.stateFile = stateFile;
+	}
+
+	public boolean isWriteDeleteList() {
+		return writeDeleteList;
+	}
+
+	public void setWriteDeleteList(boolean writeDeleteList) {
+		this.writeDeleteList = writeDeleteList;
+	}
+
+}
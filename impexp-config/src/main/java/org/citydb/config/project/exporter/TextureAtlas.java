@@ -0,0 +1,105 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.exporter;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="TextureAtlasType", propOrder={
+		"packingAlgorithm",
+		"maxAtlasSize",
+		"scaleFactor",
+		"usePowerOfTwoSize"
+})
+public class TextureAtlas {
+	@XmlAttribute(required=false)
+	private Boolean active = false;
+	private TextureAtlasPackingAlgorithm packingAlgorithm = TextureAtlasPackingAlgorithm.TPIM;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer maxAtlasSize = 2048;
+	private Double scaleFactor = 1.0;
+	private Boolean usePowerOfTwoSize = false;
+
+	public boolean isSet() {
+		if (active != null)
+			return active.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getActive() {
+		return active;
+	}
+
+	public void setActive(Boolean active) {
+		this.active = active;
+	}
+
+	public TextureAtlasPackingAlgorithm getPackingAlgorithm() {
+		return packingAlgorithm != null ? packingAlgorithm : TextureAtlasPackingAlgorithm.TPIM;
+	}
+
+	public void setPackingAlgorithm(TextureAtlasPackingAlgorithm packingAlgorithm) {
+		this.packingAlgorithm = packingAlgorithm;
+	}
+
+	public int getMaxAtlasSize() {
+		return maxAtlasSize != null ? maxAtlasSize : 2048;
+	}
+
+	public void setMaxAtlasSize(Integer maxAtlasSize) {
+		if (maxAtlasSize != null && maxAtlasSize > 0)
+			this.maxAtlasSize = maxAtlasSize;
+	}
+
+	public double getScaleFactor() {
+		return scaleFactor != null ? scaleFactor : 1.0;
+	}
+
+	public void setScaleFactor(Double scaleFactor) {
+		if (scaleFactor != null && scaleFactor > 0 && scaleFactor <= 1)
+			this.scaleFactor = scaleFactor;
+	}
+
+	public boolean isSetUsePowerOfTwoSize() {
+		if (usePowerOfTwoSize != null)
+			return usePowerOfTwoSize.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getUsePowerOfTwoSize() {
+		return usePowerOfTwoSize;
+	}
+
+	public void setUsePowerOfTwoSize(Boolean usePowerOfTwoSize) {
+		this.usePowerOfTwoSize = usePowerOfTwoSize;
+	}
+
+}
@@ -39,6 +39,8 @@ import java.util.List;
 public class XSLTransformation {
     @XmlAttribute(required=true)
     private boolean isEnabled = false;
+    @XmlAttribute
+    private Boolean isChunkSafe;
     @XmlElement(name="stylesheet")
     private List<String> stylesheets;
 
@@ -50,6 +52,14 @@ public class XSLTransformation {
         isEnabled = enabled;
     }
 
+    public boolean isChunkSafe() {
+        return isChunkSafe != null ? isChunkSafe : false;
+    }
+
+    public void setChunkSafe(boolean chunkSafe) {
+        isChunkSafe = chunkSafe;
+    }
+
     public boolean isSetStylesheets() {
         return stylesheets != null && !stylesheets.isEmpty();
     }
@@ -0,0 +1,93 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.global;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlSchemaType;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="LogQueueType", propOrder={
+		"capacity",
+		"overflowPolicy",
+		"sampleRate"
+		})
+public class LogQueue {
+	@XmlAttribute(required=false)
+	private Boolean active = false;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer capacity = 8192;
+	private LogOverflowPolicy overflowPolicy = LogOverflowPolicy.BLOCK;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer sampleRate = 10;
+
+	public LogQueue() {
+	}
+
+	public boolean isSet() {
+		if (active != null)
+			return active.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getActive() {
+		return active;
+	}
+
+	public void setActive(Boolean active) {
+		this.active = active;
+	}
+
+	public Integer getCapacity() {
+		return capacity;
+	}
+
+	public void setCapacity(Integer capacity) {
+		if (capacity != null && capacity > 0)
+			this.capacity = capacity;
+	}
+
+	public LogOverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public void setOverflowPolicy(LogOverflowPolicy overflowPolicy) {
+		if (overflowPolicy != null)
+			this.overflowPolicy = overflowPolicy;
+	}
+
+	public Integer getSampleRate() {
+		return sampleRate;
+	}
+
+	public void setSampleRate(Integer sampleRate) {
+		if (sampleRate != null && sampleRate > 0)
+			this.sampleRate = sampleRate;
+	}
+
+}
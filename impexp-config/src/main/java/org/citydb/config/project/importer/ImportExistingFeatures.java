@@ -0,0 +1,81 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.config.project.importer;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlType;
+
+@XmlType(name="ImportExistingFeaturesType", propOrder={
+		"mode",
+		"useGmlIdIndex"
+})
+public class ImportExistingFeatures {
+	@XmlElement(required=true)
+	private ExistingFeaturesMode mode = ExistingFeaturesMode.IMPORT;
+	@XmlElement(defaultValue="true")
+	private Boolean useGmlIdIndex = true;
+
+	public ImportExistingFeatures() {
+	}
+
+	public boolean isSetImportMode() {
+		return mode == ExistingFeaturesMode.IMPORT;
+	}
+
+	public boolean isSetSkipMode() {
+		return mode == ExistingFeaturesMode.SKIP;
+	}
+
+	public boolean isSetReplaceMode() {
+		return mode == ExistingFeaturesMode.REPLACE;
+	}
+
+	public ExistingFeaturesMode getMode() {
+		return mode;
+	}
+
+	public void setMode(ExistingFeaturesMode mode) {
+		this.mode = mode;
+	}
+
+	public boolean isSetUseGmlIdIndex() {
+		if (useGmlIdIndex != null)
+			return useGmlIdIndex.booleanValue();
+
+		return false;
+	}
+
+	public Boolean getUseGmlIdIndex() {
+		return useGmlIdIndex;
+	}
+
+	public void setUseGmlIdIndex(Boolean useGmlIdIndex) {
+		this.useGmlIdIndex = useGmlIdIndex;
+	}
+
+}
@@ -30,6 +30,7 @@ package org.citydb.config.project.importer;
 import javax.xml.bind.annotation.XmlType;
 
 import org.citydb.config.project.general.AffineTransformation;
+import org.citydb.config.project.general.FastPath;
 import org.citydb.config.project.general.Path;
 import org.citydb.config.project.general.XSLTransformation;
 
@@ -38,12 +39,14 @@ import org.citydb.config.project.general.XSLTransformation;
 		"continuation",
 		"path",
 		"gmlId",
+		"existingFeatures",
 		"address",
 		"appearances",
 		"affineTransformation",
 		"indexes",
 		"xmlValidation",
 		"xslTransformation",
+		"fastPath",
 		"importLog",
 		"resources"
 })
@@ -52,12 +55,14 @@ public class Importer {
 	private Continuation continuation;
 	private Path path;
 	private ImportGmlId gmlId;
+	private ImportExistingFeatures existingFeatures;
 	private ImportAddress address;
 	private ImportAppearance appearances;
 	private AffineTransformation affineTransformation;
 	private Index indexes;
 	private XMLValidation xmlValidation;
 	private XSLTransformation xslTransformation;
+	private FastPath fastPath;
 	private ImportLog importLog;
 	private ImportResources resources;
 
@@ -65,6 +70,7 @@ public class Importer {
 		continuation = new Continuation();
 		path = new Path();
 		gmlId = new ImportGmlId();
+		existingFeatures = new ImportExistingFeatures();
 		address = new ImportAddress();
 		appearances = new ImportAppearance();
 		filter = new ImportFilter();
@@ -72,6 +78,7 @@ public class Importer {
 		indexes = new Index();
 		xmlValidation = new XMLValidation();
 		xslTransformation = new XSLTransformation();
+		fastPath = new FastPath();
 		importLog = new ImportLog();
 		resources = new ImportResources();
 	}
@@ -103,6 +110,15 @@ public class Importer {
 			this.gmlId = gmlId;
 	}
 
+	public ImportExistingFeatures getExistingFeatures() {
+		return existingFeatures;
+	}
+
+	public void setExistingFeatures(ImportExistingFeatures existingFeatures) {
+		if (existingFeatures != null)
+			this.existingFeatures = existingFeatures;
+	}
+
 	public ImportAddress getAddress() {
 		return address;
 	}
@@ -157,6 +173,15 @@ public class Importer {
 			this.xslTransformation = xslTransformation;
 	}
 
+	public FastPath getFastPath() {
+		return fastPath;
+	}
+
+	public void setFastPath(FastPath fastPath) {
+		if (fastPath != null)
+			this.fastPath = fastPath;
+	}
+
 	public AffineTransformation getAffineTransformation() {
 		return affineTransformation;
 	}
@@ -39,7 +39,10 @@ import javax.xml.bind.annotation.XmlType;
 		"scaleImages",
 		"imageScaleFactor",
 		"groupObjects",
-		"groupSize"
+		"groupSize",
+		"simplifyGeometries",
+		"simplificationError",
+		"exportImplicitGeometriesAsInstances"
 })
 public class ColladaOptions {
 	private boolean ignoreSurfaceOrientation;
@@ -52,6 +55,9 @@ public class ColladaOptions {
 	private double imageScaleFactor;
 	private boolean groupObjects;
 	private int groupSize;
+	private boolean simplifyGeometries;
+	private double simplificationError;
+	private boolean exportImplicitGeometriesAsInstances;
 
 	public ColladaOptions() {
 		ignoreSurfaceOrientation = false;
@@ -64,6 +70,9 @@ public class ColladaOptions {
 		imageScaleFactor = 1.0;
 		groupObjects = false;
 		groupSize = 1;
+		simplifyGeometries = false;
+		simplificationError = 0.1; // meters
+		exportImplicitGeometriesAsInstances = false;
 	}
 	
 	public static void resetSettings(ColladaOptions old) {
@@ -81,6 +90,10 @@ public class ColladaOptions {
 
 		old.setGroupObjects(colladaOptionsDefault.isGroupObjects());
 		old.setGroupSize(colladaOptionsDefault.getGroupSize());
+
+		old.setSimplifyGeometries(colladaOptionsDefault.isSimplifyGeometries());
+		old.setSimplificationError(colladaOptionsDefault.getSimplificationError());
+		old.setExportImplicitGeometriesAsInstances(colladaOptionsDefault.isExportImplicitGeometriesAsInstances());
 	}
 
 	public void setIgnoreSurfaceOrientation(boolean ignoreSurfaceOrientation) {
@@ -163,5 +176,30 @@ public class ColladaOptions {
 		return groupSize;
 	}
 
+	public void setSimplifyGeometries(boolean simplifyGeometries) {
+		this.simplifyGeometries = simplifyGeometries;
+	}
+
+	public boolean isSimplifyGeometries() {
+		return simplifyGeometries;
+	}
+
+	public void setSimplificationError(double simplificationError) {
+		if (simplificationError > 0)
+			this.simplificationError = simplificationError;
+	}
+
+	public double getSimplificationError() {
+		return simplificationError;
+	}
+
+	public void setExportImplicitGeometriesAsInstances(boolean exportImplicitGeometriesAsInstances) {
+		this.exportImplicitGeometriesAsInstances = exportImplicitGeometriesAsInstances;
+	}
+
+	public boolean isExportImplicitGeometriesAsInstances() {
+		return exportImplicitGeometriesAsInstances;
+	}
+
 	
 }
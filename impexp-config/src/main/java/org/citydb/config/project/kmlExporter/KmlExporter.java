@@ -27,6 +27,7 @@
  */
 package org.citydb.config.project.kmlExporter;
 
+import org.citydb.config.project.exporter.IncrementalExport;
 import org.citydb.config.project.general.Path;
 import org.citydb.config.project.resources.Resources;
 
@@ -99,8 +100,10 @@ import java.util.Locale;
 		"altitudeOffsetMode",
 		"altitudeOffsetValue",
 		"callGElevationService",
+		"elevationProvider",
 		"useOriginalZCoords",
 		"idPrefixes",
+		"incrementalExport",
 		"resources"
 })
 public class KmlExporter {
@@ -186,9 +189,11 @@ public class KmlExporter {
 	private AltitudeOffsetMode altitudeOffsetMode;
 	private double altitudeOffsetValue;
 	private boolean callGElevationService;
+	private ElevationProviderType elevationProvider;
 	private boolean useOriginalZCoords;
 
 	private IdPrefixes idPrefixes;
+	private IncrementalExport incrementalExport;
 	private Resources resources;
 
 	public static final String THEME_NONE = "none";
@@ -263,9 +268,11 @@ public class KmlExporter {
 		setAltitudeOffsetMode(AltitudeOffsetMode.NO_OFFSET);
 		altitudeOffsetValue = 0;
 		callGElevationService = false;
+		elevationProvider = ElevationProviderType.GOOGLE_ELEVATION_API;
 		setUseOriginalZCoords(true);
 
 		idPrefixes = new IdPrefixes();
+		incrementalExport = new IncrementalExport();
 		resources = new Resources();
 	}
 
@@ -287,6 +294,15 @@ public class KmlExporter {
 			this.path = path;
 	}
 
+	public IncrementalExport getIncrementalExport() {
+		return incrementalExport;
+	}
+
+	public void setIncrementalExport(IncrementalExport incrementalExport) {
+		if (incrementalExport != null)
+			this.incrementalExport = incrementalExport;
+	}
+
 	public Resources getResources() {
 		return resources;
 	}
@@ -522,6 +538,15 @@ public class KmlExporter {
 		return callGElevationService;
 	}
 
+	public ElevationProviderType getElevationProvider() {
+		return elevationProvider;
+	}
+
+	public void setElevationProvider(ElevationProviderType elevationProvider) {
+		if (elevationProvider != null)
+			this.elevationProvider = elevationProvider;
+	}
+
 	public void setWriteJSONFile(boolean writeJSONFile) {
 		this.writeJSONFile = writeJSONFile;
 	}
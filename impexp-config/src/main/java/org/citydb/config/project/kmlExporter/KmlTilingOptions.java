@@ -32,10 +32,12 @@ import org.citydb.config.project.query.filter.tiling.AbstractTilingOptions;
 import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="KmlTilingOptionsType", propOrder={
-		"autoTileSideLength"
+		"autoTileSideLength",
+		"singleScan"
 })
 public class KmlTilingOptions extends AbstractTilingOptions {
 	private double autoTileSideLength = 125.0;
+	private boolean singleScan = false;
 
 	public void setAutoTileSideLength(double autoTileSideLength) {
 		this.autoTileSideLength = autoTileSideLength;
@@ -44,5 +46,13 @@ public class KmlTilingOptions extends AbstractTilingOptions {
 	public double getAutoTileSideLength() {
 		return autoTileSideLength;
 	}
+
+	public boolean isSingleScan() {
+		return singleScan;
+	}
+
+	public void setSingleScan(boolean singleScan) {
+		this.singleScan = singleScan;
+	}
 	
 }
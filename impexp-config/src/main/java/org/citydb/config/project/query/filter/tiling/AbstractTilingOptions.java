@@ -33,11 +33,22 @@ import org.citydb.config.project.kmlExporter.KmlTilingOptions;
 import javax.xml.bind.annotation.XmlSeeAlso;
 import javax.xml.bind.annotation.XmlType;
 
-@XmlType(name="AbstractTilingOptionsType")
+@XmlType(name="AbstractTilingOptionsType", propOrder={
+		"useTileIndex"
+})
 @XmlSeeAlso({
 	SimpleTilingOptions.class,
 	KmlTilingOptions.class
 })
 public abstract class AbstractTilingOptions {
+	private Boolean useTileIndex;
+
+	public boolean isUseTileIndex() {
+		return useTileIndex != null ? useTileIndex : false;
+	}
+
+	public void setUseTileIndex(boolean useTileIndex) {
+		this.useTileIndex = useTileIndex;
+	}
 
 }
@@ -28,17 +28,21 @@
 package org.citydb.config.project.resources;
 
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlSchemaType;
 import javax.xml.bind.annotation.XmlType;
 
 @XmlType(name="ResourcesType", propOrder={
 		"gmlIdCache",
-		"threadPool"
+		"threadPool",
+		"memoryBudget"
 })
 public class Resources {
 	@XmlElement(required=true)
 	private UIDCache gmlIdCache;
 	@XmlElement(required=true)
 	private ThreadPool threadPool;
+	@XmlSchemaType(name="positiveInteger")
+	private Integer memoryBudget;
 
 	public Resources() {
 		gmlIdCache = new UIDCache();
@@ -63,5 +67,16 @@ public class Resources {
 			this.threadPool = threadPool;
 	}
 
+	public boolean isSetMemoryBudget() {
+		return memoryBudget != null;
+	}
+
+	public Integer getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	public void setMemoryBudget(Integer memoryBudget) {
+		this.memoryBudget = memoryBudget != null && memoryBudget > 0 ? memoryBudget : null;
+	}
 
 }
@@ -0,0 +1,131 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.common.database.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class BloomFilter {
+	private final AtomicLongArray bits;
+	private final long numBits;
+	private final int numHashes;
+
+	private BloomFilter(AtomicLongArray bits, int numHashes) {
+		this.bits = bits;
+		this.numHashes = numHashes;
+		numBits = (long) bits.length() * Long.SIZE;
+	}
+
+	public static BloomFilter create(long expectedEntries, double falsePositiveRate) {
+		expectedEntries = Math.max(expectedEntries, 1000);
+		long numBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		int numHashes = Math.max(1, (int) Math.round((double) numBits / expectedEntries * Math.log(2)));
+		int numWords = (int) Math.min(Integer.MAX_VALUE - 8, (numBits + Long.SIZE - 1) / Long.SIZE);
+
+		return new BloomFilter(new AtomicLongArray(numWords), numHashes);
+	}
+
+	public static BloomFilter read(DataInputStream stream) throws IOException {
+		int numHashes = stream.readInt();
+		int numWords = stream.readInt();
+
+		AtomicLongArray bits = new AtomicLongArray(numWords);
+		for (int i = 0; i < numWords; i++)
+			bits.set(i, stream.readLong());
+
+		return new BloomFilter(bits, numHashes);
+	}
+
+	public void write(DataOutputStream stream) throws IOException {
+		stream.writeInt(numHashes);
+		stream.writeInt(bits.length());
+		for (int i = 0; i < bits.length(); i++)
+			stream.writeLong(bits.get(i));
+	}
+
+	public void put(String key) {
+		long hash = hash(key);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+
+		for (int i = 1; i <= numHashes; i++) {
+			long index = index(hash1 + (long) i * hash2);
+			int word = (int) (index >>> 6);
+			long mask = 1L << index;
+
+			long value;
+			do {
+				value = bits.get(word);
+				if ((value & mask) != 0)
+					break;
+			} while (!bits.compareAndSet(word, value, value | mask));
+		}
+	}
+
+	public boolean mightContain(String key) {
+		long hash = hash(key);
+		int hash1 = (int) hash;
+		int hash2 = (int) (hash >>> 32);
+
+		for (int i = 1; i <= numHashes; i++) {
+			long index = index(hash1 + (long) i * hash2);
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	private long index(long combinedHash) {
+		if (combinedHash < 0)
+			combinedHash = ~combinedHash;
+
+		return combinedHash % numBits;
+	}
+
+	private long hash(String key) {
+		// 64-bit FNV-1a hash with a final avalanche step
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+
+		return hash;
+	}
+
+}
@@ -0,0 +1,702 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.common.database.index;
+
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.connection.DatabaseConnectionDetails;
+import org.citydb.database.connection.DatabaseConnectionPool;
+import org.citydb.log.Logger;
+import org.citydb.util.CoreConstants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of the gml:ids of all city objects stored in a database schema.
+ * <p>
+ * The index consists of a sorted, memory-mapped base segment, an append-only log
+ * of changes since the segment has been written, and a Bloom filter covering both.
+ * Lookups that are rejected by the Bloom filter do not cause any I/O. Hits must
+ * still be verified against the database since the index may be unaware of
+ * changes made by other clients.
+ */
+public class GmlIdIndex {
+	private static final int VERSION = 2;
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+	private static final byte ADD = 1;
+	private static final byte DELETE = 2;
+	private static final int MAX_KEY_LENGTH = 0xffff;
+	private static final int SORT_BUFFER_SIZE = 500000;
+	private static final Comparator<Record> RECORD_ORDER = Comparator.comparing((Record record) -> record.key, GmlIdIndex::compare)
+			.thenComparingLong(record -> record.id);
+
+	private static final String SEGMENT_FILE = "gmlid.idx";
+	private static final String LOG_FILE = "gmlid.log";
+	private static final String BLOOM_FILE = "gmlid.bloom";
+	private static final String META_FILE = "gmlid.properties";
+	private static final String LOCK_FILE = "gmlid.lock";
+
+	private final Logger log = Logger.getInstance();
+	private final Path indexDir;
+	private final String schema;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+
+	private final Map<String, GmlIdIndexEntry> additions = new ConcurrentHashMap<>();
+	private final Set<Long> deletions = ConcurrentHashMap.newKeySet();
+
+	private MappedByteBuffer segment;
+	private int segmentEntries;
+	private int dataOffset;
+	private BloomFilter bloomFilter;
+	private DataOutputStream logStream;
+	private long logEntries;
+
+	private GmlIdIndex(Path indexDir, String schema, FileChannel lockChannel, FileLock lock) {
+		this.indexDir = indexDir;
+		this.schema = schema;
+		this.lockChannel = lockChannel;
+		this.lock = lock;
+	}
+
+	public static GmlIdIndex open(Connection connection, AbstractDatabaseAdapter databaseAdapter, boolean create) throws SQLException, IOException {
+		Path indexDir = getIndexDir(databaseAdapter.getConnectionDetails());
+		if (!create && !Files.exists(indexDir.resolve(META_FILE)))
+			return null;
+
+		Files.createDirectories(indexDir);
+		FileChannel lockChannel = FileChannel.open(indexDir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		FileLock lock = lockChannel.tryLock();
+		if (lock == null) {
+			lockChannel.close();
+			throw new IOException("The gml:id index at '" + indexDir + "' is used by another process.");
+		}
+
+		String schema = databaseAdapter.getConnectionDetails().getSchema();
+		GmlIdIndex index = new GmlIdIndex(indexDir, schema, lockChannel, lock);
+		try {
+			DatabaseState state = DatabaseState.query(connection, schema);
+
+			if (!index.load(state)) {
+				if (!create) {
+					index.clear();
+					index.release();
+					return null;
+				}
+
+				index.build(connection, state);
+			}
+
+			index.logStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexDir.resolve(LOG_FILE),
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+
+			return index;
+		} catch (SQLException | IOException e) {
+			index.release();
+			throw e;
+		}
+	}
+
+	public boolean mightContain(String gmlId) {
+		return bloomFilter.mightContain(gmlId);
+	}
+
+	public GmlIdIndexEntry lookup(String gmlId) {
+		if (!bloomFilter.mightContain(gmlId))
+			return null;
+
+		GmlIdIndexEntry entry = additions.get(gmlId);
+		if (entry == null)
+			entry = searchSegment(gmlId.getBytes(StandardCharsets.UTF_8));
+
+		return entry != null && !deletions.contains(entry.getId()) ? entry : null;
+	}
+
+	public void put(String gmlId, long id, int objectClassId) throws IOException {
+		byte[] key = gmlId.getBytes(StandardCharsets.UTF_8);
+		if (key.length > MAX_KEY_LENGTH)
+			return;
+
+		additions.put(gmlId, new GmlIdIndexEntry(id, objectClassId));
+		bloomFilter.put(gmlId);
+
+		synchronized (this) {
+			logStream.writeByte(ADD);
+			logStream.writeShort(key.length);
+			logStream.write(key);
+			logStream.writeLong(id);
+			logStream.writeInt(objectClassId);
+			logEntries++;
+		}
+	}
+
+	public void remove(long id) throws IOException {
+		deletions.add(id);
+
+		synchronized (this) {
+			logStream.writeByte(DELETE);
+			logStream.writeLong(id);
+			logEntries++;
+		}
+	}
+
+	public void close() throws IOException {
+		try {
+			synchronized (this) {
+				logStream.close();
+			}
+
+			// remember the database state including our own changes so that
+			// changes made by other clients are detected when opened next time
+			DatabaseState state;
+			try (Connection connection = DatabaseConnectionPool.getInstance().getConnection()) {
+				state = DatabaseState.query(connection, schema);
+			} catch (SQLException e) {
+				log.warn("Failed to query database state for gml:id index: " + e.getMessage());
+				clear();
+				return;
+			}
+
+			if (logEntries > Math.max(100000, segmentEntries / 4))
+				compact();
+			else
+				writeBloomFilter();
+
+			writeMetadata(state);
+		} finally {
+			release();
+		}
+	}
+
+	public void invalidate() throws IOException {
+		try {
+			synchronized (this) {
+				logStream.close();
+			}
+
+			// without metadata the index is rebuilt when opened next time
+			clear();
+		} finally {
+			release();
+		}
+	}
+
+	private boolean load(DatabaseState state) throws IOException {
+		Path metaFile = indexDir.resolve(META_FILE);
+		if (!Files.exists(metaFile))
+			return false;
+
+		Properties properties = new Properties();
+		try (InputStream stream = Files.newInputStream(metaFile)) {
+			properties.load(stream);
+		}
+
+		try {
+			// inserts, deletes and updates by other clients change at least one of
+			// the number of objects, the maximum id or the last modification date
+			if (Integer.parseInt(properties.getProperty("version", "0")) != VERSION
+					|| !state.matches(properties))
+				return false;
+
+			mapSegment();
+			replayLog();
+
+			try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexDir.resolve(BLOOM_FILE))))) {
+				bloomFilter = BloomFilter.read(stream);
+			}
+
+			return true;
+		} catch (NumberFormatException | IOException e) {
+			log.warn("Failed to read gml:id index at '" + indexDir + "': " + e.getMessage());
+			clear();
+			return false;
+		}
+	}
+
+	private void build(Connection connection, DatabaseState state) throws SQLException, IOException {
+		log.info("Building gml:id index for database schema '" + schema + "'...");
+		clear();
+
+		// sort the gml:ids in chunks and merge the sorted runs to keep the heap usage bounded
+		List<Path> runs = new ArrayList<>();
+		try {
+			List<Record> records = new ArrayList<>();
+			try (Statement stmt = connection.createStatement()) {
+				stmt.setFetchSize(10000);
+				try (ResultSet rs = stmt.executeQuery("select id, gmlid, objectclass_id from " + schema + ".cityobject where gmlid is not null")) {
+					while (rs.next()) {
+						byte[] key = rs.getString(2).getBytes(StandardCharsets.UTF_8);
+						if (key.length > MAX_KEY_LENGTH)
+							continue;
+
+						records.add(new Record(key, rs.getLong(1), rs.getInt(3)));
+						if (records.size() == SORT_BUFFER_SIZE) {
+							runs.add(writeRun(records));
+							records.clear();
+						}
+					}
+				}
+			}
+
+			records.sort(RECORD_ORDER);
+			List<RecordReader> readers = new ArrayList<>(runs.size() + 1);
+			readers.add(listReader(records));
+			for (Path run : runs)
+				readers.add(new RunReader(run));
+
+			bloomFilter = BloomFilter.create(Math.max(state.count, 1) * 2L, FALSE_POSITIVE_RATE);
+			try (MergingReader reader = new MergingReader(readers)) {
+				writeSegment(reader);
+			}
+		} finally {
+			for (Path run : runs)
+				Files.deleteIfExists(run);
+		}
+
+		mapSegment();
+		logEntries = 0;
+
+		writeBloomFilter();
+		writeMetadata(state);
+		log.info("Indexed " + segmentEntries + " gml:id(s).");
+	}
+
+	private void compact() throws IOException {
+		List<Record> added = new ArrayList<>(additions.size());
+		for (Map.Entry<String, GmlIdIndexEntry> entry : additions.entrySet()) {
+			if (!deletions.contains(entry.getValue().getId()))
+				added.add(new Record(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue().getId(), entry.getValue().getObjectClassId()));
+		}
+
+		added.sort(RECORD_ORDER);
+
+		// the segment is already sorted, so it is merged with the additions without buffering
+		int entries = segmentEntries;
+		RecordReader segmentReader = new RecordReader() {
+			int index;
+
+			@Override
+			public Record next() {
+				while (index < entries) {
+					Record record = readRecord(index++);
+					if (!additions.containsKey(new String(record.key, StandardCharsets.UTF_8)) && !deletions.contains(record.id))
+						return record;
+				}
+
+				return null;
+			}
+		};
+
+		bloomFilter = BloomFilter.create(Math.max(entries + added.size(), 1) * 2L, FALSE_POSITIVE_RATE);
+		try (MergingReader reader = new MergingReader(Arrays.asList(segmentReader, listReader(added)))) {
+			writeSegment(reader);
+		}
+
+		segment = null;
+		Files.deleteIfExists(indexDir.resolve(LOG_FILE));
+		writeBloomFilter();
+	}
+
+	private Path writeRun(List<Record> records) throws IOException {
+		records.sort(RECORD_ORDER);
+
+		Path run = Files.createTempFile(indexDir, "gmlid", ".run");
+		try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			for (Record record : records) {
+				stream.writeShort(record.key.length);
+				stream.write(record.key);
+				stream.writeLong(record.id);
+				stream.writeInt(record.objectClassId);
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(run);
+			throw e;
+		}
+
+		return run;
+	}
+
+	private void writeSegment(RecordReader records) throws IOException {
+		Path offsetsFile = indexDir.resolve(SEGMENT_FILE + ".offsets");
+		Path dataFile = indexDir.resolve(SEGMENT_FILE + ".data");
+		Path tmp = indexDir.resolve(SEGMENT_FILE + ".tmp");
+
+		try {
+			int entries = 0;
+			try (DataOutputStream offsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetsFile)));
+				 DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile)))) {
+				long offset = 0;
+				Record previous = records.next();
+				while (previous != null) {
+					Record record = records.next();
+
+					// keep the most recent entry for duplicate gml:ids
+					if (record == null || compare(previous.key, record.key) != 0) {
+						int length = 14 + previous.key.length;
+						if (4 + 4L * (entries + 1) + offset + length > Integer.MAX_VALUE)
+							throw new IOException("The gml:id index exceeds the maximum segment size.");
+
+						offsets.writeInt((int) offset);
+						data.writeShort(previous.key.length);
+						data.write(previous.key);
+						data.writeLong(previous.id);
+						data.writeInt(previous.objectClassId);
+						bloomFilter.put(new String(previous.key, StandardCharsets.UTF_8));
+
+						offset += length;
+						entries++;
+					}
+
+					previous = record;
+				}
+			}
+
+			try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+				stream.writeInt(entries);
+				Files.copy(offsetsFile, stream);
+				Files.copy(dataFile, stream);
+			}
+
+			Files.move(tmp, indexDir.resolve(SEGMENT_FILE), StandardCopyOption.REPLACE_EXISTING);
+			segmentEntries = entries;
+		} finally {
+			Files.deleteIfExists(offsetsFile);
+			Files.deleteIfExists(dataFile);
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private void mapSegment() throws IOException {
+		try (FileChannel channel = FileChannel.open(indexDir.resolve(SEGMENT_FILE), StandardOpenOption.READ)) {
+			segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		segmentEntries = segment.getInt(0);
+		dataOffset = 4 + 4 * segmentEntries;
+	}
+
+	private void replayLog() throws IOException {
+		Path logFile = indexDir.resolve(LOG_FILE);
+		if (!Files.exists(logFile))
+			return;
+
+		try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+			while (true) {
+				byte type;
+				try {
+					type = stream.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+
+				if (type == ADD) {
+					byte[] key = new byte[stream.readUnsignedShort()];
+					stream.readFully(key);
+					additions.put(new String(key, StandardCharsets.UTF_8), new GmlIdIndexEntry(stream.readLong(), stream.readInt()));
+				} else if (type == DELETE)
+					deletions.add(stream.readLong());
+				else
+					throw new IOException("Corrupt log file.");
+
+				logEntries++;
+			}
+		}
+	}
+
+	private GmlIdIndexEntry searchSegment(byte[] key) {
+		int low = 0;
+		int high = segmentEntries - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int position = dataOffset + segment.getInt(4 + 4 * mid);
+			int length = segment.getShort(position) & 0xffff;
+
+			int result = compare(position + 2, length, key);
+			if (result < 0)
+				low = mid + 1;
+			else if (result > 0)
+				high = mid - 1;
+			else {
+				position += 2 + length;
+				return new GmlIdIndexEntry(segment.getLong(position), segment.getInt(position + 8));
+			}
+		}
+
+		return null;
+	}
+
+	private Record readRecord(int index) {
+		int position = dataOffset + segment.getInt(4 + 4 * index);
+		byte[] key = new byte[segment.getShort(position) & 0xffff];
+		for (int i = 0; i < key.length; i++)
+			key[i] = segment.get(position + 2 + i);
+
+		position += 2 + key.length;
+		return new Record(key, segment.getLong(position), segment.getInt(position + 8));
+	}
+
+	private int compare(int position, int length, byte[] key) {
+		int min = Math.min(length, key.length);
+		for (int i = 0; i < min; i++) {
+			int result = (segment.get(position + i) & 0xff) - (key[i] & 0xff);
+			if (result != 0)
+				return result;
+		}
+
+		return length - key.length;
+	}
+
+	private static int compare(byte[] a, byte[] b) {
+		int min = Math.min(a.length, b.length);
+		for (int i = 0; i < min; i++) {
+			int result = (a[i] & 0xff) - (b[i] & 0xff);
+			if (result != 0)
+				return result;
+		}
+
+		return a.length - b.length;
+	}
+
+	private void writeBloomFilter() throws IOException {
+		Path tmp = indexDir.resolve(BLOOM_FILE + ".tmp");
+		try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			bloomFilter.write(stream);
+		}
+
+		Files.move(tmp, indexDir.resolve(BLOOM_FILE), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void writeMetadata(DatabaseState state) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("version", String.valueOf(VERSION));
+		properties.setProperty("entries", String.valueOf(segmentEntries));
+		state.store(properties);
+
+		try (OutputStream stream = Files.newOutputStream(indexDir.resolve(META_FILE))) {
+			properties.store(stream, "gml:id index");
+		}
+	}
+
+	private void clear() throws IOException {
+		segment = null;
+		additions.clear();
+		deletions.clear();
+
+		Files.deleteIfExists(indexDir.resolve(META_FILE));
+		Files.deleteIfExists(indexDir.resolve(LOG_FILE));
+		Files.deleteIfExists(indexDir.resolve(BLOOM_FILE));
+	}
+
+	private void release() throws IOException {
+		try {
+			lock.release();
+		} finally {
+			lockChannel.close();
+		}
+	}
+
+	private static RecordReader listReader(List<Record> records) {
+		Iterator<Record> iterator = records.iterator();
+		return () -> iterator.hasNext() ? iterator.next() : null;
+	}
+
+	private static Path getIndexDir(DatabaseConnectionDetails details) {
+		String key = details.getDatabaseType() + "://" + details.getServer() + ":" + details.getPort() + "/" + details.getSid() + "/" + details.getSchema();
+		return CoreConstants.IMPEXP_DATA_DIR.resolve(CoreConstants.GMLID_INDEX_DIR)
+				.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString());
+	}
+
+	private static final class Record {
+		private final byte[] key;
+		private final long id;
+		private final int objectClassId;
+
+		Record(byte[] key, long id, int objectClassId) {
+			this.key = key;
+			this.id = id;
+			this.objectClassId = objectClassId;
+		}
+	}
+
+	private interface RecordReader extends Closeable {
+		Record next() throws IOException;
+
+		@Override
+		default void close() throws IOException {
+		}
+	}
+
+	private static final class RunReader implements RecordReader {
+		private final DataInputStream stream;
+
+		RunReader(Path run) throws IOException {
+			stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+		}
+
+		@Override
+		public Record next() throws IOException {
+			int length;
+			try {
+				length = stream.readUnsignedShort();
+			} catch (EOFException e) {
+				return null;
+			}
+
+			byte[] key = new byte[length];
+			stream.readFully(key);
+			return new Record(key, stream.readLong(), stream.readInt());
+		}
+
+		@Override
+		public void close() throws IOException {
+			stream.close();
+		}
+	}
+
+	private static final class MergingReader implements RecordReader {
+		private final List<RecordReader> readers;
+		private final PriorityQueue<Head> heads;
+
+		MergingReader(List<RecordReader> readers) throws IOException {
+			this.readers = readers;
+			heads = new PriorityQueue<>(Math.max(readers.size(), 1), (a, b) -> RECORD_ORDER.compare(a.record, b.record));
+			for (RecordReader reader : readers) {
+				Record record = reader.next();
+				if (record != null)
+					heads.add(new Head(reader, record));
+			}
+		}
+
+		@Override
+		public Record next() throws IOException {
+			Head head = heads.poll();
+			if (head == null)
+				return null;
+
+			Record record = head.record;
+			head.record = head.reader.next();
+			if (head.record != null)
+				heads.add(head);
+
+			return record;
+		}
+
+		@Override
+		public void close() throws IOException {
+			IOException exception = null;
+			for (RecordReader reader : readers) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					exception = e;
+				}
+			}
+
+			if (exception != null)
+				throw exception;
+		}
+
+		private static final class Head {
+			private final RecordReader reader;
+			private Record record;
+
+			Head(RecordReader reader, Record record) {
+				this.reader = reader;
+				this.record = record;
+			}
+		}
+	}
+
+	private static final class DatabaseState {
+		private final long count;
+		private final long maxId;
+		private final long lastModified;
+
+		private DatabaseState(long count, long maxId, long lastModified) {
+			this.count = count;
+			this.maxId = maxId;
+			this.lastModified = lastModified;
+		}
+
+		static DatabaseState query(Connection connection, String schema) throws SQLException {
+			try (Statement stmt = connection.createStatement();
+				 ResultSet rs = stmt.executeQuery("select count(*), max(id), max(last_modification_date) from " + schema + ".cityobject")) {
+				if (!rs.next())
+					return new DatabaseState(0, 0, 0);
+
+				Timestamp lastModified = rs.getTimestamp(3);
+				return new DatabaseState(rs.getLong(1), rs.getLong(2), lastModified != null ? lastModified.getTime() : 0);
+			}
+		}
+
+		boolean matches(Properties properties) {
+			return count == Long.parseLong(properties.getProperty("count", "-1"))
+					&& maxId == Long.parseLong(properties.getProperty("maxId", "-1"))
+					&& lastModified == Long.parseLong(properties.getProperty("lastModified", "-1"));
+		}
+
+		void store(Properties properties) {
+			properties.setProperty("count", String.valueOf(count));
+			properties.setProperty("maxId", String.valueOf(maxId));
+			properties.setProperty("lastModified", String.valueOf(lastModified));
+		}
+	}
+
+}
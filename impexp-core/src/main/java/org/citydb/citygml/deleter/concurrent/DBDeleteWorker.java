@@ -27,6 +27,7 @@
  */
 package org.citydb.citygml.deleter.concurrent;
 
+import org.citydb.citygml.common.database.index.GmlIdIndex;
 import org.citydb.citygml.exporter.database.content.DBSplittingResult;
 import org.citydb.concurrent.Worker;
 import org.citydb.config.Config;
@@ -44,6 +45,7 @@ import org.citydb.event.global.ProgressBarEventType;
 import org.citydb.event.global.StatusDialogProgressBar;
 import org.citydb.log.Logger;
 
+import java.io.IOException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -60,14 +62,16 @@ public class DBDeleteWorker extends Worker<DBSplittingResult> implements EventHa
 
 	private final PreparedStatement stmt;
 	private final AbstractDatabaseAdapter databaseAdapter;
+	private final GmlIdIndex gmlIdIndex;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
 	private volatile boolean shouldRun = true;
 	private volatile boolean shouldWork = true;
 
-	public DBDeleteWorker(Connection connection, AbstractDatabaseAdapter databaseAdapter, Config config, EventDispatcher eventDispatcher) throws SQLException {
+	public DBDeleteWorker(Connection connection, AbstractDatabaseAdapter databaseAdapter, GmlIdIndex gmlIdIndex, Config config, EventDispatcher eventDispatcher) throws SQLException {
 		this.databaseAdapter = databaseAdapter;
+		this.gmlIdIndex = gmlIdIndex;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
@@ -152,6 +156,14 @@ public class DBDeleteWorker extends Worker<DBSplittingResult> implements EventHa
 				stmt.setObject(2, objectId, Types.INTEGER);
 				stmt.executeUpdate();
 				deletedObjectId = ((CallableStatement) stmt).getInt(1);
+
+				if (gmlIdIndex != null && deletedObjectId == objectId) {
+					try {
+						gmlIdIndex.remove(objectId);
+					} catch (IOException e) {
+						log.warn("Failed to remove ID " + objectId + " from gml:id index: " + e.getMessage());
+					}
+				}
 			}
 
 			if (deletedObjectId == objectId) {
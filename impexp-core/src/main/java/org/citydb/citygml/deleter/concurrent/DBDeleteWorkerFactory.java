@@ -27,6 +27,7 @@
  */
 package org.citydb.citygml.deleter.concurrent;
 
+import org.citydb.citygml.common.database.index.GmlIdIndex;
 import org.citydb.citygml.exporter.database.content.DBSplittingResult;
 import org.citydb.concurrent.Worker;
 import org.citydb.concurrent.WorkerFactory;
@@ -43,19 +44,25 @@ import java.sql.SQLException;
 public class DBDeleteWorkerFactory implements WorkerFactory<DBSplittingResult>{
 	private final Logger log = Logger.getInstance();
 	private final ConnectionManager connectionManager;
+	private final GmlIdIndex gmlIdIndex;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
-	public DBDeleteWorkerFactory(ConnectionManager connectionManager, Config config, EventDispatcher eventDispatcher) {
+	public DBDeleteWorkerFactory(ConnectionManager connectionManager, GmlIdIndex gmlIdIndex, Config config, EventDispatcher eventDispatcher) {
 		this.connectionManager = connectionManager;
+		this.gmlIdIndex = gmlIdIndex;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
-	
+
+	public DBDeleteWorkerFactory(ConnectionManager connectionManager, Config config, EventDispatcher eventDispatcher) {
+		this(connectionManager, null, config, eventDispatcher);
+	}
+
 	@Override
-	public Worker<DBSplittingResult> createWorker() {	
+	public Worker<DBSplittingResult> createWorker() {
 		DBDeleteWorker dbWorker = null;
-	
+
 		try {
 			Connection connection = connectionManager.getConnection();
 
@@ -64,11 +71,11 @@ public class DBDeleteWorkerFactory implements WorkerFactory<DBSplittingResult>{
 			if (databaseAdapter.hasVersioningSupport())
 				databaseAdapter.getWorkspaceManager().gotoWorkspace(connection, config.getProject().getDatabase().getWorkspaces().getDeleteWorkspace());
 
-			dbWorker = new DBDeleteWorker(connection, databaseAdapter, config, eventDispatcher);
+			dbWorker = new DBDeleteWorker(connection, databaseAdapter, gmlIdIndex, config, eventDispatcher);
 		} catch (SQLException e) {
 			log.error("Failed to create delete worker: " + e.getMessage());
 		}
-		
+
 		return dbWorker;
 	}
 }
@@ -27,6 +27,7 @@
  */
 package org.citydb.citygml.deleter.controller;
 
+import org.citydb.citygml.common.database.index.GmlIdIndex;
 import org.citydb.citygml.deleter.CityGMLDeleteException;
 import org.citydb.citygml.deleter.concurrent.DBDeleteWorkerFactory;
 import org.citydb.citygml.deleter.database.BundledConnection;
@@ -37,6 +38,7 @@ import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
 import org.citydb.config.internal.Internal;
 import org.citydb.config.project.database.Workspace;
+import org.citydb.config.project.deleter.DeleteMode;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
 import org.citydb.database.connection.DatabaseConnectionPool;
 import org.citydb.database.schema.mapping.SchemaMapping;
@@ -52,6 +54,8 @@ import org.citydb.query.builder.QueryBuildException;
 import org.citydb.query.builder.config.ConfigQueryBuilder;
 import org.citydb.util.Util;
 
+import java.io.IOException;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -116,6 +120,16 @@ public class Deleter implements EventHandler {
 			throw new CityGMLDeleteException("Failed to build the delete query expression.", e);
 		}
 		
+		// keep an existing gml:id index up to date
+		GmlIdIndex gmlIdIndex = null;
+		if (config.getProject().getDeleter().getMode() == DeleteMode.DELETE) {
+			try (Connection connection = DatabaseConnectionPool.getInstance().getConnection()) {
+				gmlIdIndex = GmlIdIndex.open(connection, databaseAdapter, false);
+			} catch (SQLException | IOException e) {
+				log.warn("Failed to open gml:id index: " + e.getMessage());
+			}
+		}
+
 		bundledConnection = new BundledConnection();
 		try {				
 			dbWorkerPool = new WorkerPool<>(
@@ -123,7 +137,7 @@ public class Deleter implements EventHandler {
 					minThreads,
 					maxThreads,
 					PoolSizeAdaptationStrategy.AGGRESSIVE,
-					new DBDeleteWorkerFactory(bundledConnection, config, eventDispatcher),
+					new DBDeleteWorkerFactory(bundledConnection, gmlIdIndex, config, eventDispatcher),
 					300,
 					false);
 
@@ -167,6 +181,18 @@ public class Deleter implements EventHandler {
 			} catch (InterruptedException e) {
 				//
 			}
+
+			// the index is rebuilt on next use if the delete operation has been aborted
+			if (gmlIdIndex != null) {
+				try {
+					if (shouldRun)
+						gmlIdIndex.close();
+					else
+						gmlIdIndex.invalidate();
+				} catch (IOException e) {
+					log.error("Failed to update gml:id index: " + e.getMessage());
+				}
+			}
 		}		
 		
 		// show deleted features
@@ -66,6 +66,7 @@ import org.citygml4j.model.gml.feature.AbstractFeature;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class DBExportWorker extends Worker<DBSplittingResult> implements EventHandler {
@@ -77,6 +78,7 @@ public class DBExportWorker extends Worker<DBSplittingResult> implements EventHa
 	private final CityGMLExportManager exporter;
 	private final FeatureWriter featureWriter;
 	private final EventDispatcher eventDispatcher;
+	private final Set<String> exportedFeatures;
 	private final Config config;
 
 	private int globalAppearanceCounter = 0;
@@ -93,11 +95,13 @@ public class DBExportWorker extends Worker<DBSplittingResult> implements EventHa
 			UIDCacheManager uidCacheManager,
 			CacheTableManager cacheTableManager,
 			Query query,
+			Set<String> exportedFeatures,
 			Config config,
 			EventDispatcher eventDispatcher) throws CityGMLExportException {
 		this.connection = connection;
 		this.featureWriter = featureWriter;
 		this.eventDispatcher = eventDispatcher;
+		this.exportedFeatures = exportedFeatures;
 		this.config = config;
 
 		exporter = new CityGMLExportManager(
@@ -176,6 +180,9 @@ public class DBExportWorker extends Worker<DBSplittingResult> implements EventHa
 				topLevelObject = exporter.exportObject(work.getId(), work.getObjectType(), false);
 
 			if (topLevelObject instanceof AbstractFeature) {
+				// pack textures into texture atlases
+				exporter.createTextureAtlases(topLevelObject);
+
 				// cleanup appearances
 				exporter.cleanupAppearances(topLevelObject);
 
@@ -196,6 +203,10 @@ public class DBExportWorker extends Worker<DBSplittingResult> implements EventHa
 				// register gml:id in cache
 				if (config.getInternal().isRegisterGmlIdInCache() && topLevelObject.isSetId())
 					exporter.putObjectUID(topLevelObject.getId(), work.getId(), work.getObjectType().getObjectClassId());
+
+				// keep track of exported features for incremental exports
+				if (exportedFeatures != null && !(topLevelObject instanceof Appearance) && topLevelObject.isSetId())
+					exportedFeatures.add(topLevelObject.getId());
 				
 				// update export counter
 				exporter.updateExportCounter(topLevelObject);
@@ -48,6 +48,7 @@ import org.citygml4j.builder.jaxb.CityGMLBuilder;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Set;
 
 public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 	private final Logger log = Logger.getInstance();
@@ -60,6 +61,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 	private final UIDCacheManager uidCacheManager;
 	private final CacheTableManager cacheTableManager;
 	private final Query query;
+	private final Set<String> exportedFeatures;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
@@ -71,6 +73,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 			UIDCacheManager uidCacheManager,
 			CacheTableManager cacheTableManager,
 			Query query,
+			Set<String> exportedFeatures,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.outputFile = outputFile;
@@ -81,6 +84,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 		this.uidCacheManager = uidCacheManager;
 		this.cacheTableManager = cacheTableManager;
 		this.query = query;
+		this.exportedFeatures = exportedFeatures;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
@@ -102,7 +106,7 @@ public class DBExportWorkerFactory implements WorkerFactory<DBSplittingResult> {
 			}
 
 			dbWorker = new DBExportWorker(outputFile, connection, databaseAdapter, schemaMapping, cityGMLBuilder, featureWriter,
-					xlinkExporterPool, uidCacheManager, cacheTableManager, query, config, eventDispatcher);
+					xlinkExporterPool, uidCacheManager, cacheTableManager, query, exportedFeatures, config, eventDispatcher);
 		} catch (CityGMLExportException | SQLException e) {
 			log.error("Failed to create export worker: " + e.getMessage());
 		}
@@ -31,11 +31,13 @@ import org.citydb.citygml.common.database.xlink.DBXlink;
 import org.citydb.citygml.common.database.xlink.DBXlinkEnum;
 import org.citydb.citygml.common.database.xlink.DBXlinkLibraryObject;
 import org.citydb.citygml.common.database.xlink.DBXlinkTextureFile;
+import org.citydb.citygml.exporter.concurrent.TextureFileWriterWorker.TextureFile;
 import org.citydb.citygml.exporter.database.xlink.DBXlinkExporterEnum;
 import org.citydb.citygml.exporter.database.xlink.DBXlinkExporterLibraryObject;
 import org.citydb.citygml.exporter.database.xlink.DBXlinkExporterManager;
 import org.citydb.citygml.exporter.database.xlink.DBXlinkExporterTextureImage;
 import org.citydb.concurrent.Worker;
+import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
 import org.citydb.config.project.global.LogLevel;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
@@ -59,14 +61,18 @@ public class DBExportXlinkWorker extends Worker<DBXlink> implements EventHandler
 	private final DBXlinkExporterManager xlinkExporterManager;
 	private final EventDispatcher eventDispatcher;
 
-	public DBExportXlinkWorker(OutputFile outputFile, Connection connection, AbstractDatabaseAdapter databaseAdapter, Config config, EventDispatcher eventDispatcher) {
+	public DBExportXlinkWorker(OutputFile outputFile, Connection connection, AbstractDatabaseAdapter databaseAdapter, WorkerPool<TextureFile> textureWriterPool, Config config, EventDispatcher eventDispatcher) {
 		this.connection = connection;
 		this.eventDispatcher = eventDispatcher;
 
-		xlinkExporterManager = new DBXlinkExporterManager(outputFile, connection, databaseAdapter, config, eventDispatcher);
+		xlinkExporterManager = new DBXlinkExporterManager(outputFile, connection, databaseAdapter, textureWriterPool, config, eventDispatcher);
 		eventDispatcher.addEventHandler(EventType.INTERRUPT, this);
 	}
 
+	public DBExportXlinkWorker(OutputFile outputFile, Connection connection, AbstractDatabaseAdapter databaseAdapter, Config config, EventDispatcher eventDispatcher) {
+		this(outputFile, connection, databaseAdapter, null, config, eventDispatcher);
+	}
+
 	@Override
 	public void interrupt() {
 		shouldRun = false;
@@ -89,6 +95,13 @@ public class DBExportXlinkWorker extends Worker<DBXlink> implements EventHandler
 				}
 			}
 
+			try {
+				if (shouldWork)
+					xlinkExporterManager.executeBatch();
+			} catch (SQLException e) {
+				eventDispatcher.triggerEvent(new InterruptEvent("Aborting export due to SQL errors.", LogLevel.WARN, e, eventChannel, this));
+			}
+
 			try {
 				xlinkExporterManager.close();
 			} catch (SQLException e) {
@@ -28,8 +28,10 @@
 package org.citydb.citygml.exporter.concurrent;
 
 import org.citydb.citygml.common.database.xlink.DBXlink;
+import org.citydb.citygml.exporter.concurrent.TextureFileWriterWorker.TextureFile;
 import org.citydb.concurrent.Worker;
 import org.citydb.concurrent.WorkerFactory;
+import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
 import org.citydb.database.connection.DatabaseConnectionPool;
@@ -44,15 +46,21 @@ public class DBExportXlinkWorkerFactory implements WorkerFactory<DBXlink> {
 	private final Logger log = Logger.getInstance();
 
 	private final OutputFile outputFile;
+	private final WorkerPool<TextureFile> textureWriterPool;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
-	public DBExportXlinkWorkerFactory(OutputFile outputFile, Config config, EventDispatcher eventDispatcher) {
+	public DBExportXlinkWorkerFactory(OutputFile outputFile, WorkerPool<TextureFile> textureWriterPool, Config config, EventDispatcher eventDispatcher) {
 		this.outputFile = outputFile;
+		this.textureWriterPool = textureWriterPool;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
 
+	public DBExportXlinkWorkerFactory(OutputFile outputFile, Config config, EventDispatcher eventDispatcher) {
+		this(outputFile, null, config, eventDispatcher);
+	}
+
 	@Override
 	public Worker<DBXlink> createWorker() {
 		DBExportXlinkWorker dbWorker = null;
@@ -69,7 +77,7 @@ public class DBExportXlinkWorkerFactory implements WorkerFactory<DBXlink> {
 						config.getProject().getDatabase().getWorkspaces().getExportWorkspace());
 			}
 
-			dbWorker = new DBExportXlinkWorker(outputFile, connection, databaseAdapter, config, eventDispatcher);
+			dbWorker = new DBExportXlinkWorker(outputFile, connection, databaseAdapter, textureWriterPool, config, eventDispatcher);
 		} catch (SQLException e) {
 			log.error("Failed to create XLink export worker: " + e.getMessage());
 		}
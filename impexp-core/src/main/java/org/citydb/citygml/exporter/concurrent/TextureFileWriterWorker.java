@@ -0,0 +1,100 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.exporter.concurrent;
+
+import org.citydb.concurrent.DefaultWorker;
+import org.citydb.file.OutputFile;
+import org.citydb.log.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TextureFileWriterWorker extends DefaultWorker<TextureFileWriterWorker.TextureFile> {
+	private final Logger log = Logger.getInstance();
+	private final OutputFile outputFile;
+
+	public TextureFileWriterWorker(OutputFile outputFile) {
+		this.outputFile = outputFile;
+	}
+
+	@Override
+	public void doWork(TextureFile work) {
+		try {
+			work.write(outputFile);
+		} catch (IOException e) {
+			log.error("Failed to export texture file " + work.fileURI + ": " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		// nothing to do
+	}
+
+	public static final class TextureFile {
+		private final String fileURI;
+		private final Path file;
+		private final String entryName;
+		private final byte[] content;
+
+		public TextureFile(String fileURI, Path file, String entryName, byte[] content) {
+			this.fileURI = fileURI;
+			this.file = file;
+			this.entryName = entryName;
+			this.content = content;
+		}
+
+		public String getFileURI() {
+			return fileURI;
+		}
+
+		public Path getFile() {
+			return file;
+		}
+
+		public String getEntryName() {
+			return entryName;
+		}
+
+		public byte[] getContent() {
+			return content;
+		}
+
+		public long getSize() {
+			return content != null ? content.length : 0;
+		}
+
+		public void write(OutputFile outputFile) throws IOException {
+			if (file != null)
+				Files.write(file, content);
+			else
+				outputFile.write(entryName, content);
+		}
+	}
+}
@@ -34,6 +34,8 @@ import org.citydb.citygml.common.database.xlink.DBXlink;
 import org.citydb.citygml.exporter.CityGMLExportException;
 import org.citydb.citygml.exporter.concurrent.DBExportWorkerFactory;
 import org.citydb.citygml.exporter.concurrent.DBExportXlinkWorkerFactory;
+import org.citydb.citygml.exporter.concurrent.TextureFileWriterWorker;
+import org.citydb.citygml.exporter.concurrent.TextureFileWriterWorker.TextureFile;
 import org.citydb.citygml.exporter.database.content.DBSplitter;
 import org.citydb.citygml.exporter.database.content.DBSplittingResult;
 import org.citydb.citygml.exporter.database.uid.FeatureGmlIdCache;
@@ -42,6 +44,7 @@ import org.citydb.citygml.exporter.writer.FeatureWriteException;
 import org.citydb.citygml.exporter.writer.FeatureWriter;
 import org.citydb.citygml.exporter.writer.FeatureWriterFactory;
 import org.citydb.citygml.exporter.writer.FeatureWriterFactoryBuilder;
+import org.citydb.concurrent.MemoryBudget;
 import org.citydb.concurrent.PoolSizeAdaptationStrategy;
 import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
@@ -83,7 +86,10 @@ import org.citydb.query.filter.selection.Predicate;
 import org.citydb.query.filter.selection.SelectionFilter;
 import org.citydb.query.filter.selection.operator.logical.LogicalOperationFactory;
 import org.citydb.query.filter.tiling.Tile;
+import org.citydb.query.filter.tiling.TileIndex;
 import org.citydb.query.filter.tiling.Tiling;
+import org.citydb.query.incremental.IncrementalExportException;
+import org.citydb.query.incremental.IncrementalExportState;
 import org.citydb.util.Util;
 import org.citygml4j.builder.jaxb.CityGMLBuilder;
 import org.citygml4j.model.citygml.cityobjectgroup.CityObjectGroup;
@@ -98,15 +104,19 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Exporter implements EventHandler {
+	private static final int TEXTURE_QUEUE_BUDGET = 64;
 	private final Logger log = Logger.getInstance();
 
 	private final CityGMLBuilder cityGMLBuilder;
@@ -121,6 +131,7 @@ public class Exporter implements EventHandler {
 
 	private WorkerPool<DBSplittingResult> dbWorkerPool;
 	private WorkerPool<DBXlink> xlinkExporterPool;
+	private WorkerPool<TextureFile> textureWriterPool;
 	private CacheTableManager cacheTableManager;
 	private UIDCacheManager uidCacheManager;
 	private boolean useTiling;
@@ -176,10 +187,17 @@ public class Exporter implements EventHandler {
 			throw new CityGMLExportException("Failed to build the export query expression.", e);
 		}
 
+		// limit the queues of serialized features and texture files by their estimated memory consumption
+		MemoryBudget memoryBudget = null;
+		if (config.getProject().getExporter().getResources().isSetMemoryBudget()) {
+			memoryBudget = MemoryBudget.ofMegabytes(config.getProject().getExporter().getResources().getMemoryBudget());
+			log.info("Limiting queued features to a memory budget of " + config.getProject().getExporter().getResources().getMemoryBudget() + " MB.");
+		}
+
 		// create feature writer factory
 		FeatureWriterFactory writerFactory;
 		try {
-			writerFactory = FeatureWriterFactoryBuilder.buildFactory(query, schemaMapping, config);
+			writerFactory = FeatureWriterFactoryBuilder.buildFactory(query, schemaMapping, memoryBudget, config);
 		} catch (FeatureWriteException e) {
 			throw new CityGMLExportException("Failed to build the feature writer factory.", e);
 		}
@@ -259,6 +277,23 @@ public class Exporter implements EventHandler {
 			}
 		}
 
+		// open persistent tile index
+		TileIndex tileIndex = null;
+		if (useTiling && tilingOptions.isUseTileIndex() && shouldRun) {
+			if (query.isSetTargetSrs() && query.getTargetSrs().getSrid() != databaseAdapter.getConnectionMetaData().getReferenceSystem().getSrid())
+				log.warn("The tile index is not used since the target SRS differs from the database SRS.");
+			else {
+				try (Connection connection = DatabaseConnectionPool.getInstance().getConnection()) {
+					if (databaseAdapter.hasVersioningSupport())
+						databaseAdapter.getWorkspaceManager().gotoWorkspace(connection, workspace);
+
+					tileIndex = TileIndex.open(query, tiling, workspace, schemaMapping, databaseAdapter, connection);
+				} catch (SQLException | QueryBuildException | FilterException | IOException e) {
+					throw new CityGMLExportException("Failed to open tile index.", e);
+				}
+			}
+		}
+
 		// create output file factory
 		OutputFileFactory fileFactory = new OutputFileFactory(config, eventDispatcher);
 		Path exportFile = config.getInternal().getExportFile();
@@ -302,11 +337,28 @@ public class Exporter implements EventHandler {
 			}
 		}
 
+		// determine changes for incremental exports
+		IncrementalExportState incrementalState = null;
+		if (config.getProject().getExporter().getIncrementalExport().isActive()) {
+			try {
+				incrementalState = IncrementalExportState.open(config.getProject().getExporter().getIncrementalExport(), exportFile);
+				incrementalState.determineChanges(query, predicate, useTiling ? tiling : null, workspace, schemaMapping, databaseAdapter, config);
+			} catch (IncrementalExportException e) {
+				throw new CityGMLExportException(e.getMessage(), e.getCause());
+			}
+		}
+
 		int remainingTiles = rows * columns;
 		long start = System.currentTimeMillis();
 
 		for (int i = 0; shouldRun && i < rows; i++) {
 			for (int j = 0; shouldRun && j < columns; j++) {
+				// skip tiles that are not affected by changes
+				if (incrementalState != null && !incrementalState.isAffected(i, j)) {
+					eventDispatcher.triggerEvent(new CounterEvent(CounterType.REMAINING_TILES, --remainingTiles, this));
+					continue;
+				}
+
 				Path folder = exportFile.getParent();
 				String fileName = exportFile.getFileName().toString();
 
@@ -316,11 +368,15 @@ public class Exporter implements EventHandler {
 						tile = tiling.getTileAt(i, j);
 						tiling.setActiveTile(tile);
 
-						Predicate bboxFilter = tile.getFilterPredicate(databaseAdapter);
+						// select the features of the tile by their ids if possible
+						Predicate tileFilter = tileIndex != null ? tileIndex.getFilterPredicate(i, j, query, schemaMapping) : null;
+						if (tileFilter == null)
+							tileFilter = tile.getFilterPredicate(databaseAdapter);
+
 						if (predicate != null)
-							query.setSelection(new SelectionFilter(LogicalOperationFactory.AND(predicate, bboxFilter)));
+							query.setSelection(new SelectionFilter(LogicalOperationFactory.AND(predicate, tileFilter)));
 						else
-							query.setSelection(new SelectionFilter(bboxFilter));
+							query.setSelection(new SelectionFilter(tileFilter));
 
 					} catch (FilterException e) {
 						throw new CityGMLExportException("Failed to get tile at [" + i + "," + j + "].", e);
@@ -366,6 +422,7 @@ public class Exporter implements EventHandler {
 
 				FeatureWriter writer = null;
 				OutputFile file = null;
+				Set<String> exportedFeatures = incrementalState != null ? ConcurrentHashMap.newKeySet() : null;
 				try {
 					eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("export.dialog.cityObj.msg"), this));
 					eventDispatcher.triggerEvent(new StatusDialogTitle(fileName, this));
@@ -388,6 +445,22 @@ public class Exporter implements EventHandler {
 						}
 					}
 
+					// create texture buckets upfront
+					if (exportAppearance && file.getType() != FileType.ARCHIVE
+							&& config.getProject().getExporter().getAppearances().getTexturePath().isUseBuckets()) {
+						int noOfBuckets = config.getProject().getExporter().getAppearances().getTexturePath().getNoOfBuckets();
+						try {
+							for (int bucket = 1; bucket <= noOfBuckets; bucket++) {
+								Path path = textureFolderIsAbsolute ?
+										Paths.get(textureFolder, String.valueOf(bucket)) :
+										Paths.get(file.resolve(textureFolder, String.valueOf(bucket)));
+								Files.createDirectories(path);
+							}
+						} catch (IOException | InvalidPathException e) {
+							throw new CityGMLExportException("Failed to create texture buckets in folder '" + textureFolder + "'.", e);
+						}
+					}
+
 					// create output writer
 					try {
 						writer = writerFactory.createFeatureWriter(new OutputStreamWriter(file.openStream(), StandardCharsets.UTF_8));
@@ -433,12 +506,29 @@ public class Exporter implements EventHandler {
 
 					// create worker pools
 					// here we have an open issue: queue sizes are fix...
+					if (exportAppearance && file.getType() == FileType.ARCHIVE) {
+						// texture files are streamed into regular folders by the xlink workers. archive
+						// entries are kept in memory until compressed, so limit their queue by size.
+						// a configured memory budget is shared with the queue of serialized features
+						OutputFile outputFile = file;
+						textureWriterPool = new WorkerPool<>(
+								"texture_writer_pool",
+								1,
+								Math.max(1, config.getProject().getExporter().getResources().getThreadPool().getDefaultPool().getMaxThreads() / 2),
+								PoolSizeAdaptationStrategy.AGGRESSIVE,
+								() -> new TextureFileWriterWorker(outputFile),
+								MemoryBudget.DEFAULT_QUEUE_SIZE,
+								false);
+
+						textureWriterPool.setMemoryBudget(memoryBudget != null ? memoryBudget : MemoryBudget.ofMegabytes(TEXTURE_QUEUE_BUDGET), TextureFile::getSize);
+					}
+
 					xlinkExporterPool = new WorkerPool<>(
 							"xlink_exporter_pool",
 							1,
 							Math.max(1, config.getProject().getExporter().getResources().getThreadPool().getDefaultPool().getMaxThreads() / 2),
 							PoolSizeAdaptationStrategy.AGGRESSIVE,
-							new DBExportXlinkWorkerFactory(file, config, eventDispatcher),
+							new DBExportXlinkWorkerFactory(file, textureWriterPool, config, eventDispatcher),
 							300,
 							false);
 
@@ -456,12 +546,16 @@ public class Exporter implements EventHandler {
 									uidCacheManager,
 									cacheTableManager,
 									query,
+									exportedFeatures,
 									config,
 									eventDispatcher),
 							300,
 							false);
 
 					// prestart pool workers
+					if (textureWriterPool != null)
+						textureWriterPool.prestartCoreWorkers();
+
 					xlinkExporterPool.prestartCoreWorkers();
 					dbWorkerPool.prestartCoreWorkers();
 
@@ -498,10 +592,20 @@ public class Exporter implements EventHandler {
 					try {
 						dbWorkerPool.shutdownAndWait();
 						xlinkExporterPool.shutdownAndWait();
+						if (textureWriterPool != null)
+							textureWriterPool.shutdownAndWait();
 					} catch (InterruptedException e) {
 						throw new CityGMLExportException("Failed to shutdown worker pools.", e);
 					}
 
+					// update manifest of exported features
+					if (incrementalState != null && shouldRun) {
+						if (useTiling)
+							incrementalState.setObjects(i, j, exportedFeatures);
+						else
+							incrementalState.addObjects(exportedFeatures);
+					}
+
 					eventDispatcher.triggerEvent(new StatusDialogProgressBar(true, this));
 					eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("export.dialog.finish.msg"), this));
 				} catch (CityGMLExportException e) {
@@ -532,6 +636,9 @@ public class Exporter implements EventHandler {
 					if (xlinkExporterPool != null && !xlinkExporterPool.isTerminated())
 						xlinkExporterPool.shutdownNow();
 
+					if (textureWriterPool != null && !textureWriterPool.isTerminated())
+						textureWriterPool.shutdownNow();
+
 					if (dbWorkerPool != null && !dbWorkerPool.isTerminated())
 						dbWorkerPool.shutdownNow();
 
@@ -578,6 +685,15 @@ public class Exporter implements EventHandler {
 			}
 		}
 
+		// write delete list and store state of incremental export
+		if (incrementalState != null && shouldRun) {
+			try {
+				incrementalState.finish();
+			} catch (IncrementalExportException e) {
+				throw new CityGMLExportException(e.getMessage(), e.getCause());
+			}
+		}
+
 		// show totally exported features
 		if (useTiling && (rows > 1 || columns > 1)) {
 			if (!totalObjectCounter.isEmpty()) {
@@ -658,6 +774,9 @@ public class Exporter implements EventHandler {
 
 				if (xlinkExporterPool != null)
 					xlinkExporterPool.drainWorkQueue();
+
+				if (textureWriterPool != null)
+					textureWriterPool.drainWorkQueue();
 			}
 		}
 	}
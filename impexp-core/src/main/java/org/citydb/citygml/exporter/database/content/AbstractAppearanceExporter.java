@@ -58,6 +58,7 @@ import org.citygml4j.model.citygml.appearance.Appearance;
 import org.citygml4j.model.citygml.appearance.Color;
 import org.citygml4j.model.citygml.appearance.ColorPlusOpacity;
 import org.citygml4j.model.citygml.appearance.GeoreferencedTexture;
+import org.citygml4j.model.citygml.appearance.ParameterizedTexture;
 import org.citygml4j.model.citygml.appearance.SurfaceDataProperty;
 import org.citygml4j.model.citygml.appearance.TextureType;
 import org.citygml4j.model.citygml.appearance.WrapMode;
@@ -94,6 +95,7 @@ public class AbstractAppearanceExporter extends AbstractTypeExporter {
 	private boolean useBuckets;
 	private int noOfBuckets;
 	private boolean useXLink;
+	private boolean createTextureAtlases;
 	private boolean appendOldGmlId;
 	private String gmlIdPrefix;
 	private String separator;
@@ -119,8 +121,12 @@ public class AbstractAppearanceExporter extends AbstractTypeExporter {
 		String schema = exporter.getDatabaseAdapter().getConnectionDetails().getSchema();
 		String getLength = exporter.getDatabaseAdapter().getSQLAdapter().resolveDatabaseOperationName("blob.get_length");
 
+		// texture atlases are only created for local appearances
+		createTextureAtlases = !isGlobal && exportTextureImage
+				&& exporter.getExportConfig().getAppearances().getTextureAtlas().isSet();
+
 		useXLink = exporter.getExportConfig().getXlink().getFeature().isModeXLink();
-		if (!useXLink) {
+		if (!useXLink || createTextureAtlases) {
 			appendOldGmlId = exporter.getExportConfig().getXlink().getFeature().isSetAppendId();
 			gmlIdPrefix = exporter.getExportConfig().getXlink().getFeature().getIdPrefix();
 		}
@@ -223,7 +229,9 @@ public class AbstractAppearanceExporter extends AbstractTypeExporter {
 		if (gmlId != null) {
 			// process xlink
 			if (exporter.lookupAndPutObjectUID(gmlId, surfaceDataId, objectClassId)) {
-				if (useXLink) {
+				// parameterized textures might be merged into texture atlases and
+				// must therefore not be referenced from other features
+				if (useXLink && !(createTextureAtlases && surfaceData instanceof ParameterizedTexture)) {
 					SurfaceDataProperty surfaceDataProperty = new SurfaceDataProperty();
 					surfaceDataProperty.setHref("#" + gmlId);
 					appearance.addSurfaceDataMember(surfaceDataProperty);
@@ -320,8 +328,22 @@ public class AbstractAppearanceExporter extends AbstractTypeExporter {
 
 				abstractTexture.setImageURI(textureURI != null ? textureURI + separator + fileName : fileName);
 
+				// texture images of atlas candidates are exported by the texture atlas generator
+				// once it is known whether they are merged, so they are not tracked as written here
+				if (createTextureAtlases && surfaceData instanceof ParameterizedTexture) {
+					if (dbImageSize > 0) {
+						abstractTexture.setLocalProperty(CoreConstants.TEXTURE_IMAGE_ID, texImageId);
+						abstractTexture.setLocalProperty(CoreConstants.TEXTURE_IMAGE_XLINK, new DBXlinkTextureFile(
+								texImageId,
+								fileName));
+					} else {
+						log.warn(exporter.getObjectSignature(exporter.getFeatureType(objectClassId), surfaceDataId) +
+								": Skipping 0 byte texture file '" + imageURI + "'.");
+					}
+				}
+
 				// export texture image from database
-				if (exportTextureImage && (uniqueFileNames || !texImageIds.contains(texImageId))) {
+				else if (exportTextureImage && (uniqueFileNames || !texImageIds.contains(texImageId))) {
 					if (dbImageSize > 0) {
 						DBXlinkTextureFile xlink = new DBXlinkTextureFile(
 								texImageId,
@@ -389,7 +411,7 @@ public class AbstractAppearanceExporter extends AbstractTypeExporter {
 
 			Object referencePointObj = rs.getObject(31);
 			if (!rs.wasNull()) {
-				GeometryObject pointObj = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+				GeometryObject pointObj = exporter.getGeometryConverter().getPoint(referencePointObj);
 				if (pointObj != null) {
 					double[] point = pointObj.getCoordinates(0);
 					Point referencePoint = new Point();
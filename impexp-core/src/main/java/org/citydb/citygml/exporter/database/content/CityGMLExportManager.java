@@ -43,6 +43,7 @@ import org.citydb.citygml.exporter.util.AppearanceRemover;
 import org.citydb.citygml.exporter.util.AttributeValueSplitter;
 import org.citydb.citygml.exporter.util.ExportCounter;
 import org.citydb.citygml.exporter.util.LodGeometryChecker;
+import org.citydb.citygml.exporter.util.TextureAtlasGenerator;
 import org.citydb.citygml.exporter.writer.FeatureWriteException;
 import org.citydb.citygml.exporter.writer.FeatureWriter;
 import org.citydb.concurrent.WorkerPool;
@@ -50,6 +51,9 @@ import org.citydb.config.Config;
 import org.citydb.config.geometry.GeometryObject;
 import org.citydb.config.project.exporter.Exporter;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.AbstractGeometryConverterAdapter;
+import org.citydb.database.adapter.CoordinateTransformer;
+import org.citydb.database.adapter.TransformingGeometryConverterAdapter;
 import org.citydb.database.schema.TableEnum;
 import org.citydb.database.schema.mapping.AbstractObjectType;
 import org.citydb.database.schema.mapping.AbstractProperty;
@@ -160,8 +164,11 @@ public class CityGMLExportManager implements CityGMLExportHelper {
 	private final LodGeometryChecker lodGeometryChecker;
 	private final ExportCounter exportCounter;
 	private final JAXBUnmarshaller jaxbUnmarshaller;
+	private AbstractGeometryConverterAdapter geometryConverter;
+	private boolean transformInDatabase;
 	private GMLConverter gmlConverter;
 	private AppearanceRemover appearanceRemover;
+	private TextureAtlasGenerator textureAtlasGenerator;
 	private Document document;
 
 	private boolean failOnError = false;
@@ -193,13 +200,31 @@ public class CityGMLExportManager implements CityGMLExportHelper {
 		adeManager = ADEExtensionManager.getInstance();
 		hasADESupport = !adeManager.getEnabledExtensions().isEmpty();
 
+		// reproject geometries on the client if possible. ADE exporters read geometries
+		// through the database adapter and therefore require the database transformation
+		geometryConverter = databaseAdapter.getGeometryConverter();
+		if (config.getInternal().isTransformCoordinates()) {
+			CoordinateTransformer transformer = hasADESupport ? null : databaseAdapter.getUtil().getCoordinateTransformer(
+					databaseAdapter.getConnectionMetaData().getReferenceSystem(), query.getTargetSrs());
+
+			if (transformer != null)
+				geometryConverter = new TransformingGeometryConverterAdapter(databaseAdapter, transformer, query.getTargetSrs());
+			else
+				transformInDatabase = true;
+		}
+
 		attributeValueSplitter = new AttributeValueSplitter();
 		lodGeometryChecker = new LodGeometryChecker(schemaMapping);
 		exportCounter = new ExportCounter(schemaMapping);
 
-		if (config.getProject().getExporter().getAppearances().isSetExportAppearance())
+		if (config.getProject().getExporter().getAppearances().isSetExportAppearance()) {
 			appearanceRemover = new AppearanceRemover(xlinkPool);
 
+			if (config.getProject().getExporter().getAppearances().isSetExportTextureFiles()
+					&& config.getProject().getExporter().getAppearances().getTextureAtlas().isSet())
+				textureAtlasGenerator = new TextureAtlasGenerator(outputFile, connection, databaseAdapter, xlinkPool, config);
+		}
+
 		try {
 			jaxbUnmarshaller = cityGMLBuilder.createJAXBUnmarshaller();
 			jaxbUnmarshaller.setThrowMissingADESchema(false);
@@ -487,6 +512,10 @@ public class CityGMLExportManager implements CityGMLExportHelper {
 		return databaseAdapter;
 	}
 
+	public AbstractGeometryConverterAdapter getGeometryConverter() {
+		return geometryConverter;
+	}
+
 	@Override
 	public CityGMLVersion getTargetCityGMLVersion() {
 		return query.getTargetVersion();
@@ -532,28 +561,28 @@ public class CityGMLExportManager implements CityGMLExportHelper {
 
 	@Override
 	public ProjectionToken getGeometryColumn(Column column) {
-		return (!config.getInternal().isTransformCoordinates()) ? 
+		return !transformInDatabase ? 
 				column : new Function(databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_srs.transform_or_null"),
 						column.getName(), column, new IntegerLiteral(query.getTargetSrs().getSrid()));
 	}
 
 	@Override
 	public ProjectionToken getGeometryColumn(Column column, String asName) {
-		return (!config.getInternal().isTransformCoordinates()) ? 
+		return !transformInDatabase ? 
 				column : new Function(databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_srs.transform_or_null"),
 						asName, column, new IntegerLiteral(query.getTargetSrs().getSrid()));
 	}
 
 	@Override
 	public String getGeometryColumn(String columnName) {
-		return (!config.getInternal().isTransformCoordinates()) ? 
+		return !transformInDatabase ? 
 				columnName : databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_srs.transform_or_null") +
 				"(" + columnName + ", " + query.getTargetSrs().getSrid() + ") as " + columnName.replaceFirst(".*?\\.", "");
 	}
 
 	@Override
 	public String getGeometryColumn(String columnName, String asName) {
-		return (!config.getInternal().isTransformCoordinates()) ? 
+		return !transformInDatabase ? 
 				columnName : databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_srs.transform_or_null") +
 				"(" + columnName + ", " + query.getTargetSrs().getSrid() + ") as " + asName;
 	}
@@ -705,6 +734,11 @@ public class CityGMLExportManager implements CityGMLExportHelper {
 		return schemaMapping.getAbstractObjectType(Util.getObjectClassId(objectClass));
 	}
 
+	public void createTextureAtlases(AbstractGML object) throws SQLException {
+		if (textureAtlasGenerator != null && object instanceof AbstractCityObject)
+			textureAtlasGenerator.createTextureAtlases((AbstractCityObject)object, query.getLodFilter().preservesGeometry());
+	}
+
 	public void cleanupAppearances(AbstractGML object) {
 		if (appearanceRemover != null 
 				&& !query.getLodFilter().preservesGeometry()
@@ -764,6 +798,9 @@ public class CityGMLExportManager implements CityGMLExportHelper {
 		for (ADEExportManager adeExporter : adeExporters.values())			
 			adeExporter.close();
 
+		if (textureAtlasGenerator != null)
+			textureAtlasGenerator.close();
+
 		exporters.clear();
 	}
 
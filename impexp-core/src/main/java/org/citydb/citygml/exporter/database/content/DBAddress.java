@@ -130,7 +130,7 @@ public class DBAddress extends AbstractFeatureExporter<Address> {
 			// multiPointGeometry
 			Object multiPointObj = rs.getObject("multi_point");
 			if (!rs.wasNull()) {
-				GeometryObject multiPoint = exporter.getDatabaseAdapter().getGeometryConverter().getMultiPoint(multiPointObj);
+				GeometryObject multiPoint = exporter.getGeometryConverter().getMultiPoint(multiPointObj);
 				MultiPointProperty multiPointProperty = gmlConverter.getMultiPointProperty(multiPoint, false);
 				if (multiPointProperty != null)
 					addressObject.setMultiPointProperty(multiPointProperty);
@@ -300,7 +300,7 @@ public class DBBridge extends AbstractFeatureExporter<AbstractBridge> {
 							if (rs.wasNull())
 								continue;
 
-							GeometryObject terrainIntersection = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(terrainIntersectionObj);
+							GeometryObject terrainIntersection = exporter.getGeometryConverter().getMultiCurve(terrainIntersectionObj);
 							if (terrainIntersection != null) {
 								MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(terrainIntersection, false);
 								if (multiCurveProperty != null) {
@@ -334,7 +334,7 @@ public class DBBridge extends AbstractFeatureExporter<AbstractBridge> {
 							if (rs.wasNull())
 								continue;
 
-							GeometryObject multiCurve = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(multiCurveObj);
+							GeometryObject multiCurve = exporter.getGeometryConverter().getMultiCurve(multiCurveObj);
 							if (multiCurve != null) {
 								MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(multiCurve, false);
 								if (multiCurveProperty != null) {
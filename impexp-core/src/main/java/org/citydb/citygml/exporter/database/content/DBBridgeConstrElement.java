@@ -207,7 +207,7 @@ public class DBBridgeConstrElement extends AbstractFeatureExporter<BridgeConstru
 					if (rs.wasNull())
 						continue;
 
-					GeometryObject terrainIntersection = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(terrainIntersectionObj);
+					GeometryObject terrainIntersection = exporter.getGeometryConverter().getMultiCurve(terrainIntersectionObj);
 					if (terrainIntersection != null) {
 						MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(terrainIntersection, false);
 						if (multiCurveProperty != null) {
@@ -252,7 +252,7 @@ public class DBBridgeConstrElement extends AbstractFeatureExporter<BridgeConstru
 								geometryProperty.setHref(geometry.getReference());
 						}
 					} else {
-						GeometryObject geometry = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(geometryObj);
+						GeometryObject geometry = exporter.getGeometryConverter().getGeometry(geometryObj);
 						if (geometry != null)
 							geometryProperty = new GeometryProperty<>(gmlConverter.getPointOrCurveGeometry(geometry, true));
 					}
@@ -290,7 +290,7 @@ public class DBBridgeConstrElement extends AbstractFeatureExporter<BridgeConstru
 					GeometryObject referencePoint = null;
 					Object referencePointObj = rs.getObject(new StringBuilder("lod").append(lod).append("_implicit_ref_point").toString());
 					if (!rs.wasNull())
-						referencePoint = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+						referencePoint = exporter.getGeometryConverter().getPoint(referencePointObj);
 
 					String transformationMatrix = rs.getString(new StringBuilder("lod").append(lod).append("_implicit_transformation").toString());
 
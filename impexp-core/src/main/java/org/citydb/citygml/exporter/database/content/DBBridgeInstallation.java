@@ -252,7 +252,7 @@ public class DBBridgeInstallation extends AbstractFeatureExporter<AbstractCityOb
 								geometryProperty.setHref(geometry.getReference());
 						}
 					} else {
-						GeometryObject geometry = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(geometryObj);
+						GeometryObject geometry = exporter.getGeometryConverter().getGeometry(geometryObj);
 						if (geometry != null)
 							geometryProperty = new GeometryProperty<>(gmlConverter.getPointOrCurveGeometry(geometry, true));
 					}
@@ -292,7 +292,7 @@ public class DBBridgeInstallation extends AbstractFeatureExporter<AbstractCityOb
 					GeometryObject referencePoint = null;
 					Object referencePointObj = rs.getObject(new StringBuilder("lod").append(lod).append("_implicit_ref_point").toString());
 					if (!rs.wasNull())
-						referencePoint = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+						referencePoint = exporter.getGeometryConverter().getPoint(referencePointObj);
 
 					String transformationMatrix = rs.getString(new StringBuilder("lod").append(lod).append("_implicit_transformation").toString());
 
@@ -355,7 +355,7 @@ public class DBBuilding extends AbstractFeatureExporter<AbstractBuilding> {
 							if (rs.wasNull())
 								continue;
 
-							GeometryObject terrainIntersection = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(terrainIntersectionObj);
+							GeometryObject terrainIntersection = exporter.getGeometryConverter().getMultiCurve(terrainIntersectionObj);
 							if (terrainIntersection != null) {
 								MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(terrainIntersection, false);
 								if (multiCurveProperty != null) {
@@ -389,7 +389,7 @@ public class DBBuilding extends AbstractFeatureExporter<AbstractBuilding> {
 							if (rs.wasNull())
 								continue;
 
-							GeometryObject multiCurve = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(multiCurveObj);
+							GeometryObject multiCurve = exporter.getGeometryConverter().getMultiCurve(multiCurveObj);
 							if (multiCurve != null) {
 								MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(multiCurve, false);
 								if (multiCurveProperty != null) {
@@ -186,7 +186,7 @@ public class DBBuildingFurniture extends AbstractFeatureExporter<BuildingFurnitu
 										geometryProperty.setHref(geometry.getReference());
 								}
 							} else {
-								GeometryObject geometry = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(geometryObj);
+								GeometryObject geometry = exporter.getGeometryConverter().getGeometry(geometryObj);
 								if (geometry != null)
 									geometryProperty = new GeometryProperty<>(gmlConverter.getPointOrCurveGeometry(geometry, true));
 							}
@@ -202,7 +202,7 @@ public class DBBuildingFurniture extends AbstractFeatureExporter<BuildingFurnitu
 							GeometryObject referencePoint = null;
 							Object referencePointObj = rs.getObject("lod4_implicit_ref_point");
 							if (!rs.wasNull())
-								referencePoint = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+								referencePoint = exporter.getGeometryConverter().getPoint(referencePointObj);
 
 							String transformationMatrix = rs.getString("lod4_implicit_transformation");
 
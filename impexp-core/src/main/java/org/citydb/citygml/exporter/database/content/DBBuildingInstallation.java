@@ -253,7 +253,7 @@ public class DBBuildingInstallation extends AbstractFeatureExporter<AbstractCity
 								geometryProperty.setHref(geometry.getReference());
 						}
 					} else {
-						GeometryObject geometry = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(geometryObj);
+						GeometryObject geometry = exporter.getGeometryConverter().getGeometry(geometryObj);
 						if (geometry != null)
 							geometryProperty = new GeometryProperty<>(gmlConverter.getPointOrCurveGeometry(geometry, true));
 					}
@@ -293,7 +293,7 @@ public class DBBuildingInstallation extends AbstractFeatureExporter<AbstractCity
 					GeometryObject referencePoint = null;
 					Object referencePointObj = rs.getObject(new StringBuilder("lod").append(lod).append("_implicit_ref_point").toString());
 					if (!rs.wasNull())
-						referencePoint = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+						referencePoint = exporter.getGeometryConverter().getPoint(referencePointObj);
 
 					String transformationMatrix = rs.getString(new StringBuilder("lod").append(lod).append("_implicit_transformation").toString());
 
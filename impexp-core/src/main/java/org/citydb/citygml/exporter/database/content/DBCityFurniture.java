@@ -193,7 +193,7 @@ public class DBCityFurniture extends AbstractFeatureExporter<CityFurniture> {
 					if (rs.wasNull())
 						continue;
 
-					GeometryObject terrainIntersection = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(terrainIntersectionObj);
+					GeometryObject terrainIntersection = exporter.getGeometryConverter().getMultiCurve(terrainIntersectionObj);
 					if (terrainIntersection != null) {
 						MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(terrainIntersection, false);
 						if (multiCurveProperty != null) {
@@ -238,7 +238,7 @@ public class DBCityFurniture extends AbstractFeatureExporter<CityFurniture> {
 								geometryProperty.setHref(geometry.getReference());
 						}
 					} else {
-						GeometryObject geometry = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(geometryObj);
+						GeometryObject geometry = exporter.getGeometryConverter().getGeometry(geometryObj);
 						if (geometry != null)
 							geometryProperty = new GeometryProperty<>(gmlConverter.getPointOrCurveGeometry(geometry, true));
 					}
@@ -276,7 +276,7 @@ public class DBCityFurniture extends AbstractFeatureExporter<CityFurniture> {
 					GeometryObject referencePoint = null;
 					Object referencePointObj = rs.getObject(new StringBuilder("lod").append(lod).append("_implicit_ref_point").toString());
 					if (!rs.wasNull())
-						referencePoint = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+						referencePoint = exporter.getGeometryConverter().getPoint(referencePointObj);
 
 					String transformationMatrix = rs.getString(new StringBuilder("lod").append(lod).append("_implicit_transformation").toString());
 
@@ -198,7 +198,7 @@ public class DBCityObject implements DBExporter {
 					BoundingShape boundedBy = null;
 					Object geom = rs.getObject("envelope");
 					if (!rs.wasNull() && geom != null) {
-						GeometryObject geomObj = exporter.getDatabaseAdapter().getGeometryConverter().getEnvelope(geom);
+						GeometryObject geomObj = exporter.getGeometryConverter().getEnvelope(geom);
 						double[] coordinates = geomObj.getCoordinates(0);
 
 						Envelope envelope = new Envelope();
@@ -166,7 +166,7 @@ public class DBCityObjectGroup extends AbstractTypeExporter {
 										geometryProperty.setHref(geometry.getReference());
 								}
 							} else {
-								GeometryObject geometry = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(geometryObj);
+								GeometryObject geometry = exporter.getGeometryConverter().getGeometry(geometryObj);
 								if (geometry != null)
 									geometryProperty = new GeometryProperty<AbstractGeometry>(gmlConverter.getPointOrCurveGeometry(geometry, true));
 							}
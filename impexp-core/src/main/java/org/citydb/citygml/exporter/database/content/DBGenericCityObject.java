@@ -198,7 +198,7 @@ public class DBGenericCityObject extends AbstractFeatureExporter<GenericCityObje
 					if (rs.wasNull())
 						continue;
 
-					GeometryObject terrainIntersection = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(terrainIntersectionObj);
+					GeometryObject terrainIntersection = exporter.getGeometryConverter().getMultiCurve(terrainIntersectionObj);
 					if (terrainIntersection != null) {
 						MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(terrainIntersection, false);
 						if (multiCurveProperty != null) {
@@ -246,7 +246,7 @@ public class DBGenericCityObject extends AbstractFeatureExporter<GenericCityObje
 								geometryProperty.setHref(geometry.getReference());
 						}
 					} else {
-						GeometryObject geometry = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(geometryObj);
+						GeometryObject geometry = exporter.getGeometryConverter().getGeometry(geometryObj);
 						if (geometry != null)
 							geometryProperty = new GeometryProperty<>(gmlConverter.getPointOrCurveGeometry(geometry, true));
 					}
@@ -288,7 +288,7 @@ public class DBGenericCityObject extends AbstractFeatureExporter<GenericCityObje
 					GeometryObject referencePoint = null;
 					Object referencePointObj = rs.getObject(new StringBuilder("lod").append(lod).append("_implicit_ref_point").toString());
 					if (!rs.wasNull())
-						referencePoint = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+						referencePoint = exporter.getGeometryConverter().getPoint(referencePointObj);
 
 					String transformationMatrix = rs.getString(new StringBuilder("lod").append(lod).append("_implicit_transformation").toString());
 
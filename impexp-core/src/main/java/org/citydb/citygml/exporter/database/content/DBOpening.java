@@ -198,7 +198,7 @@ public class DBOpening extends AbstractFeatureExporter<AbstractOpening> {
 							GeometryObject referencePoint = null;
 							Object referencePointObj = rs.getObject(new StringBuilder("lod").append(lod).append("_implicit_ref_point").toString());
 							if (!rs.wasNull())
-								referencePoint = exporter.getDatabaseAdapter().getGeometryConverter().getPoint(referencePointObj);
+								referencePoint = exporter.getGeometryConverter().getPoint(referencePointObj);
 
 							String transformationMatrix = rs.getString(new StringBuilder("lod").append(lod).append("_implicit_transformation").toString());
 
@@ -144,7 +144,7 @@ public class DBReliefComponent extends AbstractFeatureExporter<AbstractReliefCom
 				if (projectionFilter.containsProperty("extent", reliefModule)) {
 					Object extentObj = rs.getObject("extent");
 					if (!rs.wasNull()) {
-						GeometryObject extent = exporter.getDatabaseAdapter().getGeometryConverter().getPolygon(extentObj);
+						GeometryObject extent = exporter.getGeometryConverter().getPolygon(extentObj);
 						if (extent != null)
 							component.setExtent(gmlConverter.getPolygonProperty(extent, false));
 					}
@@ -174,17 +174,17 @@ public class DBReliefComponent extends AbstractFeatureExporter<AbstractReliefCom
 					GeometryObject stopLines = null;
 					Object stopLinesObj = rs.getObject("stop_lines");
 					if (!rs.wasNull())
-						stopLines = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(stopLinesObj);
+						stopLines = exporter.getGeometryConverter().getMultiCurve(stopLinesObj);
 
 					GeometryObject breakLines = null;
 					Object breakLinesObj = rs.getObject("break_lines");
 					if (!rs.wasNull())
-						breakLines = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(breakLinesObj);
+						breakLines = exporter.getGeometryConverter().getMultiCurve(breakLinesObj);
 
 					GeometryObject controlPoints = null;
 					Object controlPointsObj = rs.getObject("control_points");
 					if (!rs.wasNull())
-						controlPoints = exporter.getDatabaseAdapter().getGeometryConverter().getMultiPoint(controlPointsObj);
+						controlPoints = exporter.getGeometryConverter().getMultiPoint(controlPointsObj);
 
 					// check whether we deal with gml:Tin instead
 					if (maxLength != null || stopLines != null || breakLines != null || controlPoints != null) {
@@ -227,7 +227,7 @@ public class DBReliefComponent extends AbstractFeatureExporter<AbstractReliefCom
 
 					Object reliefPointsObj = rs.getObject("relief_points");
 					if (!rs.wasNull()) {
-						GeometryObject reliefPoints = exporter.getDatabaseAdapter().getGeometryConverter().getMultiPoint(reliefPointsObj);
+						GeometryObject reliefPoints = exporter.getGeometryConverter().getMultiPoint(reliefPointsObj);
 						if (reliefPoints != null)
 							massPointRelief.setReliefPoints(gmlConverter.getMultiPointProperty(reliefPoints, false));
 					}
@@ -239,7 +239,7 @@ public class DBReliefComponent extends AbstractFeatureExporter<AbstractReliefCom
 					if (projectionFilter.containsProperty("ridgeOrValleyLines", reliefModule)) {
 						Object ridgeOrValleyLinesObj = rs.getObject("ridge_or_valley_lines");
 						if (!rs.wasNull()) {
-							GeometryObject ridgeOrValleyLines = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(ridgeOrValleyLinesObj);
+							GeometryObject ridgeOrValleyLines = exporter.getGeometryConverter().getMultiCurve(ridgeOrValleyLinesObj);
 							if (ridgeOrValleyLines != null)					
 								breaklineRelief.setRidgeOrValleyLines(gmlConverter.getMultiCurveProperty(ridgeOrValleyLines, false));
 						}
@@ -248,7 +248,7 @@ public class DBReliefComponent extends AbstractFeatureExporter<AbstractReliefCom
 					if (projectionFilter.containsProperty("breaklines", reliefModule)) {
 						Object breakLinesObj = rs.getObject("break_lines");
 						if (!rs.wasNull()) {
-							GeometryObject breakLines = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(breakLinesObj);
+							GeometryObject breakLines = exporter.getGeometryConverter().getMultiCurve(breakLinesObj);
 							if (breakLines != null)					
 								breaklineRelief.setBreaklines(gmlConverter.getMultiCurveProperty(breakLines, false));
 						}
@@ -144,7 +144,9 @@ public class DBSurfaceGeometry implements DBExporter {
 				Object object = rs.getObject(!isImplicit ? 9 : 10);
 				if (!rs.wasNull()) {
 					try {
-						geometry = exporter.getDatabaseAdapter().getGeometryConverter().getPolygon(object);
+						geometry = !isImplicit ?
+								exporter.getGeometryConverter().getPolygon(object) :
+								exporter.getDatabaseAdapter().getGeometryConverter().getPolygon(object);
 					} catch (Exception e) {
 						exporter.logOrThrowErrorMessage(new StringBuilder("Skipping ").append(exporter.getGeometrySignature(GMLClass.POLYGON, id))
 								.append(": ").append(e.getMessage()).toString());
@@ -199,7 +199,7 @@ public class DBTransportationComplex extends AbstractFeatureExporter<Transportat
 						if (lodFilter.isEnabled(0) && projectionFilter.containsProperty("lod0Network", transportationModule)) {
 							Object lod0NetworkObj = rs.getObject("lod0_network");
 							if (!rs.wasNull()) {
-								GeometryObject lod0Network = exporter.getDatabaseAdapter().getGeometryConverter().getGeometry(lod0NetworkObj);
+								GeometryObject lod0Network = exporter.getGeometryConverter().getGeometry(lod0NetworkObj);
 								if (lod0Network != null)
 									complex.addLod0Network(gmlConverter.getPointOrCurveComplexProperty(lod0Network, false));
 							}
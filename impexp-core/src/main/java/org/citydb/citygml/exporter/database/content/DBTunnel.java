@@ -257,7 +257,7 @@ public class DBTunnel extends AbstractFeatureExporter<AbstractTunnel> {
 					if (rs.wasNull())
 						continue;
 
-					GeometryObject terrainIntersection = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(terrainIntersectionObj);
+					GeometryObject terrainIntersection = exporter.getGeometryConverter().getMultiCurve(terrainIntersectionObj);
 					if (terrainIntersection != null) {
 						MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(terrainIntersection, false);
 						if (multiCurveProperty != null) {
@@ -291,7 +291,7 @@ public class DBTunnel extends AbstractFeatureExporter<AbstractTunnel> {
 					if (rs.wasNull())
 						continue;
 
-					GeometryObject multiCurve = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(multiCurveObj);
+					GeometryObject multiCurve = exporter.getGeometryConverter().getMultiCurve(multiCurveObj);
 					if (multiCurve != null) {
 						MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(multiCurve, false);
 						if (multiCurveProperty != null) {
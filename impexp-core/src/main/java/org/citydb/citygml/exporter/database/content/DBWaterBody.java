@@ -221,7 +221,7 @@ public class DBWaterBody extends AbstractFeatureExporter<WaterBody> {
 							if (rs.wasNull())
 								continue;
 
-							GeometryObject multiCurve = exporter.getDatabaseAdapter().getGeometryConverter().getMultiCurve(multiCurveObj);
+							GeometryObject multiCurve = exporter.getGeometryConverter().getMultiCurve(multiCurveObj);
 							if (multiCurve != null) {
 								MultiCurveProperty multiCurveProperty = gmlConverter.getMultiCurveProperty(multiCurve, false);
 								if (multiCurveProperty != null) {
@@ -30,6 +30,7 @@ package org.citydb.citygml.exporter.database.xlink;
 import java.sql.SQLException;
 
 public interface DBXlinkExporter {
+	public void executeBatch() throws SQLException;
 	public void close() throws SQLException;
 	public DBXlinkExporterEnum getDBXlinkExporterType();
 }
@@ -101,6 +101,11 @@ public class DBXlinkExporterLibraryObject implements DBXlinkExporter {
 		}
 	}
 
+	@Override
+	public void executeBatch() throws SQLException {
+		// nothing to do
+	}
+
 	@Override
 	public void close() throws SQLException {
 		blobExportAdapter.close();
@@ -27,6 +27,8 @@
  */
 package org.citydb.citygml.exporter.database.xlink;
 
+import org.citydb.citygml.exporter.concurrent.TextureFileWriterWorker.TextureFile;
+import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
 import org.citydb.event.Event;
@@ -43,19 +45,25 @@ public class DBXlinkExporterManager {
 	private final AbstractDatabaseAdapter databaseAdapter;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
+	private final WorkerPool<TextureFile> textureWriterPool;
 
 	private HashMap<DBXlinkExporterEnum, DBXlinkExporter> dbExporterMap;
 
-	public DBXlinkExporterManager(OutputFile outputFile, Connection connection, AbstractDatabaseAdapter databaseAdapter, Config config, EventDispatcher eventDispatcher) {
+	public DBXlinkExporterManager(OutputFile outputFile, Connection connection, AbstractDatabaseAdapter databaseAdapter, WorkerPool<TextureFile> textureWriterPool, Config config, EventDispatcher eventDispatcher) {
 		this.outputFile = outputFile;
 		this.connection = connection;
 		this.databaseAdapter = databaseAdapter;
+		this.textureWriterPool = textureWriterPool;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 
 		dbExporterMap = new HashMap<>();
 	}
 
+	public DBXlinkExporterManager(OutputFile outputFile, Connection connection, AbstractDatabaseAdapter databaseAdapter, Config config, EventDispatcher eventDispatcher) {
+		this(outputFile, connection, databaseAdapter, null, config, eventDispatcher);
+	}
+
 	public DBXlinkExporter getDBXlinkExporter(DBXlinkExporterEnum dbXlinkExporterType) throws SQLException {
 		DBXlinkExporter dbExporter = dbExporterMap.get(dbXlinkExporterType);
 
@@ -83,10 +91,19 @@ public class DBXlinkExporterManager {
 		return databaseAdapter;
 	}
 
+	public WorkerPool<TextureFile> getTextureWriterPool() {
+		return textureWriterPool;
+	}
+
 	public void propagateEvent(Event event) {
 		eventDispatcher.triggerEvent(event);
 	}
 	
+	public void executeBatch() throws SQLException {
+		for (DBXlinkExporter exporter : dbExporterMap.values())
+			exporter.executeBatch();
+	}
+
 	public void close() throws SQLException {
 		for (DBXlinkExporter exporter : dbExporterMap.values())
 			exporter.close();
@@ -27,7 +27,10 @@
  */
 package org.citydb.citygml.exporter.database.xlink;
 
+import org.apache.commons.compress.utils.IOUtils;
 import org.citydb.citygml.common.database.xlink.DBXlinkTextureFile;
+import org.citydb.citygml.exporter.concurrent.TextureFileWriterWorker.TextureFile;
+import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
 import org.citydb.database.adapter.BlobExportAdapter;
 import org.citydb.database.adapter.BlobType;
@@ -37,45 +40,50 @@ import org.citydb.file.FileType;
 import org.citydb.file.OutputFile;
 import org.citydb.log.Logger;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class DBXlinkExporterTextureImage implements DBXlinkExporter {
     private final Logger log = Logger.getInstance();
     private final DBXlinkExporterManager xlinkExporterManager;
+    private final int prefetchSize = 20;
 
     private OutputFile outputFile;
+    private WorkerPool<TextureFile> textureWriterPool;
     private BlobExportAdapter textureImageExportAdapter;
     private String textureURI;
     private boolean isAbsoluteTextureURI;
-    private String separator;
     private boolean overwriteTextureImage;
-    private boolean useBuckets;
-    private boolean[] buckets;
     private CounterEvent counter;
+    private List<Long> batchIds;
+    private List<TextureFile> batch;
 
     public DBXlinkExporterTextureImage(Connection connection, Config config, DBXlinkExporterManager xlinkExporterManager) throws SQLException {
         this.xlinkExporterManager = xlinkExporterManager;
 
         outputFile = xlinkExporterManager.getOutputFile();
+        textureWriterPool = xlinkExporterManager.getTextureWriterPool();
         textureURI = config.getInternal().getExportTextureURI();
         isAbsoluteTextureURI = new File(textureURI).isAbsolute();
-        separator = isAbsoluteTextureURI ? File.separator : "/";
         overwriteTextureImage = config.getProject().getExporter().getAppearances().isSetOverwriteTextureFiles();
         counter = new CounterEvent(CounterType.TEXTURE_IMAGE, 1, this);
-        useBuckets = config.getProject().getExporter().getAppearances().getTexturePath().isUseBuckets() &&
-                config.getProject().getExporter().getAppearances().getTexturePath().getNoOfBuckets() > 0;
-
-        if (useBuckets)
-            buckets = new boolean[config.getProject().getExporter().getAppearances().getTexturePath().getNoOfBuckets()];
+        batchIds = new ArrayList<>(prefetchSize);
+        batch = new ArrayList<>(prefetchSize);
 
+        // texture buckets are created upfront by the exporter
         textureImageExportAdapter = xlinkExporterManager.getDatabaseAdapter().getSQLAdapter().getBlobExportAdapter(connection, BlobType.TEXTURE_IMAGE);
     }
 
@@ -88,11 +96,14 @@ public class DBXlinkExporterTextureImage implements DBXlinkExporter {
         }
 
         Path file = null;
+        String entryName = null;
         try {
             if (isAbsoluteTextureURI)
                 file = Paths.get(textureURI, fileURI);
             else if (outputFile.getType() != FileType.ARCHIVE)
                 file = Paths.get(outputFile.resolve(textureURI, fileURI));
+            else
+                entryName = outputFile.resolve(textureURI, fileURI);
         } catch (InvalidPathException e) {
             log.error("Failed to export a texture file: '" + fileURI + "' is invalid.");
             return false;
@@ -101,32 +112,83 @@ public class DBXlinkExporterTextureImage implements DBXlinkExporter {
         if (file != null && !overwriteTextureImage && Files.exists(file))
             return false;
 
-        if (useBuckets) {
-            try {
-                int bucket = Integer.valueOf(fileURI.substring(0, fileURI.indexOf(separator))) - 1;
-                if (!buckets[bucket]) {
-                    buckets[bucket] = true;
+        // texture images are fetched from the database in batches
+        batchIds.add(xlink.getId());
+        batch.add(new TextureFile(fileURI, file, entryName, null));
+        if (batch.size() == prefetchSize)
+            executeBatch();
+
+        return true;
+    }
+
+    @Override
+    public void executeBatch() throws SQLException {
+        if (batch.isEmpty())
+            return;
 
-                    if (file != null)
-                        Files.createDirectories(file.getParent());
-                    else
-                        outputFile.createDirectories(textureURI + separator + bucket);
+        try {
+            // the same texture image might have to be written to several files
+            Map<Long, List<TextureFile>> pending = new LinkedHashMap<>(batch.size());
+            for (int i = 0; i < batch.size(); i++)
+                pending.computeIfAbsent(batchIds.get(i), v -> new ArrayList<>()).add(batch.get(i));
+
+            textureImageExportAdapter.getInStreams(new ArrayList<>(pending.keySet()), (id, stream) -> {
+                List<TextureFile> textureFiles = pending.remove(id);
+                if (textureFiles == null)
+                    return;
+
+                // the stream can only be consumed once
+                byte[] content = null;
+                if (textureFiles.size() > 1)
+                    content = IOUtils.toByteArray(stream);
+
+                for (TextureFile textureFile : textureFiles) {
+                    try {
+                        if (write(textureFile, content != null ? new ByteArrayInputStream(content) : stream))
+                            xlinkExporterManager.propagateEvent(counter);
+                        else
+                            log.error("Failed to read texture file: " + textureFile.getFileURI() + " (ID = " + id + ").");
+                    } catch (IOException e) {
+                        log.error("Failed to export texture file " + textureFile.getFileURI() + ": " + e.getMessage());
+                    }
                 }
-            } catch (IOException | NumberFormatException e) {
-                log.error("Failed to create texture bucket for '" + fileURI + "'.");
+            });
+
+            for (Map.Entry<Long, List<TextureFile>> entry : pending.entrySet()) {
+                for (TextureFile textureFile : entry.getValue())
+                    log.error("Failed to read texture file: " + textureFile.getFileURI() + " (ID = " + entry.getKey() + ").");
+            }
+        } catch (IOException e) {
+            log.error("Failed to export texture files: " + e.getMessage());
+        } finally {
+            batchIds.clear();
+            batch.clear();
+        }
+    }
+
+    private boolean write(TextureFile textureFile, InputStream stream) throws IOException {
+        if (textureFile.getFile() != null) {
+            // stream the texture image directly into the file
+            if (Files.copy(stream, textureFile.getFile(), StandardCopyOption.REPLACE_EXISTING) == 0) {
+                Files.deleteIfExists(textureFile.getFile());
                 return false;
             }
+
+            return true;
         }
 
-        // load image data into file
-        xlinkExporterManager.propagateEvent(counter);
-        try (OutputStream stream = file != null ? Files.newOutputStream(file) :
-                outputFile.newOutputStream(outputFile.resolve(textureURI, fileURI))) {
-            return textureImageExportAdapter.writeToStream(xlink.getId(), fileURI, stream);
-        } catch (IOException e) {
-            log.error("Failed to export texture file " + fileURI + ": " + e.getMessage());
+        // archive entries are compressed asynchronously
+        byte[] content = IOUtils.toByteArray(stream);
+        if (content.length == 0)
             return false;
-        }
+
+        textureFile = new TextureFile(textureFile.getFileURI(), null, textureFile.getEntryName(), content);
+        if (textureWriterPool != null)
+            textureWriterPool.addWork(textureFile);
+        else
+            textureFile.write(outputFile);
+
+        return true;
     }
 
     @Override
@@ -0,0 +1,499 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.exporter.util;
+
+import org.citydb.citygml.common.database.xlink.DBXlink;
+import org.citydb.citygml.exporter.concurrent.TextureFileWriterWorker.TextureFile;
+import org.citydb.concurrent.WorkerPool;
+import org.citydb.config.Config;
+import org.citydb.config.project.exporter.TextureAtlas;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.BlobExportAdapter;
+import org.citydb.database.adapter.BlobType;
+import org.citydb.file.FileType;
+import org.citydb.file.OutputFile;
+import org.citydb.log.Logger;
+import org.citydb.textureAtlas.TextureAtlasCreator;
+import org.citydb.textureAtlas.image.ImageReader;
+import org.citydb.textureAtlas.model.TextureImage;
+import org.citydb.textureAtlas.model.TextureImagesInfo;
+import org.citydb.util.CoreConstants;
+import org.citydb.util.Util;
+import org.citygml4j.model.citygml.appearance.Appearance;
+import org.citygml4j.model.citygml.appearance.ColorPlusOpacity;
+import org.citygml4j.model.citygml.appearance.ParameterizedTexture;
+import org.citygml4j.model.citygml.appearance.SurfaceDataProperty;
+import org.citygml4j.model.citygml.appearance.TexCoordList;
+import org.citygml4j.model.citygml.appearance.TextureAssociation;
+import org.citygml4j.model.citygml.appearance.TextureCoordinates;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
+import org.citygml4j.model.gml.basicTypes.Code;
+import org.citygml4j.util.gmlid.DefaultGMLIdManager;
+import org.citygml4j.util.walker.FeatureWalker;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+public class TextureAtlasGenerator {
+	private final Logger log = Logger.getInstance();
+	private final OutputFile outputFile;
+	private final WorkerPool<DBXlink> xlinkPool;
+	private final BlobExportAdapter textureImageExportAdapter;
+	private final ImageReader imageReader;
+	private final AppearanceCollector collector;
+
+	private final int packingAlgorithm;
+	private final int maxAtlasSize;
+	private final double scaleFactor;
+	private final boolean usePOTS;
+	private final String textureURI;
+	private final boolean isAbsoluteTextureURI;
+	private final String separator;
+	private final boolean useBuckets;
+	private final int noOfBuckets;
+	private final String gmlIdPrefix;
+
+	public TextureAtlasGenerator(OutputFile outputFile, Connection connection, AbstractDatabaseAdapter databaseAdapter, WorkerPool<DBXlink> xlinkPool, Config config) {
+		this.outputFile = outputFile;
+		this.xlinkPool = xlinkPool;
+
+		TextureAtlas textureAtlas = config.getProject().getExporter().getAppearances().getTextureAtlas();
+		maxAtlasSize = textureAtlas.getMaxAtlasSize();
+		scaleFactor = textureAtlas.getScaleFactor();
+		usePOTS = textureAtlas.isSetUsePowerOfTwoSize();
+
+		switch (textureAtlas.getPackingAlgorithm()) {
+			case BASIC:
+				packingAlgorithm = TextureAtlasCreator.BASIC;
+				break;
+			case TPIM_WO_ROTATION:
+				packingAlgorithm = TextureAtlasCreator.TPIM_WO_ROTATION;
+				break;
+			default:
+				packingAlgorithm = TextureAtlasCreator.TPIM;
+		}
+
+		textureURI = config.getInternal().getExportTextureURI();
+		isAbsoluteTextureURI = textureURI != null && new File(textureURI).isAbsolute();
+		separator = isAbsoluteTextureURI ? File.separator : "/";
+		noOfBuckets = config.getProject().getExporter().getAppearances().getTexturePath().getNoOfBuckets();
+		useBuckets = config.getProject().getExporter().getAppearances().getTexturePath().isUseBuckets() && noOfBuckets > 0;
+		gmlIdPrefix = config.getProject().getExporter().getXlink().getFeature().getIdPrefix();
+
+		textureImageExportAdapter = databaseAdapter.getSQLAdapter().getBlobExportAdapter(connection, BlobType.TEXTURE_IMAGE);
+		imageReader = new ImageReader();
+		imageReader.setSupportRGB(true);
+		collector = new AppearanceCollector();
+	}
+
+	// atlases are created per top-level feature and not per tile since tiles are
+	// written feature by feature and would otherwise have to be buffered completely
+	public void createTextureAtlases(AbstractCityObject cityObject, boolean propagateXlinks) throws SQLException {
+		// step 1: collect atlas candidates from all appearances of the city object
+		collector.candidates = new LinkedHashMap<>();
+		collector.excludedImageIds = new HashSet<>();
+		collector.xlinks = new HashMap<>();
+		cityObject.accept(collector);
+
+		// step 2: pack the texture images of each appearance into atlases
+		for (Map.Entry<Appearance, List<Candidate>> entry : collector.candidates.entrySet()) {
+			List<Candidate> candidates = entry.getValue();
+
+			// texture images that are also used by other textures must be exported as they are
+			candidates.removeIf(candidate -> collector.excludedImageIds.contains(candidate.texImageId));
+			for (List<Candidate> group : groupCandidates(candidates)) {
+				if (group.size() > 1)
+					createTextureAtlases(entry.getKey(), group);
+			}
+		}
+
+		// step 3: export the texture images of the remaining textures
+		for (Appearance appearance : collector.candidates.keySet()) {
+			for (SurfaceDataProperty property : appearance.getSurfaceDataMember()) {
+				if (!(property.getSurfaceData() instanceof ParameterizedTexture))
+					continue;
+
+				// the xlink of a shared texture image might have been attached
+				// to a texture that has been merged into an atlas
+				ParameterizedTexture texture = (ParameterizedTexture)property.getSurfaceData();
+				DBXlink xlink = collector.xlinks.remove(texture.getLocalProperty(CoreConstants.TEXTURE_IMAGE_ID));
+				if (xlink != null) {
+					if (propagateXlinks)
+						xlinkPool.addWork(xlink);
+					else
+						texture.setLocalProperty(CoreConstants.TEXTURE_IMAGE_XLINK, xlink);
+				}
+			}
+		}
+
+		collector.candidates = null;
+		collector.excludedImageIds = null;
+		collector.xlinks = null;
+	}
+
+	private List<List<Candidate>> groupCandidates(List<Candidate> candidates) {
+		// only textures sharing the same texture properties can be merged into one atlas
+		List<List<Candidate>> groups = new ArrayList<>();
+		Map<Long, List<Candidate>> imageGroups = new HashMap<>();
+		Set<Long> sharedImageIds = new HashSet<>();
+
+		for (Candidate candidate : candidates) {
+			List<Candidate> group = null;
+			for (List<Candidate> tmp : groups) {
+				if (matches(tmp.get(0).texture, candidate.texture)) {
+					group = tmp;
+					break;
+				}
+			}
+
+			if (group == null) {
+				group = new ArrayList<>();
+				groups.add(group);
+			}
+
+			group.add(candidate);
+
+			// texture images used by textures of different groups are not merged
+			List<Candidate> imageGroup = imageGroups.putIfAbsent(candidate.texImageId, group);
+			if (imageGroup != null && imageGroup != group)
+				sharedImageIds.add(candidate.texImageId);
+		}
+
+		if (!sharedImageIds.isEmpty()) {
+			for (List<Candidate> group : groups)
+				group.removeIf(candidate -> sharedImageIds.contains(candidate.texImageId));
+		}
+
+		return groups;
+	}
+
+	private boolean matches(ParameterizedTexture first, ParameterizedTexture second) {
+		if (first.getTextureType() != second.getTextureType())
+			return false;
+
+		if (first.getWrapMode() != second.getWrapMode())
+			return false;
+
+		ColorPlusOpacity firstBorder = first.getBorderColor();
+		ColorPlusOpacity secondBorder = second.getBorderColor();
+
+		if ((firstBorder == null && secondBorder != null) ||
+				(secondBorder == null && firstBorder != null))
+			return false;
+
+		if (firstBorder != null && secondBorder != null && !firstBorder.equals(secondBorder))
+			return false;
+
+		return true;
+	}
+
+	private void createTextureAtlases(Appearance appearance, List<Candidate> candidates) throws SQLException {
+		// load texture images from database
+		List<Long> texImageIds = new ArrayList<>();
+		for (Candidate candidate : candidates) {
+			if (!texImageIds.contains(candidate.texImageId))
+				texImageIds.add(candidate.texImageId);
+		}
+
+		Map<Long, TextureImage> images = new HashMap<>();
+		for (Map.Entry<Long, byte[]> entry : textureImageExportAdapter.getInByteArrays(texImageIds).entrySet()) {
+			try {
+				TextureImage image = imageReader.read(new ByteArrayInputStream(entry.getValue()));
+				if (image != null)
+					images.put(entry.getKey(), image);
+			} catch (IOException e) {
+				// unsupported image format
+			}
+		}
+
+		// split texture images into chunks that fit into a single atlas
+		long maxArea = (long)maxAtlasSize * maxAtlasSize;
+		List<List<Long>> chunks = new ArrayList<>();
+		List<Long> chunk = new ArrayList<>();
+		long area = 0;
+
+		for (Long texImageId : texImageIds) {
+			TextureImage image = images.get(texImageId);
+			if (image == null)
+				continue;
+
+			long width = (long)Math.ceil(image.getWidth() * scaleFactor);
+			long height = (long)Math.ceil(image.getHeight() * scaleFactor);
+			if (width > maxAtlasSize || height > maxAtlasSize) {
+				images.remove(texImageId);
+				continue;
+			}
+
+			if (area + width * height > maxArea) {
+				chunks.add(chunk);
+				chunk = new ArrayList<>();
+				area = 0;
+			}
+
+			chunk.add(texImageId);
+			area += width * height;
+		}
+
+		chunks.add(chunk);
+
+		for (List<Long> ids : chunks) {
+			// an atlas with a single texture image does not pay off
+			if (ids.size() < 2)
+				continue;
+
+			List<Candidate> atlasCandidates = new ArrayList<>();
+			for (Candidate candidate : candidates) {
+				if (ids.contains(candidate.texImageId))
+					atlasCandidates.add(candidate);
+			}
+
+			createTextureAtlas(appearance, atlasCandidates, images);
+		}
+	}
+
+	private void createTextureAtlas(Appearance appearance, List<Candidate> candidates, Map<Long, TextureImage> images) {
+		HashMap<Object, String> texImageURIs = new HashMap<>();
+		HashMap<String, TextureImage> texImages = new HashMap<>();
+		HashMap<Object, String> texCoordinates = new HashMap<>();
+		Map<Integer, TextureAssociation> targets = new HashMap<>();
+
+		int key = 0;
+		for (Candidate candidate : candidates) {
+			String extension = Util.getFileExtension(candidate.texture.getImageURI());
+			String imageURI = CoreConstants.UNIQUE_TEXTURE_FILENAME_PREFIX + candidate.texImageId + (!extension.isEmpty() ? "." + extension : "");
+			texImages.put(imageURI, images.get(candidate.texImageId));
+
+			for (TextureAssociation target : candidate.texture.getTarget()) {
+				StringBuilder coordinates = new StringBuilder();
+				for (TextureCoordinates textureCoordinates : ((TexCoordList)target.getTextureParameterization()).getTextureCoordinates()) {
+					for (Double value : textureCoordinates.getValue()) {
+						if (coordinates.length() > 0)
+							coordinates.append(' ');
+
+						coordinates.append(value);
+					}
+				}
+
+				texImageURIs.put(key, imageURI);
+				texCoordinates.put(key, coordinates.toString());
+				targets.put(key++, target);
+			}
+		}
+
+		TextureImagesInfo tiInfo = new TextureImagesInfo();
+		tiInfo.setTexImageURIs(texImageURIs);
+		tiInfo.setTexImages(texImages);
+		tiInfo.setTexCoordinates(texCoordinates);
+
+		TextureAtlasCreator taCreator = new TextureAtlasCreator();
+		taCreator.setUsePOTS(usePOTS);
+		taCreator.setScaleFactor(scaleFactor);
+
+		try {
+			taCreator.convert(tiInfo, packingAlgorithm);
+		} catch (Exception e) {
+			log.error("Failed to create texture atlas: " + e.getMessage());
+			return;
+		}
+
+		for (String atlasURI : texImageURIs.values()) {
+			if (!texImages.containsKey(atlasURI)) {
+				log.error("Failed to create texture atlas: Missing atlas image '" + atlasURI + "'.");
+				return;
+			}
+		}
+
+		// encode and write atlas images
+		ParameterizedTexture template = candidates.get(0).texture;
+		Map<String, ParameterizedTexture> atlases = new HashMap<>();
+		for (Map.Entry<String, TextureImage> entry : texImages.entrySet()) {
+			if (!texImageURIs.containsValue(entry.getKey()))
+				continue;
+
+			BufferedImage image = entry.getValue().getBufferedImage();
+			String format = image.getColorModel().hasAlpha() ? "png" : "jpeg";
+			String fileName = DefaultGMLIdManager.getInstance().generateUUID("atlas_") + (format.equals("png") ? ".png" : ".jpg");
+			if (useBuckets)
+				fileName = String.valueOf(Math.abs(fileName.hashCode() % noOfBuckets) + 1) + separator + fileName;
+
+			try {
+				ByteArrayOutputStream stream = new ByteArrayOutputStream();
+				if (!ImageIO.write(image, format, stream)) {
+					log.error("Failed to encode texture atlas '" + fileName + "'.");
+					return;
+				}
+
+				writeTextureFile(fileName, stream.toByteArray());
+			} catch (IOException | InvalidPathException e) {
+				log.error("Failed to export texture atlas '" + fileName + "': " + e.getMessage());
+				return;
+			}
+
+			ParameterizedTexture atlas = new ParameterizedTexture();
+			atlas.setId(DefaultGMLIdManager.getInstance().generateUUID(gmlIdPrefix));
+			atlas.setImageURI(textureURI != null ? textureURI + separator + fileName : fileName);
+			atlas.setMimeType(new Code(format.equals("png") ? "image/png" : "image/jpeg"));
+			atlas.setTextureType(template.getTextureType());
+			atlas.setWrapMode(template.getWrapMode());
+			atlas.setBorderColor(template.getBorderColor());
+			atlases.put(entry.getKey(), atlas);
+		}
+
+		// rewrite texture coordinates and assign targets to atlases
+		for (Map.Entry<Integer, TextureAssociation> entry : targets.entrySet()) {
+			ParameterizedTexture atlas = atlases.get(texImageURIs.get(entry.getKey()));
+			TextureAssociation target = entry.getValue();
+
+			StringTokenizer tokenizer = new StringTokenizer(texCoordinates.get(entry.getKey()), " ");
+			for (TextureCoordinates textureCoordinates : ((TexCoordList)target.getTextureParameterization()).getTextureCoordinates()) {
+				List<Double> value = new ArrayList<>(textureCoordinates.getValue().size());
+				for (int i = 0; i < textureCoordinates.getValue().size() && tokenizer.hasMoreTokens(); i++)
+					value.add(Double.parseDouble(tokenizer.nextToken()));
+
+				textureCoordinates.setValue(value);
+			}
+
+			atlas.addTarget(target);
+		}
+
+		// replace original textures with atlases
+		for (Candidate candidate : candidates)
+			appearance.getSurfaceDataMember().remove(candidate.property);
+
+		for (ParameterizedTexture atlas : atlases.values())
+			appearance.addSurfaceDataMember(new SurfaceDataProperty(atlas));
+	}
+
+	private void writeTextureFile(String fileName, byte[] content) throws IOException {
+		Path file = null;
+		String entryName = null;
+
+		if (isAbsoluteTextureURI)
+			file = Paths.get(textureURI, fileName);
+		else if (outputFile.getType() != FileType.ARCHIVE)
+			file = Paths.get(outputFile.resolve(textureURI, fileName));
+		else
+			entryName = outputFile.resolve(textureURI, fileName);
+
+		new TextureFile(fileName, file, entryName, content).write(outputFile);
+	}
+
+	public void close() throws SQLException {
+		textureImageExportAdapter.close();
+	}
+
+	private boolean isAtlasCandidate(ParameterizedTexture texture) {
+		if (!texture.isSetTarget() || (texture.isSetIsFront() && !texture.getIsFront()))
+			return false;
+
+		for (TextureAssociation target : texture.getTarget()) {
+			if (!(target.getTextureParameterization() instanceof TexCoordList))
+				return false;
+
+			TexCoordList texCoordList = (TexCoordList)target.getTextureParameterization();
+			if (!texCoordList.isSetTextureCoordinates())
+				return false;
+
+			// atlases do not support wrapping textures
+			for (TextureCoordinates textureCoordinates : texCoordList.getTextureCoordinates()) {
+				if (!textureCoordinates.isSetValue() || textureCoordinates.getValue().size() % 2 != 0)
+					return false;
+
+				for (Double value : textureCoordinates.getValue()) {
+					if (value == null || value < 0 || value > 1)
+						return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private final class Candidate {
+		private final ParameterizedTexture texture;
+		private final SurfaceDataProperty property;
+		private final long texImageId;
+
+		Candidate(ParameterizedTexture texture, SurfaceDataProperty property, long texImageId) {
+			this.texture = texture;
+			this.property = property;
+			this.texImageId = texImageId;
+		}
+	}
+
+	private final class AppearanceCollector extends FeatureWalker {
+		private Map<Appearance, List<Candidate>> candidates;
+		private Set<Long> excludedImageIds;
+		private Map<Object, DBXlink> xlinks;
+
+		@Override
+		public void visit(Appearance appearance) {
+			List<Candidate> appearanceCandidates = new ArrayList<>();
+
+			for (SurfaceDataProperty property : appearance.getSurfaceDataMember()) {
+				if (!(property.getSurfaceData() instanceof ParameterizedTexture))
+					continue;
+
+				ParameterizedTexture texture = (ParameterizedTexture)property.getSurfaceData();
+				Object texImageId = texture.getLocalProperty(CoreConstants.TEXTURE_IMAGE_ID);
+				if (!(texImageId instanceof Long))
+					continue;
+
+				// detach xlinks so that they can be reassigned after creating the atlases
+				if (texture.hasLocalProperty(CoreConstants.TEXTURE_IMAGE_XLINK))
+					xlinks.put(texImageId, (DBXlink)texture.unsetLocalProperty(CoreConstants.TEXTURE_IMAGE_XLINK));
+
+				if (isAtlasCandidate(texture))
+					appearanceCandidates.add(new Candidate(texture, property, (Long)texImageId));
+				else
+					excludedImageIds.add((Long)texImageId);
+			}
+
+			candidates.put(appearance, appearanceCandidates);
+			super.visit(appearance);
+		}
+	}
+
+}
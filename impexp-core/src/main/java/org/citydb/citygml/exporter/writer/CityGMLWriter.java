@@ -28,15 +28,20 @@
 package org.citydb.citygml.exporter.writer;
 
 import org.citydb.citygml.exporter.util.Metadata;
+import org.citydb.concurrent.MemoryBudget;
 import org.citydb.concurrent.SingleWorkerPool;
 import org.citydb.config.geometry.BoundingBox;
+import org.citydb.config.project.general.FastPath;
 import org.citydb.event.Event;
 import org.citydb.event.EventDispatcher;
 import org.citydb.event.EventHandler;
 import org.citydb.event.global.EventType;
+import org.citydb.log.Logger;
 import org.citydb.registry.ObjectRegistry;
+import org.citydb.util.WorkSizeEstimator;
 import org.citydb.writer.SequentialWriter;
-import org.citydb.writer.XMLWriterWorkerFactory;
+import org.citydb.writer.TextWriterWorkerFactory;
+import org.citydb.writer.XMLSerializer;
 import org.citygml4j.builder.jaxb.CityGMLBuilder;
 import org.citygml4j.builder.jaxb.marshal.JAXBMarshaller;
 import org.citygml4j.geometry.Point;
@@ -45,6 +50,7 @@ import org.citygml4j.model.citygml.appearance.AppearanceMember;
 import org.citygml4j.model.citygml.core.AbstractCityObject;
 import org.citygml4j.model.citygml.core.CityModel;
 import org.citygml4j.model.citygml.core.CityObjectMember;
+import org.citygml4j.model.common.base.ModelObject;
 import org.citygml4j.model.gml.base.StringOrRef;
 import org.citygml4j.model.gml.basicTypes.Code;
 import org.citygml4j.model.gml.feature.AbstractFeature;
@@ -52,43 +58,60 @@ import org.citygml4j.model.gml.feature.BoundingShape;
 import org.citygml4j.model.gml.feature.FeatureMember;
 import org.citygml4j.model.gml.feature.FeatureProperty;
 import org.citygml4j.model.gml.geometry.primitives.Envelope;
-import org.citygml4j.model.module.citygml.CityGMLModuleType;
 import org.citygml4j.model.module.citygml.CityGMLVersion;
 import org.citygml4j.util.internal.xml.TransformerChain;
 import org.citygml4j.util.internal.xml.TransformerChainFactory;
-import org.citygml4j.util.xml.SAXEventBuffer;
-import org.citygml4j.util.xml.SAXFragmentWriter;
-import org.citygml4j.util.xml.SAXFragmentWriter.WriteMode;
-import org.citygml4j.util.xml.SAXWriter;
 import org.xml.sax.SAXException;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.namespace.QName;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.sax.SAXResult;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CityGMLWriter implements FeatureWriter, EventHandler {
-	private final SingleWorkerPool<SAXEventBuffer> writerPool;
-	private final SAXWriter saxWriter;
+	private final Logger log = Logger.getInstance();
+	private final SingleWorkerPool<String> writerPool;
+	private final Writer writer;
+	private final XMLSerializer serializer;
 	private final CityGMLBuilder cityGMLBuilder;
 	private final JAXBMarshaller jaxbMarshaller;
-	private final CityGMLVersion version;
 	private final TransformerChainFactory transformerChainFactory;
 	private final boolean useSequentialWriting;
+	private final MemoryBudget memoryBudget;
+	private final boolean useFastPath;
+	private final boolean verifyFastPath;
 	private final EventDispatcher eventDispatcher;
 
+	// features are serialized on the export workers, so we keep the
+	// infrastructure for serializing them per thread and reuse it
+	private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<>();
+	private final ThreadLocal<TransformerChain> transformerChains = new ThreadLocal<>();
+	private final ThreadLocal<XMLSerializer.Fragment> fragments = new ThreadLocal<>();
+	private final ThreadLocal<FastPathMarshaller> fastPathMarshallers = new ThreadLocal<>();
+
+	private final AtomicLong verifiedFeatures = new AtomicLong();
+	private final AtomicLong fastPathMismatches = new AtomicLong();
+
 	private volatile boolean headerWritten = false;
+	private String rootElement;
 	private Metadata metadata;
 
-	private SequentialWriter<SAXEventBuffer> sequentialWriter;
+	private SequentialWriter<String> sequentialWriter;
 
-	CityGMLWriter(SAXWriter saxWriter, CityGMLVersion version, TransformerChainFactory transformerChainFactory, boolean useSequentialWriting) {
-		this.saxWriter = saxWriter;
-		this.version = version;
+	CityGMLWriter(Writer writer, XMLSerializer serializer, CityGMLVersion version, TransformerChainFactory transformerChainFactory, boolean useSequentialWriting, FastPath fastPath, MemoryBudget memoryBudget) {
+		this.writer = writer;
+		this.serializer = serializer;
 		this.transformerChainFactory = transformerChainFactory;
 		this.useSequentialWriting = useSequentialWriting;
+		this.memoryBudget = memoryBudget;
+
+		// the fast path only covers CityGML 2.0 content that is not transformed afterwards
+		useFastPath = fastPath.isEnabled() && transformerChainFactory == null && version == CityGMLVersion.v2_0_0;
+		verifyFastPath = useFastPath && fastPath.isVerify();
 
 		cityGMLBuilder = ObjectRegistry.getInstance().getCityGMLBuilder();
 		jaxbMarshaller = cityGMLBuilder.createJAXBMarshaller(version);
@@ -98,10 +121,13 @@ public class CityGMLWriter implements FeatureWriter, EventHandler {
 
 		writerPool = new SingleWorkerPool<>(
 				"citygml_writer_pool",
-				new XMLWriterWorkerFactory(saxWriter, eventDispatcher),
-				100,
+				new TextWriterWorkerFactory(writer, eventDispatcher),
+				memoryBudget != null ? MemoryBudget.DEFAULT_QUEUE_SIZE : 100,
 				false);
 
+		if (memoryBudget != null)
+			writerPool.setMemoryBudget(memoryBudget, WorkSizeEstimator::estimate);
+
 		writerPool.prestartCoreWorkers();
 
 		if (useSequentialWriting)
@@ -110,7 +136,7 @@ public class CityGMLWriter implements FeatureWriter, EventHandler {
 
 	@Override
 	public void useIndentation(boolean useIndentation) {
-		saxWriter.setIndentString(useIndentation ? "  " : "");
+		serializer.setIndentString(useIndentation ? "  " : "");
 	}
 
 	@Override
@@ -124,14 +150,57 @@ public class CityGMLWriter implements FeatureWriter, EventHandler {
 	@Override
 	public void writeHeader() throws FeatureWriteException {
 		headerWritten = true;
-		writeCityModel(WriteMode.HEAD);
+
+		CityModel cityModel = new CityModel();
+		if (metadata != null) {
+			if (metadata.isSetDatasetName())
+				cityModel.addName(new Code(metadata.getDatasetName()));
+
+			if (metadata.isSetDatasetDescription())
+				cityModel.setDescription(new StringOrRef(metadata.getDatasetDescription()));
+
+			if (metadata.isSetSpatialExtent() && metadata.getSpatialExtent().isValid()) {
+				BoundingBox extent = metadata.getSpatialExtent();
+
+				Envelope envelope = new Envelope();
+				envelope.setLowerCorner(new Point(extent.getLowerCorner().getX(), extent.getLowerCorner().getY(), extent.getLowerCorner().getZ()));
+				envelope.setUpperCorner(new Point(extent.getUpperCorner().getX(), extent.getUpperCorner().getY(), extent.getUpperCorner().getZ()));
+				envelope.setSrsDimension(3);
+				if (extent.isSetSrs())
+					envelope.setSrsName(extent.getSrs().getGMLSrsName());
+
+				cityModel.setBoundedBy(new BoundingShape(envelope));
+			}
+		}
+
+		// the root element is kept open and closed when writing the end of the document
+		XMLSerializer.Fragment fragment = serializer.createRootFragment();
+		try {
+			marshal(cityModel, fragment);
+		} catch (JAXBException | SAXException | TransformerConfigurationException e) {
+			throw new FeatureWriteException("Failed to write CityGML document header.", e);
+		}
+
+		rootElement = fragment.getRootElement();
+
+		try {
+			writer.write(serializer.getStartDocument());
+			writer.write(fragment.toString());
+		} catch (IOException e) {
+			throw new FeatureWriteException("Failed to write CityGML document header.", e);
+		}
 	}
 
 	private void writeEndDocument() throws FeatureWriteException {
 		if (!headerWritten)
 			writeHeader();
 
-		writeCityModel(WriteMode.TAIL);
+		try {
+			if (rootElement != null)
+				writer.write(serializer.getEndElement(rootElement));
+		} catch (IOException e) {
+			throw new FeatureWriteException("Failed to write CityGML document end.", e);
+		}
 	}
 
 	@Override
@@ -154,35 +223,57 @@ public class CityGMLWriter implements FeatureWriter, EventHandler {
 			((FeatureMember)member).setFeature(feature);
 		}
 
-		SAXEventBuffer buffer = new SAXEventBuffer();
+		// serialize the feature on the calling worker thread so that
+		// the writer thread only has to copy the result to the output
+		XMLSerializer.Fragment fragment = fragments.get();
+		if (fragment == null) {
+			fragment = serializer.createFragment(1);
+			fragments.set(fragment);
+		}
+
+		String content = null;
 		try {
-			JAXBElement<?> jaxbElement = jaxbMarshaller.marshalJAXBElement(member);
-			if (jaxbElement != null) {
-				Marshaller marshaller = cityGMLBuilder.getJAXBContext().createMarshaller();
-				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+			if (useFastPath) {
+				FastPathMarshaller fastPathMarshaller = fastPathMarshallers.get();
+				if (fastPathMarshaller == null) {
+					fastPathMarshaller = new FastPathMarshaller();
+					fastPathMarshallers.set(fastPathMarshaller);
+				}
+
+				if (fastPathMarshaller.marshal(feature, fragment))
+					content = fragment.toString();
 
-				if (transformerChainFactory == null)
-					marshaller.marshal(jaxbElement, buffer);
-				else {
-					TransformerChain chain = transformerChainFactory.buildChain();
-					chain.tail().setResult(new SAXResult(buffer));
-					chain.head().startDocument();
-					marshaller.marshal(jaxbElement, chain.head());
-					chain.head().endDocument();
+				// discard partial output of features that are left to JAXB
+				fragment.reset();
+			}
+
+			if (content == null || verifyFastPath) {
+				marshal(member, fragment);
+				if (fragment.isEmpty())
+					throw new FeatureWriteException("Failed to write feature with gml:id '" + feature.getId() + "'.");
+
+				String jaxbContent = fragment.toString();
+				if (content != null) {
+					verifiedFeatures.incrementAndGet();
+					if (!content.equals(jaxbContent)) {
+						fastPathMismatches.incrementAndGet();
+						log.debug("Fast-path serialization of feature with gml:id '" + feature.getId() + "' differs from JAXB output.");
+					}
 				}
+
+				content = jaxbContent;
 			}
 		} catch (JAXBException | SAXException | TransformerConfigurationException e) {
 			throw new FeatureWriteException("Failed to write feature with gml:id '" + feature.getId() + "'.", e);
+		} finally {
+			fragment.reset();
 		}
 
-		if (buffer.isEmpty())
-			throw new FeatureWriteException("Failed to write feature with gml:id '" + feature.getId() + "'.");
-
 		if (!useSequentialWriting)
-			writerPool.addWork(buffer);
+			writerPool.addWork(content);
 		else {
 			try {
-				sequentialWriter.write(buffer, sequenceId);
+				sequentialWriter.write(content, sequenceId);
 			} catch (InterruptedException e) {
 				throw new FeatureWriteException("Failed to write feature with gml:id '" + feature.getId() + "'.", e);
 			}
@@ -208,7 +299,17 @@ public class CityGMLWriter implements FeatureWriter, EventHandler {
 
 			writerPool.shutdownAndWait();
 			writeEndDocument();
-			saxWriter.close();
+			writer.close();
+
+			if (memoryBudget != null)
+				memoryBudget.logUsage();
+
+			if (verifyFastPath) {
+				if (fastPathMismatches.get() == 0)
+					log.info("Fast-path serialization matched JAXB for all " + verifiedFeatures.get() + " verified features.");
+				else
+					log.warn("Fast-path serialization differed from JAXB for " + fastPathMismatches.get() + " of " + verifiedFeatures.get() + " verified features.");
+			}
 		} catch (Throwable e) {
 			throw new FeatureWriteException("Failed to close CityGML writer.", e);
 		} finally {
@@ -218,50 +319,32 @@ public class CityGMLWriter implements FeatureWriter, EventHandler {
 			eventDispatcher.removeEventHandler(this);
 		}
 	}
-	
-	private void writeCityModel(WriteMode mode) throws FeatureWriteException {
-		try {
-			SAXFragmentWriter fragmentWriter = new SAXFragmentWriter(
-					new QName(version.getCityGMLModule(CityGMLModuleType.CORE).getNamespaceURI(), "CityModel"), 
-					saxWriter, 
-					mode);
-
-			CityModel cityModel = new CityModel();
-			if (metadata != null && mode == WriteMode.HEAD) {
-				if (metadata.isSetDatasetName())
-					cityModel.addName(new Code(metadata.getDatasetName()));
-
-				if (metadata.isSetDatasetDescription())
-					cityModel.setDescription(new StringOrRef(metadata.getDatasetDescription()));
-
-				if (metadata.isSetSpatialExtent() && metadata.getSpatialExtent().isValid()) {
-					BoundingBox extent = metadata.getSpatialExtent();
-
-					Envelope envelope = new Envelope();
-					envelope.setLowerCorner(new Point(extent.getLowerCorner().getX(), extent.getLowerCorner().getY(), extent.getLowerCorner().getZ()));
-					envelope.setUpperCorner(new Point(extent.getUpperCorner().getX(), extent.getUpperCorner().getY(), extent.getUpperCorner().getZ()));
-					envelope.setSrsDimension(3);
-					if (extent.isSetSrs())
-						envelope.setSrsName(extent.getSrs().getGMLSrsName());
-
-					cityModel.setBoundedBy(new BoundingShape(envelope));
-				}
-			}
 
-			JAXBElement<?> jaxbElement = jaxbMarshaller.marshalJAXBElement(cityModel);
-			if (jaxbElement != null) {
-				Marshaller marshaller = cityGMLBuilder.getJAXBContext().createMarshaller();
+	private void marshal(ModelObject object, XMLSerializer.Fragment fragment) throws JAXBException, SAXException, TransformerConfigurationException {
+		JAXBElement<?> jaxbElement = jaxbMarshaller.marshalJAXBElement(object);
+		if (jaxbElement != null) {
+			Marshaller marshaller = marshallers.get();
+			if (marshaller == null) {
+				marshaller = cityGMLBuilder.getJAXBContext().createMarshaller();
+				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+				marshallers.set(marshaller);
+			}
 
-				if (transformerChainFactory == null)
-					marshaller.marshal(jaxbElement, fragmentWriter);
-				else {
-					TransformerChain chain = transformerChainFactory.buildChain();
-					chain.tail().setResult(new SAXResult(fragmentWriter));
-					marshaller.marshal(jaxbElement, chain.head());
-				}
+			if (transformerChainFactory == null)
+				marshaller.marshal(jaxbElement, fragment);
+			else {
+				TransformerChain chain = transformerChains.get();
+				if (chain == null)
+					chain = transformerChainFactory.buildChain();
+
+				// a chain left in an undefined state by a failed transformation is not reused
+				transformerChains.remove();
+				chain.tail().setResult(new SAXResult(fragment));
+				chain.head().startDocument();
+				marshaller.marshal(jaxbElement, chain.head());
+				chain.head().endDocument();
+				transformerChains.set(chain);
 			}
-		} catch (JAXBException | TransformerConfigurationException e) {
-			throw new FeatureWriteException("Failed to write CityGML document header.", e);
 		}
 	}
 
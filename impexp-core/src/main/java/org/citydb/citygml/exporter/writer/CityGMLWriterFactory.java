@@ -29,6 +29,7 @@ package org.citydb.citygml.exporter.writer;
 
 import org.citydb.ade.model.module.CityDBADE100Module;
 import org.citydb.ade.model.module.CityDBADE200Module;
+import org.citydb.concurrent.MemoryBudget;
 import org.citydb.config.Config;
 import org.citydb.config.project.exporter.CityGMLOptions;
 import org.citydb.config.project.exporter.Namespace;
@@ -38,6 +39,7 @@ import org.citydb.database.schema.mapping.SchemaMapping;
 import org.citydb.log.Logger;
 import org.citydb.query.Query;
 import org.citydb.query.filter.type.FeatureTypeFilter;
+import org.citydb.writer.XMLSerializer;
 import org.citygml4j.model.module.Module;
 import org.citygml4j.model.module.ModuleContext;
 import org.citygml4j.model.module.Modules;
@@ -47,7 +49,6 @@ import org.citygml4j.model.module.citygml.CityGMLModuleType;
 import org.citygml4j.model.module.citygml.CityGMLVersion;
 import org.citygml4j.model.module.citygml.CityObjectGroupModule;
 import org.citygml4j.util.internal.xml.TransformerChainFactory;
-import org.citygml4j.util.xml.SAXWriter;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Templates;
@@ -68,12 +69,15 @@ public class CityGMLWriterFactory implements FeatureWriterFactory {
 	private final CityGMLVersion version;
 	private final FeatureTypeFilter featureTypeFilter;
 
+	private final MemoryBudget memoryBudget;
+
 	private TransformerChainFactory transformerChainFactory;
 	private CityGMLOptions cityGMLOptions;
 	private boolean setAllCityGMLPrefixes;
 	private boolean useSequentialWriting;
 
-	public CityGMLWriterFactory(Query query, SchemaMapping schemaMapping, Config config) throws FeatureWriteException {
+	public CityGMLWriterFactory(Query query, SchemaMapping schemaMapping, MemoryBudget memoryBudget, Config config) throws FeatureWriteException {
+		this.memoryBudget = memoryBudget;
 		this.config = config;
 
 		version = query.getTargetVersion();
@@ -114,14 +118,14 @@ public class CityGMLWriterFactory implements FeatureWriterFactory {
 
 	@Override
 	public FeatureWriter createFeatureWriter(Writer writer) {
-		SAXWriter saxWriter = new SAXWriter();
+		XMLSerializer serializer = new XMLSerializer();
 
-		// prepare SAX writer
-		saxWriter.setWriteEncoding(true);
-		saxWriter.setIndentString("  ");
+		// prepare XML serializer
+		serializer.setWriteEncoding(true);
+		serializer.setIndentString("  ");
 
 		if (cityGMLOptions.isWriteProductHeader()) {
-			saxWriter.setHeaderComment("Written by " + this.getClass().getPackage().getImplementationTitle() + ", version \"" +
+			serializer.setHeaderComment("Written by " + this.getClass().getPackage().getImplementationTitle() + ", version \"" +
 							this.getClass().getPackage().getImplementationVersion() + '"',
 					this.getClass().getPackage().getImplementationVendor());
 		}
@@ -132,21 +136,21 @@ public class CityGMLWriterFactory implements FeatureWriterFactory {
 		// add default prefixes and schema locations
 		Namespace core = namespaces.get(moduleContext.getModule(CityGMLModuleType.CORE).getNamespaceURI());
 		if (core.getMode() != NamespaceMode.SKIP) {
-			saxWriter.setPrefix(core.getPrefix(), core.getURI());
+			serializer.setPrefix(core.getPrefix(), core.getURI());
 			if (core.isSetSchemaLocation())
-				saxWriter.setSchemaLocation(core.getURI(), core.getSchemaLocation());
+				serializer.setSchemaLocation(core.getURI(), core.getSchemaLocation());
 		}
 
 		Namespace generics = namespaces.get(moduleContext.getModule(CityGMLModuleType.GENERICS).getNamespaceURI());
 		if (generics.getMode() != NamespaceMode.SKIP) {
-			saxWriter.setPrefix(generics.getPrefix(), generics.getURI());
-			saxWriter.setSchemaLocation(generics.getURI(), generics.getSchemaLocation());
+			serializer.setPrefix(generics.getPrefix(), generics.getURI());
+			serializer.setSchemaLocation(generics.getURI(), generics.getSchemaLocation());
 		}
 
 		Namespace appearance = namespaces.get(moduleContext.getModule(CityGMLModuleType.APPEARANCE).getNamespaceURI());
 		if (appearance.getMode() != NamespaceMode.SKIP && config.getProject().getExporter().getAppearances().isSetExportAppearance()) {
-			saxWriter.setPrefix(appearance.getPrefix(), appearance.getURI());
-			saxWriter.setSchemaLocation(appearance.getURI(), appearance.getSchemaLocation());
+			serializer.setPrefix(appearance.getPrefix(), appearance.getURI());
+			serializer.setSchemaLocation(appearance.getURI(), appearance.getSchemaLocation());
 		}
 
 		// add XML prefixes and schema locations for non-CityGML modules
@@ -159,9 +163,9 @@ public class CityGMLWriterFactory implements FeatureWriterFactory {
 
 				Namespace namespace = namespaces.get(module.getNamespaceURI());
 				if (namespace.getMode() != NamespaceMode.SKIP) {
-					saxWriter.setPrefix(namespace.getPrefix(), namespace.getURI());
+					serializer.setPrefix(namespace.getPrefix(), namespace.getURI());
 					if (module instanceof ADEModule)
-						saxWriter.setSchemaLocation(namespace.getURI(), namespace.getSchemaLocation());
+						serializer.setSchemaLocation(namespace.getURI(), namespace.getSchemaLocation());
 				}
 			}
 		}
@@ -184,24 +188,21 @@ public class CityGMLWriterFactory implements FeatureWriterFactory {
 		for (CityGMLModule module : modules) {
 			Namespace namespace = namespaces.get(module.getNamespaceURI());
 			if (namespace.getMode() != NamespaceMode.SKIP) {
-				saxWriter.setPrefix(namespace.getPrefix(), namespace.getURI());
-				saxWriter.setSchemaLocation(namespace.getURI(), namespace.getSchemaLocation());
+				serializer.setPrefix(namespace.getPrefix(), namespace.getURI());
+				serializer.setSchemaLocation(namespace.getURI(), namespace.getSchemaLocation());
 			}
 		}
 
 		// force namespace prefixes
 		for (Namespace namespace : namespaces.values()) {
 			if (namespace.getMode() == NamespaceMode.FORCE) {
-				saxWriter.setPrefix(namespace.getPrefix(), namespace.getURI());
-				saxWriter.setSchemaLocation(namespace.getURI(), namespace.getSchemaLocation());
+				serializer.setPrefix(namespace.getPrefix(), namespace.getURI());
+				serializer.setSchemaLocation(namespace.getURI(), namespace.getSchemaLocation());
 			}
 		}
 
-		// set writer as output for SAXWriter
-		saxWriter.setOutput(writer);
-
 		// create CityGML writer
-		return new CityGMLWriter(saxWriter, version, transformerChainFactory, useSequentialWriting);
+		return new CityGMLWriter(writer, serializer, version, transformerChainFactory, useSequentialWriting, cityGMLOptions.getFastPath(), memoryBudget);
 	}
 
 	private Map<String, Namespace> getNamespaces(ModuleContext moduleContext) {
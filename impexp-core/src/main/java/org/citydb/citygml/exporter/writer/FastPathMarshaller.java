@@ -0,0 +1,1219 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.exporter.writer;
+
+import org.citygml4j.model.citygml.appearance.AbstractSurfaceData;
+import org.citygml4j.model.citygml.appearance.AbstractTextureParameterization;
+import org.citygml4j.model.citygml.appearance.Appearance;
+import org.citygml4j.model.citygml.appearance.AppearanceProperty;
+import org.citygml4j.model.citygml.appearance.Color;
+import org.citygml4j.model.citygml.appearance.ParameterizedTexture;
+import org.citygml4j.model.citygml.appearance.SurfaceDataProperty;
+import org.citygml4j.model.citygml.appearance.TexCoordList;
+import org.citygml4j.model.citygml.appearance.TextureAssociation;
+import org.citygml4j.model.citygml.appearance.TextureCoordinates;
+import org.citygml4j.model.citygml.appearance.X3DMaterial;
+import org.citygml4j.model.citygml.building.AbstractBoundarySurface;
+import org.citygml4j.model.citygml.building.AbstractBuilding;
+import org.citygml4j.model.citygml.building.BoundarySurfaceProperty;
+import org.citygml4j.model.citygml.building.Building;
+import org.citygml4j.model.citygml.building.BuildingPart;
+import org.citygml4j.model.citygml.building.BuildingPartProperty;
+import org.citygml4j.model.citygml.building.CeilingSurface;
+import org.citygml4j.model.citygml.building.ClosureSurface;
+import org.citygml4j.model.citygml.building.FloorSurface;
+import org.citygml4j.model.citygml.building.GroundSurface;
+import org.citygml4j.model.citygml.building.InteriorWallSurface;
+import org.citygml4j.model.citygml.building.OuterCeilingSurface;
+import org.citygml4j.model.citygml.building.OuterFloorSurface;
+import org.citygml4j.model.citygml.building.RoofSurface;
+import org.citygml4j.model.citygml.building.WallSurface;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
+import org.citygml4j.model.citygml.core.ExternalObject;
+import org.citygml4j.model.citygml.core.ExternalReference;
+import org.citygml4j.model.citygml.core.GeneralizationRelation;
+import org.citygml4j.model.citygml.generics.AbstractGenericAttribute;
+import org.citygml4j.model.citygml.generics.DateAttribute;
+import org.citygml4j.model.citygml.generics.DoubleAttribute;
+import org.citygml4j.model.citygml.generics.IntAttribute;
+import org.citygml4j.model.citygml.generics.MeasureAttribute;
+import org.citygml4j.model.citygml.generics.StringAttribute;
+import org.citygml4j.model.citygml.generics.UriAttribute;
+import org.citygml4j.model.citygml.relief.AbstractReliefComponent;
+import org.citygml4j.model.citygml.relief.BreaklineRelief;
+import org.citygml4j.model.citygml.relief.MassPointRelief;
+import org.citygml4j.model.citygml.relief.ReliefComponentProperty;
+import org.citygml4j.model.citygml.relief.ReliefFeature;
+import org.citygml4j.model.citygml.relief.TINRelief;
+import org.citygml4j.model.citygml.relief.TinProperty;
+import org.citygml4j.model.citygml.transportation.AuxiliaryTrafficArea;
+import org.citygml4j.model.citygml.transportation.AuxiliaryTrafficAreaProperty;
+import org.citygml4j.model.citygml.transportation.Railway;
+import org.citygml4j.model.citygml.transportation.Road;
+import org.citygml4j.model.citygml.transportation.Square;
+import org.citygml4j.model.citygml.transportation.Track;
+import org.citygml4j.model.citygml.transportation.TrafficArea;
+import org.citygml4j.model.citygml.transportation.TrafficAreaProperty;
+import org.citygml4j.model.citygml.transportation.TransportationComplex;
+import org.citygml4j.model.gml.basicTypes.Code;
+import org.citygml4j.model.gml.basicTypes.Measure;
+import org.citygml4j.model.gml.feature.AbstractFeature;
+import org.citygml4j.model.gml.feature.BoundingShape;
+import org.citygml4j.model.gml.geometry.AbstractGeometry;
+import org.citygml4j.model.gml.geometry.aggregates.MultiCurve;
+import org.citygml4j.model.gml.geometry.aggregates.MultiCurveProperty;
+import org.citygml4j.model.gml.geometry.aggregates.MultiPoint;
+import org.citygml4j.model.gml.geometry.aggregates.MultiPointProperty;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSurface;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSurfaceProperty;
+import org.citygml4j.model.gml.geometry.complexes.CompositeSolid;
+import org.citygml4j.model.gml.geometry.complexes.CompositeSurface;
+import org.citygml4j.model.gml.geometry.primitives.AbstractRing;
+import org.citygml4j.model.gml.geometry.primitives.AbstractRingProperty;
+import org.citygml4j.model.gml.geometry.primitives.AbstractSolid;
+import org.citygml4j.model.gml.geometry.primitives.AbstractSurface;
+import org.citygml4j.model.gml.geometry.primitives.CurveProperty;
+import org.citygml4j.model.gml.geometry.primitives.DirectPosition;
+import org.citygml4j.model.gml.geometry.primitives.DirectPositionList;
+import org.citygml4j.model.gml.geometry.primitives.Envelope;
+import org.citygml4j.model.gml.geometry.primitives.LineString;
+import org.citygml4j.model.gml.geometry.primitives.LinearRing;
+import org.citygml4j.model.gml.geometry.primitives.OrientableSurface;
+import org.citygml4j.model.gml.geometry.primitives.Point;
+import org.citygml4j.model.gml.geometry.primitives.PointProperty;
+import org.citygml4j.model.gml.geometry.primitives.Polygon;
+import org.citygml4j.model.gml.geometry.primitives.Sign;
+import org.citygml4j.model.gml.geometry.primitives.Solid;
+import org.citygml4j.model.gml.geometry.primitives.SolidProperty;
+import org.citygml4j.model.gml.geometry.primitives.SurfaceProperty;
+import org.citygml4j.model.gml.geometry.primitives.Triangle;
+import org.citygml4j.model.gml.geometry.primitives.TrianglePatchArrayProperty;
+import org.citygml4j.model.gml.geometry.primitives.TriangulatedSurface;
+import org.citygml4j.model.gml.measures.Length;
+import org.citygml4j.model.module.citygml.AppearanceModule;
+import org.citygml4j.model.module.citygml.BuildingModule;
+import org.citygml4j.model.module.citygml.CityGMLModule;
+import org.citygml4j.model.module.citygml.CoreModule;
+import org.citygml4j.model.module.citygml.GenericsModule;
+import org.citygml4j.model.module.citygml.ReliefModule;
+import org.citygml4j.model.module.citygml.TransportationModule;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Serializes commonly used CityGML 2.0 content directly into SAX events without
+ * taking the detour via JAXB. This is the counterpart of the fast-path unmarshaller
+ * of the importer and covers buildings and building parts with their boundary surfaces,
+ * relief features with TIN, mass point and breakline components, transportation
+ * complexes with their traffic areas, appearances, generic attributes and the GML
+ * geometries created by the exporter. For any other content, including ADE properties,
+ * {@link #marshal(AbstractFeature, ContentHandler)} returns {@code false} so that the
+ * feature can be marshalled through JAXB instead. The events emitted until then have
+ * to be discarded by the caller.
+ */
+class FastPathMarshaller {
+	private static final String GML = "http://www.opengis.net/gml";
+	private static final String XLINK = "http://www.w3.org/1999/xlink";
+
+	private static final String CORE = CoreModule.v2_0_0.getNamespaceURI();
+	private static final String BLDG = BuildingModule.v2_0_0.getNamespaceURI();
+	private static final String DEM = ReliefModule.v2_0_0.getNamespaceURI();
+	private static final String TRAN = TransportationModule.v2_0_0.getNamespaceURI();
+	private static final String APP = AppearanceModule.v2_0_0.getNamespaceURI();
+	private static final String GEN = GenericsModule.v2_0_0.getNamespaceURI();
+
+	private static final CityGMLModule[] MODULES = new CityGMLModule[]{
+			CoreModule.v2_0_0, BuildingModule.v2_0_0, ReliefModule.v2_0_0,
+			TransportationModule.v2_0_0, AppearanceModule.v2_0_0, GenericsModule.v2_0_0
+	};
+
+	// properties of the citygml4j objects that are written by this marshaller. Any other
+	// property that is set on an object, such as ADE hook properties, is left to JAXB
+	private static final Set<String> GML_OBJECT = properties(null, "Id", "Parent", "LocalProperties");
+	private static final Set<String> FEATURE = properties(GML_OBJECT, "Name", "Description", "BoundedBy");
+	private static final Set<String> CITY_OBJECT = properties(FEATURE, "CreationDate", "TerminationDate",
+			"ExternalReference", "GeneralizesTo", "RelativeToTerrain", "RelativeToWater", "GenericAttribute", "Appearance");
+	private static final Set<String> BUILDING = properties(CITY_OBJECT, "Clazz", "Function", "Usage",
+			"YearOfConstruction", "YearOfDemolition", "RoofType", "MeasuredHeight", "StoreysAboveGround", "StoreysBelowGround",
+			"Lod0FootPrint", "Lod0RoofEdge", "Lod1Solid", "Lod1MultiSurface", "Lod1TerrainIntersection",
+			"Lod2Solid", "Lod2MultiSurface", "Lod2MultiCurve", "Lod2TerrainIntersection", "BoundedBySurface",
+			"Lod3Solid", "Lod3MultiSurface", "Lod3MultiCurve", "Lod3TerrainIntersection",
+			"Lod4Solid", "Lod4MultiSurface", "Lod4MultiCurve", "Lod4TerrainIntersection", "ConsistsOfBuildingPart");
+	private static final Set<String> BOUNDARY_SURFACE = properties(CITY_OBJECT, "Lod2MultiSurface", "Lod3MultiSurface", "Lod4MultiSurface");
+	private static final Set<String> RELIEF_FEATURE = properties(CITY_OBJECT, "Lod", "ReliefComponent");
+	private static final Set<String> TIN_RELIEF = properties(CITY_OBJECT, "Lod", "Tin");
+	private static final Set<String> MASS_POINT_RELIEF = properties(CITY_OBJECT, "Lod", "ReliefPoints");
+	private static final Set<String> BREAKLINE_RELIEF = properties(CITY_OBJECT, "Lod", "RidgeOrValleyLines", "Breaklines");
+	private static final Set<String> TRANSPORTATION_COMPLEX = properties(CITY_OBJECT, "Clazz", "Function", "Usage",
+			"TrafficArea", "AuxiliaryTrafficArea", "Lod1MultiSurface", "Lod2MultiSurface", "Lod3MultiSurface", "Lod4MultiSurface");
+	private static final Set<String> TRAFFIC_AREA = properties(CITY_OBJECT, "Clazz", "Function", "Usage", "SurfaceMaterial",
+			"Lod2MultiSurface", "Lod3MultiSurface", "Lod4MultiSurface");
+	private static final Set<String> APPEARANCE = properties(FEATURE, "Theme", "SurfaceDataMember");
+	private static final Set<String> PARAMETERIZED_TEXTURE = properties(FEATURE, "IsFront", "ImageURI", "MimeType",
+			"TextureType", "WrapMode", "BorderColor", "Target");
+	private static final Set<String> X3D_MATERIAL = properties(FEATURE, "IsFront", "AmbientIntensity", "DiffuseColor",
+			"EmissiveColor", "SpecularColor", "Shininess", "Transparency", "IsSmooth", "Target");
+	private static final Set<String> TEX_COORD_LIST = properties(GML_OBJECT, "TextureCoordinates");
+	private static final Set<String> TEXTURE_COORDINATES = properties(null, "Parent", "Value", "Ring");
+	private static final Set<String> EXTERNAL_REFERENCE = properties(null, "Parent", "InformationSystem", "ExternalObject");
+	private static final Set<String> EXTERNAL_OBJECT = properties(null, "Parent", "Name", "Uri");
+	private static final Set<String> GENERIC_ATTRIBUTE = properties(null, "Parent", "Name", "Value");
+	private static final Set<String> GEOMETRY = properties(GML_OBJECT, "SrsName", "SrsDimension");
+	private static final Set<String> POLYGON = properties(GEOMETRY, "Exterior", "Interior");
+	private static final Set<String> LINEAR_RING = properties(GEOMETRY, "PosList");
+	private static final Set<String> ORIENTABLE_SURFACE = properties(GEOMETRY, "BaseSurface", "Orientation");
+	private static final Set<String> COMPOSITE_SURFACE = properties(GEOMETRY, "SurfaceMember");
+	private static final Set<String> TRIANGULATED_SURFACE = properties(GEOMETRY, "TrianglePatches", "Patches");
+	private static final Set<String> TRIANGLE = properties(null, "Parent", "Exterior");
+	private static final Set<String> SOLID = properties(GEOMETRY, "Exterior");
+	private static final Set<String> COMPOSITE_SOLID = properties(GEOMETRY, "SolidMember");
+	private static final Set<String> MULTI_SURFACE = properties(GEOMETRY, "SurfaceMember");
+	private static final Set<String> MULTI_CURVE = properties(GEOMETRY, "CurveMember");
+	private static final Set<String> LINE_STRING = properties(GEOMETRY, "PosList");
+	private static final Set<String> MULTI_POINT = properties(GEOMETRY, "PointMember");
+	private static final Set<String> POINT = properties(GEOMETRY, "Pos");
+	private static final Set<String> POSITION_LIST = properties(null, "Parent", "Value", "SrsName", "SrsDimension");
+	private static final Set<String> POSITION = properties(null, "Parent", "Value", "SrsDimension");
+	private static final Set<String> ENVELOPE = properties(null, "Parent", "SrsName", "SrsDimension", "LowerCorner", "UpperCorner");
+
+	// xlink attributes and other association content that is only written by JAXB
+	private static final Set<String> ASSOCIATION = properties(null, "RemoteSchema", "Type", "Role", "Arcrole",
+			"Title", "Show", "Actuate", "GenericADEElement", "Null");
+
+	private static final Map<Class<?>, String> BOUNDARY_SURFACES = new HashMap<>();
+	private static final Map<Class<?>, String> TRANSPORTATION_COMPLEXES = new HashMap<>();
+	private static final ConcurrentHashMap<Class<?>, Method[]> unsupportedProperties = new ConcurrentHashMap<>();
+
+	static {
+		BOUNDARY_SURFACES.put(RoofSurface.class, "RoofSurface");
+		BOUNDARY_SURFACES.put(WallSurface.class, "WallSurface");
+		BOUNDARY_SURFACES.put(GroundSurface.class, "GroundSurface");
+		BOUNDARY_SURFACES.put(ClosureSurface.class, "ClosureSurface");
+		BOUNDARY_SURFACES.put(CeilingSurface.class, "CeilingSurface");
+		BOUNDARY_SURFACES.put(FloorSurface.class, "FloorSurface");
+		BOUNDARY_SURFACES.put(InteriorWallSurface.class, "InteriorWallSurface");
+		BOUNDARY_SURFACES.put(OuterCeilingSurface.class, "OuterCeilingSurface");
+		BOUNDARY_SURFACES.put(OuterFloorSurface.class, "OuterFloorSurface");
+
+		TRANSPORTATION_COMPLEXES.put(TransportationComplex.class, "TransportationComplex");
+		TRANSPORTATION_COMPLEXES.put(Road.class, "Road");
+		TRANSPORTATION_COMPLEXES.put(Railway.class, "Railway");
+		TRANSPORTATION_COMPLEXES.put(Track.class, "Track");
+		TRANSPORTATION_COMPLEXES.put(Square.class, "Square");
+	}
+
+	private final AttributesImpl attributes = new AttributesImpl();
+	private final StringBuilder text = new StringBuilder();
+	private char[] buffer = new char[1024];
+	private ContentHandler handler;
+
+	boolean marshal(AbstractFeature feature, ContentHandler handler) throws SAXException {
+		this.handler = handler;
+		attributes.clear();
+
+		try {
+			// report the default prefixes like the JAXB marshaller does
+			for (CityGMLModule module : MODULES)
+				handler.startPrefixMapping(module.getNamespacePrefix(), module.getNamespaceURI());
+
+			handler.startPrefixMapping("gml", GML);
+			handler.startPrefixMapping("xlink", XLINK);
+
+			if (feature instanceof AbstractCityObject) {
+				start(CORE, "cityObjectMember");
+				writeCityObject((AbstractCityObject) feature);
+				end(CORE, "cityObjectMember");
+			} else if (feature.getClass() == Appearance.class) {
+				start(APP, "appearanceMember");
+				writeAppearance((Appearance) feature);
+				end(APP, "appearanceMember");
+			} else
+				return false;
+
+			return true;
+		} catch (UnsupportedContentException e) {
+			return false;
+		} finally {
+			this.handler = null;
+		}
+	}
+
+	private void writeCityObject(AbstractCityObject cityObject) throws SAXException {
+		if (cityObject.getClass() == Building.class)
+			writeBuilding((Building) cityObject, "Building");
+		else if (cityObject.getClass() == ReliefFeature.class)
+			writeReliefFeature((ReliefFeature) cityObject);
+		else if (TRANSPORTATION_COMPLEXES.containsKey(cityObject.getClass()))
+			writeTransportationComplex((TransportationComplex) cityObject);
+		else
+			throw UnsupportedContentException.INSTANCE;
+	}
+
+	private void writeBuilding(AbstractBuilding building, String localName) throws SAXException {
+		checkProperties(building, BUILDING);
+		startFeature(BLDG, localName, building);
+		writeCityObjectProperties(building);
+
+		if (building.isSetClazz())
+			writeCode(BLDG, "class", building.getClazz());
+
+		if (building.isSetFunction()) {
+			for (Code function : building.getFunction())
+				writeCode(BLDG, "function", function);
+		}
+
+		if (building.isSetUsage()) {
+			for (Code usage : building.getUsage())
+				writeCode(BLDG, "usage", usage);
+		}
+
+		if (building.isSetYearOfConstruction())
+			writeYear(BLDG, "yearOfConstruction", building.getYearOfConstruction());
+
+		if (building.isSetYearOfDemolition())
+			writeYear(BLDG, "yearOfDemolition", building.getYearOfDemolition());
+
+		if (building.isSetRoofType())
+			writeCode(BLDG, "roofType", building.getRoofType());
+
+		if (building.isSetMeasuredHeight())
+			writeLength(BLDG, "measuredHeight", building.getMeasuredHeight());
+
+		if (building.isSetStoreysAboveGround())
+			writeText(BLDG, "storeysAboveGround", String.valueOf(building.getStoreysAboveGround()));
+
+		if (building.isSetStoreysBelowGround())
+			writeText(BLDG, "storeysBelowGround", String.valueOf(building.getStoreysBelowGround()));
+
+		writeMultiSurfaceProperty(BLDG, "lod0FootPrint", building.getLod0FootPrint());
+		writeMultiSurfaceProperty(BLDG, "lod0RoofEdge", building.getLod0RoofEdge());
+		writeSolidProperty(BLDG, "lod1Solid", building.getLod1Solid());
+		writeMultiSurfaceProperty(BLDG, "lod1MultiSurface", building.getLod1MultiSurface());
+		writeMultiCurveProperty(BLDG, "lod1TerrainIntersection", building.getLod1TerrainIntersection());
+		writeSolidProperty(BLDG, "lod2Solid", building.getLod2Solid());
+		writeMultiSurfaceProperty(BLDG, "lod2MultiSurface", building.getLod2MultiSurface());
+		writeMultiCurveProperty(BLDG, "lod2MultiCurve", building.getLod2MultiCurve());
+		writeMultiCurveProperty(BLDG, "lod2TerrainIntersection", building.getLod2TerrainIntersection());
+
+		if (building.isSetBoundedBySurface()) {
+			for (BoundarySurfaceProperty property : building.getBoundedBySurface()) {
+				if (startProperty(BLDG, "boundedBy", property, property.getHref(), property.getObject()))
+					writeBoundarySurface(property.getObject());
+
+				end(BLDG, "boundedBy");
+			}
+		}
+
+		writeSolidProperty(BLDG, "lod3Solid", building.getLod3Solid());
+		writeMultiSurfaceProperty(BLDG, "lod3MultiSurface", building.getLod3MultiSurface());
+		writeMultiCurveProperty(BLDG, "lod3MultiCurve", building.getLod3MultiCurve());
+		writeMultiCurveProperty(BLDG, "lod3TerrainIntersection", building.getLod3TerrainIntersection());
+		writeSolidProperty(BLDG, "lod4Solid", building.getLod4Solid());
+		writeMultiSurfaceProperty(BLDG, "lod4MultiSurface", building.getLod4MultiSurface());
+		writeMultiCurveProperty(BLDG, "lod4MultiCurve", building.getLod4MultiCurve());
+		writeMultiCurveProperty(BLDG, "lod4TerrainIntersection", building.getLod4TerrainIntersection());
+
+		if (building.isSetConsistsOfBuildingPart()) {
+			for (BuildingPartProperty property : building.getConsistsOfBuildingPart()) {
+				if (startProperty(BLDG, "consistsOfBuildingPart", property, property.getHref(), property.getObject())) {
+					if (property.getObject().getClass() != BuildingPart.class)
+						throw UnsupportedContentException.INSTANCE;
+
+					writeBuilding(property.getObject(), "BuildingPart");
+				}
+
+				end(BLDG, "consistsOfBuildingPart");
+			}
+		}
+
+		end(BLDG, localName);
+	}
+
+	private void writeBoundarySurface(AbstractBoundarySurface boundarySurface) throws SAXException {
+		String localName = BOUNDARY_SURFACES.get(boundarySurface.getClass());
+		if (localName == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		checkProperties(boundarySurface, BOUNDARY_SURFACE);
+		startFeature(BLDG, localName, boundarySurface);
+		writeCityObjectProperties(boundarySurface);
+		writeMultiSurfaceProperty(BLDG, "lod2MultiSurface", boundarySurface.getLod2MultiSurface());
+		writeMultiSurfaceProperty(BLDG, "lod3MultiSurface", boundarySurface.getLod3MultiSurface());
+		writeMultiSurfaceProperty(BLDG, "lod4MultiSurface", boundarySurface.getLod4MultiSurface());
+		end(BLDG, localName);
+	}
+
+	private void writeReliefFeature(ReliefFeature reliefFeature) throws SAXException {
+		checkProperties(reliefFeature, RELIEF_FEATURE);
+		startFeature(DEM, "ReliefFeature", reliefFeature);
+		writeCityObjectProperties(reliefFeature);
+
+		if (reliefFeature.isSetLod())
+			writeText(DEM, "lod", String.valueOf(reliefFeature.getLod()));
+
+		if (reliefFeature.isSetReliefComponent()) {
+			for (ReliefComponentProperty property : reliefFeature.getReliefComponent()) {
+				if (startProperty(DEM, "reliefComponent", property, property.getHref(), property.getObject()))
+					writeReliefComponent(property.getObject());
+
+				end(DEM, "reliefComponent");
+			}
+		}
+
+		end(DEM, "ReliefFeature");
+	}
+
+	private void writeReliefComponent(AbstractReliefComponent component) throws SAXException {
+		String localName;
+		if (component.getClass() == TINRelief.class) {
+			checkProperties(component, TIN_RELIEF);
+			localName = "TINRelief";
+		} else if (component.getClass() == MassPointRelief.class) {
+			checkProperties(component, MASS_POINT_RELIEF);
+			localName = "MassPointRelief";
+		} else if (component.getClass() == BreaklineRelief.class) {
+			checkProperties(component, BREAKLINE_RELIEF);
+			localName = "BreaklineRelief";
+		} else
+			throw UnsupportedContentException.INSTANCE;
+
+		startFeature(DEM, localName, component);
+		writeCityObjectProperties(component);
+
+		if (component.isSetLod())
+			writeText(DEM, "lod", String.valueOf(component.getLod()));
+
+		if (component instanceof TINRelief) {
+			TinProperty property = ((TINRelief) component).getTin();
+			if (property != null) {
+				if (startProperty(DEM, "tin", property, property.getHref(), property.getObject())) {
+					// gml:Tin carries stop lines, break lines and control points and is left to JAXB
+					if (property.getObject().getClass() != TriangulatedSurface.class)
+						throw UnsupportedContentException.INSTANCE;
+
+					writeTriangulatedSurface(property.getObject());
+				}
+
+				end(DEM, "tin");
+			}
+		} else if (component instanceof MassPointRelief)
+			writeMultiPointProperty(DEM, "reliefPoints", ((MassPointRelief) component).getReliefPoints());
+		else {
+			writeMultiCurveProperty(DEM, "ridgeOrValleyLines", ((BreaklineRelief) component).getRidgeOrValleyLines());
+			writeMultiCurveProperty(DEM, "breaklines", ((BreaklineRelief) component).getBreaklines());
+		}
+
+		end(DEM, localName);
+	}
+
+	private void writeTransportationComplex(TransportationComplex transportationComplex) throws SAXException {
+		String localName = TRANSPORTATION_COMPLEXES.get(transportationComplex.getClass());
+		checkProperties(transportationComplex, TRANSPORTATION_COMPLEX);
+		startFeature(TRAN, localName, transportationComplex);
+		writeCityObjectProperties(transportationComplex);
+		writeFunctionAndUsage(transportationComplex.getClazz(), transportationComplex.getFunction(), transportationComplex.getUsage());
+
+		if (transportationComplex.isSetTrafficArea()) {
+			for (TrafficAreaProperty property : transportationComplex.getTrafficArea()) {
+				if (startProperty(TRAN, "trafficArea", property, property.getHref(), property.getObject())) {
+					TrafficArea trafficArea = property.getObject();
+					if (trafficArea.getClass() != TrafficArea.class)
+						throw UnsupportedContentException.INSTANCE;
+
+					checkProperties(trafficArea, TRAFFIC_AREA);
+					startFeature(TRAN, "TrafficArea", trafficArea);
+					writeCityObjectProperties(trafficArea);
+					writeFunctionAndUsage(trafficArea.getClazz(), trafficArea.getFunction(), trafficArea.getUsage());
+					writeTrafficAreaGeometry(trafficArea.getSurfaceMaterial(), trafficArea.getLod2MultiSurface(),
+							trafficArea.getLod3MultiSurface(), trafficArea.getLod4MultiSurface());
+					end(TRAN, "TrafficArea");
+				}
+
+				end(TRAN, "trafficArea");
+			}
+		}
+
+		if (transportationComplex.isSetAuxiliaryTrafficArea()) {
+			for (AuxiliaryTrafficAreaProperty property : transportationComplex.getAuxiliaryTrafficArea()) {
+				if (startProperty(TRAN, "auxiliaryTrafficArea", property, property.getHref(), property.getObject())) {
+					AuxiliaryTrafficArea auxiliaryTrafficArea = property.getObject();
+					if (auxiliaryTrafficArea.getClass() != AuxiliaryTrafficArea.class)
+						throw UnsupportedContentException.INSTANCE;
+
+					checkProperties(auxiliaryTrafficArea, TRAFFIC_AREA);
+					startFeature(TRAN, "AuxiliaryTrafficArea", auxiliaryTrafficArea);
+					writeCityObjectProperties(auxiliaryTrafficArea);
+					writeFunctionAndUsage(auxiliaryTrafficArea.getClazz(), auxiliaryTrafficArea.getFunction(), auxiliaryTrafficArea.getUsage());
+					writeTrafficAreaGeometry(auxiliaryTrafficArea.getSurfaceMaterial(), auxiliaryTrafficArea.getLod2MultiSurface(),
+							auxiliaryTrafficArea.getLod3MultiSurface(), auxiliaryTrafficArea.getLod4MultiSurface());
+					end(TRAN, "AuxiliaryTrafficArea");
+				}
+
+				end(TRAN, "auxiliaryTrafficArea");
+			}
+		}
+
+		writeMultiSurfaceProperty(TRAN, "lod1MultiSurface", transportationComplex.getLod1MultiSurface());
+		writeMultiSurfaceProperty(TRAN, "lod2MultiSurface", transportationComplex.getLod2MultiSurface());
+		writeMultiSurfaceProperty(TRAN, "lod3MultiSurface", transportationComplex.getLod3MultiSurface());
+		writeMultiSurfaceProperty(TRAN, "lod4MultiSurface", transportationComplex.getLod4MultiSurface());
+		end(TRAN, localName);
+	}
+
+	private void writeFunctionAndUsage(Code clazz, List<Code> functions, List<Code> usages) throws SAXException {
+		if (clazz != null)
+			writeCode(TRAN, "class", clazz);
+
+		if (functions != null) {
+			for (Code function : functions)
+				writeCode(TRAN, "function", function);
+		}
+
+		if (usages != null) {
+			for (Code usage : usages)
+				writeCode(TRAN, "usage", usage);
+		}
+	}
+
+	private void writeTrafficAreaGeometry(Code surfaceMaterial, MultiSurfaceProperty lod2MultiSurface, MultiSurfaceProperty lod3MultiSurface, MultiSurfaceProperty lod4MultiSurface) throws SAXException {
+		if (surfaceMaterial != null)
+			writeCode(TRAN, "surfaceMaterial", surfaceMaterial);
+
+		writeMultiSurfaceProperty(TRAN, "lod2MultiSurface", lod2MultiSurface);
+		writeMultiSurfaceProperty(TRAN, "lod3MultiSurface", lod3MultiSurface);
+		writeMultiSurfaceProperty(TRAN, "lod4MultiSurface", lod4MultiSurface);
+	}
+
+	private void writeCityObjectProperties(AbstractCityObject cityObject) throws SAXException {
+		writeFeatureProperties(cityObject);
+
+		if (cityObject.getCreationDate() != null)
+			writeText(CORE, "creationDate", formatDate(cityObject.getCreationDate()));
+
+		if (cityObject.getTerminationDate() != null)
+			writeText(CORE, "terminationDate", formatDate(cityObject.getTerminationDate()));
+
+		if (cityObject.isSetExternalReference()) {
+			for (ExternalReference externalReference : cityObject.getExternalReference())
+				writeExternalReference(externalReference);
+		}
+
+		if (cityObject.isSetGeneralizesTo()) {
+			for (GeneralizationRelation generalizesTo : cityObject.getGeneralizesTo()) {
+				// generalized city objects are always exported as references
+				if (startProperty(CORE, "generalizesTo", generalizesTo, generalizesTo.getHref(), null))
+					throw UnsupportedContentException.INSTANCE;
+
+				end(CORE, "generalizesTo");
+			}
+		}
+
+		if (cityObject.isSetRelativeToTerrain())
+			writeText(CORE, "relativeToTerrain", cityObject.getRelativeToTerrain().getValue());
+
+		if (cityObject.isSetRelativeToWater())
+			writeText(CORE, "relativeToWater", cityObject.getRelativeToWater().getValue());
+
+		if (cityObject.isSetGenericAttribute()) {
+			for (AbstractGenericAttribute genericAttribute : cityObject.getGenericAttribute())
+				writeGenericAttribute(genericAttribute);
+		}
+
+		if (cityObject.isSetAppearance()) {
+			for (AppearanceProperty property : cityObject.getAppearance()) {
+				if (startProperty(APP, "appearance", property, property.getHref(), property.getObject())) {
+					if (property.getObject().getClass() != Appearance.class)
+						throw UnsupportedContentException.INSTANCE;
+
+					writeAppearance(property.getObject());
+				}
+
+				end(APP, "appearance");
+			}
+		}
+	}
+
+	private void writeFeatureProperties(AbstractFeature feature) throws SAXException {
+		if (feature.isSetDescription())
+			writeText(GML, "description", feature.getDescription().getValue());
+
+		if (feature.isSetName()) {
+			for (Code name : feature.getName())
+				writeCode(GML, "name", name);
+		}
+
+		BoundingShape boundedBy = feature.getBoundedBy();
+		if (boundedBy != null) {
+			checkProperties(boundedBy, ASSOCIATION, false);
+			Envelope envelope = boundedBy.getEnvelope();
+			if (envelope == null || envelope.getClass() != Envelope.class)
+				throw UnsupportedContentException.INSTANCE;
+
+			checkProperties(envelope, ENVELOPE);
+			if (envelope.getLowerCorner() == null || envelope.getUpperCorner() == null)
+				throw UnsupportedContentException.INSTANCE;
+
+			start(GML, "boundedBy");
+			if (envelope.getSrsName() != null)
+				addAttribute("", "srsName", envelope.getSrsName());
+
+			if (envelope.getSrsDimension() != null)
+				addAttribute("", "srsDimension", String.valueOf(envelope.getSrsDimension()));
+
+			start(GML, "Envelope");
+			writePosition("lowerCorner", envelope.getLowerCorner());
+			writePosition("upperCorner", envelope.getUpperCorner());
+			end(GML, "Envelope");
+			end(GML, "boundedBy");
+		}
+	}
+
+	private void writeExternalReference(ExternalReference externalReference) throws SAXException {
+		checkProperties(externalReference, EXTERNAL_REFERENCE);
+		ExternalObject externalObject = externalReference.getExternalObject();
+		if (externalObject == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		checkProperties(externalObject, EXTERNAL_OBJECT);
+		if (externalObject.isSetName() == externalObject.isSetUri())
+			throw UnsupportedContentException.INSTANCE;
+
+		start(CORE, "externalReference");
+		if (externalReference.isSetInformationSystem())
+			writeText(CORE, "informationSystem", externalReference.getInformationSystem());
+
+		start(CORE, "externalObject");
+		if (externalObject.isSetName())
+			writeText(CORE, "name", externalObject.getName());
+		else
+			writeText(CORE, "uri", externalObject.getUri());
+
+		end(CORE, "externalObject");
+		end(CORE, "externalReference");
+	}
+
+	private void writeGenericAttribute(AbstractGenericAttribute genericAttribute) throws SAXException {
+		checkProperties(genericAttribute, GENERIC_ATTRIBUTE);
+
+		String localName;
+		String value;
+		String uom = null;
+
+		if (genericAttribute.getClass() == StringAttribute.class) {
+			localName = "stringAttribute";
+			value = ((StringAttribute) genericAttribute).getValue();
+		} else if (genericAttribute.getClass() == IntAttribute.class) {
+			localName = "intAttribute";
+			Integer intValue = ((IntAttribute) genericAttribute).getValue();
+			value = intValue != null ? String.valueOf(intValue) : null;
+		} else if (genericAttribute.getClass() == DoubleAttribute.class) {
+			localName = "doubleAttribute";
+			Double doubleValue = ((DoubleAttribute) genericAttribute).getValue();
+			value = doubleValue != null ? formatDouble(doubleValue) : null;
+		} else if (genericAttribute.getClass() == UriAttribute.class) {
+			localName = "uriAttribute";
+			value = ((UriAttribute) genericAttribute).getValue();
+		} else if (genericAttribute.getClass() == DateAttribute.class) {
+			localName = "dateAttribute";
+			LocalDate dateValue = ((DateAttribute) genericAttribute).getValue();
+			value = dateValue != null ? dateValue.toString() : null;
+		} else if (genericAttribute.getClass() == MeasureAttribute.class) {
+			localName = "measureAttribute";
+			Measure measure = ((MeasureAttribute) genericAttribute).getValue();
+			value = measure != null ? formatDouble(measure.getValue()) : null;
+			uom = measure != null ? measure.getUom() : null;
+		} else
+			throw UnsupportedContentException.INSTANCE;
+
+		if (genericAttribute.getName() != null)
+			addAttribute("", "name", genericAttribute.getName());
+
+		start(GEN, localName);
+		if (value != null) {
+			if (uom != null)
+				addAttribute("", "uom", uom);
+
+			writeText(GEN, "value", value);
+		}
+
+		end(GEN, localName);
+	}
+
+	private void writeAppearance(Appearance appearance) throws SAXException {
+		checkProperties(appearance, APPEARANCE);
+		startFeature(APP, "Appearance", appearance);
+		writeFeatureProperties(appearance);
+
+		if (appearance.isSetTheme())
+			writeText(APP, "theme", appearance.getTheme());
+
+		if (appearance.isSetSurfaceDataMember()) {
+			for (SurfaceDataProperty property : appearance.getSurfaceDataMember()) {
+				if (startProperty(APP, "surfaceDataMember", property, property.getHref(), property.getObject())) {
+					AbstractSurfaceData surfaceData = property.getObject();
+					if (surfaceData.getClass() == ParameterizedTexture.class)
+						writeParameterizedTexture((ParameterizedTexture) surfaceData);
+					else if (surfaceData.getClass() == X3DMaterial.class)
+						writeX3DMaterial((X3DMaterial) surfaceData);
+					else
+						throw UnsupportedContentException.INSTANCE;
+				}
+
+				end(APP, "surfaceDataMember");
+			}
+		}
+
+		end(APP, "Appearance");
+	}
+
+	private void writeParameterizedTexture(ParameterizedTexture texture) throws SAXException {
+		checkProperties(texture, PARAMETERIZED_TEXTURE);
+		startFeature(APP, "ParameterizedTexture", texture);
+		writeFeatureProperties(texture);
+
+		if (texture.isSetIsFront())
+			writeText(APP, "isFront", String.valueOf(texture.getIsFront()));
+
+		if (texture.isSetImageURI())
+			writeText(APP, "imageURI", texture.getImageURI());
+
+		if (texture.isSetMimeType())
+			writeCode(APP, "mimeType", texture.getMimeType());
+
+		if (texture.isSetTextureType())
+			writeText(APP, "textureType", texture.getTextureType().getValue());
+
+		if (texture.isSetWrapMode())
+			writeText(APP, "wrapMode", texture.getWrapMode().getValue());
+
+		if (texture.isSetBorderColor())
+			writeDoubles(APP, "borderColor", texture.getBorderColor().toList());
+
+		if (texture.isSetTarget()) {
+			for (TextureAssociation target : texture.getTarget()) {
+				checkProperties(target, ASSOCIATION, false);
+				AbstractTextureParameterization parameterization = target.getTextureParameterization();
+				if (target.isSetHref() || target.getUri() == null
+						|| parameterization == null || parameterization.getClass() != TexCoordList.class)
+					throw UnsupportedContentException.INSTANCE;
+
+				TexCoordList texCoordList = (TexCoordList) parameterization;
+				checkProperties(texCoordList, TEX_COORD_LIST);
+
+				addAttribute("", "uri", target.getUri());
+				start(APP, "target");
+				startObject(APP, "TexCoordList", texCoordList.getId());
+
+				for (TextureCoordinates textureCoordinates : texCoordList.getTextureCoordinates()) {
+					checkProperties(textureCoordinates, TEXTURE_COORDINATES);
+					if (textureCoordinates.getRing() != null)
+						addAttribute("", "ring", textureCoordinates.getRing());
+
+					writeDoubles(APP, "textureCoordinates", textureCoordinates.getValue());
+				}
+
+				end(APP, "TexCoordList");
+				end(APP, "target");
+			}
+		}
+
+		end(APP, "ParameterizedTexture");
+	}
+
+	private void writeX3DMaterial(X3DMaterial material) throws SAXException {
+		checkProperties(material, X3D_MATERIAL);
+		startFeature(APP, "X3DMaterial", material);
+		writeFeatureProperties(material);
+
+		if (material.isSetIsFront())
+			writeText(APP, "isFront", String.valueOf(material.getIsFront()));
+
+		if (material.isSetAmbientIntensity())
+			writeText(APP, "ambientIntensity", formatDouble(material.getAmbientIntensity()));
+
+		if (material.isSetDiffuseColor())
+			writeColor("diffuseColor", material.getDiffuseColor());
+
+		if (material.isSetEmissiveColor())
+			writeColor("emissiveColor", material.getEmissiveColor());
+
+		if (material.isSetSpecularColor())
+			writeColor("specularColor", material.getSpecularColor());
+
+		if (material.isSetShininess())
+			writeText(APP, "shininess", formatDouble(material.getShininess()));
+
+		if (material.isSetTransparency())
+			writeText(APP, "transparency", formatDouble(material.getTransparency()));
+
+		if (material.isSetIsSmooth())
+			writeText(APP, "isSmooth", String.valueOf(material.getIsSmooth()));
+
+		if (material.isSetTarget()) {
+			for (String target : material.getTarget())
+				writeText(APP, "target", target);
+		}
+
+		end(APP, "X3DMaterial");
+	}
+
+	private void writeColor(String localName, Color color) throws SAXException {
+		writeDoubles(APP, localName, Arrays.asList(color.getRed(), color.getGreen(), color.getBlue()));
+	}
+
+	private void writeSolidProperty(String uri, String localName, SolidProperty property) throws SAXException {
+		if (property != null) {
+			if (startProperty(uri, localName, property, property.getHref(), property.getObject()))
+				writeSolid(property.getObject());
+
+			end(uri, localName);
+		}
+	}
+
+	private void writeSolid(AbstractSolid solid) throws SAXException {
+		if (solid.getClass() == Solid.class) {
+			checkProperties(solid, SOLID);
+			startGeometry("Solid", solid);
+			writeSurfaceProperty("exterior", ((Solid) solid).getExterior());
+			end(GML, "Solid");
+		} else if (solid.getClass() == CompositeSolid.class) {
+			checkProperties(solid, COMPOSITE_SOLID);
+			startGeometry("CompositeSolid", solid);
+			for (SolidProperty member : ((CompositeSolid) solid).getSolidMember())
+				writeSolidProperty(GML, "solidMember", member);
+
+			end(GML, "CompositeSolid");
+		} else
+			throw UnsupportedContentException.INSTANCE;
+	}
+
+	private void writeMultiSurfaceProperty(String uri, String localName, MultiSurfaceProperty property) throws SAXException {
+		if (property != null) {
+			if (startProperty(uri, localName, property, property.getHref(), property.getObject())) {
+				MultiSurface multiSurface = property.getObject();
+				if (multiSurface.getClass() != MultiSurface.class)
+					throw UnsupportedContentException.INSTANCE;
+
+				checkProperties(multiSurface, MULTI_SURFACE);
+				startGeometry("MultiSurface", multiSurface);
+				for (SurfaceProperty member : multiSurface.getSurfaceMember())
+					writeSurfaceProperty("surfaceMember", member);
+
+				end(GML, "MultiSurface");
+			}
+
+			end(uri, localName);
+		}
+	}
+
+	private void writeSurfaceProperty(String localName, SurfaceProperty property) throws SAXException {
+		if (property == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		if (startProperty(GML, localName, property, property.getHref(), property.getObject()))
+			writeSurface(property.getObject());
+
+		end(GML, localName);
+	}
+
+	private void writeSurface(AbstractSurface surface) throws SAXException {
+		if (surface.getClass() == Polygon.class) {
+			Polygon polygon = (Polygon) surface;
+			checkProperties(polygon, POLYGON);
+			startGeometry("Polygon", polygon);
+			writeLinearRingProperty("exterior", polygon.getExterior());
+			if (polygon.isSetInterior()) {
+				for (AbstractRingProperty interior : polygon.getInterior())
+					writeLinearRingProperty("interior", interior);
+			}
+
+			end(GML, "Polygon");
+		} else if (surface.getClass() == CompositeSurface.class) {
+			checkProperties(surface, COMPOSITE_SURFACE);
+			startGeometry("CompositeSurface", surface);
+			for (SurfaceProperty member : ((CompositeSurface) surface).getSurfaceMember())
+				writeSurfaceProperty("surfaceMember", member);
+
+			end(GML, "CompositeSurface");
+		} else if (surface.getClass() == OrientableSurface.class) {
+			OrientableSurface orientableSurface = (OrientableSurface) surface;
+			checkProperties(orientableSurface, ORIENTABLE_SURFACE);
+			if (orientableSurface.isSetOrientation())
+				addAttribute("", "orientation", orientableSurface.getOrientation() == Sign.MINUS ? "-" : "+");
+
+			startGeometry("OrientableSurface", orientableSurface);
+			writeSurfaceProperty("baseSurface", orientableSurface.getBaseSurface());
+			end(GML, "OrientableSurface");
+		} else if (surface.getClass() == TriangulatedSurface.class)
+			writeTriangulatedSurface((TriangulatedSurface) surface);
+		else
+			throw UnsupportedContentException.INSTANCE;
+	}
+
+	private void writeTriangulatedSurface(TriangulatedSurface triangulatedSurface) throws SAXException {
+		checkProperties(triangulatedSurface, TRIANGULATED_SURFACE);
+		TrianglePatchArrayProperty trianglePatches = triangulatedSurface.getTrianglePatches();
+		if (trianglePatches == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		checkProperties(trianglePatches, ASSOCIATION, false);
+		startGeometry("TriangulatedSurface", triangulatedSurface);
+		start(GML, "trianglePatches");
+
+		for (Triangle triangle : trianglePatches.getTriangle()) {
+			checkProperties(triangle, TRIANGLE);
+			start(GML, "Triangle");
+			writeLinearRingProperty("exterior", triangle.getExterior());
+			end(GML, "Triangle");
+		}
+
+		end(GML, "trianglePatches");
+		end(GML, "TriangulatedSurface");
+	}
+
+	private void writeLinearRingProperty(String localName, AbstractRingProperty property) throws SAXException {
+		if (property == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		checkProperties(property, ASSOCIATION, false);
+		AbstractRing ring = property.getRing();
+		if (ring == null || ring.getClass() != LinearRing.class)
+			throw UnsupportedContentException.INSTANCE;
+
+		LinearRing linearRing = (LinearRing) ring;
+		checkProperties(linearRing, LINEAR_RING);
+
+		start(GML, localName);
+		startGeometry("LinearRing", linearRing);
+		writePositionList(linearRing.getPosList());
+		end(GML, "LinearRing");
+		end(GML, localName);
+	}
+
+	private void writeMultiCurveProperty(String uri, String localName, MultiCurveProperty property) throws SAXException {
+		if (property != null) {
+			if (startProperty(uri, localName, property, property.getHref(), property.getObject())) {
+				MultiCurve multiCurve = property.getObject();
+				if (multiCurve.getClass() != MultiCurve.class)
+					throw UnsupportedContentException.INSTANCE;
+
+				checkProperties(multiCurve, MULTI_CURVE);
+				startGeometry("MultiCurve", multiCurve);
+				for (CurveProperty member : multiCurve.getCurveMember()) {
+					if (startProperty(GML, "curveMember", member, member.getHref(), member.getObject())) {
+						if (member.getObject().getClass() != LineString.class)
+							throw UnsupportedContentException.INSTANCE;
+
+						LineString lineString = (LineString) member.getObject();
+						checkProperties(lineString, LINE_STRING);
+						startGeometry("LineString", lineString);
+						writePositionList(lineString.getPosList());
+						end(GML, "LineString");
+					}
+
+					end(GML, "curveMember");
+				}
+
+				end(GML, "MultiCurve");
+			}
+
+			end(uri, localName);
+		}
+	}
+
+	private void writeMultiPointProperty(String uri, String localName, MultiPointProperty property) throws SAXException {
+		if (property != null) {
+			if (startProperty(uri, localName, property, property.getHref(), property.getObject())) {
+				MultiPoint multiPoint = property.getObject();
+				if (multiPoint.getClass() != MultiPoint.class)
+					throw UnsupportedContentException.INSTANCE;
+
+				checkProperties(multiPoint, MULTI_POINT);
+				startGeometry("MultiPoint", multiPoint);
+				for (PointProperty member : multiPoint.getPointMember()) {
+					if (startProperty(GML, "pointMember", member, member.getHref(), member.getObject())) {
+						Point point = member.getObject();
+						if (point.getClass() != Point.class || point.getPos() == null)
+							throw UnsupportedContentException.INSTANCE;
+
+						checkProperties(point, POINT);
+						startGeometry("Point", point);
+						writePosition("pos", point.getPos());
+						end(GML, "Point");
+					}
+
+					end(GML, "pointMember");
+				}
+
+				end(GML, "MultiPoint");
+			}
+
+			end(uri, localName);
+		}
+	}
+
+	private void writePositionList(DirectPositionList posList) throws SAXException {
+		if (posList == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		checkProperties(posList, POSITION_LIST);
+		if (posList.getSrsName() != null)
+			addAttribute("", "srsName", posList.getSrsName());
+
+		if (posList.getSrsDimension() != null)
+			addAttribute("", "srsDimension", String.valueOf(posList.getSrsDimension()));
+
+		writeDoubles(GML, "posList", posList.getValue());
+	}
+
+	private void writePosition(String localName, DirectPosition position) throws SAXException {
+		checkProperties(position, POSITION);
+		if (position.getSrsDimension() != null)
+			addAttribute("", "srsDimension", String.valueOf(position.getSrsDimension()));
+
+		writeDoubles(GML, localName, position.getValue());
+	}
+
+	private boolean startProperty(String uri, String localName, Object property, String href, Object object) throws SAXException {
+		checkProperties(property, ASSOCIATION, false);
+		if (href != null) {
+			if (object != null)
+				throw UnsupportedContentException.INSTANCE;
+
+			addAttribute(XLINK, "href", href);
+			start(uri, localName);
+			return false;
+		} else if (object == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		start(uri, localName);
+		return true;
+	}
+
+	private void startFeature(String uri, String localName, AbstractFeature feature) throws SAXException {
+		startObject(uri, localName, feature.getId());
+	}
+
+	private void startGeometry(String localName, AbstractGeometry geometry) throws SAXException {
+		// attributes of subtypes have already been added and must follow the
+		// attributes of the geometry base type like in the JAXB output
+		int offset = attributes.getLength();
+		if (geometry.getId() != null)
+			attributes.addAttribute(GML, "id", "id", "CDATA", geometry.getId());
+
+		if (geometry.getSrsName() != null)
+			attributes.addAttribute("", "srsName", "srsName", "CDATA", geometry.getSrsName());
+
+		if (geometry.getSrsDimension() != null)
+			attributes.addAttribute("", "srsDimension", "srsDimension", "CDATA", String.valueOf(geometry.getSrsDimension()));
+
+		for (int i = 0; i < offset; i++) {
+			attributes.addAttribute(attributes.getURI(0), attributes.getLocalName(0), attributes.getQName(0),
+					attributes.getType(0), attributes.getValue(0));
+			attributes.removeAttribute(0);
+		}
+
+		start(GML, localName);
+	}
+
+	private void startObject(String uri, String localName, String id) throws SAXException {
+		if (id != null)
+			addAttribute(GML, "id", id);
+
+		start(uri, localName);
+	}
+
+	private void writeCode(String uri, String localName, Code code) throws SAXException {
+		if (code.getCodeSpace() != null)
+			addAttribute("", "codeSpace", code.getCodeSpace());
+
+		writeText(uri, localName, code.getValue());
+	}
+
+	private void writeLength(String uri, String localName, Length length) throws SAXException {
+		if (length.getUom() != null)
+			addAttribute("", "uom", length.getUom());
+
+		writeText(uri, localName, formatDouble(length.getValue()));
+	}
+
+	private void writeYear(String uri, String localName, LocalDate date) throws SAXException {
+		// only four-digit years are written like the xs:gYear output of JAXB
+		if (date.getYear() < 1000 || date.getYear() > 9999)
+			throw UnsupportedContentException.INSTANCE;
+
+		writeText(uri, localName, String.valueOf(date.getYear()));
+	}
+
+	private void writeDoubles(String uri, String localName, List<Double> values) throws SAXException {
+		if (values == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		text.setLength(0);
+		for (Double value : values) {
+			if (value == null)
+				throw UnsupportedContentException.INSTANCE;
+
+			if (text.length() > 0)
+				text.append(' ');
+
+			appendDouble(value, text);
+		}
+
+		start(uri, localName);
+		characters(text);
+		end(uri, localName);
+	}
+
+	private void writeText(String uri, String localName, String value) throws SAXException {
+		start(uri, localName);
+		if (value != null)
+			characters(value);
+
+		end(uri, localName);
+	}
+
+	private void start(String uri, String localName) throws SAXException {
+		handler.startElement(uri, localName, localName, attributes);
+		attributes.clear();
+	}
+
+	private void end(String uri, String localName) throws SAXException {
+		handler.endElement(uri, localName, localName);
+	}
+
+	private void addAttribute(String uri, String localName, String value) {
+		attributes.addAttribute(uri, localName, localName, "CDATA", value);
+	}
+
+	private void characters(CharSequence value) throws SAXException {
+		int length = value.length();
+		if (buffer.length < length)
+			buffer = new char[Math.max(length, buffer.length * 2)];
+
+		if (value instanceof String)
+			((String) value).getChars(0, length, buffer, 0);
+		else
+			((StringBuilder) value).getChars(0, length, buffer, 0);
+
+		handler.characters(buffer, 0, length);
+	}
+
+	private String formatDate(ZonedDateTime dateTime) {
+		// xs:date values keep the time zone offset like the JAXB output
+		return DateTimeFormatter.ISO_OFFSET_DATE.format(dateTime);
+	}
+
+	private String formatDouble(Double value) throws UnsupportedContentException {
+		if (value == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		text.setLength(0);
+		appendDouble(value, text);
+		return text.toString();
+	}
+
+	private void appendDouble(double value, StringBuilder builder) {
+		// same lexical representation as javax.xml.bind.DatatypeConverter.printDouble
+		if (Double.isNaN(value))
+			builder.append("NaN");
+		else if (value == Double.POSITIVE_INFINITY)
+			builder.append("INF");
+		else if (value == Double.NEGATIVE_INFINITY)
+			builder.append("-INF");
+		else
+			builder.append(value);
+	}
+
+	private void checkProperties(Object object, Set<String> supported) throws UnsupportedContentException {
+		checkProperties(object, supported, true);
+	}
+
+	private void checkProperties(Object object, Set<String> properties, boolean isSupported) throws UnsupportedContentException {
+		Method[] checks = unsupportedProperties.computeIfAbsent(object.getClass(), type -> getPropertyChecks(type,
+				isSupported ? property -> !properties.contains(property) : properties::contains));
+
+		for (Method check : checks) {
+			try {
+				if ((Boolean) check.invoke(object))
+					throw UnsupportedContentException.INSTANCE;
+			} catch (IllegalAccessException | InvocationTargetException e) {
+				throw UnsupportedContentException.INSTANCE;
+			}
+		}
+	}
+
+	private static Method[] getPropertyChecks(Class<?> type, Predicate<String> isUnsupported) {
+		// collect the isSet methods of all properties that are not written by this marshaller
+		List<Method> checks = new ArrayList<>();
+		for (Method method : type.getMethods()) {
+			String name = method.getName();
+			if (name.length() > 5
+					&& name.startsWith("isSet")
+					&& method.getParameterCount() == 0
+					&& method.getReturnType() == boolean.class
+					&& !Modifier.isStatic(method.getModifiers())
+					&& isUnsupported.test(name.substring(5)))
+				checks.add(method);
+		}
+
+		return checks.toArray(new Method[0]);
+	}
+
+	private static Set<String> properties(Set<String> parent, String... properties) {
+		Set<String> result = parent != null ? new HashSet<>(parent) : new HashSet<>();
+		result.addAll(Arrays.asList(properties));
+		return result;
+	}
+
+	private static final class UnsupportedContentException extends SAXException {
+		private static final UnsupportedContentException INSTANCE = new UnsupportedContentException();
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+}
@@ -27,14 +27,15 @@
  */
 package org.citydb.citygml.exporter.writer;
 
+import org.citydb.concurrent.MemoryBudget;
 import org.citydb.config.Config;
 import org.citydb.database.schema.mapping.SchemaMapping;
 import org.citydb.query.Query;
 
 public class FeatureWriterFactoryBuilder {
 
-	public static FeatureWriterFactory buildFactory(Query query, SchemaMapping schemaMapping, Config config) throws FeatureWriteException {
-		return new CityGMLWriterFactory(query, schemaMapping, config);
+	public static FeatureWriterFactory buildFactory(Query query, SchemaMapping schemaMapping, MemoryBudget memoryBudget, Config config) throws FeatureWriteException {
+		return new CityGMLWriterFactory(query, schemaMapping, memoryBudget, config);
 	}
 	
 }
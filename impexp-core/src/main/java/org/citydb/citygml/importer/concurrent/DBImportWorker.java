@@ -27,12 +27,16 @@
  */
 package org.citydb.citygml.importer.concurrent;
 
+import org.citydb.citygml.common.database.index.GmlIdIndex;
 import org.citydb.citygml.common.database.uid.UIDCacheManager;
 import org.citydb.citygml.common.database.xlink.DBXlink;
 import org.citydb.citygml.importer.CityGMLImportException;
 import org.citydb.citygml.importer.database.content.CityGMLImportManager;
 import org.citydb.citygml.importer.filter.CityGMLFilter;
+import org.citydb.citygml.importer.util.AdaptiveBatchController;
+import org.citydb.citygml.importer.util.AdaptiveBatchController.BatchType;
 import org.citydb.citygml.importer.util.AffineTransformer;
+import org.citydb.citygml.importer.util.ExistingFeatureHandler;
 import org.citydb.citygml.importer.util.ImportLogger;
 import org.citydb.citygml.importer.util.ImportLogger.ImportLogEntry;
 import org.citydb.concurrent.Worker;
@@ -73,10 +77,12 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 	private final boolean isManagedTransaction;
 	private final CityGMLFilter filter;
 	private final ImportLogger importLogger;
+	private final AdaptiveBatchController batchController;
 	private final EventDispatcher eventDispatcher;
 
 	private final BoundingBoxOptions bboxOptions;
 	private final CityGMLImportManager importer;
+	private final ExistingFeatureHandler existingFeatureHandler;
 
 	private int globalAppearanceCounter = 0;
 	private int topLevelFeatureCounter = 0;
@@ -93,12 +99,15 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 			CityGMLFilter filter,
 			AffineTransformer affineTransformer,
 			ImportLogger importLogger,
+			AdaptiveBatchController batchController,
+			GmlIdIndex gmlIdIndex,
 			Config config,
 			EventDispatcher eventDispatcher) throws SQLException {
 		this.connection = connection;
 		this.isManagedTransaction = isManagedTransaction;
 		this.filter = filter;
 		this.importLogger = importLogger;
+		this.batchController = batchController;
 		this.eventDispatcher = eventDispatcher;
 
 		importer = new CityGMLImportManager(inputFile,
@@ -111,9 +120,16 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 				affineTransformer,
 				config);
 
-		Integer commitAfterProp = config.getProject().getDatabase().getUpdateBatching().getFeatureBatchValue();
-		if (commitAfterProp != null && commitAfterProp > 0)
-			commitAfter = commitAfterProp;
+		// the gml:id index can only be kept in sync with transactions committed by this worker
+		existingFeatureHandler = new ExistingFeatureHandler(connection, databaseAdapter, !isManagedTransaction ? gmlIdIndex : null, config);
+
+		if (batchController != null)
+			commitAfter = batchController.getBatchSize(BatchType.FEATURE);
+		else {
+			Integer commitAfterProp = config.getProject().getDatabase().getUpdateBatching().getFeatureBatchValue();
+			if (commitAfterProp != null && commitAfterProp > 0)
+				commitAfter = commitAfterProp;
+		}
 
 		bboxOptions = BoundingBoxOptions.defaults()				
 				.useExistingEnvelopes(true)
@@ -148,8 +164,10 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 			try {
 				if (shouldWork) {
 					importer.executeBatch();					
-					if (!isManagedTransaction)
+					if (!isManagedTransaction) {
 						connection.commit();
+						existingFeatureHandler.commit();
+					}
 
 					updateImportContext();
 				}
@@ -162,6 +180,8 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 					}
 				}
 
+				existingFeatureHandler.rollback();
+
 				eventDispatcher.triggerEvent(new InterruptEvent("Aborting import due to errors.", LogLevel.WARN, e, eventChannel, this));
 			} catch (IOException e) {
 				eventDispatcher.triggerEvent(new InterruptEvent("Aborting import due to I/O errors.", LogLevel.WARN, e, eventChannel, this));
@@ -174,6 +194,12 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 				// 
 			}
 
+			try {
+				existingFeatureHandler.close();
+			} catch (SQLException e) {
+				//
+			}
+
 			if (!isManagedTransaction) {
 				try {
 					connection.close();
@@ -215,11 +241,17 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 				if (!filter.getSelectionFilter().isSatisfiedBy(feature))
 					return;			
 
+				// skip or replace features already stored in the database
+				if (existingFeatureHandler.isSkipped(feature))
+					return;
+
 				id = importer.importObject(feature);
 				if (id == 0)
 					importer.logOrThrowErrorMessage("Failed to import object " + importer.getObjectSignature(feature) + ".");
-				else
+				else {
+					existingFeatureHandler.register(feature.getId(), id, importer.getObjectClassId(feature));
 					topLevelFeatureCounter++;
+				}
 			}
 
 			else {
@@ -232,24 +264,37 @@ public class DBImportWorker extends Worker<CityGML> implements EventHandler {
 					throw new CityGMLImportException(msg);
 			}
 
-			if (globalAppearanceCounter + topLevelFeatureCounter == commitAfter) {
+			int batchCounter = globalAppearanceCounter + topLevelFeatureCounter;
+			if (batchCounter >= commitAfter) {
 				importer.executeBatch();
-				if (!isManagedTransaction)
+				long start = System.nanoTime();
+				if (!isManagedTransaction) {
 					connection.commit();
+					existingFeatureHandler.commit();
+				}
+
+				if (batchController != null) {
+					// intermediate flushes of single tables count towards the batch as well
+					long nanos = importer.getAndResetBatchTime() + System.nanoTime() - start;
+					batchController.recordBatch(BatchType.FEATURE, batchCounter, nanos);
+					commitAfter = batchController.getBatchSize(BatchType.FEATURE);
+				}
 
 				updateImportContext();
 			}
 
-		} catch (CityGMLImportException | SQLException e) {
+		} catch (CityGMLImportException | SQLException | IOException e) {
 			try {
 				connection.rollback();
 			} catch (SQLException sql) {
 				//
 			}
 
+			existingFeatureHandler.rollback();
 			eventDispatcher.triggerSyncEvent(new InterruptEvent("Aborting import due to errors.", LogLevel.WARN, e, eventChannel, this));
 		} catch (Throwable e) {
 			// this is to catch general exceptions that may occur during the import
+			existingFeatureHandler.rollback();
 			eventDispatcher.triggerSyncEvent(new InterruptEvent("Aborting due to an unexpected " + e.getClass().getName() + " error.", LogLevel.ERROR, e, eventChannel, this));
 		} finally {
 			runLock.unlock();
@@ -27,9 +27,11 @@
  */
 package org.citydb.citygml.importer.concurrent;
 
+import org.citydb.citygml.common.database.index.GmlIdIndex;
 import org.citydb.citygml.common.database.uid.UIDCacheManager;
 import org.citydb.citygml.common.database.xlink.DBXlink;
 import org.citydb.citygml.importer.filter.CityGMLFilter;
+import org.citydb.citygml.importer.util.AdaptiveBatchController;
 import org.citydb.citygml.importer.util.AffineTransformer;
 import org.citydb.citygml.importer.util.ImportLogger;
 import org.citydb.concurrent.Worker;
@@ -66,6 +68,8 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 	private final ImportLogger importLogger;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
+	private final AdaptiveBatchController batchController;
+	private GmlIdIndex gmlIdIndex;
 
 	public DBImportWorkerFactory(InputFile inputFile,
 			ConnectionManager connectionManager,
@@ -78,6 +82,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 			CityGMLFilter filter,
 			AffineTransformer affineTransformer,
 			ImportLogger importLogger,
+			AdaptiveBatchController batchController,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.inputFile = inputFile;
@@ -91,10 +96,28 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 		this.filter = filter;
 		this.affineTransformer = affineTransformer;
 		this.importLogger = importLogger;
+		this.batchController = batchController;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
 
+	public DBImportWorkerFactory(InputFile inputFile,
+			ConnectionManager connectionManager,
+			boolean isManagedTransaction,
+			AbstractDatabaseAdapter databaseAdapter,
+			SchemaMapping schemaMapping,
+			CityGMLBuilder cityGMLBuilder,
+			WorkerPool<DBXlink> xlinkWorkerPool,
+			UIDCacheManager uidCacheManager,
+			CityGMLFilter filter,
+			AffineTransformer affineTransformer,
+			ImportLogger importLogger,
+			Config config,
+			EventDispatcher eventDispatcher) {
+		this(inputFile, connectionManager, isManagedTransaction, databaseAdapter, schemaMapping, cityGMLBuilder, xlinkWorkerPool,
+				uidCacheManager, filter, affineTransformer, importLogger, null, config, eventDispatcher);
+	}
+
 	public DBImportWorkerFactory(InputFile inputFile,
 			SchemaMapping schemaMapping,
 			CityGMLBuilder cityGMLBuilder,
@@ -103,10 +126,25 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 			CityGMLFilter filter,
 			AffineTransformer affineTransformer,
 			ImportLogger importLogger,
+			AdaptiveBatchController batchController,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this(inputFile, DatabaseConnectionPool.getInstance(), false, DatabaseConnectionPool.getInstance().getActiveDatabaseAdapter(), schemaMapping,
-				cityGMLBuilder, xlinkWorkerPool, uidCacheManager, filter, affineTransformer, importLogger, config, eventDispatcher);
+				cityGMLBuilder, xlinkWorkerPool, uidCacheManager, filter, affineTransformer, importLogger, batchController, config, eventDispatcher);
+	}
+
+	public DBImportWorkerFactory(InputFile inputFile,
+			SchemaMapping schemaMapping,
+			CityGMLBuilder cityGMLBuilder,
+			WorkerPool<DBXlink> xlinkWorkerPool,
+			UIDCacheManager uidCacheManager,
+			CityGMLFilter filter,
+			AffineTransformer affineTransformer,
+			ImportLogger importLogger,
+			Config config,
+			EventDispatcher eventDispatcher) {
+		this(inputFile, schemaMapping, cityGMLBuilder, xlinkWorkerPool, uidCacheManager, filter, affineTransformer, importLogger,
+				null, config, eventDispatcher);
 	}
 
 	public DBImportWorkerFactory(InputFile inputFile,
@@ -125,6 +163,10 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 				filter, affineTransformer, importLogger, config, eventDispatcher);
 	}
 
+	public void setGmlIdIndex(GmlIdIndex gmlIdIndex) {
+		this.gmlIdIndex = gmlIdIndex;
+	}
+
 	@Override
 	public Worker<CityGML> createWorker() {
 		DBImportWorker dbWorker = null;
@@ -141,7 +183,7 @@ public class DBImportWorkerFactory implements WorkerFactory<CityGML> {
 			}
 
 			dbWorker = new DBImportWorker(inputFile, connection, isManagedTransaction, databaseAdapter, schemaMapping, cityGMLBuilder,
-					xlinkWorkerPool, uidCacheManager, filter, affineTransformer, importLogger, config, eventDispatcher);
+					xlinkWorkerPool, uidCacheManager, filter, affineTransformer, importLogger, batchController, gmlIdIndex, config, eventDispatcher);
 		} catch (SQLException e) {
 			log.error("Failed to create import worker: " + e.getMessage());
 		}
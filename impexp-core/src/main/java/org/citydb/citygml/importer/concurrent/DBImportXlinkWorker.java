@@ -60,6 +60,8 @@ import org.citydb.citygml.importer.database.xlink.importer.DBXlinkImporterTextur
 import org.citydb.citygml.importer.database.xlink.importer.DBXlinkImporterTextureCoordList;
 import org.citydb.citygml.importer.database.xlink.importer.DBXlinkImporterTextureFile;
 import org.citydb.citygml.importer.database.xlink.importer.DBXlinkImporterTextureParam;
+import org.citydb.citygml.importer.util.AdaptiveBatchController;
+import org.citydb.citygml.importer.util.AdaptiveBatchController.BatchType;
 import org.citydb.concurrent.Worker;
 import org.citydb.config.Config;
 import org.citydb.config.project.database.Database;
@@ -79,19 +81,29 @@ public class DBImportXlinkWorker extends Worker<DBXlink> implements EventHandler
 	
 	private final DBXlinkImporterManager dbXlinkManager;
 	private final EventDispatcher eventDispatcher;
+	private final AdaptiveBatchController batchController;
 	private int updateCounter = 0;
 	private int commitAfter = 1000;
 
 	public DBImportXlinkWorker(CacheTableManager cacheTableManager, Config config, EventDispatcher eventDispatcher) {
+		this(cacheTableManager, null, config, eventDispatcher);
+	}
+
+	public DBImportXlinkWorker(CacheTableManager cacheTableManager, AdaptiveBatchController batchController, Config config, EventDispatcher eventDispatcher) {
 		this.eventDispatcher = eventDispatcher;
+		this.batchController = batchController;
 		dbXlinkManager = new DBXlinkImporterManager(cacheTableManager, eventDispatcher);
 
-		AbstractDatabaseAdapter databaseAdapter = DatabaseConnectionPool.getInstance().getActiveDatabaseAdapter();
-		Database database = config.getProject().getDatabase();
+		if (batchController != null)
+			commitAfter = batchController.getBatchSize(BatchType.TEMP_TABLE);
+		else {
+			AbstractDatabaseAdapter databaseAdapter = DatabaseConnectionPool.getInstance().getActiveDatabaseAdapter();
+			Database database = config.getProject().getDatabase();
 
-		Integer commitAfterProp = database.getUpdateBatching().getTempBatchValue();
-		if (commitAfterProp != null && commitAfterProp > 0 && commitAfterProp <= databaseAdapter.getMaxBatchSize())
-			commitAfter = commitAfterProp;
+			Integer commitAfterProp = database.getUpdateBatching().getTempBatchValue();
+			if (commitAfterProp != null && commitAfterProp > 0 && commitAfterProp <= databaseAdapter.getMaxBatchSize())
+				commitAfter = commitAfterProp;
+		}
 
 		eventDispatcher.addEventHandler(EventType.INTERRUPT, this);
 	}
@@ -240,8 +252,15 @@ public class DBImportXlinkWorker extends Worker<DBXlink> implements EventHandler
 			if (success)
 				updateCounter++;
 
-			if (updateCounter == commitAfter) {
+			if (updateCounter >= commitAfter) {
 				dbXlinkManager.executeBatch();
+
+				if (batchController != null) {
+					// intermediate flushes of single tables count towards the batch as well
+					batchController.recordBatch(BatchType.TEMP_TABLE, updateCounter, dbXlinkManager.getAndResetBatchTime());
+					commitAfter = batchController.getBatchSize(BatchType.TEMP_TABLE);
+				}
+
 				updateCounter = 0;
 			}
 
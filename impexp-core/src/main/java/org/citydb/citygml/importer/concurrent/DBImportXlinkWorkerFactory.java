@@ -29,6 +29,7 @@ package org.citydb.citygml.importer.concurrent;
 
 import org.citydb.citygml.common.database.cache.CacheTableManager;
 import org.citydb.citygml.common.database.xlink.DBXlink;
+import org.citydb.citygml.importer.util.AdaptiveBatchController;
 import org.citydb.concurrent.Worker;
 import org.citydb.concurrent.WorkerFactory;
 import org.citydb.config.Config;
@@ -38,15 +39,21 @@ public class DBImportXlinkWorkerFactory implements WorkerFactory<DBXlink> {
 	private final CacheTableManager cacheTableManager;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
+	private final AdaptiveBatchController batchController;
 
-	public DBImportXlinkWorkerFactory(CacheTableManager cacheTableManager, Config config, EventDispatcher eventDispatcher) {
+	public DBImportXlinkWorkerFactory(CacheTableManager cacheTableManager, AdaptiveBatchController batchController, Config config, EventDispatcher eventDispatcher) {
 		this.cacheTableManager = cacheTableManager;
+		this.batchController = batchController;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
 
+	public DBImportXlinkWorkerFactory(CacheTableManager cacheTableManager, Config config, EventDispatcher eventDispatcher) {
+		this(cacheTableManager, null, config, eventDispatcher);
+	}
+
 	@Override
 	public Worker<DBXlink> createWorker() {
-		return new DBImportXlinkWorker(cacheTableManager, config, eventDispatcher);
+		return new DBImportXlinkWorker(cacheTableManager, batchController, config, eventDispatcher);
 	}
 }
@@ -27,21 +27,36 @@
  */
 package org.citydb.citygml.importer.concurrent;
 
+import java.io.StringWriter;
 import java.util.concurrent.locks.ReentrantLock;
 
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.citydb.citygml.importer.reader.citygml.ChunkTransformer;
+import org.citydb.citygml.importer.reader.citygml.FastPathUnmarshaller;
 import org.citydb.concurrent.Worker;
 import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
+import org.citydb.config.project.general.FastPath;
 import org.citydb.config.project.global.LogLevel;
 import org.citydb.event.EventDispatcher;
 import org.citydb.event.global.InterruptEvent;
 import org.citydb.log.Logger;
+import org.citydb.registry.ObjectRegistry;
+import org.citydb.util.WorkSizeEstimator;
+import org.citygml4j.builder.jaxb.CityGMLBuilder;
+import org.citygml4j.builder.jaxb.marshal.JAXBMarshaller;
 import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.gml.base.AbstractGML;
+import org.citygml4j.model.module.citygml.CityGMLVersion;
+import org.citygml4j.util.internal.xml.TransformerChainFactory;
 import org.citygml4j.xml.io.reader.MissingADESchemaException;
 import org.citygml4j.xml.io.reader.UnmarshalException;
 import org.citygml4j.xml.io.reader.XMLChunk;
 
-public class FeatureReaderWorker extends Worker<XMLChunk> {
+public class FeatureReaderWorker extends Worker<FeatureChunk> {
 	private final Logger LOG = Logger.getInstance();
 	private final ReentrantLock runLock = new ReentrantLock();
 	private volatile boolean shouldRun = true;
@@ -49,14 +64,33 @@ public class FeatureReaderWorker extends Worker<XMLChunk> {
 	private final WorkerPool<CityGML> dbWorkerPool;
 	private final EventDispatcher eventDispatcher;
 	private final boolean useValidation;
+	private final FastPathUnmarshaller fastPathUnmarshaller;
+	private final boolean verifyFastPath;
+	private final TransformerChainFactory transformerChainFactory;
+	private ChunkTransformer chunkTransformer;
+	private JAXBMarshaller jaxbMarshaller;
+	private Marshaller marshaller;
+
+	public FeatureReaderWorker(WorkerPool<CityGML> dbWorkerPool,
+			Config config,
+			EventDispatcher eventDispatcher) {
+		this(dbWorkerPool, null, config, eventDispatcher);
+	}
 
 	public FeatureReaderWorker(WorkerPool<CityGML> dbWorkerPool,
+			TransformerChainFactory transformerChainFactory,
 			Config config,
 			EventDispatcher eventDispatcher) {
 		this.dbWorkerPool = dbWorkerPool;
+		this.transformerChainFactory = transformerChainFactory;
 		this.eventDispatcher = eventDispatcher;
 
 		useValidation = config.getProject().getImporter().getXMLValidation().isSetUseXMLValidation();
+
+		// chunks to be validated or transformed must pass through the JAXB unmarshaller
+		FastPath fastPath = config.getProject().getImporter().getFastPath();
+		fastPathUnmarshaller = fastPath.isEnabled() && !useValidation && transformerChainFactory == null ? new FastPathUnmarshaller() : null;
+		verifyFastPath = fastPathUnmarshaller != null && fastPath.isVerify();
 	}
 	
 	@Override
@@ -73,7 +107,7 @@ public class FeatureReaderWorker extends Worker<XMLChunk> {
 
 		while (shouldRun) {
 			try {
-				XMLChunk work = workQueue.take();				
+				FeatureChunk work = workQueue.take();
 				doWork(work);
 			} catch (InterruptedException ie) {
 				// re-check state
@@ -81,15 +115,44 @@ public class FeatureReaderWorker extends Worker<XMLChunk> {
 		}
 	}
 
-	private void doWork(XMLChunk work) {
+	private void doWork(FeatureChunk featureChunk) {
 		final ReentrantLock runLock = this.runLock;
 		runLock.lock();
 
 		try {
+			XMLChunk work = featureChunk.getChunk();
 			try {
-				CityGML cityGML = work.unmarshal();
-				if (!useValidation || work.hasPassedXMLValidation())
+				CityGML cityGML;
+				if (transformerChainFactory != null) {
+					if (chunkTransformer == null)
+						chunkTransformer = new ChunkTransformer(transformerChainFactory, ObjectRegistry.getInstance().getCityGMLBuilder());
+
+					cityGML = chunkTransformer.transform(work);
+					if (cityGML == null)
+						return;
+				} else {
+					cityGML = fastPathUnmarshaller != null ? fastPathUnmarshaller.unmarshal(work) : null;
+					if (cityGML == null)
+						cityGML = work.unmarshal();
+					else if (verifyFastPath) {
+						// the result of the JAXB unmarshaller is imported if both results differ
+						CityGML jaxbResult = work.unmarshal();
+						if (!isEquivalent(cityGML, jaxbResult)) {
+							LOG.warn("Fast-path unmarshalling of feature" + (jaxbResult instanceof AbstractGML ?
+									" with gml:id '" + ((AbstractGML) jaxbResult).getId() + "'" : "") + " differs from JAXB.");
+						}
+
+						cityGML = jaxbResult;
+					}
+				}
+
+				if (!useValidation || work.hasPassedXMLValidation()) {
+					// keep the estimated size of the chunk for the memory budget of the database workers
+					if (cityGML instanceof AbstractGML)
+						((AbstractGML) cityGML).setLocalProperty(WorkSizeEstimator.WORK_SIZE, featureChunk.getSize());
+
 					dbWorkerPool.addWork(cityGML);
+				}
 			} catch (UnmarshalException e) {
 				if (!useValidation || work.hasPassedXMLValidation()) {
 					StringBuilder msg = new StringBuilder();				
@@ -107,4 +170,25 @@ public class FeatureReaderWorker extends Worker<XMLChunk> {
 		}
 	}
 
+	private boolean isEquivalent(CityGML fastPathResult, CityGML jaxbResult) throws JAXBException {
+		// both results are compared by their XML representation created by JAXB
+		if (marshaller == null) {
+			CityGMLBuilder cityGMLBuilder = ObjectRegistry.getInstance().getCityGMLBuilder();
+			jaxbMarshaller = cityGMLBuilder.createJAXBMarshaller(CityGMLVersion.DEFAULT);
+			marshaller = cityGMLBuilder.getJAXBContext().createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+		}
+
+		return marshal(fastPathResult).equals(marshal(jaxbResult));
+	}
+
+	private String marshal(CityGML cityGML) throws JAXBException {
+		StringWriter writer = new StringWriter();
+		JAXBElement<?> jaxbElement = jaxbMarshaller.marshalJAXBElement(cityGML);
+		if (jaxbElement != null)
+			marshaller.marshal(jaxbElement, writer);
+
+		return writer.toString();
+	}
+
 }
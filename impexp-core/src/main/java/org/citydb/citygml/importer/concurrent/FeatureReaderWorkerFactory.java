@@ -33,23 +33,32 @@ import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
 import org.citydb.event.EventDispatcher;
 import org.citygml4j.model.citygml.CityGML;
-import org.citygml4j.xml.io.reader.XMLChunk;
+import org.citygml4j.util.internal.xml.TransformerChainFactory;
 
-public class FeatureReaderWorkerFactory implements WorkerFactory<XMLChunk> {
+public class FeatureReaderWorkerFactory implements WorkerFactory<FeatureChunk> {
 	private final WorkerPool<CityGML> dbWorkerPool;
+	private final TransformerChainFactory transformerChainFactory;
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 
 	public FeatureReaderWorkerFactory(WorkerPool<CityGML> dbWorkerPool,
 			Config config,
 			EventDispatcher eventDispatcher) {
+		this(dbWorkerPool, null, config, eventDispatcher);
+	}
+
+	public FeatureReaderWorkerFactory(WorkerPool<CityGML> dbWorkerPool,
+			TransformerChainFactory transformerChainFactory,
+			Config config,
+			EventDispatcher eventDispatcher) {
 		this.dbWorkerPool = dbWorkerPool;
+		this.transformerChainFactory = transformerChainFactory;
 		this.config = config;
 		this.eventDispatcher = eventDispatcher;
 	}
 
 	@Override
-	public Worker<XMLChunk> createWorker() {
-		return new FeatureReaderWorker(dbWorkerPool, config, eventDispatcher);
+	public Worker<FeatureChunk> createWorker() {
+		return new FeatureReaderWorker(dbWorkerPool, transformerChainFactory, config, eventDispatcher);
 	}
 }
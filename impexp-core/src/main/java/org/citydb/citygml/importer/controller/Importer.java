@@ -29,6 +29,7 @@ package org.citydb.citygml.importer.controller;
 
 import org.apache.tika.exception.TikaException;
 import org.citydb.citygml.common.database.cache.CacheTableManager;
+import org.citydb.citygml.common.database.index.GmlIdIndex;
 import org.citydb.citygml.common.database.uid.UIDCacheManager;
 import org.citydb.citygml.common.database.uid.UIDCacheType;
 import org.citydb.citygml.common.database.xlink.DBXlink;
@@ -46,8 +47,10 @@ import org.citydb.citygml.importer.reader.FeatureReadException;
 import org.citydb.citygml.importer.reader.FeatureReader;
 import org.citydb.citygml.importer.reader.FeatureReaderFactory;
 import org.citydb.citygml.importer.reader.FeatureReaderFactoryBuilder;
+import org.citydb.citygml.importer.util.AdaptiveBatchController;
 import org.citydb.citygml.importer.util.AffineTransformer;
 import org.citydb.citygml.importer.util.ImportLogger;
+import org.citydb.concurrent.MemoryBudget;
 import org.citydb.concurrent.PoolSizeAdaptationStrategy;
 import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
@@ -55,6 +58,7 @@ import org.citydb.config.i18n.Language;
 import org.citydb.config.internal.Internal;
 import org.citydb.config.project.database.Database;
 import org.citydb.config.project.database.Workspace;
+import org.citydb.config.project.importer.ImportExistingFeatures;
 import org.citydb.config.project.importer.ImportGmlId;
 import org.citydb.config.project.importer.ImportResources;
 import org.citydb.config.project.importer.Index;
@@ -86,6 +90,7 @@ import org.citydb.log.Logger;
 import org.citydb.query.filter.FilterException;
 import org.citydb.util.CoreConstants;
 import org.citydb.util.Util;
+import org.citydb.util.WorkSizeEstimator;
 import org.citygml4j.builder.jaxb.CityGMLBuilder;
 import org.citygml4j.model.citygml.CityGML;
 import org.citygml4j.model.gml.GMLClass;
@@ -93,6 +98,7 @@ import org.citygml4j.model.gml.GMLClass;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -116,6 +122,7 @@ public class Importer implements EventHandler {
 	private HashMap<Integer, Long> objectCounter;
 	private EnumMap<GMLClass, Long> geometryCounter;
 	private DirectoryScanner directoryScanner;
+	private GmlIdIndex gmlIdIndex;
 
 	public Importer(CityGMLBuilder cityGMLBuilder, 
 			SchemaMapping schemaMapping,
@@ -133,6 +140,9 @@ public class Importer implements EventHandler {
 
 	public void cleanup() {
 		eventDispatcher.removeEventHandler(this);
+
+		// the index is only still open if the import did not terminate normally
+		closeGmlIdIndex(false);
 	}
 
 	public boolean doProcess() throws CityGMLImportException {
@@ -154,8 +164,17 @@ public class Importer implements EventHandler {
 		int maxThreads = resourcesConfig.getThreadPool().getDefaultPool().getMaxThreads();
 		int queueSize = maxThreads * 2;
 
-		// gml:id lookup cache update
-		int lookupCacheBatchSize = databaseConfig.getUpdateBatching().getGmlIdCacheBatchValue();
+		// limit the work queues by their estimated memory consumption
+		MemoryBudget memoryBudget = null;
+		if (resourcesConfig.isSetMemoryBudget()) {
+			memoryBudget = MemoryBudget.ofMegabytes(resourcesConfig.getMemoryBudget());
+			log.info("Limiting queued features to a memory budget of " + resourcesConfig.getMemoryBudget() + " MB.");
+		}
+
+		// batch sizes for feature, temporary table and gml:id lookup cache updates
+		AdaptiveBatchController batchController = new AdaptiveBatchController(config, databaseAdapter.getMaxBatchSize());
+		if (batchController.isEnabled())
+			log.info("Adapting batch sizes to the measured database throughput.");
 
 		// check database workspace
 		Workspace workspace = databaseConfig.getWorkspaces().getImportWorkspace();
@@ -232,6 +251,24 @@ public class Importer implements EventHandler {
 			throw new CityGMLImportException("Failed to build the import filter.", e);
 		}
 
+		// open persistent gml:id index for detecting existing features. in import mode,
+		// an existing index is just kept up to date
+		ImportExistingFeatures existingFeaturesConfig = importerConfig.getExistingFeatures();
+		if (existingFeaturesConfig.isSetImportMode() || existingFeaturesConfig.isSetUseGmlIdIndex()) {
+			try (Connection connection = DatabaseConnectionPool.getInstance().getConnection()) {
+				gmlIdIndex = GmlIdIndex.open(connection, databaseAdapter, !existingFeaturesConfig.isSetImportMode());
+			} catch (SQLException | IOException e) {
+				log.warn("Failed to open gml:id index: " + e.getMessage());
+				if (!existingFeaturesConfig.isSetImportMode())
+					log.warn("Existing features are detected by querying the database instead.");
+			}
+		}
+
+		if (existingFeaturesConfig.isSetSkipMode())
+			log.info("Skipping features that already exist in the database.");
+		else if (existingFeaturesConfig.isSetReplaceMode())
+			log.info("Replacing features that already exist in the database.");
+
 		// create reader factory builder
 		FeatureReaderFactoryBuilder builder = new FeatureReaderFactoryBuilder();
 
@@ -305,7 +342,7 @@ public class Importer implements EventHandler {
 							UIDCacheType.GEOMETRY,
 							new GeometryGmlIdCache(cacheTableManager, 
 									resourcesConfig.getGmlIdCache().getGeometry().getPartitions(), 
-									lookupCacheBatchSize),
+									batchController),
 							resourcesConfig.getGmlIdCache().getGeometry().getCacheSize(),
 							resourcesConfig.getGmlIdCache().getGeometry().getPageFactor(),
 							maxThreads);
@@ -314,7 +351,7 @@ public class Importer implements EventHandler {
 							UIDCacheType.OBJECT,
 							new FeatureGmlIdCache(cacheTableManager, 
 									resourcesConfig.getGmlIdCache().getFeature().getPartitions(),
-									lookupCacheBatchSize),
+									batchController),
 							resourcesConfig.getGmlIdCache().getFeature().getCacheSize(),
 							resourcesConfig.getGmlIdCache().getFeature().getPageFactor(),
 							maxThreads);
@@ -325,7 +362,7 @@ public class Importer implements EventHandler {
 								UIDCacheType.TEXTURE_IMAGE,
 								new TextureImageCache(cacheTableManager, 
 										resourcesConfig.getTexImageCache().getPartitions(),
-										lookupCacheBatchSize),
+										batchController),
 								resourcesConfig.getTexImageCache().getCacheSize(),
 								resourcesConfig.getTexImageCache().getPageFactor(),
 								maxThreads);
@@ -341,29 +378,36 @@ public class Importer implements EventHandler {
 						minThreads,
 						maxThreads,
 						PoolSizeAdaptationStrategy.AGGRESSIVE,
-						new DBImportXlinkWorkerFactory(cacheTableManager, config, eventDispatcher),
+						new DBImportXlinkWorkerFactory(cacheTableManager, batchController, config, eventDispatcher),
 						queueSize,
 						false);
 
 				// this pool basically works on the data import
+				DBImportWorkerFactory dbWorkerFactory = new DBImportWorkerFactory(file,
+						schemaMapping,
+						cityGMLBuilder,
+						tmpXlinkPool,
+						uidCacheManager,
+						filter,
+						affineTransformer,
+						importLogger,
+						batchController,
+						config,
+						eventDispatcher);
+				dbWorkerFactory.setGmlIdIndex(gmlIdIndex);
+
 				dbWorkerPool = new WorkerPool<>(
 						"db_importer_pool",
 						minThreads,
 						maxThreads,
 						PoolSizeAdaptationStrategy.AGGRESSIVE,
-						new DBImportWorkerFactory(file,
-								schemaMapping,
-								cityGMLBuilder,
-								tmpXlinkPool,
-								uidCacheManager,
-								filter,
-								affineTransformer,
-								importLogger,
-								config,
-								eventDispatcher),
-						queueSize,
+						dbWorkerFactory,
+						memoryBudget != null ? MemoryBudget.DEFAULT_QUEUE_SIZE : queueSize,
 						false);
 
+				if (memoryBudget != null)
+					dbWorkerPool.setMemoryBudget(memoryBudget, WorkSizeEstimator::estimate);
+
 				// prestart threads
 				tmpXlinkPool.prestartCoreWorkers();
 				dbWorkerPool.prestartCoreWorkers();
@@ -504,6 +548,8 @@ public class Importer implements EventHandler {
 			}
 		} 
 
+		closeGmlIdIndex(shouldRun);
+
 		// reactivate database indexes
 		if (shouldRun) {
 			if (indexConfig.isSpatialIndexModeDeactivateActivate() || indexConfig.isNormalIndexModeDeactivateActivate()) {
@@ -532,12 +578,37 @@ public class Importer implements EventHandler {
 		if (!geometryCounter.isEmpty())
 			log.info("Processed geometry objects: " + geometryCounter.values().stream().reduce(0L, Long::sum));
 
+		// show adapted batch sizes so that they can be used as static values
+		batchController.logBatchSizes();
+
+		if (memoryBudget != null)
+			memoryBudget.logUsage();
+
 		if (shouldRun)
 			log.info("Total import time: " + Util.formatElapsedTime(System.currentTimeMillis() - start) + ".");
 
 		return shouldRun;
 	}
 
+	private void closeGmlIdIndex(boolean success) {
+		if (gmlIdIndex != null) {
+			try {
+				if (success)
+					gmlIdIndex.close();
+				else {
+					// an aborted import may leave the index out of sync with the database,
+					// so it is discarded and rebuilt on next use
+					log.info("Discarding gml:id index due to the aborted import.");
+					gmlIdIndex.invalidate();
+				}
+			} catch (IOException e) {
+				log.error("Failed to update gml:id index: " + e.getMessage());
+			} finally {
+				gmlIdIndex = null;
+			}
+		}
+	}
+
 	private void manageIndexes(boolean enable, boolean workOnSpatialIndexes) throws SQLException {
 		AbstractUtilAdapter utilAdapter = databaseAdapter.getUtil();
 		log.info((enable ? "Activating " : "Deactivating ") + (workOnSpatialIndexes ? "spatial" : "normal") + " indexes...");
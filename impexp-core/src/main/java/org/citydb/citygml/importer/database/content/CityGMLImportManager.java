@@ -162,6 +162,7 @@ public class CityGMLImportManager implements CityGMLImportHelper {
 	private JAXBMarshaller jaxbMarshaller;
 	private SAXWriter saxWriter;
 
+	private long batchTime;
 	private boolean failOnError = false;
 	private boolean hasADESupport = false;
 
@@ -732,27 +733,39 @@ public class CityGMLImportManager implements CityGMLImportHelper {
 	}
 
 	private void doExecuteBatch(String tableName) throws CityGMLImportException, SQLException {
-		// check whether whether we deal with a predefined 3dcitydb table
-		// in which case we pick a predefined importer to execute the batch
-		TableEnum table = TableEnum.fromTableName(tableName);
-		if (table != TableEnum.UNDEFINED) {
-			DBImporter importer = importers.get(tableHelper.getImporterClass(table));
-			if (importer != null)
-				importer.executeBatch();
-		}
+		long start = System.nanoTime();
+
+		try {
+			// check whether whether we deal with a predefined 3dcitydb table
+			// in which case we pick a predefined importer to execute the batch
+			TableEnum table = TableEnum.fromTableName(tableName);
+			if (table != TableEnum.UNDEFINED) {
+				DBImporter importer = importers.get(tableHelper.getImporterClass(table));
+				if (importer != null)
+					importer.executeBatch();
+			}
 
-		else {
-			// otherwise, let an ADE extension deal with the ADE table
-			ADEExtension extension = adeManager.getExtensionByTableName(tableName);
-			if (extension == null)
-				throw new CityGMLImportException("Failed to find an ADE extension for the ADE table '" + tableName + "'.");
+			else {
+				// otherwise, let an ADE extension deal with the ADE table
+				ADEExtension extension = adeManager.getExtensionByTableName(tableName);
+				if (extension == null)
+					throw new CityGMLImportException("Failed to find an ADE extension for the ADE table '" + tableName + "'.");
 
-			ADEImportManager adeImporter = adeImporters.get(extension);
-			if (adeImporter != null)
-				adeImporter.executeBatch(tableName);
+				ADEImportManager adeImporter = adeImporters.get(extension);
+				if (adeImporter != null)
+					adeImporter.executeBatch(tableName);
+			}
+		} finally {
+			batchTime += System.nanoTime() - start;
 		}
 	}
 
+	public long getAndResetBatchTime() {
+		long batchTime = this.batchTime;
+		this.batchTime = 0;
+		return batchTime;
+	}
+
 	public void close() throws CityGMLImportException, SQLException {
 		sequenceHelper.close();
 		for (DBImporter importer : importers.values())
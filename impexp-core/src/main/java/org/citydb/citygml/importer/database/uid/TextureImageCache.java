@@ -42,6 +42,8 @@ import org.citydb.citygml.common.database.cache.CacheTableManager;
 import org.citydb.citygml.common.database.cache.model.CacheTableModel;
 import org.citydb.citygml.common.database.uid.UIDCacheEntry;
 import org.citydb.citygml.common.database.uid.UIDCachingModel;
+import org.citydb.citygml.importer.util.AdaptiveBatchController;
+import org.citydb.citygml.importer.util.AdaptiveBatchController.BatchType;
 
 public class TextureImageCache 
 
@@ -60,12 +62,22 @@ implements UIDCachingModel {
 	private boolean[] isIndexed;
 	private int[] batchCounters;
 
+	private final AdaptiveBatchController batchController;
 	private int batchSize;
 
 	public TextureImageCache(CacheTableManager cacheTableManager, int partitions, int batchSize) throws SQLException {
+		this(cacheTableManager, partitions, batchSize, null);
+	}
+
+	public TextureImageCache(CacheTableManager cacheTableManager, int partitions, AdaptiveBatchController batchController) throws SQLException {
+		this(cacheTableManager, partitions, batchController.getBatchSize(BatchType.GMLID_CACHE), batchController);
+	}
+
+	private TextureImageCache(CacheTableManager cacheTableManager, int partitions, int batchSize, AdaptiveBatchController batchController) throws SQLException {
 		this.cacheTableManager = cacheTableManager;
 		this.partitions = partitions;
 		this.batchSize = batchSize;
+		this.batchController = batchController;
 
 		cacheTableModel = CacheTableModel.TEXTURE_FILE_ID;
 		backUpTables = new CacheTable[partitions];
@@ -81,7 +93,10 @@ implements UIDCachingModel {
 
 	@Override
 	public void drainToDB(ConcurrentHashMap<String, UIDCacheEntry> map, int drain) throws SQLException {
-		int drainCounter = 0;	
+		int drainCounter = 0;
+		long start = System.nanoTime();
+		if (batchController != null)
+			batchSize = batchController.getBatchSize(BatchType.GMLID_CACHE);
 
 		// firstly, try and write those entries which have been requested so far
 		Iterator<Map.Entry<String, UIDCacheEntry>> iter = map.entrySet().iterator();
@@ -101,7 +116,7 @@ implements UIDCachingModel {
 				psDrain.setLong(2, entry.getValue().getId());
 
 				psDrain.addBatch();
-				if (++batchCounters[partition] == batchSize) {
+				if (++batchCounters[partition] >= batchSize) {
 					psDrain.executeBatch();
 					batchCounters[partition] = 0;
 				}
@@ -128,7 +143,7 @@ implements UIDCachingModel {
 			psDrain.setLong(2, entry.getValue().getId());
 
 			psDrain.addBatch();
-			if (++batchCounters[partition] == batchSize) {
+			if (++batchCounters[partition] >= batchSize) {
 				psDrain.executeBatch();
 				batchCounters[partition] = 0;
 			}
@@ -138,9 +153,15 @@ implements UIDCachingModel {
 		}
 
 		// finally execute batches
-		for (int i = 0; i < psDrains.length; i++)
-			if (psDrains[i] != null && batchCounters[i] > 0)
+		for (int i = 0; i < psDrains.length; i++) {
+			if (psDrains[i] != null && batchCounters[i] > 0) {
 				psDrains[i].executeBatch();
+				batchCounters[i] = 0;
+			}
+		}
+
+		if (batchController != null)
+			batchController.recordBatch(BatchType.GMLID_CACHE, drainCounter, System.nanoTime() - start);
 	}
 
 	@Override
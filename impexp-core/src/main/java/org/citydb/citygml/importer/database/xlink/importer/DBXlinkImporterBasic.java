@@ -62,7 +62,7 @@ public class DBXlinkImporterBasic implements DBXlinkImporter {
 
 		psXlink.addBatch();
 		if (++batchCounter == xlinkImporterManager.getCacheAdapter().getMaxBatchSize())
-			executeBatch();
+			xlinkImporterManager.executeBatch(this);
 
 		return true;
 	}
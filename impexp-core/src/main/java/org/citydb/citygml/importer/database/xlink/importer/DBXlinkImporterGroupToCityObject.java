@@ -54,7 +54,7 @@ public class DBXlinkImporterGroupToCityObject implements DBXlinkImporter {
 
 		psXlink.addBatch();
 		if (++batchCounter == xlinkImporterManager.getCacheAdapter().getMaxBatchSize())
-			executeBatch();
+			xlinkImporterManager.executeBatch(this);
 
 		return true;
 	}
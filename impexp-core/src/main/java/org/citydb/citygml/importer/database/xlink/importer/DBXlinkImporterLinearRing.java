@@ -54,7 +54,7 @@ public class DBXlinkImporterLinearRing implements DBXlinkImporter {
 
 		psLinearRing.addBatch();
 		if (++batchCounter == xlinkImporterManager.getCacheAdapter().getMaxBatchSize())
-			executeBatch();
+			xlinkImporterManager.executeBatch(this);
 
 		return true;
 	}
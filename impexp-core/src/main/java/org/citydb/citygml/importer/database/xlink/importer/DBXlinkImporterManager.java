@@ -41,6 +41,7 @@ public class DBXlinkImporterManager {
 	private final CacheTableManager cacheTableManager;
 	private final EventDispatcher eventDispatcher;
 	private HashMap<DBXlinkImporterEnum, DBXlinkImporter> dbImporterMap;
+	private long batchTime;
 
 	public DBXlinkImporterManager(CacheTableManager cacheTableManager, EventDispatcher eventDispatcher) {
 		this.cacheTableManager = cacheTableManager;
@@ -160,7 +161,19 @@ public class DBXlinkImporterManager {
 
 	public void executeBatch() throws SQLException {
 		for (DBXlinkImporter dbImporter : dbImporterMap.values())
-			dbImporter.executeBatch();
+			executeBatch(dbImporter);
+	}
+
+	protected void executeBatch(DBXlinkImporter dbImporter) throws SQLException {
+		long start = System.nanoTime();
+		dbImporter.executeBatch();
+		batchTime += System.nanoTime() - start;
+	}
+
+	public long getAndResetBatchTime() {
+		long batchTime = this.batchTime;
+		this.batchTime = 0;
+		return batchTime;
 	}
 	
 	public void close() throws SQLException {
@@ -50,7 +50,7 @@ public class DBXlinkImporterSolidGeometry implements DBXlinkImporter {
 		
 		psXlink.addBatch();
 		if (++batchCounter == xlinkImporterManager.getCacheAdapter().getMaxBatchSize())
-			executeBatch();
+			xlinkImporterManager.executeBatch(this);
 
 		return true;
 	}
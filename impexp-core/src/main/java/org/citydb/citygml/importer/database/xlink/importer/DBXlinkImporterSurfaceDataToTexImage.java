@@ -52,7 +52,7 @@ public class DBXlinkImporterSurfaceDataToTexImage implements DBXlinkImporter {
 
 		psXlink.addBatch();
 		if (++batchCounter == xlinkImporterManager.getCacheAdapter().getMaxBatchSize())
-			executeBatch();
+			xlinkImporterManager.executeBatch(this);
 
 		return true;
 	}
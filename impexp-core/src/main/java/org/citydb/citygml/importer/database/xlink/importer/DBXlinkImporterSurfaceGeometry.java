@@ -65,7 +65,7 @@ public class DBXlinkImporterSurfaceGeometry implements DBXlinkImporter {
 		
 		psXlink.addBatch();
 		if (++batchCounter == xlinkImporterManager.getCacheAdapter().getMaxBatchSize())
-			executeBatch();
+			xlinkImporterManager.executeBatch(this);
 		
 		return true;
 	}
@@ -53,7 +53,7 @@ public class DBXlinkImporterTextureAssociationTarget implements DBXlinkImporter
 
 		psXlink.addBatch();
 		if (++batchCounter == xlinkImporterManager.getCacheAdapter().getMaxBatchSize())
-			executeBatch();
+			xlinkImporterManager.executeBatch(this);
 
 		return true;
 	}
@@ -0,0 +1,117 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.importer.reader.citygml;
+
+import org.citygml4j.builder.jaxb.CityGMLBuilder;
+import org.citygml4j.builder.jaxb.CityGMLBuilderException;
+import org.citygml4j.builder.jaxb.unmarshal.JAXBUnmarshaller;
+import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.common.base.ModelObject;
+import org.citygml4j.util.internal.xml.TransformerChain;
+import org.citygml4j.util.internal.xml.TransformerChainFactory;
+import org.citygml4j.xml.io.reader.MissingADESchemaException;
+import org.citygml4j.xml.io.reader.XMLChunk;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.UnmarshallerHandler;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.SAXResult;
+
+/**
+ * Applies a chain of XSL transformations to a single XML chunk and unmarshals
+ * the transformation result. Every feature reader worker owns its own instance
+ * so that chunks can be transformed in parallel. This requires stylesheets that
+ * only operate on the content of a single top-level feature.
+ */
+public class ChunkTransformer {
+	private final TransformerChainFactory factory;
+	private final Unmarshaller unmarshaller;
+	private final JAXBUnmarshaller jaxbUnmarshaller;
+	private final DocumentFilter filter = new DocumentFilter();
+
+	private TransformerChain chain;
+
+	public ChunkTransformer(TransformerChainFactory factory, CityGMLBuilder cityGMLBuilder) throws JAXBException, CityGMLBuilderException {
+		this.factory = factory;
+
+		unmarshaller = cityGMLBuilder.getJAXBContext().createUnmarshaller();
+		jaxbUnmarshaller = cityGMLBuilder.createJAXBUnmarshaller();
+		jaxbUnmarshaller.setThrowMissingADESchema(false);
+		jaxbUnmarshaller.setParseSchema(false);
+	}
+
+	public CityGML transform(XMLChunk chunk) throws SAXException, TransformerConfigurationException, JAXBException, MissingADESchemaException {
+		if (chain == null) {
+			// transformer factories are not guaranteed to be thread-safe
+			synchronized (factory) {
+				chain = factory.buildChain();
+			}
+		}
+
+		UnmarshallerHandler handler = unmarshaller.getUnmarshallerHandler();
+		chain.tail().setResult(new SAXResult(handler));
+		filter.setContentHandler(chain.head());
+
+		try {
+			chain.head().startDocument();
+			chunk.send(filter, true);
+			chain.head().endDocument();
+		} catch (SAXException e) {
+			// the transformers are left in an undefined state
+			chain = null;
+			throw e;
+		}
+
+		Object result;
+		try {
+			result = handler.getResult();
+		} catch (IllegalStateException e) {
+			// the stylesheets have removed the feature
+			return null;
+		}
+
+		ModelObject object = jaxbUnmarshaller.unmarshal(result);
+		return object instanceof CityGML ? (CityGML) object : null;
+	}
+
+	private static final class DocumentFilter extends XMLFilterImpl {
+
+		@Override
+		public void startDocument() {
+			// document events are sent to the transformer chain once per chunk
+		}
+
+		@Override
+		public void endDocument() {
+			// document events are sent to the transformer chain once per chunk
+		}
+	}
+}
@@ -1,9 +1,11 @@
 package org.citydb.citygml.importer.reader.citygml;
 
+import org.citydb.citygml.importer.concurrent.FeatureChunk;
 import org.citydb.citygml.importer.concurrent.FeatureReaderWorkerFactory;
 import org.citydb.citygml.importer.filter.selection.counter.CounterFilter;
 import org.citydb.citygml.importer.reader.FeatureReadException;
 import org.citydb.citygml.importer.reader.FeatureReader;
+import org.citydb.concurrent.MemoryBudget;
 import org.citydb.concurrent.PoolSizeAdaptationStrategy;
 import org.citydb.concurrent.WorkerPool;
 import org.citydb.config.Config;
@@ -13,31 +15,37 @@ import org.citydb.event.EventHandler;
 import org.citydb.event.global.EventType;
 import org.citydb.file.InputFile;
 import org.citydb.registry.ObjectRegistry;
+import org.citydb.util.WorkSizeEstimator;
 import org.citygml4j.model.citygml.CityGML;
 import org.citygml4j.model.citygml.CityGMLClass;
+import org.citygml4j.util.internal.xml.TransformerChainFactory;
 import org.citygml4j.xml.io.CityGMLInputFactory;
 import org.citygml4j.xml.io.reader.CityGMLInputFilter;
 import org.citygml4j.xml.io.reader.CityGMLReadException;
 import org.citygml4j.xml.io.reader.XMLChunk;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 public class CityGMLReader implements FeatureReader, EventHandler {
     private final CityGMLInputFilter typeFilter;
     private final CounterFilter counterFilter;
     private final ValidationErrorHandler validationHandler;
     private final CityGMLInputFactory factory;
+    private final TransformerChainFactory transformerChainFactory;
     private final Config config;
     private final EventDispatcher eventDispatcher;
     private final int minThreads, maxThreads;
 
     private volatile boolean shouldRun = true;
 
-    CityGMLReader(CityGMLInputFilter typeFilter, CounterFilter counterFilter, ValidationErrorHandler validationHandler, CityGMLInputFactory factory, Config config) {
+    CityGMLReader(CityGMLInputFilter typeFilter, CounterFilter counterFilter, ValidationErrorHandler validationHandler, CityGMLInputFactory factory, TransformerChainFactory transformerChainFactory, Config config) {
         this.typeFilter = typeFilter;
         this.counterFilter = counterFilter;
         this.validationHandler = validationHandler;
         this.factory = factory;
+        this.transformerChainFactory = transformerChainFactory;
         this.config = config;
 
         minThreads = config.getProject().getImporter().getResources().getThreadPool().getDefaultPool().getMinThreads();
@@ -57,29 +65,41 @@ public class CityGMLReader implements FeatureReader, EventHandler {
         if (validationHandler != null)
             validationHandler.reset();
 
-        WorkerPool<XMLChunk> featureWorkerPool = null;
+        WorkerPool<FeatureChunk> featureWorkerPool = null;
         org.citygml4j.xml.io.reader.CityGMLReader reader;
 
         try {
             // this worker pool unmarshals feature chunks and passes them to the database worker pool
+            MemoryBudget memoryBudget = workerPool.getMemoryBudget();
             featureWorkerPool = new WorkerPool<>(
                     "citygml_parser_pool",
                     minThreads,
                     maxThreads,
                     PoolSizeAdaptationStrategy.AGGRESSIVE,
-                    new FeatureReaderWorkerFactory(workerPool, config, eventDispatcher),
-                    maxThreads * 2,
+                    new FeatureReaderWorkerFactory(workerPool, transformerChainFactory, config, eventDispatcher),
+                    memoryBudget != null ? MemoryBudget.DEFAULT_QUEUE_SIZE : maxThreads * 2,
                     false);
 
+            // share the memory budget of the database worker pool
+            if (memoryBudget != null)
+                featureWorkerPool.setMemoryBudget(memoryBudget, FeatureChunk::getSize);
+
             featureWorkerPool.prestartCoreWorkers();
 
             try {
-                reader = factory.createFilteredCityGMLReader(factory.createCityGMLReader(inputFile.getFile().toString(), inputFile.openStream()), typeFilter);
+                CountingInputStream stream = new CountingInputStream(inputFile.openStream());
+                reader = factory.createFilteredCityGMLReader(factory.createCityGMLReader(inputFile.getFile().toString(), stream), typeFilter);
+                long position = 0;
 
                 while (shouldRun && reader.hasNext()) {
                     XMLChunk chunk = reader.nextChunk();
                     CityGMLClass type = chunk.getCityGMLClass();
 
+                    // the parser reads ahead, so the bytes consumed since the previous
+                    // chunk only approximate the size of this chunk
+                    long bytes = stream.getCount() - position;
+                    position += bytes;
+
                     if (counterFilter != null && type != CityGMLClass.APPEARANCE) {
                         if (!counterFilter.isStartIndexSatisfied()) {
                             counterFilter.incrementStartIndex();
@@ -91,7 +111,7 @@ public class CityGMLReader implements FeatureReader, EventHandler {
                             continue;
                     }
 
-                    featureWorkerPool.addWork(chunk);
+                    featureWorkerPool.addWork(new FeatureChunk(chunk, WorkSizeEstimator.estimate(bytes)));
                 }
             } catch (CityGMLReadException | IOException e) {
                 throw new FeatureReadException("Failed to read CityGML input file.", e);
@@ -123,4 +143,46 @@ public class CityGMLReader implements FeatureReader, EventHandler {
     public void handleEvent(Event event) throws Exception {
         shouldRun = false;
     }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1)
+                count++;
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                count += read;
+
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
 }
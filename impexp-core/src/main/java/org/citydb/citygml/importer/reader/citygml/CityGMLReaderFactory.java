@@ -6,12 +6,14 @@ import org.citydb.citygml.importer.reader.FeatureReadException;
 import org.citydb.citygml.importer.reader.FeatureReader;
 import org.citydb.citygml.importer.reader.FeatureReaderFactory;
 import org.citydb.config.Config;
+import org.citydb.config.project.general.XSLTransformation;
 import org.citydb.log.Logger;
 import org.citydb.registry.ObjectRegistry;
 import org.citygml4j.builder.jaxb.CityGMLBuilderException;
 import org.citygml4j.model.module.Module;
 import org.citygml4j.model.module.Modules;
 import org.citygml4j.model.module.citygml.CityGMLModuleType;
+import org.citygml4j.util.internal.xml.TransformerChainFactory;
 import org.citygml4j.xml.io.CityGMLInputFactory;
 import org.citygml4j.xml.io.reader.CityGMLInputFilter;
 import org.citygml4j.xml.io.reader.FeatureReadMode;
@@ -30,6 +32,7 @@ public class CityGMLReaderFactory implements FeatureReaderFactory {
     private final Logger log = Logger.getInstance();
 
     private CityGMLInputFactory factory;
+    private TransformerChainFactory transformerChainFactory;
     private CityGMLInputFilter typeFilter;
     private CounterFilter counterFilter;
     private ValidationErrorHandler validationHandler;
@@ -64,12 +67,12 @@ public class CityGMLReaderFactory implements FeatureReaderFactory {
         }
 
         // build XSLT transformer chain
-        if (config.getProject().getImporter().getXSLTransformation().isEnabled()
-                && config.getProject().getImporter().getXSLTransformation().isSetStylesheets()) {
+        XSLTransformation transformation = config.getProject().getImporter().getXSLTransformation();
+        if (transformation.isEnabled() && transformation.isSetStylesheets()) {
             try {
                 log.info("Applying XSL transformations to CityGML input features.");
 
-                List<String> stylesheets = config.getProject().getImporter().getXSLTransformation().getStylesheets();
+                List<String> stylesheets = transformation.getStylesheets();
                 SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactory.newInstance();
                 Templates[] templates = new Templates[stylesheets.size()];
 
@@ -78,7 +81,17 @@ public class CityGMLReaderFactory implements FeatureReaderFactory {
                     templates[i] = template;
                 }
 
-                this.factory.setTransformationTemplates(templates);
+                // chunk-safe stylesheets are applied to each feature by the feature reader workers.
+                // validated chunks must be unmarshalled by citygml4j to be marked as valid though
+                if (transformation.isChunkSafe() && validationHandler == null) {
+                    log.debug("Transforming CityGML input features in parallel.");
+                    transformerChainFactory = new TransformerChainFactory(templates);
+                } else {
+                    if (transformation.isChunkSafe())
+                        log.debug("XML validation is enabled. Transforming CityGML input features on the reader thread.");
+
+                    this.factory.setTransformationTemplates(templates);
+                }
             } catch (CityGMLWriteException | TransformerConfigurationException e) {
                 throw new FeatureReadException("Failed to configure the XSL transformation.", e);
             }
@@ -98,6 +111,6 @@ public class CityGMLReaderFactory implements FeatureReaderFactory {
 
     @Override
     public FeatureReader createFeatureReader() throws FeatureReadException {
-        return new CityGMLReader(typeFilter, counterFilter, validationHandler, factory, config);
+        return new CityGMLReader(typeFilter, counterFilter, validationHandler, factory, transformerChainFactory, config);
     }
 }
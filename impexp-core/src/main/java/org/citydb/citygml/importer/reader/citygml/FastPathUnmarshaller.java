@@ -0,0 +1,1328 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.importer.reader.citygml;
+
+import org.citydb.log.Logger;
+import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.citygml.appearance.AbstractSurfaceData;
+import org.citygml4j.model.citygml.appearance.Appearance;
+import org.citygml4j.model.citygml.appearance.AppearanceProperty;
+import org.citygml4j.model.citygml.appearance.Color;
+import org.citygml4j.model.citygml.appearance.ColorPlusOpacity;
+import org.citygml4j.model.citygml.appearance.ParameterizedTexture;
+import org.citygml4j.model.citygml.appearance.SurfaceDataProperty;
+import org.citygml4j.model.citygml.appearance.TexCoordList;
+import org.citygml4j.model.citygml.appearance.TextureAssociation;
+import org.citygml4j.model.citygml.appearance.TextureCoordinates;
+import org.citygml4j.model.citygml.appearance.TextureType;
+import org.citygml4j.model.citygml.appearance.WrapMode;
+import org.citygml4j.model.citygml.appearance.X3DMaterial;
+import org.citygml4j.model.citygml.building.AbstractBoundarySurface;
+import org.citygml4j.model.citygml.building.AbstractBuilding;
+import org.citygml4j.model.citygml.building.BoundarySurfaceProperty;
+import org.citygml4j.model.citygml.building.Building;
+import org.citygml4j.model.citygml.building.BuildingPart;
+import org.citygml4j.model.citygml.building.BuildingPartProperty;
+import org.citygml4j.model.citygml.building.CeilingSurface;
+import org.citygml4j.model.citygml.building.ClosureSurface;
+import org.citygml4j.model.citygml.building.FloorSurface;
+import org.citygml4j.model.citygml.building.GroundSurface;
+import org.citygml4j.model.citygml.building.InteriorWallSurface;
+import org.citygml4j.model.citygml.building.OuterCeilingSurface;
+import org.citygml4j.model.citygml.building.OuterFloorSurface;
+import org.citygml4j.model.citygml.building.RoofSurface;
+import org.citygml4j.model.citygml.building.WallSurface;
+import org.citygml4j.model.citygml.core.AbstractCityObject;
+import org.citygml4j.model.citygml.core.RelativeToTerrain;
+import org.citygml4j.model.citygml.core.RelativeToWater;
+import org.citygml4j.model.citygml.generics.AbstractGenericAttribute;
+import org.citygml4j.model.citygml.generics.DateAttribute;
+import org.citygml4j.model.citygml.generics.DoubleAttribute;
+import org.citygml4j.model.citygml.generics.IntAttribute;
+import org.citygml4j.model.citygml.generics.MeasureAttribute;
+import org.citygml4j.model.citygml.generics.StringAttribute;
+import org.citygml4j.model.citygml.generics.UriAttribute;
+import org.citygml4j.model.citygml.relief.AbstractReliefComponent;
+import org.citygml4j.model.citygml.relief.BreaklineRelief;
+import org.citygml4j.model.citygml.relief.MassPointRelief;
+import org.citygml4j.model.citygml.relief.ReliefComponentProperty;
+import org.citygml4j.model.citygml.relief.ReliefFeature;
+import org.citygml4j.model.citygml.relief.TINRelief;
+import org.citygml4j.model.citygml.relief.TinProperty;
+import org.citygml4j.model.citygml.transportation.AuxiliaryTrafficArea;
+import org.citygml4j.model.citygml.transportation.AuxiliaryTrafficAreaProperty;
+import org.citygml4j.model.citygml.transportation.Railway;
+import org.citygml4j.model.citygml.transportation.Road;
+import org.citygml4j.model.citygml.transportation.Square;
+import org.citygml4j.model.citygml.transportation.Track;
+import org.citygml4j.model.citygml.transportation.TrafficArea;
+import org.citygml4j.model.citygml.transportation.TrafficAreaProperty;
+import org.citygml4j.model.citygml.transportation.TransportationComplex;
+import org.citygml4j.model.gml.base.StringOrRef;
+import org.citygml4j.model.gml.basicTypes.Code;
+import org.citygml4j.model.gml.basicTypes.Measure;
+import org.citygml4j.model.gml.feature.AbstractFeature;
+import org.citygml4j.model.gml.feature.BoundingShape;
+import org.citygml4j.model.gml.geometry.AbstractGeometry;
+import org.citygml4j.model.gml.geometry.aggregates.MultiCurve;
+import org.citygml4j.model.gml.geometry.aggregates.MultiCurveProperty;
+import org.citygml4j.model.gml.geometry.aggregates.MultiPoint;
+import org.citygml4j.model.gml.geometry.aggregates.MultiPointProperty;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSurface;
+import org.citygml4j.model.gml.geometry.aggregates.MultiSurfaceProperty;
+import org.citygml4j.model.gml.geometry.complexes.CompositeSurface;
+import org.citygml4j.model.gml.geometry.primitives.AbstractSurface;
+import org.citygml4j.model.gml.geometry.primitives.CurveProperty;
+import org.citygml4j.model.gml.geometry.primitives.DirectPosition;
+import org.citygml4j.model.gml.geometry.primitives.DirectPositionList;
+import org.citygml4j.model.gml.geometry.primitives.Envelope;
+import org.citygml4j.model.gml.geometry.primitives.Exterior;
+import org.citygml4j.model.gml.geometry.primitives.Interior;
+import org.citygml4j.model.gml.geometry.primitives.LineString;
+import org.citygml4j.model.gml.geometry.primitives.LinearRing;
+import org.citygml4j.model.gml.geometry.primitives.Point;
+import org.citygml4j.model.gml.geometry.primitives.PointProperty;
+import org.citygml4j.model.gml.geometry.primitives.Polygon;
+import org.citygml4j.model.gml.geometry.primitives.PolygonProperty;
+import org.citygml4j.model.gml.geometry.primitives.Solid;
+import org.citygml4j.model.gml.geometry.primitives.SolidProperty;
+import org.citygml4j.model.gml.geometry.primitives.SurfaceProperty;
+import org.citygml4j.model.gml.geometry.primitives.Triangle;
+import org.citygml4j.model.gml.geometry.primitives.TrianglePatchArrayProperty;
+import org.citygml4j.model.gml.geometry.primitives.TriangulatedSurface;
+import org.citygml4j.model.gml.measures.Length;
+import org.citygml4j.model.module.Modules;
+import org.citygml4j.model.module.citygml.CityGMLModule;
+import org.citygml4j.model.module.citygml.CityGMLModuleType;
+import org.citygml4j.xml.io.reader.XMLChunk;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Unmarshals XML chunks of commonly used CityGML content into citygml4j objects
+ * while the buffered SAX events of the chunk are replayed, without taking the
+ * detour via JAXB and without building an intermediate element tree. The supported
+ * content comprises buildings and building parts with their boundary surfaces,
+ * relief features with TIN, mass point and breakline components, transportation
+ * complexes with their traffic areas, appearances, generic attributes and the GML
+ * geometries used by them. For any other content, {@link #unmarshal(XMLChunk)}
+ * returns {@code null} so that the chunk can be unmarshalled through JAXB instead.
+ */
+public class FastPathUnmarshaller {
+	private static final String GML = "http://www.opengis.net/gml";
+	private static final String XLINK = "http://www.w3.org/1999/xlink";
+	private static final ContentReader EMPTY = (uri, localName, atts) -> {
+		throw UnsupportedContentException.INSTANCE;
+	};
+
+	private final Logger log = Logger.getInstance();
+	private final ChunkHandler handler = new ChunkHandler();
+	private CityGML result;
+
+	public CityGML unmarshal(XMLChunk chunk) throws SAXException {
+		handler.reset();
+		result = null;
+
+		try {
+			chunk.send(handler, false);
+			return result;
+		} catch (UnsupportedContentException e) {
+			// stop replaying the chunk as soon as unsupported content is encountered
+			return null;
+		}
+	}
+
+	private ContentReader readFeature(String uri, String localName, Attributes atts) throws UnsupportedContentException {
+		CityGMLModuleType type = getModuleType(uri);
+		if (type == CityGMLModuleType.BUILDING && localName.equals("Building")) {
+			Building building = new Building();
+			result = building;
+			return readBuilding(building, atts);
+		} else if (type == CityGMLModuleType.RELIEF && localName.equals("ReliefFeature")) {
+			ReliefFeature reliefFeature = new ReliefFeature();
+			result = reliefFeature;
+			return readReliefFeature(reliefFeature, atts);
+		} else if (type == CityGMLModuleType.TRANSPORTATION) {
+			TransportationComplex transportationComplex = createTransportationComplex(localName);
+			result = transportationComplex;
+			return readTransportationComplex(transportationComplex, atts);
+		} else if (type == CityGMLModuleType.APPEARANCE && localName.equals("Appearance")) {
+			Appearance appearance = new Appearance();
+			result = appearance;
+			return readAppearance(appearance, atts);
+		}
+
+		throw UnsupportedContentException.INSTANCE;
+	}
+
+	private ContentReader readBuilding(AbstractBuilding building, Attributes atts) {
+		building.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readCityObjectProperty(building, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.BUILDING)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "class":
+					return readCode(childAtts, building::setClazz);
+				case "function":
+					return readCode(childAtts, building::addFunction);
+				case "usage":
+					return readCode(childAtts, building::addUsage);
+				case "roofType":
+					return readCode(childAtts, building::setRoofType);
+				case "measuredHeight":
+					String uom = childAtts.getValue("", "uom");
+					return readText(text -> {
+						Length length = new Length();
+						length.setValue(parseDouble(text));
+						length.setUom(uom);
+						building.setMeasuredHeight(length);
+					});
+				case "storeysAboveGround":
+					return readText(text -> building.setStoreysAboveGround(parseInt(text)));
+				case "storeysBelowGround":
+					return readText(text -> building.setStoreysBelowGround(parseInt(text)));
+				case "lod0FootPrint":
+					return readMultiSurfaceProperty(childAtts, building::setLod0FootPrint);
+				case "lod0RoofEdge":
+					return readMultiSurfaceProperty(childAtts, building::setLod0RoofEdge);
+				case "lod1Solid":
+					return readSolidProperty(childAtts, building::setLod1Solid);
+				case "lod2Solid":
+					return readSolidProperty(childAtts, building::setLod2Solid);
+				case "lod3Solid":
+					return readSolidProperty(childAtts, building::setLod3Solid);
+				case "lod4Solid":
+					return readSolidProperty(childAtts, building::setLod4Solid);
+				case "lod1MultiSurface":
+					return readMultiSurfaceProperty(childAtts, building::setLod1MultiSurface);
+				case "lod2MultiSurface":
+					return readMultiSurfaceProperty(childAtts, building::setLod2MultiSurface);
+				case "lod3MultiSurface":
+					return readMultiSurfaceProperty(childAtts, building::setLod3MultiSurface);
+				case "lod4MultiSurface":
+					return readMultiSurfaceProperty(childAtts, building::setLod4MultiSurface);
+				case "lod1TerrainIntersection":
+					return readMultiCurveProperty(childAtts, building::setLod1TerrainIntersection);
+				case "lod2TerrainIntersection":
+					return readMultiCurveProperty(childAtts, building::setLod2TerrainIntersection);
+				case "lod3TerrainIntersection":
+					return readMultiCurveProperty(childAtts, building::setLod3TerrainIntersection);
+				case "lod4TerrainIntersection":
+					return readMultiCurveProperty(childAtts, building::setLod4TerrainIntersection);
+				case "lod2MultiCurve":
+					return readMultiCurveProperty(childAtts, building::setLod2MultiCurve);
+				case "lod3MultiCurve":
+					return readMultiCurveProperty(childAtts, building::setLod3MultiCurve);
+				case "lod4MultiCurve":
+					return readMultiCurveProperty(childAtts, building::setLod4MultiCurve);
+				case "boundedBy":
+					return readProperty(childAtts, (surfaceUri, surfaceName, surfaceAtts) -> {
+						AbstractBoundarySurface boundarySurface = createBoundarySurface(surfaceUri, surfaceName);
+						building.addBoundedBySurface(new BoundarySurfaceProperty(boundarySurface));
+						return readBoundarySurface(boundarySurface, surfaceAtts);
+					});
+				case "consistsOfBuildingPart":
+					return readProperty(childAtts, (partUri, partName, partAtts) -> {
+						if (getModuleType(partUri) != CityGMLModuleType.BUILDING || !partName.equals("BuildingPart"))
+							throw UnsupportedContentException.INSTANCE;
+
+						BuildingPart buildingPart = new BuildingPart();
+						building.addConsistsOfBuildingPart(new BuildingPartProperty(buildingPart));
+						return readBuilding(buildingPart, partAtts);
+					});
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private AbstractBoundarySurface createBoundarySurface(String uri, String localName) throws UnsupportedContentException {
+		if (getModuleType(uri) != CityGMLModuleType.BUILDING)
+			throw UnsupportedContentException.INSTANCE;
+
+		switch (localName) {
+			case "RoofSurface":
+				return new RoofSurface();
+			case "WallSurface":
+				return new WallSurface();
+			case "GroundSurface":
+				return new GroundSurface();
+			case "ClosureSurface":
+				return new ClosureSurface();
+			case "CeilingSurface":
+				return new CeilingSurface();
+			case "FloorSurface":
+				return new FloorSurface();
+			case "InteriorWallSurface":
+				return new InteriorWallSurface();
+			case "OuterCeilingSurface":
+				return new OuterCeilingSurface();
+			case "OuterFloorSurface":
+				return new OuterFloorSurface();
+			default:
+				throw UnsupportedContentException.INSTANCE;
+		}
+	}
+
+	private ContentReader readBoundarySurface(AbstractBoundarySurface boundarySurface, Attributes atts) {
+		boundarySurface.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readCityObjectProperty(boundarySurface, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.BUILDING)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "lod2MultiSurface":
+					return readMultiSurfaceProperty(childAtts, boundarySurface::setLod2MultiSurface);
+				case "lod3MultiSurface":
+					return readMultiSurfaceProperty(childAtts, boundarySurface::setLod3MultiSurface);
+				case "lod4MultiSurface":
+					return readMultiSurfaceProperty(childAtts, boundarySurface::setLod4MultiSurface);
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private ContentReader readReliefFeature(ReliefFeature reliefFeature, Attributes atts) {
+		reliefFeature.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readCityObjectProperty(reliefFeature, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.RELIEF)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "lod":
+					return readText(text -> reliefFeature.setLod(parseInt(text)));
+				case "reliefComponent":
+					return readProperty(childAtts, (componentUri, componentName, componentAtts) -> {
+						AbstractReliefComponent component = createReliefComponent(componentUri, componentName);
+						reliefFeature.addReliefComponent(new ReliefComponentProperty(component));
+						return readReliefComponent(component, componentAtts);
+					});
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private AbstractReliefComponent createReliefComponent(String uri, String localName) throws UnsupportedContentException {
+		if (getModuleType(uri) != CityGMLModuleType.RELIEF)
+			throw UnsupportedContentException.INSTANCE;
+
+		switch (localName) {
+			case "TINRelief":
+				return new TINRelief();
+			case "MassPointRelief":
+				return new MassPointRelief();
+			case "BreaklineRelief":
+				return new BreaklineRelief();
+			default:
+				throw UnsupportedContentException.INSTANCE;
+		}
+	}
+
+	private ContentReader readReliefComponent(AbstractReliefComponent component, Attributes atts) {
+		component.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readCityObjectProperty(component, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.RELIEF)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "lod":
+					return readText(text -> component.setLod(parseInt(text)));
+				case "extent":
+					return readProperty(childAtts, (polygonUri, polygonName, polygonAtts) -> {
+						if (!GML.equals(polygonUri) || !polygonName.equals("Polygon"))
+							throw UnsupportedContentException.INSTANCE;
+
+						Polygon polygon = new Polygon();
+						component.setExtent(new PolygonProperty(polygon));
+						return readPolygon(polygon, polygonAtts);
+					});
+				case "tin":
+					if (!(component instanceof TINRelief))
+						throw UnsupportedContentException.INSTANCE;
+
+					return readProperty(childAtts, (tinUri, tinName, tinAtts) -> {
+						// gml:Tin carries stop lines, break lines and control points and is left to JAXB
+						if (!GML.equals(tinUri) || !tinName.equals("TriangulatedSurface"))
+							throw UnsupportedContentException.INSTANCE;
+
+						TriangulatedSurface triangulatedSurface = new TriangulatedSurface();
+						((TINRelief) component).setTin(new TinProperty(triangulatedSurface));
+						return readTriangulatedSurface(triangulatedSurface, tinAtts);
+					});
+				case "reliefPoints":
+					if (!(component instanceof MassPointRelief))
+						throw UnsupportedContentException.INSTANCE;
+
+					return readMultiPointProperty(childAtts, ((MassPointRelief) component)::setReliefPoints);
+				case "ridgeOrValleyLines":
+					if (!(component instanceof BreaklineRelief))
+						throw UnsupportedContentException.INSTANCE;
+
+					return readMultiCurveProperty(childAtts, ((BreaklineRelief) component)::setRidgeOrValleyLines);
+				case "breaklines":
+					if (!(component instanceof BreaklineRelief))
+						throw UnsupportedContentException.INSTANCE;
+
+					return readMultiCurveProperty(childAtts, ((BreaklineRelief) component)::setBreaklines);
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private TransportationComplex createTransportationComplex(String localName) throws UnsupportedContentException {
+		switch (localName) {
+			case "TransportationComplex":
+				return new TransportationComplex();
+			case "Road":
+				return new Road();
+			case "Railway":
+				return new Railway();
+			case "Track":
+				return new Track();
+			case "Square":
+				return new Square();
+			default:
+				throw UnsupportedContentException.INSTANCE;
+		}
+	}
+
+	private ContentReader readTransportationComplex(TransportationComplex transportationComplex, Attributes atts) {
+		transportationComplex.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readCityObjectProperty(transportationComplex, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.TRANSPORTATION)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "class":
+					return readCode(childAtts, transportationComplex::setClazz);
+				case "function":
+					return readCode(childAtts, transportationComplex::addFunction);
+				case "usage":
+					return readCode(childAtts, transportationComplex::addUsage);
+				case "lod1MultiSurface":
+					return readMultiSurfaceProperty(childAtts, transportationComplex::setLod1MultiSurface);
+				case "lod2MultiSurface":
+					return readMultiSurfaceProperty(childAtts, transportationComplex::setLod2MultiSurface);
+				case "lod3MultiSurface":
+					return readMultiSurfaceProperty(childAtts, transportationComplex::setLod3MultiSurface);
+				case "lod4MultiSurface":
+					return readMultiSurfaceProperty(childAtts, transportationComplex::setLod4MultiSurface);
+				case "trafficArea":
+					return readProperty(childAtts, (areaUri, areaName, areaAtts) -> {
+						if (getModuleType(areaUri) != CityGMLModuleType.TRANSPORTATION || !areaName.equals("TrafficArea"))
+							throw UnsupportedContentException.INSTANCE;
+
+						TrafficArea trafficArea = new TrafficArea();
+						transportationComplex.addTrafficArea(new TrafficAreaProperty(trafficArea));
+						return readTrafficArea(trafficArea, areaAtts);
+					});
+				case "auxiliaryTrafficArea":
+					return readProperty(childAtts, (areaUri, areaName, areaAtts) -> {
+						if (getModuleType(areaUri) != CityGMLModuleType.TRANSPORTATION || !areaName.equals("AuxiliaryTrafficArea"))
+							throw UnsupportedContentException.INSTANCE;
+
+						AuxiliaryTrafficArea auxiliaryTrafficArea = new AuxiliaryTrafficArea();
+						transportationComplex.addAuxiliaryTrafficArea(new AuxiliaryTrafficAreaProperty(auxiliaryTrafficArea));
+						return readAuxiliaryTrafficArea(auxiliaryTrafficArea, areaAtts);
+					});
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private ContentReader readTrafficArea(TrafficArea trafficArea, Attributes atts) {
+		trafficArea.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readCityObjectProperty(trafficArea, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.TRANSPORTATION)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "class":
+					return readCode(childAtts, trafficArea::setClazz);
+				case "function":
+					return readCode(childAtts, trafficArea::addFunction);
+				case "usage":
+					return readCode(childAtts, trafficArea::addUsage);
+				case "surfaceMaterial":
+					return readCode(childAtts, trafficArea::setSurfaceMaterial);
+				case "lod2MultiSurface":
+					return readMultiSurfaceProperty(childAtts, trafficArea::setLod2MultiSurface);
+				case "lod3MultiSurface":
+					return readMultiSurfaceProperty(childAtts, trafficArea::setLod3MultiSurface);
+				case "lod4MultiSurface":
+					return readMultiSurfaceProperty(childAtts, trafficArea::setLod4MultiSurface);
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private ContentReader readAuxiliaryTrafficArea(AuxiliaryTrafficArea auxiliaryTrafficArea, Attributes atts) {
+		auxiliaryTrafficArea.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readCityObjectProperty(auxiliaryTrafficArea, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.TRANSPORTATION)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "class":
+					return readCode(childAtts, auxiliaryTrafficArea::setClazz);
+				case "function":
+					return readCode(childAtts, auxiliaryTrafficArea::addFunction);
+				case "usage":
+					return readCode(childAtts, auxiliaryTrafficArea::addUsage);
+				case "surfaceMaterial":
+					return readCode(childAtts, auxiliaryTrafficArea::setSurfaceMaterial);
+				case "lod2MultiSurface":
+					return readMultiSurfaceProperty(childAtts, auxiliaryTrafficArea::setLod2MultiSurface);
+				case "lod3MultiSurface":
+					return readMultiSurfaceProperty(childAtts, auxiliaryTrafficArea::setLod3MultiSurface);
+				case "lod4MultiSurface":
+					return readMultiSurfaceProperty(childAtts, auxiliaryTrafficArea::setLod4MultiSurface);
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private ContentReader readCityObjectProperty(AbstractCityObject cityObject, String uri, String localName, Attributes atts) throws UnsupportedContentException {
+		ContentReader reader = readFeatureProperty(cityObject, uri, localName, atts);
+		if (reader != null)
+			return reader;
+
+		CityGMLModuleType type = getModuleType(uri);
+		if (type == CityGMLModuleType.CORE) {
+			switch (localName) {
+				case "relativeToTerrain":
+					return readText(text -> cityObject.setRelativeToTerrain(parseEnum(RelativeToTerrain::fromValue, text)));
+				case "relativeToWater":
+					return readText(text -> cityObject.setRelativeToWater(parseEnum(RelativeToWater::fromValue, text)));
+				default:
+					return null;
+			}
+		} else if (type == CityGMLModuleType.APPEARANCE && localName.equals("appearance")) {
+			return readProperty(atts, (appearanceUri, appearanceName, appearanceAtts) -> {
+				if (getModuleType(appearanceUri) != CityGMLModuleType.APPEARANCE || !appearanceName.equals("Appearance"))
+					throw UnsupportedContentException.INSTANCE;
+
+				Appearance appearance = new Appearance();
+				cityObject.addAppearance(new AppearanceProperty(appearance));
+				return readAppearance(appearance, appearanceAtts);
+			});
+		} else if (type == CityGMLModuleType.GENERICS)
+			return readGenericAttribute(localName, atts, cityObject::addGenericAttribute);
+
+		return null;
+	}
+
+	private ContentReader readFeatureProperty(AbstractFeature feature, String uri, String localName, Attributes atts) throws UnsupportedContentException {
+		if (!GML.equals(uri))
+			return null;
+
+		switch (localName) {
+			case "name":
+				return readCode(atts, feature::addName);
+			case "description":
+				if (getHref(atts) != null)
+					throw UnsupportedContentException.INSTANCE;
+
+				return readText(text -> {
+					StringOrRef description = new StringOrRef();
+					description.setValue(text);
+					feature.setDescription(description);
+				});
+			case "boundedBy":
+				return readProperty(atts, (envelopeUri, envelopeName, envelopeAtts) -> {
+					if (!GML.equals(envelopeUri) || !envelopeName.equals("Envelope"))
+						throw UnsupportedContentException.INSTANCE;
+
+					Envelope envelope = new Envelope();
+					String srsName = envelopeAtts.getValue("", "srsName");
+					if (srsName != null)
+						envelope.setSrsName(srsName);
+
+					String srsDimension = envelopeAtts.getValue("", "srsDimension");
+					if (srsDimension != null)
+						envelope.setSrsDimension(parseInt(srsDimension));
+
+					feature.setBoundedBy(new BoundingShape(envelope));
+					return (cornerUri, cornerName, cornerAtts) -> {
+						if (!GML.equals(cornerUri))
+							throw UnsupportedContentException.INSTANCE;
+
+						DirectPosition position = new DirectPosition();
+						if (cornerName.equals("lowerCorner"))
+							envelope.setLowerCorner(position);
+						else if (cornerName.equals("upperCorner"))
+							envelope.setUpperCorner(position);
+						else
+							throw UnsupportedContentException.INSTANCE;
+
+						return readDoubles(position::setValue);
+					};
+				});
+			default:
+				throw UnsupportedContentException.INSTANCE;
+		}
+	}
+
+	private ContentReader readGenericAttribute(String localName, Attributes atts, Setter<AbstractGenericAttribute> setter) throws UnsupportedContentException {
+		AbstractGenericAttribute attribute;
+		ValueReader valueReader;
+
+		switch (localName) {
+			case "stringAttribute":
+				StringAttribute stringAttribute = new StringAttribute();
+				valueReader = valueAtts -> readText(stringAttribute::setValue);
+				attribute = stringAttribute;
+				break;
+			case "intAttribute":
+				IntAttribute intAttribute = new IntAttribute();
+				valueReader = valueAtts -> readText(text -> intAttribute.setValue(parseInt(text)));
+				attribute = intAttribute;
+				break;
+			case "doubleAttribute":
+				DoubleAttribute doubleAttribute = new DoubleAttribute();
+				valueReader = valueAtts -> readText(text -> doubleAttribute.setValue(parseDouble(text)));
+				attribute = doubleAttribute;
+				break;
+			case "uriAttribute":
+				UriAttribute uriAttribute = new UriAttribute();
+				valueReader = valueAtts -> readText(text -> uriAttribute.setValue(text.trim()));
+				attribute = uriAttribute;
+				break;
+			case "dateAttribute":
+				DateAttribute dateAttribute = new DateAttribute();
+				valueReader = valueAtts -> readText(text -> dateAttribute.setValue(parseDate(text)));
+				attribute = dateAttribute;
+				break;
+			case "measureAttribute":
+				MeasureAttribute measureAttribute = new MeasureAttribute();
+				valueReader = valueAtts -> {
+					String uom = valueAtts.getValue("", "uom");
+					return readText(text -> {
+						Measure measure = new Measure();
+						measure.setValue(parseDouble(text));
+						measure.setUom(uom);
+						measureAttribute.setValue(measure);
+					});
+				};
+				attribute = measureAttribute;
+				break;
+			default:
+				throw UnsupportedContentException.INSTANCE;
+		}
+
+		attribute.setName(atts.getValue("", "name"));
+		setter.set(attribute);
+
+		return readProperty(atts, (valueUri, valueName, valueAtts) -> {
+			if (!valueName.equals("value") || getModuleType(valueUri) != CityGMLModuleType.GENERICS)
+				throw UnsupportedContentException.INSTANCE;
+
+			return valueReader.read(valueAtts);
+		});
+	}
+
+	private ContentReader readAppearance(Appearance appearance, Attributes atts) {
+		appearance.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readFeatureProperty(appearance, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			if (getModuleType(uri) != CityGMLModuleType.APPEARANCE)
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "theme":
+					return readText(appearance::setTheme);
+				case "surfaceDataMember":
+					return readProperty(childAtts, (dataUri, dataName, dataAtts) -> {
+						if (getModuleType(dataUri) != CityGMLModuleType.APPEARANCE)
+							throw UnsupportedContentException.INSTANCE;
+
+						if (dataName.equals("ParameterizedTexture")) {
+							ParameterizedTexture texture = new ParameterizedTexture();
+							appearance.addSurfaceDataMember(new SurfaceDataProperty(texture));
+							return readParameterizedTexture(texture, dataAtts);
+						} else if (dataName.equals("X3DMaterial")) {
+							X3DMaterial material = new X3DMaterial();
+							appearance.addSurfaceDataMember(new SurfaceDataProperty(material));
+							return readX3DMaterial(material, dataAtts);
+						}
+
+						throw UnsupportedContentException.INSTANCE;
+					});
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private ContentReader readParameterizedTexture(ParameterizedTexture texture, Attributes atts) {
+		texture.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readSurfaceDataProperty(texture, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			switch (localName) {
+				case "imageURI":
+					return readText(text -> texture.setImageURI(text.trim()));
+				case "mimeType":
+					return readCode(childAtts, texture::setMimeType);
+				case "textureType":
+					return readText(text -> texture.setTextureType(parseEnum(TextureType::fromValue, text)));
+				case "wrapMode":
+					return readText(text -> texture.setWrapMode(parseEnum(WrapMode::fromValue, text)));
+				case "borderColor":
+					return readDoubles(values -> {
+						if (values.size() != 4)
+							throw UnsupportedContentException.INSTANCE;
+
+						texture.setBorderColor(new ColorPlusOpacity(values.get(0), values.get(1), values.get(2), values.get(3)));
+					});
+				case "target":
+					return readTextureAssociation(childAtts, texture::addTarget);
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private ContentReader readX3DMaterial(X3DMaterial material, Attributes atts) {
+		material.setId(getId(atts));
+		return (uri, localName, childAtts) -> {
+			ContentReader reader = readSurfaceDataProperty(material, uri, localName, childAtts);
+			if (reader != null)
+				return reader;
+
+			switch (localName) {
+				case "ambientIntensity":
+					return readText(text -> material.setAmbientIntensity(parseDouble(text)));
+				case "diffuseColor":
+					return readDoubles(values -> material.setDiffuseColor(toColor(values)));
+				case "emissiveColor":
+					return readDoubles(values -> material.setEmissiveColor(toColor(values)));
+				case "specularColor":
+					return readDoubles(values -> material.setSpecularColor(toColor(values)));
+				case "shininess":
+					return readText(text -> material.setShininess(parseDouble(text)));
+				case "transparency":
+					return readText(text -> material.setTransparency(parseDouble(text)));
+				case "isSmooth":
+					return readText(text -> material.setIsSmooth(parseBoolean(text)));
+				case "target":
+					return readText(text -> material.addTarget(text.trim()));
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		};
+	}
+
+	private ContentReader readSurfaceDataProperty(AbstractSurfaceData surfaceData, String uri, String localName, Attributes atts) throws UnsupportedContentException {
+		ContentReader reader = readFeatureProperty(surfaceData, uri, localName, atts);
+		if (reader != null)
+			return reader;
+
+		if (getModuleType(uri) != CityGMLModuleType.APPEARANCE)
+			throw UnsupportedContentException.INSTANCE;
+
+		return localName.equals("isFront") ?
+				readText(text -> surfaceData.setIsFront(parseBoolean(text))) :
+				null;
+	}
+
+	private ContentReader readTextureAssociation(Attributes atts, Setter<TextureAssociation> setter) throws UnsupportedContentException {
+		String targetUri = atts.getValue("", "uri");
+		return readProperty(atts, (uri, localName, listAtts) -> {
+			if (getModuleType(uri) != CityGMLModuleType.APPEARANCE || !localName.equals("TexCoordList"))
+				throw UnsupportedContentException.INSTANCE;
+
+			TexCoordList texCoordList = new TexCoordList();
+			texCoordList.setId(getId(listAtts));
+
+			TextureAssociation association = new TextureAssociation(texCoordList);
+			association.setUri(targetUri);
+			setter.set(association);
+
+			return (coordinatesUri, coordinatesName, coordinatesAtts) -> {
+				if (getModuleType(coordinatesUri) != CityGMLModuleType.APPEARANCE || !coordinatesName.equals("textureCoordinates"))
+					throw UnsupportedContentException.INSTANCE;
+
+				TextureCoordinates textureCoordinates = new TextureCoordinates();
+				textureCoordinates.setRing(coordinatesAtts.getValue("", "ring"));
+				texCoordList.addTextureCoordinates(textureCoordinates);
+				return readDoubles(textureCoordinates::setValue);
+			};
+		});
+	}
+
+	private ContentReader readSolidProperty(Attributes atts, Setter<SolidProperty> setter) throws UnsupportedContentException {
+		String href = getHref(atts);
+		if (href != null) {
+			SolidProperty solidProperty = new SolidProperty();
+			solidProperty.setHref(href);
+			setter.set(solidProperty);
+			return EMPTY;
+		}
+
+		return new PropertyReader((uri, localName, solidAtts) -> {
+			if (!GML.equals(uri) || !localName.equals("Solid"))
+				throw UnsupportedContentException.INSTANCE;
+
+			Solid solid = new Solid();
+			readGeometryAttributes(solidAtts, solid);
+			setter.set(new SolidProperty(solid));
+
+			return (exteriorUri, exteriorName, exteriorAtts) -> {
+				if (!GML.equals(exteriorUri) || !exteriorName.equals("exterior"))
+					throw UnsupportedContentException.INSTANCE;
+
+				return readSurfaceProperty(exteriorAtts, solid::setExterior);
+			};
+		});
+	}
+
+	private ContentReader readMultiSurfaceProperty(Attributes atts, Setter<MultiSurfaceProperty> setter) throws UnsupportedContentException {
+		String href = getHref(atts);
+		if (href != null) {
+			MultiSurfaceProperty multiSurfaceProperty = new MultiSurfaceProperty();
+			multiSurfaceProperty.setHref(href);
+			setter.set(multiSurfaceProperty);
+			return EMPTY;
+		}
+
+		return new PropertyReader((uri, localName, multiSurfaceAtts) -> {
+			if (!GML.equals(uri) || !localName.equals("MultiSurface"))
+				throw UnsupportedContentException.INSTANCE;
+
+			MultiSurface multiSurface = new MultiSurface();
+			readGeometryAttributes(multiSurfaceAtts, multiSurface);
+			setter.set(new MultiSurfaceProperty(multiSurface));
+
+			return (memberUri, memberName, memberAtts) -> {
+				if (!GML.equals(memberUri) || !memberName.equals("surfaceMember"))
+					throw UnsupportedContentException.INSTANCE;
+
+				return readSurfaceProperty(memberAtts, multiSurface::addSurfaceMember);
+			};
+		});
+	}
+
+	private ContentReader readSurfaceProperty(Attributes atts, Setter<SurfaceProperty> setter) throws UnsupportedContentException {
+		String href = getHref(atts);
+		if (href != null) {
+			SurfaceProperty surfaceProperty = new SurfaceProperty();
+			surfaceProperty.setHref(href);
+			setter.set(surfaceProperty);
+			return EMPTY;
+		}
+
+		return new PropertyReader((uri, localName, surfaceAtts) -> {
+			if (!GML.equals(uri))
+				throw UnsupportedContentException.INSTANCE;
+
+			switch (localName) {
+				case "Polygon":
+					Polygon polygon = new Polygon();
+					setter.set(new SurfaceProperty(polygon));
+					return readPolygon(polygon, surfaceAtts);
+				case "CompositeSurface":
+					CompositeSurface compositeSurface = new CompositeSurface();
+					readGeometryAttributes(surfaceAtts, compositeSurface);
+					setter.set(new SurfaceProperty(compositeSurface));
+
+					return (memberUri, memberName, memberAtts) -> {
+						if (!GML.equals(memberUri) || !memberName.equals("surfaceMember"))
+							throw UnsupportedContentException.INSTANCE;
+
+						return readSurfaceProperty(memberAtts, compositeSurface::addSurfaceMember);
+					};
+				default:
+					throw UnsupportedContentException.INSTANCE;
+			}
+		});
+	}
+
+	private ContentReader readPolygon(Polygon polygon, Attributes atts) throws UnsupportedContentException {
+		readGeometryAttributes(atts, polygon);
+		return (uri, localName, ringAtts) -> {
+			if (!GML.equals(uri))
+				throw UnsupportedContentException.INSTANCE;
+
+			if (localName.equals("exterior"))
+				return readLinearRingProperty(ringAtts, linearRing -> polygon.setExterior(new Exterior(linearRing)));
+			else if (localName.equals("interior"))
+				return readLinearRingProperty(ringAtts, linearRing -> polygon.addInterior(new Interior(linearRing)));
+			else
+				throw UnsupportedContentException.INSTANCE;
+		};
+	}
+
+	private ContentReader readTriangulatedSurface(TriangulatedSurface triangulatedSurface, Attributes atts) throws UnsupportedContentException {
+		readGeometryAttributes(atts, triangulatedSurface);
+		return (uri, localName, patchesAtts) -> {
+			if (!GML.equals(uri) || !localName.equals("trianglePatches") || triangulatedSurface.isSetTrianglePatches())
+				throw UnsupportedContentException.INSTANCE;
+
+			TrianglePatchArrayProperty trianglePatches = new TrianglePatchArrayProperty();
+			triangulatedSurface.setTrianglePatches(trianglePatches);
+
+			return (triangleUri, triangleName, triangleAtts) -> {
+				if (!GML.equals(triangleUri) || !triangleName.equals("Triangle"))
+					throw UnsupportedContentException.INSTANCE;
+
+				Triangle triangle = new Triangle();
+				trianglePatches.addTriangle(triangle);
+
+				return (exteriorUri, exteriorName, exteriorAtts) -> {
+					if (!GML.equals(exteriorUri) || !exteriorName.equals("exterior"))
+						throw UnsupportedContentException.INSTANCE;
+
+					return readLinearRingProperty(exteriorAtts, linearRing -> triangle.setExterior(new Exterior(linearRing)));
+				};
+			};
+		};
+	}
+
+	private ContentReader readLinearRingProperty(Attributes atts, Setter<LinearRing> setter) throws UnsupportedContentException {
+		return readProperty(atts, (uri, localName, ringAtts) -> {
+			if (!GML.equals(uri) || !localName.equals("LinearRing"))
+				throw UnsupportedContentException.INSTANCE;
+
+			LinearRing linearRing = new LinearRing();
+			readGeometryAttributes(ringAtts, linearRing);
+			setter.set(linearRing);
+			return new PositionListReader(linearRing::setPosList);
+		});
+	}
+
+	private ContentReader readMultiCurveProperty(Attributes atts, Setter<MultiCurveProperty> setter) throws UnsupportedContentException {
+		String href = getHref(atts);
+		if (href != null) {
+			MultiCurveProperty multiCurveProperty = new MultiCurveProperty();
+			multiCurveProperty.setHref(href);
+			setter.set(multiCurveProperty);
+			return EMPTY;
+		}
+
+		return new PropertyReader((uri, localName, multiCurveAtts) -> {
+			if (!GML.equals(uri) || !localName.equals("MultiCurve"))
+				throw UnsupportedContentException.INSTANCE;
+
+			MultiCurve multiCurve = new MultiCurve();
+			readGeometryAttributes(multiCurveAtts, multiCurve);
+			setter.set(new MultiCurveProperty(multiCurve));
+
+			return (memberUri, memberName, memberAtts) -> {
+				if (!GML.equals(memberUri) || !memberName.equals("curveMember"))
+					throw UnsupportedContentException.INSTANCE;
+
+				return readProperty(memberAtts, (curveUri, curveName, curveAtts) -> {
+					if (!GML.equals(curveUri) || !curveName.equals("LineString"))
+						throw UnsupportedContentException.INSTANCE;
+
+					LineString lineString = new LineString();
+					readGeometryAttributes(curveAtts, lineString);
+					multiCurve.addCurveMember(new CurveProperty(lineString));
+					return new PositionListReader(lineString::setPosList);
+				});
+			};
+		});
+	}
+
+	private ContentReader readMultiPointProperty(Attributes atts, Setter<MultiPointProperty> setter) throws UnsupportedContentException {
+		String href = getHref(atts);
+		if (href != null) {
+			MultiPointProperty multiPointProperty = new MultiPointProperty();
+			multiPointProperty.setHref(href);
+			setter.set(multiPointProperty);
+			return EMPTY;
+		}
+
+		return new PropertyReader((uri, localName, multiPointAtts) -> {
+			if (!GML.equals(uri) || !localName.equals("MultiPoint"))
+				throw UnsupportedContentException.INSTANCE;
+
+			MultiPoint multiPoint = new MultiPoint();
+			readGeometryAttributes(multiPointAtts, multiPoint);
+			setter.set(new MultiPointProperty(multiPoint));
+
+			return (memberUri, memberName, memberAtts) -> {
+				if (!GML.equals(memberUri) || !memberName.equals("pointMember"))
+					throw UnsupportedContentException.INSTANCE;
+
+				return readProperty(memberAtts, (pointUri, pointName, pointAtts) -> {
+					if (!GML.equals(pointUri) || !pointName.equals("Point"))
+						throw UnsupportedContentException.INSTANCE;
+
+					Point point = new Point();
+					readGeometryAttributes(pointAtts, point);
+					multiPoint.addPointMember(new PointProperty(point));
+
+					return readProperty(pointAtts, (posUri, posName, posAtts) -> {
+						if (!GML.equals(posUri) || !posName.equals("pos") || posAtts.getValue("", "srsDimension") != null)
+							throw UnsupportedContentException.INSTANCE;
+
+						DirectPosition position = new DirectPosition();
+						point.setPos(position);
+						return readDoubles(position::setValue);
+					});
+				});
+			};
+		});
+	}
+
+	private ContentReader readProperty(Attributes atts, ContentReader reader) throws UnsupportedContentException {
+		// references are resolved by JAXB
+		if (getHref(atts) != null)
+			throw UnsupportedContentException.INSTANCE;
+
+		return new PropertyReader(reader);
+	}
+
+	private ContentReader readCode(Attributes atts, Setter<Code> setter) {
+		String codeSpace = atts.getValue("", "codeSpace");
+		return readText(text -> {
+			Code code = new Code(text);
+			code.setCodeSpace(codeSpace);
+			setter.set(code);
+		});
+	}
+
+	private ContentReader readText(Setter<String> setter) {
+		return new ContentReader() {
+			@Override
+			public ContentReader startElement(String uri, String localName, Attributes atts) throws UnsupportedContentException {
+				throw UnsupportedContentException.INSTANCE;
+			}
+
+			@Override
+			public void endElement(CharSequence text) throws UnsupportedContentException {
+				setter.set(text.toString());
+			}
+		};
+	}
+
+	private ContentReader readDoubles(Setter<List<Double>> setter) {
+		return new ContentReader() {
+			@Override
+			public ContentReader startElement(String uri, String localName, Attributes atts) throws UnsupportedContentException {
+				throw UnsupportedContentException.INSTANCE;
+			}
+
+			@Override
+			public void endElement(CharSequence text) throws UnsupportedContentException {
+				List<Double> values = new ArrayList<>();
+				parseDoubles(text, values);
+				setter.set(values);
+			}
+		};
+	}
+
+	private ContentReader appendDoubles(List<Double> values) {
+		return new ContentReader() {
+			@Override
+			public ContentReader startElement(String uri, String localName, Attributes atts) throws UnsupportedContentException {
+				throw UnsupportedContentException.INSTANCE;
+			}
+
+			@Override
+			public void endElement(CharSequence text) throws UnsupportedContentException {
+				parseDoubles(text, values);
+			}
+		};
+	}
+
+	private void readGeometryAttributes(Attributes atts, AbstractGeometry geometry) throws UnsupportedContentException {
+		geometry.setId(getId(atts));
+
+		String srsName = atts.getValue("", "srsName");
+		if (srsName != null)
+			geometry.setSrsName(srsName);
+
+		String srsDimension = atts.getValue("", "srsDimension");
+		if (srsDimension != null)
+			geometry.setSrsDimension(parseInt(srsDimension));
+	}
+
+	private Color toColor(List<Double> values) throws UnsupportedContentException {
+		if (values.size() != 3)
+			throw UnsupportedContentException.INSTANCE;
+
+		return new Color(values.get(0), values.get(1), values.get(2));
+	}
+
+	private Boolean parseBoolean(String value) throws UnsupportedContentException {
+		switch (value.trim()) {
+			case "true":
+			case "1":
+				return Boolean.TRUE;
+			case "false":
+			case "0":
+				return Boolean.FALSE;
+			default:
+				throw UnsupportedContentException.INSTANCE;
+		}
+	}
+
+	private void parseDoubles(CharSequence text, List<Double> values) throws UnsupportedContentException {
+		int length = text.length();
+		int start = -1;
+
+		for (int i = 0; i <= length; i++) {
+			boolean isWhitespace = i == length || Character.isWhitespace(text.charAt(i));
+			if (!isWhitespace) {
+				if (start < 0)
+					start = i;
+			} else if (start >= 0) {
+				values.add(parseDouble(text.subSequence(start, i).toString()));
+				start = -1;
+			}
+		}
+	}
+
+	private double parseDouble(String value) throws UnsupportedContentException {
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			throw unsupported(e);
+		}
+	}
+
+	private int parseInt(String value) throws UnsupportedContentException {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw unsupported(e);
+		}
+	}
+
+	private LocalDate parseDate(String value) throws UnsupportedContentException {
+		try {
+			return LocalDate.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			throw unsupported(e);
+		}
+	}
+
+	private <T> T parseEnum(Function<String, T> fromValue, String value) throws UnsupportedContentException {
+		T result;
+		try {
+			result = fromValue.apply(value.trim());
+		} catch (IllegalArgumentException e) {
+			throw unsupported(e);
+		}
+
+		if (result == null)
+			throw UnsupportedContentException.INSTANCE;
+
+		return result;
+	}
+
+	private UnsupportedContentException unsupported(RuntimeException e) {
+		// the JAXB unmarshaller reports invalid content
+		log.debug("Unmarshalling XML chunk through JAXB: " + e.getMessage());
+		return UnsupportedContentException.INSTANCE;
+	}
+
+	private String getId(Attributes atts) {
+		return atts.getValue(GML, "id");
+	}
+
+	private String getHref(Attributes atts) {
+		return atts.getValue(XLINK, "href");
+	}
+
+	private CityGMLModuleType getModuleType(String uri) {
+		CityGMLModule module = Modules.getCityGMLModule(uri);
+		return module != null ? module.getType() : null;
+	}
+
+	private final class ChunkHandler extends DefaultHandler {
+		private final ArrayDeque<ContentReader> readers = new ArrayDeque<>();
+		private final StringBuilder text = new StringBuilder();
+
+		private void reset() {
+			readers.clear();
+			text.setLength(0);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			ContentReader parent = readers.peek();
+			readers.push(parent != null ?
+					parent.startElement(uri, localName, atts) :
+					readFeature(uri, localName, atts));
+
+			text.setLength(0);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			readers.pop().endElement(text);
+			text.setLength(0);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			text.append(ch, start, length);
+		}
+	}
+
+	private interface ContentReader {
+		ContentReader startElement(String uri, String localName, Attributes atts) throws UnsupportedContentException;
+
+		default void endElement(CharSequence text) throws UnsupportedContentException {
+		}
+	}
+
+	private interface ValueReader {
+		ContentReader read(Attributes atts) throws UnsupportedContentException;
+	}
+
+	private interface Setter<T> {
+		void set(T value) throws UnsupportedContentException;
+	}
+
+	private static final class PropertyReader implements ContentReader {
+		private final ContentReader reader;
+		private boolean hasValue;
+
+		PropertyReader(ContentReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public ContentReader startElement(String uri, String localName, Attributes atts) throws UnsupportedContentException {
+			// properties must contain exactly one object
+			if (hasValue)
+				throw UnsupportedContentException.INSTANCE;
+
+			hasValue = true;
+			return reader.startElement(uri, localName, atts);
+		}
+
+		@Override
+		public void endElement(CharSequence text) throws UnsupportedContentException {
+			if (!hasValue)
+				throw UnsupportedContentException.INSTANCE;
+		}
+	}
+
+	private final class PositionListReader implements ContentReader {
+		private final Setter<DirectPositionList> setter;
+		private final DirectPositionList posList = new DirectPositionList();
+		private final List<Double> values = new ArrayList<>();
+		private boolean isPosList;
+		private int members;
+
+		PositionListReader(Setter<DirectPositionList> setter) {
+			this.setter = setter;
+		}
+
+		@Override
+		public ContentReader startElement(String uri, String localName, Attributes atts) throws UnsupportedContentException {
+			if (!GML.equals(uri) || isPosList)
+				throw UnsupportedContentException.INSTANCE;
+
+			// gml:pos elements are collapsed into a single position list
+			if (localName.equals("posList")) {
+				if (members > 0)
+					throw UnsupportedContentException.INSTANCE;
+
+				String srsDimension = atts.getValue("", "srsDimension");
+				if (srsDimension != null)
+					posList.setSrsDimension(parseInt(srsDimension));
+
+				isPosList = true;
+			} else if (!localName.equals("pos") || atts.getValue("", "srsDimension") != null)
+				throw UnsupportedContentException.INSTANCE;
+
+			members++;
+			return appendDoubles(values);
+		}
+
+		@Override
+		public void endElement(CharSequence text) throws UnsupportedContentException {
+			posList.setValue(values);
+			setter.set(posList);
+		}
+	}
+
+	private static final class UnsupportedContentException extends SAXException {
+		private static final UnsupportedContentException INSTANCE = new UnsupportedContentException();
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.importer.util;
+
+import org.citydb.config.Config;
+import org.citydb.config.project.database.AdaptiveBatching;
+import org.citydb.config.project.database.UpdateBatching;
+import org.citydb.log.Logger;
+
+import java.util.EnumMap;
+
+/**
+ * Adapts the feature, temporary table and gml:id cache batch sizes at runtime
+ * based on the measured throughput of the executed batches. The batch size is
+ * changed stepwise within the configured limits. As long as the throughput
+ * increases, the batch size keeps being changed in the same direction,
+ * otherwise the direction is reversed (hill climbing).
+ */
+public class AdaptiveBatchController {
+	private final Logger log = Logger.getInstance();
+	private final EnumMap<BatchType, BatchState> states;
+	private final boolean isEnabled;
+	private final int samplesPerAdaptation;
+
+	public enum BatchType {
+		FEATURE("feature"),
+		TEMP_TABLE("temporary table"),
+		GMLID_CACHE("gml:id cache");
+
+		private final String name;
+
+		BatchType(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	public AdaptiveBatchController(Config config, int maxBatchSize) {
+		UpdateBatching updateBatching = config.getProject().getDatabase().getUpdateBatching();
+		AdaptiveBatching adaptiveBatching = updateBatching.getAdaptiveBatching();
+
+		isEnabled = adaptiveBatching.isSet();
+		samplesPerAdaptation = adaptiveBatching.getSamplesPerAdaptation();
+		states = new EnumMap<>(BatchType.class);
+
+		states.put(BatchType.FEATURE, new BatchState(BatchType.FEATURE,
+				updateBatching.getFeatureBatchValue(),
+				adaptiveBatching.getMinFeatureBatchValue(),
+				adaptiveBatching.getMaxFeatureBatchValue(),
+				Integer.MAX_VALUE));
+
+		states.put(BatchType.TEMP_TABLE, new BatchState(BatchType.TEMP_TABLE,
+				updateBatching.getTempBatchValue(),
+				adaptiveBatching.getMinTempBatchValue(),
+				adaptiveBatching.getMaxTempBatchValue(),
+				maxBatchSize));
+
+		states.put(BatchType.GMLID_CACHE, new BatchState(BatchType.GMLID_CACHE,
+				updateBatching.getGmlIdCacheBatchValue(),
+				adaptiveBatching.getMinGmlIdCacheBatchValue(),
+				adaptiveBatching.getMaxGmlIdCacheBatchValue(),
+				maxBatchSize));
+	}
+
+	public boolean isEnabled() {
+		return isEnabled;
+	}
+
+	public int getBatchSize(BatchType type) {
+		return states.get(type).batchSize;
+	}
+
+	public void recordBatch(BatchType type, int rows, long nanos) {
+		if (isEnabled && rows > 0 && nanos > 0)
+			states.get(type).record(rows, nanos);
+	}
+
+	public void logBatchSizes() {
+		if (isEnabled) {
+			for (BatchState state : states.values())
+				log.info("Adaptive " + state.type + " batch size at the end of the import: " + state.batchSize + ".");
+		}
+	}
+
+	private final class BatchState {
+		private final BatchType type;
+		private final int minBatchSize;
+		private final int maxBatchSize;
+
+		private volatile int batchSize;
+		private int direction = 1;
+		private int samples;
+		private long rows;
+		private long nanos;
+		private double lastThroughput = -1;
+
+		BatchState(BatchType type, int batchSize, int minBatchSize, int maxBatchSize, int upperLimit) {
+			this.type = type;
+			this.maxBatchSize = Math.max(1, Math.min(Math.max(minBatchSize, maxBatchSize), upperLimit));
+			this.minBatchSize = Math.max(1, Math.min(minBatchSize, this.maxBatchSize));
+			this.batchSize = isEnabled ?
+					Math.max(this.minBatchSize, Math.min(this.maxBatchSize, batchSize)) :
+					Math.min(upperLimit, batchSize);
+		}
+
+		synchronized void record(int rows, long nanos) {
+			this.rows += rows;
+			this.nanos += nanos;
+
+			if (++samples < samplesPerAdaptation)
+				return;
+
+			double throughput = this.rows * 1e9 / this.nanos;
+			if (lastThroughput >= 0 && throughput < lastThroughput)
+				direction = -direction;
+
+			int newBatchSize = direction > 0 ?
+					(int) Math.ceil(batchSize * 1.25) :
+					(int) Math.floor(batchSize * 0.8);
+			newBatchSize = Math.max(minBatchSize, Math.min(maxBatchSize, newBatchSize));
+
+			if (newBatchSize != batchSize) {
+				log.debug("Adapting " + type + " batch size from " + batchSize + " to " + newBatchSize +
+						" (throughput: " + Math.round(throughput) + " rows/s).");
+				batchSize = newBatchSize;
+			} else if (newBatchSize == minBatchSize || newBatchSize == maxBatchSize) {
+				// bounce off the configured limits
+				direction = -direction;
+			}
+
+			lastThroughput = throughput;
+			samples = 0;
+			this.rows = 0;
+			this.nanos = 0;
+		}
+	}
+}
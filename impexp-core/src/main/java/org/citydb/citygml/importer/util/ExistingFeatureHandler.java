@@ -0,0 +1,161 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.citygml.importer.util;
+
+import org.citydb.citygml.common.database.index.GmlIdIndex;
+import org.citydb.citygml.common.database.index.GmlIdIndexEntry;
+import org.citydb.config.Config;
+import org.citydb.config.project.importer.ExistingFeaturesMode;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.log.Logger;
+import org.citygml4j.model.gml.feature.AbstractFeature;
+
+import java.io.IOException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ExistingFeatureHandler {
+	private final Logger log = Logger.getInstance();
+	private final GmlIdIndex gmlIdIndex;
+	private final ExistingFeaturesMode mode;
+
+	// changes to the gml:id index are only applied once the database transaction has been committed
+	private final Map<String, GmlIdIndexEntry> pendingAdditions = new HashMap<>();
+	private final List<Long> pendingDeletions = new ArrayList<>();
+
+	private PreparedStatement psLookup;
+	private CallableStatement psDelete;
+
+	public ExistingFeatureHandler(Connection connection, AbstractDatabaseAdapter databaseAdapter, GmlIdIndex gmlIdIndex, Config config) throws SQLException {
+		this.gmlIdIndex = gmlIdIndex;
+		mode = config.getProject().getImporter().getExistingFeatures().getMode();
+
+		if (mode != ExistingFeaturesMode.IMPORT) {
+			String schema = databaseAdapter.getConnectionDetails().getSchema();
+
+			// hits from the gml:id index must be verified since the index
+			// is not aware of objects deleted by other clients
+			psLookup = connection.prepareStatement(gmlIdIndex != null ?
+					"select id from " + schema + ".cityobject where id = ? and gmlid = ?" :
+					"select id from " + schema + ".cityobject where gmlid = ?");
+
+			if (mode == ExistingFeaturesMode.REPLACE) {
+				psDelete = connection.prepareCall("{? = call "
+						+ databaseAdapter.getSQLAdapter().resolveDatabaseOperationName("citydb_delete.delete_cityobject")
+						+ "(?)}");
+				psDelete.registerOutParameter(1, Types.INTEGER);
+			}
+		}
+	}
+
+	public boolean isSkipped(AbstractFeature feature) throws SQLException {
+		if (mode == ExistingFeaturesMode.IMPORT || !feature.isSetId())
+			return false;
+
+		long id = lookup(feature.getId());
+		if (id == 0)
+			return false;
+
+		if (mode == ExistingFeaturesMode.SKIP) {
+			log.debug("Skipping existing feature with gml:id '" + feature.getId() + "' (ID = " + id + ").");
+			return true;
+		}
+
+		psDelete.setObject(2, id, Types.INTEGER);
+		psDelete.executeUpdate();
+		if (psDelete.getInt(1) != id)
+			throw new SQLException("Failed to delete existing feature with gml:id '" + feature.getId() + "' (ID = " + id + ").");
+
+		if (gmlIdIndex != null)
+			pendingDeletions.add(id);
+
+		log.debug("Replacing existing feature with gml:id '" + feature.getId() + "' (ID = " + id + ").");
+		return false;
+	}
+
+	public void register(String gmlId, long id, int objectClassId) {
+		if (gmlIdIndex != null && gmlId != null)
+			pendingAdditions.put(gmlId, new GmlIdIndexEntry(id, objectClassId));
+	}
+
+	public void commit() throws IOException {
+		if (gmlIdIndex != null) {
+			try {
+				for (long id : pendingDeletions)
+					gmlIdIndex.remove(id);
+
+				for (Map.Entry<String, GmlIdIndexEntry> entry : pendingAdditions.entrySet())
+					gmlIdIndex.put(entry.getKey(), entry.getValue().getId(), entry.getValue().getObjectClassId());
+			} finally {
+				rollback();
+			}
+		}
+	}
+
+	public void rollback() {
+		pendingDeletions.clear();
+		pendingAdditions.clear();
+	}
+
+	public void close() throws SQLException {
+		if (psLookup != null)
+			psLookup.close();
+
+		if (psDelete != null)
+			psDelete.close();
+	}
+
+	private long lookup(String gmlId) throws SQLException {
+		if (gmlIdIndex != null) {
+			// features of the current transaction are not yet in the index
+			GmlIdIndexEntry entry = pendingAdditions.get(gmlId);
+			if (entry == null)
+				entry = gmlIdIndex.lookup(gmlId);
+
+			if (entry == null)
+				return 0;
+
+			psLookup.setLong(1, entry.getId());
+			psLookup.setString(2, gmlId);
+		} else
+			psLookup.setString(1, gmlId);
+
+		try (ResultSet rs = psLookup.executeQuery()) {
+			return rs.next() ? rs.getLong(1) : 0;
+		}
+	}
+
+}
@@ -28,6 +28,9 @@
 package org.citydb.citygml.importer.util;
 
 import org.citydb.config.project.database.DBConnection;
+import org.citydb.config.project.global.LogLevel;
+import org.citydb.log.LogWriter;
+import org.citydb.log.Logger;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -42,7 +45,9 @@ import java.util.concurrent.locks.ReentrantLock;
 
 public class ImportLogger {
 	private static int counter;
+	private final Logger log = Logger.getInstance();
 	private final ReentrantLock lock = new ReentrantLock();
+	private final LogWriter entryWriter = new EntryWriter();
 	
 	private Path logFile;
 	private BufferedWriter writer;
@@ -95,6 +100,12 @@ public class ImportLogger {
 	}
 	
 	public void write(ImportLogEntry entry) throws IOException {
+		// pass the entry to the asynchronous log writer if available
+		if (log.isAsynchronousLogging()) {
+			log.submit(entryWriter, entry.type + ',' + entry.id + ',' + entry.gmlId);
+			return;
+		}
+
 		final ReentrantLock lock = this.lock;
 		lock.lock();
 		
@@ -111,10 +122,25 @@ public class ImportLogger {
 	}
 
 	public void close(boolean success) throws IOException {
+		log.flush();
 		writeFooter(success);
 		writer.close();
 	}
 
+	private final class EntryWriter implements LogWriter {
+
+		@Override
+		public void write(LogLevel level, String msg) throws IOException {
+			writer.write(msg);
+			writer.newLine();
+		}
+
+		@Override
+		public void flush() {
+			// entries are flushed when closing the log file
+		}
+	}
+
 	public static class ImportLogEntry {
 		private final String type;
 		private final long id;
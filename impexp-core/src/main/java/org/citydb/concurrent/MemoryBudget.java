@@ -0,0 +1,147 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.concurrent;
+
+import org.citydb.log.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the estimated amount of memory held by the work queues of one or more
+ * worker pools. Producers adding work to a pool using this budget are blocked
+ * until enough memory has been released by the consumers. To avoid deadlocks
+ * in pipelines of worker pools sharing the same budget, a work item is always
+ * admitted if the queue it is added to does not hold any memory yet.
+ */
+public class MemoryBudget {
+	public static final int DEFAULT_QUEUE_SIZE = 10000;
+	private static final long LOG_INTERVAL = TimeUnit.SECONDS.toMillis(10);
+	private static final long MEGABYTE = 1024 * 1024;
+
+	private final Logger log = Logger.getInstance();
+	private final long limit;
+	private long used;
+	private long peak;
+	private long lastLogged;
+
+	public MemoryBudget(long limit) {
+		if (limit <= 0)
+			throw new IllegalArgumentException("Memory budget must be greater than zero.");
+
+		this.limit = limit;
+	}
+
+	public static MemoryBudget ofMegabytes(int megabytes) {
+		return new MemoryBudget(megabytes * MEGABYTE);
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	public synchronized long getUsed() {
+		return used;
+	}
+
+	public synchronized long getPeak() {
+		return peak;
+	}
+
+	public void logUsage() {
+		log.info("Peak memory budget usage: " + toMegabytes(getPeak()) + " of " + toMegabytes(limit) + " MB.");
+	}
+
+	synchronized boolean tryAcquire(long size, WorkerPool.WorkQueue<?> queue) {
+		if (!isAdmissible(size, queue))
+			return false;
+
+		add(size);
+		return true;
+	}
+
+	synchronized boolean tryAcquire(long size, WorkerPool.WorkQueue<?> queue, long nanos) throws InterruptedException {
+		long deadline = System.nanoTime() + nanos;
+		while (!isAdmissible(size, queue)) {
+			if (nanos <= 0)
+				return false;
+
+			logExhausted(size);
+			TimeUnit.NANOSECONDS.timedWait(this, nanos);
+			nanos = deadline - System.nanoTime();
+		}
+
+		add(size);
+		return true;
+	}
+
+	synchronized void acquire(long size, WorkerPool.WorkQueue<?> queue) {
+		boolean interrupted = false;
+		while (!isAdmissible(size, queue)) {
+			logExhausted(size);
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		add(size);
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	synchronized void release(long size) {
+		if (size > 0) {
+			used -= size;
+			notifyAll();
+		}
+	}
+
+	private boolean isAdmissible(long size, WorkerPool.WorkQueue<?> queue) {
+		return used == 0 || used + size <= limit || queue.getBudgetUsage() == 0;
+	}
+
+	private void add(long size) {
+		used += size;
+		if (used > peak)
+			peak = used;
+	}
+
+	private void logExhausted(long size) {
+		long now = System.currentTimeMillis();
+		if (now - lastLogged >= LOG_INTERVAL) {
+			log.debug("Memory budget exhausted: " + toMegabytes(used) + " of " + toMegabytes(limit)
+					+ " MB in use, waiting to queue " + toMegabytes(size) + " MB.");
+			lastLogged = now;
+		}
+	}
+
+	private long toMegabytes(long bytes) {
+		return (bytes + MEGABYTE - 1) / MEGABYTE;
+	}
+}
@@ -39,6 +39,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
 
 public class WorkerPool<T> {
 	private final ReentrantLock mainLock = new ReentrantLock();
@@ -78,12 +79,17 @@ public class WorkerPool<T> {
 		private final Condition flushed;
 
 		private final E[] workItems;
+		private final long[] workSizes;
 		private int putIndex;
 		private int takeIndex;
 		private int count;
 		private volatile boolean blockAndFlush;
 		private volatile boolean isInterrupted;
 
+		private MemoryBudget memoryBudget;
+		private ToLongFunction<? super E> sizeEstimator;
+		private volatile long budgetUsage;
+
 		public WorkQueue(int capacity) {
 			this(capacity, false);
 		}
@@ -100,14 +106,32 @@ public class WorkerPool<T> {
 				throw new IllegalArgumentException();
 
 			workItems = (E[]) new Object[capacity];
+			workSizes = new long[capacity];
 		}
 
 		final int inc(int i) {
 			return (++i == workItems.length) ? 0 : i;
 		}
 
-		private void insert(E work) {
+		long getBudgetUsage() {
+			return budgetUsage;
+		}
+
+		private long estimateSize(E work) {
+			return memoryBudget != null ? Math.max(0, sizeEstimator.applyAsLong(work)) : 0;
+		}
+
+		private void releaseSize(long size) {
+			if (size > 0) {
+				budgetUsage -= size;
+				memoryBudget.release(size);
+			}
+		}
+
+		private void insert(E work, long size) {
 			workItems[putIndex] = work;
+			workSizes[putIndex] = size;
+			budgetUsage += size;
 			putIndex = inc(putIndex);
 			++count;
 			notEmpty.signal();
@@ -117,6 +141,8 @@ public class WorkerPool<T> {
 			final E[] workItems = this.workItems;
 			E work = workItems[takeIndex];
 			workItems[takeIndex] = null;
+			releaseSize(workSizes[takeIndex]);
+			workSizes[takeIndex] = 0;
 			takeIndex = inc(takeIndex);
 			--count;
 			notFull.signal();
@@ -127,17 +153,21 @@ public class WorkerPool<T> {
 
 		private void removeAt(int i) {
 			final E[] workItems = this.workItems;
+			releaseSize(workSizes[i]);
 			if (i == takeIndex) {
 				workItems[i] = null;
+				workSizes[i] = 0;
 				takeIndex = inc(takeIndex);
 			} else {
 				for (;;) {
 					int nexti = inc(i);
 					if (nexti != putIndex) {
 						workItems[i] = workItems[nexti];
+						workSizes[i] = workSizes[nexti];
 						i = nexti;
 					} else {
 						workItems[i] = null;
+						workSizes[i] = 0;
 						putIndex = i;
 						break;
 					}
@@ -154,16 +184,23 @@ public class WorkerPool<T> {
 			if (work == null)
 				throw new NullPointerException();
 
+			long size = estimateSize(work);
+			if (size > 0 && !memoryBudget.tryAcquire(size, this))
+				return false;
+
 			final ReentrantLock lock = this.lock;
 			lock.lock();
 			try {
 				if (blockAndFlush)
 					flushed.awaitUninterruptibly();
 
-				if (count == workItems.length)
+				if (count == workItems.length) {
+					if (size > 0)
+						memoryBudget.release(size);
+
 					return false;
-				else {
-					insert(work);
+				} else {
+					insert(work, size);
 					return true;
 				}
 			} finally {
@@ -176,30 +213,46 @@ public class WorkerPool<T> {
 				throw new NullPointerException();
 
 			long nanos = unit.toNanos(timeout);
+			long size = estimateSize(work);
+			if (size > 0) {
+				long start = System.nanoTime();
+				if (!memoryBudget.tryAcquire(size, this, nanos))
+					return false;
+
+				nanos -= System.nanoTime() - start;
+			}
+
+			boolean inserted = false;
 			final ReentrantLock lock = this.lock;
-			lock.lockInterruptibly();
 			try {
-				if (blockAndFlush)
-					flushed.awaitUninterruptibly();
-
-				for (;;) {
-					if (count != workItems.length) {
-						insert(work);
-						return true;
-					}
+				lock.lockInterruptibly();
+				try {
+					if (blockAndFlush)
+						flushed.awaitUninterruptibly();
+
+					for (;;) {
+						if (count != workItems.length) {
+							insert(work, size);
+							inserted = true;
+							return true;
+						}
 
-					if (nanos <= 0)
-						return false;
+						if (nanos <= 0)
+							return false;
 
-					try {
-						nanos = notFull.awaitNanos(nanos);
-					} catch (InterruptedException ie) {
-						notFull.signal();
-						throw ie;
+						try {
+							nanos = notFull.awaitNanos(nanos);
+						} catch (InterruptedException ie) {
+							notFull.signal();
+							throw ie;
+						}
 					}
+				} finally {
+					lock.unlock();
 				}
 			} finally {
-				lock.unlock();
+				if (!inserted && size > 0)
+					memoryBudget.release(size);
 			}
 		}
 
@@ -207,6 +260,10 @@ public class WorkerPool<T> {
 			if (work == null)
 				throw new NullPointerException();
 
+			long size = estimateSize(work);
+			if (size > 0)
+				memoryBudget.acquire(size, this);
+
 			final E[] workItems = this.workItems;
 			final ReentrantLock lock = this.lock;
 			lock.lock();
@@ -217,7 +274,7 @@ public class WorkerPool<T> {
 				while (count == workItems.length)
 					notFull.awaitUninterruptibly();
 
-				insert(work);
+				insert(work, size);
 			} finally {
 				lock.unlock();
 			}
@@ -227,7 +284,7 @@ public class WorkerPool<T> {
 			final ReentrantLock lock = this.lock;
 			lock.lock();
 			try {
-				return count == 0 ? extract() : null;
+				return count != 0 ? extract() : null;
 			} finally {
 				lock.unlock();
 			}
@@ -355,6 +412,8 @@ public class WorkerPool<T> {
 				int k = count;
 				while (k-- > 0) {
 					workItems[i] = null;
+					releaseSize(workSizes[i]);
+					workSizes[i] = 0;
 					i = inc(i);
 				}
 
@@ -382,6 +441,8 @@ public class WorkerPool<T> {
 				while (n < max) {
 					collection.add(workItems[i]);
 					workItems[i] = null;
+					releaseSize(workSizes[i]);
+					workSizes[i] = 0;
 					i = inc(i);
 					++n;
 				}
@@ -399,6 +460,25 @@ public class WorkerPool<T> {
 				lock.unlock();
 			}
 		}
+
+		public int drainTo(Collection<? super E> collection, int maxElements) {
+			if (collection == null)
+				throw new NullPointerException();
+
+			final ReentrantLock lock = this.lock;
+			lock.lock();
+			try {
+				int n = 0;
+				while (n < maxElements && count != 0) {
+					collection.add(extract());
+					++n;
+				}
+
+				return n;
+			} finally {
+				lock.unlock();
+			}
+		}
 	}
 
 	// WorkerPool
@@ -856,6 +936,27 @@ public class WorkerPool<T> {
 		return workerFactory;
 	}
 
+	public void setMemoryBudget(MemoryBudget memoryBudget, ToLongFunction<? super T> sizeEstimator) {
+		if (memoryBudget != null && sizeEstimator == null)
+			throw new IllegalArgumentException("Size estimator may not be null.");
+
+		final ReentrantLock queueLock = workQueue.lock;
+		queueLock.lock();
+		try {
+			if (!workQueue.isEmpty())
+				throw new IllegalStateException("Memory budget must be set before adding work.");
+
+			workQueue.memoryBudget = memoryBudget;
+			workQueue.sizeEstimator = sizeEstimator;
+		} finally {
+			queueLock.unlock();
+		}
+	}
+
+	public MemoryBudget getMemoryBudget() {
+		return workQueue.memoryBudget;
+	}
+
 	public int getMaximumQueueSize() {
 		return queueSize;
 	}
@@ -41,6 +41,7 @@ import org.citydb.database.schema.util.SchemaMappingUtil;
 import org.geotools.referencing.CRS;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
 
 import javax.xml.bind.JAXBException;
 import java.sql.CallableStatement;
@@ -52,12 +53,14 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractUtilAdapter {
     protected final AbstractDatabaseAdapter databaseAdapter;
     protected final ConcurrentHashMap<Integer, DatabaseSrs> srsInfoMap;
     private final ConcurrentHashMap<Integer, CoordinateReferenceSystem> srsDefMap;
+    private final ConcurrentHashMap<String, Optional<CoordinateTransformer>> transformerMap;
 
     protected CallableStatement interruptableCallableStatement;
     protected PreparedStatement interruptablePreparedStatement;
@@ -67,6 +70,7 @@ public abstract class AbstractUtilAdapter {
         this.databaseAdapter = databaseAdapter;
         srsInfoMap = new ConcurrentHashMap<>();
         srsDefMap = new ConcurrentHashMap<>();
+        transformerMap = new ConcurrentHashMap<>();
     }
 
     protected abstract void getCityDBVersion(DatabaseMetaData metaData, String schema, Connection connection) throws SQLException;
@@ -410,4 +414,28 @@ public abstract class AbstractUtilAdapter {
         srsDefMap.putIfAbsent(srs.getSrid(), tmp);
         return tmp;
     }
+
+    public CoordinateTransformer getCoordinateTransformer(DatabaseSrs sourceSrs, DatabaseSrs targetSrs) {
+        return transformerMap.computeIfAbsent(sourceSrs.getSrid() + ":" + targetSrs.getSrid(),
+                k -> Optional.ofNullable(createCoordinateTransformer(sourceSrs, targetSrs))).orElse(null);
+    }
+
+    private CoordinateTransformer createCoordinateTransformer(DatabaseSrs sourceSrs, DatabaseSrs targetSrs) {
+        try {
+            CoordinateReferenceSystem sourceCrs = decodeDatabaseSrs(sourceSrs);
+            CoordinateReferenceSystem targetCrs = decodeDatabaseSrs(targetSrs);
+
+            // do not accept lenient transformations that silently ignore datum shifts
+            MathTransform transform = CRS.findMathTransform(sourceCrs, targetCrs, false);
+            int dimension = transform.getSourceDimensions();
+            if (dimension < 2 || dimension > 3 || dimension != transform.getTargetDimensions())
+                return null;
+
+            return new CoordinateTransformer(transform, targetSrs.getSrid(),
+                    CRS.getAxisOrder(sourceCrs) == CRS.AxisOrder.NORTH_EAST,
+                    CRS.getAxisOrder(targetCrs) == CRS.AxisOrder.NORTH_EAST);
+        } catch (FactoryException e) {
+            return null;
+        }
+    }
 }
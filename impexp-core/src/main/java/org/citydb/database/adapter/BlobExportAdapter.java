@@ -34,11 +34,16 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class BlobExportAdapter {
 	protected final Logger log = Logger.getInstance();
@@ -46,6 +51,8 @@ public class BlobExportAdapter {
 	private final String schema;
 
 	private PreparedStatement psExport;
+	private PreparedStatement psBatchExport;
+	private int batchSize;
 	private BlobType blobType;
 
 	public BlobExportAdapter(Connection connection, BlobType blobType, String schema) {
@@ -78,6 +85,61 @@ public class BlobExportAdapter {
 		}
 	}
 
+	public Map<Long, byte[]> getInByteArrays(List<Long> ids) throws SQLException {
+		if (ids.isEmpty())
+			return Collections.emptyMap();
+
+		Map<Long, byte[]> result = new HashMap<>(ids.size());
+		try (ResultSet rs = executeBatchQuery(ids)) {
+			while (rs.next()) {
+				long id = rs.getLong(1);
+				byte[] buf = rs.getBytes(2);
+				if (!rs.wasNull() && buf.length > 0)
+					result.put(id, buf);
+			}
+		}
+
+		return result;
+	}
+
+	public void getInStreams(List<Long> ids, BlobStreamHandler handler) throws SQLException, IOException {
+		if (ids.isEmpty())
+			return;
+
+		// hand out the BLOBs one by one so that they never have to be held in memory together
+		try (ResultSet rs = executeBatchQuery(ids)) {
+			while (rs.next()) {
+				long id = rs.getLong(1);
+				try (InputStream stream = rs.getBinaryStream(2)) {
+					if (stream != null)
+						handler.handle(id, stream);
+				}
+			}
+		}
+	}
+
+	private ResultSet executeBatchQuery(List<Long> ids) throws SQLException {
+		if (psBatchExport == null || ids.size() > batchSize) {
+			if (psBatchExport != null)
+				psBatchExport.close();
+
+			// the statement is reused for smaller batches by repeating the first id
+			batchSize = ids.size();
+			StringBuilder placeHolders = new StringBuilder("?");
+			for (int i = 1; i < batchSize; i++)
+				placeHolders.append(",?");
+
+			psBatchExport = connection.prepareStatement(blobType == BlobType.TEXTURE_IMAGE ?
+					"select ID, TEX_IMAGE_DATA from " + schema + ".TEX_IMAGE where ID in (" + placeHolders + ")" :
+					"select ID, LIBRARY_OBJECT from " + schema + ".IMPLICIT_GEOMETRY where ID in (" + placeHolders + ")");
+		}
+
+		for (int i = 0; i < batchSize; i++)
+			psBatchExport.setLong(i + 1, i < ids.size() ? ids.get(i) : ids.get(0));
+
+		return psBatchExport.executeQuery();
+	}
+
 	public boolean writeToFile(long id, String objectName, String fileName) throws SQLException {
 		try (FileOutputStream out = new FileOutputStream(fileName)) {
 			byte[] buf = getInByteArray(id, objectName);
@@ -115,6 +177,14 @@ public class BlobExportAdapter {
 	public void close() throws SQLException {
 		if (psExport != null)
 			psExport.close();
+
+		if (psBatchExport != null)
+			psBatchExport.close();
+	}
+
+	@FunctionalInterface
+	public interface BlobStreamHandler {
+		void handle(long id, InputStream stream) throws IOException;
 	}
 
 }
@@ -0,0 +1,136 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.database.adapter;
+
+import org.citydb.config.geometry.GeometryObject;
+import org.citydb.config.geometry.GeometryType;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+public class CoordinateTransformer {
+	private final MathTransform transform;
+	private final int targetSrid;
+	private final boolean swapSourceAxes;
+	private final boolean swapTargetAxes;
+
+	CoordinateTransformer(MathTransform transform, int targetSrid, boolean swapSourceAxes, boolean swapTargetAxes) {
+		this.transform = transform;
+		this.targetSrid = targetSrid;
+		this.swapSourceAxes = swapSourceAxes;
+		this.swapTargetAxes = swapTargetAxes;
+	}
+
+	public int getTargetSrid() {
+		return targetSrid;
+	}
+
+	public GeometryObject transform(GeometryObject geometry) throws TransformException {
+		if (geometry.getDimension() < transform.getSourceDimensions())
+			throw new TransformException("Geometry dimension " + geometry.getDimension() + " is lower than the dimension of the transformation.");
+
+		if (geometry.getGeometryType() == GeometryType.ENVELOPE)
+			return transformEnvelope(geometry);
+
+		double[][] coordinates = new double[geometry.getNumElements()][];
+		for (int i = 0; i < coordinates.length; i++)
+			coordinates[i] = transform(geometry.getCoordinates(i), geometry.getDimension());
+
+		return geometry.copy(coordinates, targetSrid);
+	}
+
+	private GeometryObject transformEnvelope(GeometryObject envelope) throws TransformException {
+		int dimension = envelope.getDimension();
+		double[] bbox = envelope.getCoordinates(0);
+
+		// transform all corners of the envelope since it may be rotated in the target system
+		double[] corners = new double[dimension * (dimension == 3 ? 8 : 4)];
+		for (int z = 0, k = 0; z < (dimension == 3 ? 2 : 1); z++) {
+			for (int y = 0; y < 2; y++) {
+				for (int x = 0; x < 2; x++) {
+					corners[k++] = bbox[x * dimension];
+					corners[k++] = bbox[1 + y * dimension];
+					if (dimension == 3)
+						corners[k++] = bbox[2 + z * dimension];
+				}
+			}
+		}
+
+		corners = transform(corners, dimension);
+
+		double[] result = new double[dimension * 2];
+		for (int i = 0; i < dimension; i++) {
+			result[i] = Double.MAX_VALUE;
+			result[i + dimension] = -Double.MAX_VALUE;
+		}
+
+		for (int i = 0; i < corners.length; i += dimension) {
+			for (int j = 0; j < dimension; j++) {
+				result[j] = Math.min(result[j], corners[i + j]);
+				result[j + dimension] = Math.max(result[j + dimension], corners[i + j]);
+			}
+		}
+
+		return GeometryObject.createEnvelope(result, dimension, targetSrid);
+	}
+
+	private double[] transform(double[] coordinates, int dimension) throws TransformException {
+		int numPoints = coordinates.length / dimension;
+		int transformDimension = transform.getSourceDimensions();
+		double[] result = coordinates.clone();
+
+		if (numPoints == 0)
+			return result;
+
+		if (transformDimension == dimension && !swapSourceAxes && !swapTargetAxes) {
+			transform.transform(coordinates, 0, result, 0, numPoints);
+			return result;
+		}
+
+		// copy coordinates into a buffer matching the dimension and axis order of the transformation.
+		// additional ordinates such as heights for a 2D transformation are kept unchanged
+		double[] buffer = new double[numPoints * transformDimension];
+		for (int i = 0, j = 0; i < coordinates.length; i += dimension, j += transformDimension) {
+			buffer[j] = coordinates[swapSourceAxes ? i + 1 : i];
+			buffer[j + 1] = coordinates[swapSourceAxes ? i : i + 1];
+			if (transformDimension == 3)
+				buffer[j + 2] = coordinates[i + 2];
+		}
+
+		transform.transform(buffer, 0, buffer, 0, numPoints);
+
+		for (int i = 0, j = 0; i < result.length; i += dimension, j += transformDimension) {
+			result[i] = buffer[swapTargetAxes ? j + 1 : j];
+			result[i + 1] = buffer[swapTargetAxes ? j : j + 1];
+			if (transformDimension == 3)
+				result[i + 2] = buffer[j + 2];
+		}
+
+		return result;
+	}
+
+}
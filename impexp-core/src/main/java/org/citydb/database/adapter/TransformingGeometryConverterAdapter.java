@@ -0,0 +1,118 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.database.adapter;
+
+import org.citydb.config.geometry.GeometryObject;
+import org.citydb.config.geometry.GeometryType;
+import org.citydb.config.project.database.DatabaseSrs;
+import org.opengis.referencing.operation.TransformException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public class TransformingGeometryConverterAdapter extends AbstractGeometryConverterAdapter {
+	private final AbstractGeometryConverterAdapter geometryConverter;
+	private final CoordinateTransformer transformer;
+	private final DatabaseSrs targetSrs;
+
+	public TransformingGeometryConverterAdapter(AbstractDatabaseAdapter databaseAdapter, CoordinateTransformer transformer, DatabaseSrs targetSrs) {
+		super(databaseAdapter);
+		this.transformer = transformer;
+		this.targetSrs = targetSrs;
+		geometryConverter = databaseAdapter.getGeometryConverter();
+	}
+
+	@Override
+	public GeometryObject getEnvelope(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getEnvelope(geomObj));
+	}
+
+	@Override
+	public GeometryObject getPoint(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getPoint(geomObj));
+	}
+
+	@Override
+	public GeometryObject getMultiPoint(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getMultiPoint(geomObj));
+	}
+
+	@Override
+	public GeometryObject getCurve(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getCurve(geomObj));
+	}
+
+	@Override
+	public GeometryObject getMultiCurve(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getMultiCurve(geomObj));
+	}
+
+	@Override
+	public GeometryObject getPolygon(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getPolygon(geomObj));
+	}
+
+	@Override
+	public GeometryObject getMultiPolygon(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getMultiPolygon(geomObj));
+	}
+
+	@Override
+	public GeometryObject getGeometry(Object geomObj) throws SQLException {
+		return transform(geometryConverter.getGeometry(geomObj));
+	}
+
+	@Override
+	public Object getDatabaseObject(GeometryObject geomObj, Connection connection) throws SQLException {
+		return geometryConverter.getDatabaseObject(geomObj, connection);
+	}
+
+	@Override
+	public int getNullGeometryType() {
+		return geometryConverter.getNullGeometryType();
+	}
+
+	@Override
+	public String getNullGeometryTypeName() {
+		return geometryConverter.getNullGeometryTypeName();
+	}
+
+	private GeometryObject transform(GeometryObject geometry) throws SQLException {
+		if (geometry == null)
+			return null;
+
+		try {
+			return transformer.transform(geometry);
+		} catch (TransformException e) {
+			// fall back to the database transformation
+			GeometryObject result = databaseAdapter.getUtil().transform(geometry, targetSrs);
+			return result != null && geometry.getGeometryType() == GeometryType.ENVELOPE ? result.toEnvelope() : result;
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.event;
+
+import org.citydb.event.global.CounterEvent;
+import org.citydb.event.global.CounterType;
+import org.citydb.event.global.EventType;
+import org.citydb.event.global.GeometryCounterEvent;
+import org.citydb.event.global.ObjectCounterEvent;
+import org.citydb.event.global.ProgressBarEventType;
+import org.citydb.event.global.StatusDialogProgressBar;
+import org.citygml4j.model.gml.GMLClass;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Merges high-frequency counter and progress events into striped per-thread
+ * accumulators. The accumulated values are periodically turned into a single
+ * event per counter and channel by {@link #drain()}.
+ */
+public class EventAggregator {
+	private final ConcurrentHashMap<AggregateKey, StripedCounter> counters = new ConcurrentHashMap<>();
+	private final Object source;
+
+	public EventAggregator(Object source) {
+		this.source = source;
+	}
+
+	public boolean aggregate(Event event) {
+		Object channel = event.getChannel();
+		if (channel == null || event.isCancelled())
+			return false;
+
+		if (event.getEventType() == EventType.COUNTER) {
+			CounterEvent counterEvent = (CounterEvent) event;
+			if (!isDeltaCounter(counterEvent.getType()))
+				return false;
+
+			add(EventType.COUNTER, channel, counterEvent.getType(), counterEvent.getCounter());
+			return true;
+		}
+
+		else if (event.getEventType() == EventType.OBJECT_COUNTER) {
+			Map<Integer, Long> counter = ((ObjectCounterEvent) event).getCounter();
+			if (counter == null)
+				return false;
+
+			for (Map.Entry<Integer, Long> entry : counter.entrySet())
+				add(EventType.OBJECT_COUNTER, channel, entry.getKey(), entry.getValue());
+
+			return true;
+		}
+
+		else if (event.getEventType() == EventType.GEOMETRY_COUNTER) {
+			Map<GMLClass, Long> counter = ((GeometryCounterEvent) event).getCounter();
+			if (counter == null)
+				return false;
+
+			for (Map.Entry<GMLClass, Long> entry : counter.entrySet())
+				add(EventType.GEOMETRY_COUNTER, channel, entry.getKey(), entry.getValue());
+
+			return true;
+		}
+
+		else if (event.getEventType() == EventType.STATUS_DIALOG_PROGRESS_BAR) {
+			StatusDialogProgressBar progressBar = (StatusDialogProgressBar) event;
+			if (progressBar.getType() != ProgressBarEventType.UPDATE)
+				return false;
+
+			add(EventType.STATUS_DIALOG_PROGRESS_BAR, channel, ProgressBarEventType.UPDATE, progressBar.getValue());
+			return true;
+		}
+
+		return false;
+	}
+
+	public boolean hasPendingEvents() {
+		for (StripedCounter counter : counters.values()) {
+			if (counter.isDirty())
+				return true;
+		}
+
+		return false;
+	}
+
+	public List<Event> drain() {
+		List<Event> events = new ArrayList<>();
+		Map<Object, Map<Integer, Long>> objectCounters = new IdentityHashMap<>();
+		Map<Object, Map<GMLClass, Long>> geometryCounters = new IdentityHashMap<>();
+
+		for (Map.Entry<AggregateKey, StripedCounter> entry : counters.entrySet()) {
+			StripedCounter counter = entry.getValue();
+			if (!counter.isDirty())
+				continue;
+
+			long value = counter.sumThenReset();
+			if (value == 0)
+				continue;
+
+			AggregateKey key = entry.getKey();
+			if (key.eventType == EventType.COUNTER)
+				events.add(new CounterEvent((CounterType) key.subType, value, key.channel, source));
+			else if (key.eventType == EventType.OBJECT_COUNTER)
+				objectCounters.computeIfAbsent(key.channel, v -> new HashMap<>()).put((Integer) key.subType, value);
+			else if (key.eventType == EventType.GEOMETRY_COUNTER)
+				geometryCounters.computeIfAbsent(key.channel, v -> new HashMap<>()).put((GMLClass) key.subType, value);
+			else if (key.eventType == EventType.STATUS_DIALOG_PROGRESS_BAR)
+				events.add(new StatusDialogProgressBar(ProgressBarEventType.UPDATE, (int) value, source));
+		}
+
+		for (Map.Entry<Object, Map<Integer, Long>> entry : objectCounters.entrySet())
+			events.add(new ObjectCounterEvent(entry.getValue(), entry.getKey(), source));
+
+		for (Map.Entry<Object, Map<GMLClass, Long>> entry : geometryCounters.entrySet())
+			events.add(new GeometryCounterEvent(entry.getValue(), entry.getKey(), source));
+
+		return events;
+	}
+
+	public void clear() {
+		// only call when no producers are active, otherwise
+		// values added concurrently to removed counters are lost
+		counters.clear();
+	}
+
+	private void add(Enum<?> eventType, Object channel, Object subType, long value) {
+		if (value != 0)
+			counters.computeIfAbsent(new AggregateKey(eventType, channel, subType), v -> new StripedCounter()).add(value);
+	}
+
+	private boolean isDeltaCounter(CounterType type) {
+		// FILE and REMAINING_TILES carry absolute values and must not be summed up
+		return type == CounterType.TOPLEVEL_FEATURE
+				|| type == CounterType.GLOBAL_APPEARANCE
+				|| type == CounterType.TEXTURE_IMAGE;
+	}
+
+	private static final class AggregateKey {
+		private final Enum<?> eventType;
+		private final Object channel;
+		private final Object subType;
+		private final int hash;
+
+		AggregateKey(Enum<?> eventType, Object channel, Object subType) {
+			this.eventType = eventType;
+			this.channel = channel;
+			this.subType = subType;
+			hash = 31 * (31 * eventType.hashCode() + System.identityHashCode(channel)) + Objects.hashCode(subType);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+
+			if (!(obj instanceof AggregateKey))
+				return false;
+
+			AggregateKey other = (AggregateKey) obj;
+			return eventType == other.eventType
+					&& channel == other.channel
+					&& Objects.equals(subType, other.subType);
+		}
+	}
+
+	private static final class StripedCounter {
+		// pad stripes to separate cache lines to avoid false sharing
+		private static final int PADDING = 16;
+		private static final int STRIPES = stripes();
+
+		private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+		private volatile boolean dirty;
+
+		void add(long value) {
+			int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+			cells.getAndAdd(stripe * PADDING, value);
+			if (!dirty)
+				dirty = true;
+		}
+
+		boolean isDirty() {
+			return dirty;
+		}
+
+		long sumThenReset() {
+			dirty = false;
+			long sum = 0;
+			for (int i = 0; i < STRIPES; i++)
+				sum += cells.getAndSet(i * PADDING, 0);
+
+			return sum;
+		}
+
+		private static int stripes() {
+			int processors = Runtime.getRuntime().availableProcessors();
+			int stripes = 1;
+			while (stripes < processors * 2)
+				stripes <<= 1;
+
+			return stripes;
+		}
+	}
+}
@@ -35,11 +35,18 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class EventDispatcher {
-	private SingleWorkerPool<Event> eventDispatcherThread;
-	private ConcurrentHashMap<Enum<?>, EventHandlerContainerQueue> containerQueueMap;
-	private ReentrantLock mainLock;
+	private final SingleWorkerPool<Event> eventDispatcherThread;
+	private final ConcurrentHashMap<Enum<?>, EventHandlerContainerQueue> containerQueueMap;
+	private final EventAggregator aggregator;
+	private final Thread aggregatorThread;
+	private final long aggregationInterval;
+	private final ReentrantLock drainLock;
+	private volatile boolean shouldRun = true;
+
+	public EventDispatcher(int eventQueueSize, long aggregationInterval) {
+		if (aggregationInterval <= 0)
+			throw new IllegalArgumentException("The aggregation interval must be greater than zero.");
 
-	public EventDispatcher(int eventQueueSize) {
 		containerQueueMap = new ConcurrentHashMap<>();
 		eventDispatcherThread = new SingleWorkerPool<>(
 				"event_dispatcher",
@@ -48,7 +55,19 @@ public class EventDispatcher {
 				true);
 
 		eventDispatcherThread.prestartCoreWorkers();
-		mainLock = new ReentrantLock();
+		drainLock = new ReentrantLock();
+
+		// counter and progress events are merged and dispatched periodically
+		this.aggregationInterval = aggregationInterval;
+		aggregator = new EventAggregator(this);
+		aggregatorThread = new Thread(new AggregatorWorker());
+		aggregatorThread.setName("event_aggregator");
+		aggregatorThread.setDaemon(true);
+		aggregatorThread.start();
+	}
+
+	public EventDispatcher(int eventQueueSize) {
+		this(eventQueueSize, 250);
 	}
 
 	public EventDispatcher() {
@@ -56,23 +75,16 @@ public class EventDispatcher {
 	}
 
 	public void addEventHandler(Enum<?> type, EventHandler handler, boolean autoRemove) {
-		containerQueueMap.putIfAbsent(type, new EventHandlerContainerQueue());
-
-		EventHandlerContainerQueue containerQueue = containerQueueMap.get(type);
-		containerQueue.addEventHandler(handler, autoRemove);
+		containerQueueMap.computeIfAbsent(type, v -> new EventHandlerContainerQueue()).addEventHandler(handler, autoRemove);
 	}
 
-
 	public void addEventHandler(Enum<?> type, EventHandler handler) {
 		addEventHandler(type, handler, false);
 	}
 
 	public boolean removeEventHandler(Enum<?> type, EventHandler handler) {
-		if (!containerQueueMap.containsKey(type))
-			return false;
-
 		EventHandlerContainerQueue containerQueue = containerQueueMap.get(type);
-		return containerQueue.removeEventHandler(handler);
+		return containerQueue != null && containerQueue.removeEventHandler(handler);
 	}
 
 	public void removeEventHandler(EventHandler handler) {
@@ -81,39 +93,28 @@ public class EventDispatcher {
 	}
 
 	public void triggerEvent(Event event) {
-		eventDispatcherThread.addWork(event);
+		if (!aggregator.aggregate(event)) {
+			// dispatch pending aggregates first to preserve the order of events
+			dispatchAggregatedEvents();
+			eventDispatcherThread.addWork(event);
+		}
 	}
 
 	public Event triggerSyncEvent(Event event) {
-		final ReentrantLock lock = this.mainLock;
-		lock.lock();
-
-		try {
-			return propagate(event);
-		} finally {
-			lock.unlock();
-		}
+		return propagate(event);
 	}
 
 	protected Event propagate(Event event) {
-		final ReentrantLock lock = this.mainLock;
-		lock.lock();
+		EventHandlerContainerQueue containerQueue = containerQueueMap.get(event.getEventType());
+		if (containerQueue != null)
+			containerQueue.propagate(event);
 
-		try {
-			if (containerQueueMap.containsKey(event.getEventType())) {
-				EventHandlerContainerQueue containerQueue = containerQueueMap.get(event.getEventType());
-				containerQueue.propagate(event);
-			}
-
-			return event;
-		} finally {
-			lock.unlock();
-		}
+		return event;
 	}
 
 	public List<EventHandler> getRegisteredHandlers(Enum<?> type) {
-		return containerQueueMap.containsKey(type) ?
-				containerQueueMap.get(type).getHandlers() : new ArrayList<>();
+		EventHandlerContainerQueue containerQueue = containerQueueMap.get(type);
+		return containerQueue != null ? containerQueue.getHandlers() : new ArrayList<>();
 	}
 
 	public void reset() {
@@ -122,22 +123,67 @@ public class EventDispatcher {
 	}
 
 	public void flushEvents() throws InterruptedException {
+		dispatchAggregatedEvents();
 		eventDispatcherThread.join();
+
+		// flushing is requested after the producers of an operation have
+		// terminated, so we can safely release the aggregated channels
+		aggregator.clear();
 	}
 	
 	public void shutdown() {
+		stopAggregator();
 		eventDispatcherThread.shutdown();
 		containerQueueMap.clear();
 	}
 	
 	public void shutdownNow() {
+		stopAggregator();
 		eventDispatcherThread.shutdownNow();
 		containerQueueMap.clear();
 	}
 	
 	public void shutdownAndWait() throws InterruptedException {
+		stopAggregator();
 		eventDispatcherThread.shutdownAndWait();
 		containerQueueMap.clear();
 	}
+
+	private void dispatchAggregatedEvents() {
+		if (!aggregator.hasPendingEvents())
+			return;
+
+		final ReentrantLock lock = this.drainLock;
+		lock.lock();
+
+		try {
+			for (Event event : aggregator.drain())
+				eventDispatcherThread.addWork(event);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void stopAggregator() {
+		shouldRun = false;
+		aggregatorThread.interrupt();
+		dispatchAggregatedEvents();
+	}
+
+	private final class AggregatorWorker implements Runnable {
+
+		@Override
+		public void run() {
+			while (shouldRun) {
+				try {
+					Thread.sleep(aggregationInterval);
+				} catch (InterruptedException e) {
+					// re-check state
+				}
+
+				dispatchAggregatedEvents();
+			}
+		}
+	}
 	
 }
@@ -32,13 +32,13 @@ import org.citydb.log.Logger;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class EventHandlerContainerQueue {
-	private ConcurrentLinkedQueue<EventHandlerContainer> containerQueue;
+	private final CopyOnWriteArrayList<EventHandlerContainer> containerQueue;
 
 	public EventHandlerContainerQueue() {
-		containerQueue = new ConcurrentLinkedQueue<EventHandlerContainer>();
+		containerQueue = new CopyOnWriteArrayList<>();
 	}
 
 	public void addEventHandler(EventHandler handler, boolean autoRemove) {
@@ -53,10 +53,8 @@ public class EventHandlerContainerQueue {
 	public boolean removeEventHandler(EventHandler handler) {
 		if (handler != null) {
 			for (EventHandlerContainer container : containerQueue) {
-				if (handler == container.getEventHandler()) {
-					containerQueue.remove(container);
-					return true;
-				}
+				if (handler == container.getEventHandler())
+					return containerQueue.remove(container);
 			}
 		}
 
@@ -64,29 +62,29 @@ public class EventHandlerContainerQueue {
 	}
 
 	protected Event propagate(Event event) {
-		Iterator<EventHandlerContainer> iter = containerQueue.iterator();
-		
-		while (iter.hasNext()) {
-			EventHandlerContainer container = iter.next();
+		// handlers are invoked on a snapshot of the registered handlers without
+		// holding any lock, so handlers must be safe for concurrent invocation
+		for (EventHandlerContainer container : containerQueue) {
 			EventHandler handler = container.getEventHandler();
-			
+
 			// since we deal with weak references, check whether
 			// handler is null and remove its container in this case
 			if (handler == null) {
-				iter.remove();
+				containerQueue.remove(container);
 				continue;
 			}
-			
+
+			// auto-remove handlers are only invoked by the thread that removes them
+			if (container.isAutoRemove() && !containerQueue.remove(container))
+				continue;
+
 			try {
 				handler.handleEvent(event);
 			} catch (Exception e) {
 				Logger.getInstance().error(e.getMessage());
 				break;
 			}
-			
-			if (container.isAutoRemove())
-				iter.remove();
-			
+
 			if (event.isCancelled())
 				break;
 		}
@@ -104,16 +102,14 @@ public class EventHandlerContainerQueue {
 	
 	public List<EventHandler> getHandlers() {
 		List<EventHandler> handlers = new ArrayList<>();
-		Iterator<EventHandlerContainer> iter = containerQueue.iterator();
-		
-		while (iter.hasNext()) {
-			EventHandlerContainer container = iter.next();
+
+		for (EventHandlerContainer container : containerQueue) {
 			EventHandler handler = container.getEventHandler();
 			
 			// since we deal with weak references, check whether
 			// handler is null and remove its container in this case
 			if (handler == null) {
-				iter.remove();
+				containerQueue.remove(container);
 				continue;
 			}
 			
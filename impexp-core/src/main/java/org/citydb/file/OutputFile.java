@@ -49,6 +49,12 @@ public abstract class OutputFile implements AutoCloseable {
     public abstract void createDirectories(String path) throws IOException;
     public abstract OutputStream newOutputStream(String file) throws IOException;
 
+    public void write(String file, byte[] content) throws IOException {
+        try (OutputStream stream = newOutputStream(file)) {
+            stream.write(content);
+        }
+    }
+
     @Override
     public abstract void close() throws IOException;
 
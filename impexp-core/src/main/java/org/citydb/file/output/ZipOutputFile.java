@@ -42,6 +42,7 @@ import org.citydb.event.global.InterruptEvent;
 import org.citydb.log.Logger;
 import org.citydb.util.Pipe;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
@@ -118,6 +119,17 @@ public class ZipOutputFile extends AbstractArchiveOutputFile {
         return out;
     }
 
+    @Override
+    public void write(String file, byte[] content) throws IOException {
+        if (shouldRun) {
+            // the content is already in memory, so we can skip the pipe
+            // and let the scatter workers compress it in parallel
+            ZipArchiveEntry entry = new ZipArchiveEntry(file);
+            entry.setMethod(ZipEntry.DEFLATED);
+            scatterZipPool.addWork(new ScatterZipWork(entry, () -> new ByteArrayInputStream(content)));
+        }
+    }
+
     @Override
     public void createDirectories(String path) {
         // we do not need to separately create directories
@@ -0,0 +1,261 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.log;
+
+import org.citydb.config.project.global.LogLevel;
+import org.citydb.config.project.global.LogOverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes log messages from any number of threads to a single writer thread
+ * through a bounded ring buffer. Producers claim slots of the ring buffer
+ * without locking. The writer thread hands the messages to their log writers
+ * and flushes each log writer once per batch instead of once per message.
+ * If the ring buffer is full, the overflow policy decides whether producers
+ * are blocked or whether messages of low severity are dropped. Messages
+ * without log level and warnings and errors are never dropped. Once the sink
+ * is closed, messages are written directly by the calling thread.
+ */
+public class AsyncLogSink {
+	private static final int MAX_BATCH_SIZE = 1024;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final Record[] records;
+	private final int mask;
+	private final LogOverflowPolicy overflowPolicy;
+	private final int sampleRate;
+	private final Thread writerThread;
+
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong samples = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicInteger producers = new AtomicInteger();
+	private volatile long head;
+	private volatile boolean isWaiting;
+	private volatile boolean shouldRun = true;
+	private volatile boolean isTerminating;
+
+	private static final class Record {
+		private volatile long sequence = -1;
+		private LogLevel level;
+		private String msg;
+		private LogWriter writer;
+	}
+
+	public AsyncLogSink(int capacity, LogOverflowPolicy overflowPolicy, int sampleRate) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be greater than zero.");
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+
+		records = new Record[size];
+		for (int i = 0; i < size; i++)
+			records[i] = new Record();
+
+		mask = size - 1;
+		this.overflowPolicy = overflowPolicy != null ? overflowPolicy : LogOverflowPolicy.BLOCK;
+		this.sampleRate = Math.max(1, sampleRate);
+
+		writerThread = new Thread(this::run, "log_writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public void submit(LogLevel level, String msg, LogWriter writer) {
+		producers.incrementAndGet();
+		try {
+			if (shouldRun) {
+				enqueue(level, msg, writer);
+				return;
+			}
+		} finally {
+			producers.decrementAndGet();
+		}
+
+		// messages submitted after closing has started are only written
+		// once the writer thread has drained the ring buffer
+		awaitTermination();
+		write(level, msg, writer);
+	}
+
+	private void enqueue(LogLevel level, String msg, LogWriter writer) {
+		boolean mayDrop = level == LogLevel.DEBUG ||
+				(level == LogLevel.INFO && overflowPolicy == LogOverflowPolicy.SAMPLE);
+
+		for (;;) {
+			long sequence = tail.get();
+			if (sequence - head >= records.length) {
+				if (mayDrop && shouldDrop()) {
+					dropped.incrementAndGet();
+					return;
+				}
+
+				// wait for the writer thread to free a slot
+				mayDrop = false;
+				LockSupport.unpark(writerThread);
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+				continue;
+			}
+
+			if (tail.compareAndSet(sequence, sequence + 1)) {
+				Record record = records[(int) sequence & mask];
+				record.level = level;
+				record.msg = msg;
+				record.writer = writer;
+				record.sequence = sequence;
+
+				if (isWaiting)
+					LockSupport.unpark(writerThread);
+
+				return;
+			}
+		}
+	}
+
+	public long getDroppedMessages() {
+		return dropped.get();
+	}
+
+	public void flush() {
+		long sequence = tail.get();
+		while (head < sequence && writerThread.isAlive()) {
+			LockSupport.unpark(writerThread);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
+	public void close() {
+		shouldRun = false;
+
+		// producers that have passed the check above still publish their messages
+		while (producers.get() > 0) {
+			LockSupport.unpark(writerThread);
+			LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+		}
+
+		isTerminating = true;
+		LockSupport.unpark(writerThread);
+		awaitTermination();
+	}
+
+	private void awaitTermination() {
+		if (Thread.currentThread() == writerThread)
+			return;
+
+		boolean interrupted = false;
+		while (writerThread.isAlive()) {
+			try {
+				writerThread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	private boolean shouldDrop() {
+		switch (overflowPolicy) {
+			case DROP_DEBUG:
+				return true;
+			case SAMPLE:
+				return samples.incrementAndGet() % sampleRate != 0;
+			default:
+				return false;
+		}
+	}
+
+	private void run() {
+		List<LogWriter> writers = new ArrayList<>();
+		int batchSize = 0;
+
+		for (;;) {
+			long sequence = head;
+			Record record = records[(int) sequence & mask];
+
+			if (record.sequence != sequence || batchSize == MAX_BATCH_SIZE) {
+				flush(writers);
+				batchSize = 0;
+
+				if (record.sequence != sequence) {
+					if (isTerminating && tail.get() == sequence)
+						break;
+
+					isWaiting = true;
+					if (record.sequence != sequence && !isTerminating)
+						LockSupport.parkNanos(MAX_PARK_NANOS);
+
+					isWaiting = false;
+					continue;
+				}
+			}
+
+			LogWriter writer = record.writer;
+			write(record.level, record.msg, writer);
+			if (!writers.contains(writer))
+				writers.add(writer);
+
+			record.level = null;
+			record.msg = null;
+			record.writer = null;
+			head = sequence + 1;
+			batchSize++;
+		}
+	}
+
+	private void write(LogLevel level, String msg, LogWriter writer) {
+		try {
+			writer.write(level, msg);
+			if (!shouldRun && Thread.currentThread() != writerThread)
+				writer.flush();
+		} catch (Throwable e) {
+			//
+		}
+	}
+
+	private void flush(List<LogWriter> writers) {
+		for (LogWriter writer : writers) {
+			try {
+				writer.flush();
+			} catch (Throwable e) {
+				//
+			}
+		}
+
+		writers.clear();
+	}
+}
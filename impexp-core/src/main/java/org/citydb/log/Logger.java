@@ -28,6 +28,7 @@
 package org.citydb.log;
 
 import org.citydb.config.project.global.LogLevel;
+import org.citydb.config.project.global.LogOverflowPolicy;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -47,7 +48,12 @@ public class Logger {
 
 	private boolean isLogToConsole = true;
 	private boolean isLogToFile = false;
-	private BufferedWriter logFile;
+	private volatile BufferedWriter logFile;
+
+	private volatile AsyncLogSink logSink;
+	private boolean hasShutdownHook;
+	private final LogWriter consoleWriter = new ConsoleLogWriter();
+	private final LogWriter fileWriter = new FileLogWriter();
 
 	private Logger() {
 		consoleLogger = new DefaultConsoleLogger();
@@ -86,17 +92,61 @@ public class Logger {
 				"] ";
 	}
 
+	public synchronized void enableAsynchronousLogging(int capacity, LogOverflowPolicy overflowPolicy, int sampleRate) {
+		if (logSink == null) {
+			logSink = new AsyncLogSink(capacity, overflowPolicy, sampleRate);
+
+			// make sure queued messages are written before shutting down
+			if (!hasShutdownHook) {
+				Runtime.getRuntime().addShutdownHook(new Thread(this::disableAsynchronousLogging));
+				hasShutdownHook = true;
+			}
+		}
+	}
+
+	public synchronized void disableAsynchronousLogging() {
+		AsyncLogSink logSink = this.logSink;
+		if (logSink != null) {
+			this.logSink = null;
+			logSink.close();
+
+			if (logSink.getDroppedMessages() > 0)
+				warn("Dropped " + logSink.getDroppedMessages() + " log message(s) due to a full log queue.");
+		}
+	}
+
+	public boolean isAsynchronousLogging() {
+		return logSink != null;
+	}
+
+	public void submit(LogWriter writer, String msg) {
+		write(null, msg, writer);
+	}
+
+	public void flush() {
+		AsyncLogSink logSink = this.logSink;
+		if (logSink != null)
+			logSink.flush();
+	}
+
 	public void log(LogLevel level, String msg) {
 		msg = getPrefix(level) + msg;
 
 		if (isLogToConsole && consoleLevel.ordinal() >= level.ordinal())
-			consoleLogger.log(level, msg);
+			write(level, msg, consoleWriter);
+
+		if (isLogToFile && fileLevel.ordinal() >= level.ordinal())
+			write(level, msg, fileWriter);
+	}
 
-		if (isLogToFile && fileLevel.ordinal() >= level.ordinal()) {
+	private void write(LogLevel level, String msg, LogWriter writer) {
+		AsyncLogSink logSink = this.logSink;
+		if (logSink != null)
+			logSink.submit(level, msg, writer);
+		else {
 			try {
-				logFile.write(msg);
-				logFile.newLine();
-				logFile.flush();
+				writer.write(level, msg);
+				writer.flush();
 			} catch (IOException e) {
 				//
 			}
@@ -121,21 +171,14 @@ public class Logger {
 
 	public void print(String msg) {
 		if (isLogToConsole)
-			consoleLogger.log(msg);
+			write(null, msg, consoleWriter);
 
 		writeToFile(msg);
 	}
 
 	public void writeToFile(String msg) {
-		if (isLogToFile) {
-			try {
-				logFile.write(msg);
-				logFile.newLine();
-				logFile.flush();
-			} catch (IOException e) {
-				//
-			}
-		}
+		if (isLogToFile)
+			write(null, msg, fileWriter);
 	}
 
 	public void logStackTrace(Throwable t) {
@@ -183,6 +226,7 @@ public class Logger {
 		if (logFile != null) {
 			try {
 				warn("Stopped writing log messages to log file.");
+				flush();
 				logFile.close();
 			} catch (IOException e) {
 				//
@@ -199,4 +243,39 @@ public class Logger {
 				".log";
 	}
 
+	private final class ConsoleLogWriter implements LogWriter {
+
+		@Override
+		public void write(LogLevel level, String msg) {
+			if (level != null)
+				consoleLogger.log(level, msg);
+			else
+				consoleLogger.log(msg);
+		}
+
+		@Override
+		public void flush() {
+			// nothing to do
+		}
+	}
+
+	private final class FileLogWriter implements LogWriter {
+
+		@Override
+		public void write(LogLevel level, String msg) throws IOException {
+			BufferedWriter logFile = Logger.this.logFile;
+			if (logFile != null) {
+				logFile.write(msg);
+				logFile.newLine();
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			BufferedWriter logFile = Logger.this.logFile;
+			if (logFile != null)
+				logFile.flush();
+		}
+	}
+
 }
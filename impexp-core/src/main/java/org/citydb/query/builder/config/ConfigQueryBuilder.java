@@ -63,6 +63,8 @@ import org.citygml4j.model.module.citygml.CoreModule;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.NamespaceContext;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -345,4 +347,15 @@ public class ConfigQueryBuilder {
 		return query;
 	}
 
+	public Predicate buildIncrementalExportFilter(Query query, OffsetDateTime since, NamespaceContext namespaceContext) throws QueryBuildException {
+		// select live features that have been created or modified after the given point in time
+		ValueReferenceBuilder valueReferenceBuilder = new ValueReferenceBuilder(query, schemaMapping, namespaceContext);
+		PredicateBuilder predicateBuilder = new PredicateBuilder(valueReferenceBuilder, databaseAdapter);
+
+		return predicateBuilder.buildPredicate(new AndOperator(
+				new GreaterThanOperator("citydb:lastModificationDate", since.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)),
+				new NullOperator("core:terminationDate")
+		));
+	}
+
 }
@@ -33,9 +33,11 @@ import org.citydb.config.geometry.Point;
 import org.citydb.config.geometry.Position;
 import org.citydb.config.project.database.DatabaseSrs;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.CoordinateTransformer;
 import org.citydb.query.filter.FilterException;
 import org.citydb.query.filter.selection.operator.spatial.BinarySpatialOperator;
 import org.citydb.query.filter.selection.operator.spatial.SpatialOperationFactory;
+import org.opengis.referencing.operation.TransformException;
 
 import java.sql.SQLException;
 
@@ -122,22 +124,41 @@ public class Tile {
 		
 		Position pos = null;
 		if (pointSrs.getSrid() != extentSrs.getSrid()) {			
-			try {
-				GeometryObject transformed = databaseAdapter.getUtil().transform(GeometryObject.createPoint(new double[]{point.getX(), point.getY()}, 2, pointSrs.getSrid()), extentSrs);
-				if (transformed == null)
-					throw new FilterException("Failed to convert input geometry to tile SRS.");
-					
-				pos = new Position(transformed.getCoordinates(0)[0], transformed.getCoordinates(0)[1]);
-			} catch (SQLException e) {
-				throw new FilterException("Failed to convert input geometry to tile SRS.", e);
+			GeometryObject geometry = GeometryObject.createPoint(new double[]{point.getX(), point.getY()}, 2, pointSrs.getSrid());
+			GeometryObject transformed = null;
+
+			// prefer a client-side transformation over a database round trip
+			CoordinateTransformer transformer = databaseAdapter.getUtil().getCoordinateTransformer(pointSrs, extentSrs);
+			if (transformer != null) {
+				try {
+					transformed = transformer.transform(geometry);
+				} catch (TransformException e) {
+					//
+				}
+			}
+
+			if (transformed == null) {
+				try {
+					transformed = databaseAdapter.getUtil().transform(geometry, extentSrs);
+					if (transformed == null)
+						throw new FilterException("Failed to convert input geometry to tile SRS.");
+				} catch (SQLException e) {
+					throw new FilterException("Failed to convert input geometry to tile SRS.", e);
+				}
 			}
+
+			pos = new Position(transformed.getCoordinates(0)[0], transformed.getCoordinates(0)[1]);
 		} else
 			pos = point.getPos();
 		
-		return pos.getX() > extent.getLowerCorner().getX() 
-				&& pos.getX() <= extent.getUpperCorner().getX() 
-				&& pos.getY() > extent.getLowerCorner().getY() 
-				&& pos.getY() <= extent.getUpperCorner().getY();
+		return isOnTile(pos.getX(), pos.getY());
+	}
+
+	public boolean isOnTile(double x, double y) {
+		return x > extent.getLowerCorner().getX() 
+				&& x <= extent.getUpperCorner().getX() 
+				&& y > extent.getLowerCorner().getY() 
+				&& y <= extent.getUpperCorner().getY();
 	}
 
 }
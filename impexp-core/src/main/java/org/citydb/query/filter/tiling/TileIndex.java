@@ -0,0 +1,439 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.query.filter.tiling;
+
+import org.citydb.ade.model.module.CityDBADE200Module;
+import org.citydb.config.geometry.BoundingBox;
+import org.citydb.config.geometry.GeometryObject;
+import org.citydb.config.geometry.GeometryType;
+import org.citydb.config.project.database.DatabaseSrs;
+import org.citydb.config.project.database.Workspace;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.CoordinateTransformer;
+import org.citydb.database.connection.DatabaseConnectionDetails;
+import org.citydb.database.schema.mapping.FeatureType;
+import org.citydb.database.schema.mapping.MappingConstants;
+import org.citydb.database.schema.mapping.SchemaMapping;
+import org.citydb.database.schema.path.InvalidSchemaPathException;
+import org.citydb.database.schema.path.SchemaPath;
+import org.citydb.log.Logger;
+import org.citydb.query.Query;
+import org.citydb.query.builder.QueryBuildException;
+import org.citydb.query.builder.sql.BuildProperties;
+import org.citydb.query.builder.sql.SQLQueryBuilder;
+import org.citydb.query.filter.FilterException;
+import org.citydb.query.filter.selection.Predicate;
+import org.citydb.query.filter.selection.expression.LongLiteral;
+import org.citydb.query.filter.selection.expression.ValueReference;
+import org.citydb.query.filter.selection.operator.comparison.ComparisonFactory;
+import org.citydb.query.filter.selection.operator.logical.LogicalOperationFactory;
+import org.citydb.sqlbuilder.select.Select;
+import org.citydb.util.CoreConstants;
+import org.opengis.referencing.operation.TransformException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Persistent index of the top-level features assigned to each tile of a tiling scheme.
+ * <p>
+ * A feature belongs to the tile containing the center point of its envelope. For every
+ * tile, the index stores the sorted database ids of its features and derives id ranges
+ * from them that do not enclose features of other tiles. Features lying outside the
+ * tiling extent or lacking an envelope are indexed as well so that no range encloses
+ * them. Exports of a tile can then select their features by these ranges instead of a
+ * spatial query. The index is kept per database, schema and workspace and is rebuilt
+ * whenever the latest modification date, the highest id or the number of city objects
+ * in the database has changed.
+ */
+public class TileIndex {
+	private static final int VERSION = 2;
+	private static final int MAX_RANGES = 1000;
+
+	private final int rows;
+	private final int columns;
+	private final long[][] ids;
+	private final long[] unassigned;
+	private long[][] ranges;
+
+	private TileIndex(int rows, int columns, long[][] ids, long[] unassigned) {
+		this.rows = rows;
+		this.columns = columns;
+		this.ids = ids;
+		this.unassigned = unassigned;
+		computeRanges();
+	}
+
+	public static TileIndex open(Query query, Tiling tiling, Workspace workspace, SchemaMapping schemaMapping, AbstractDatabaseAdapter databaseAdapter, Connection connection) throws SQLException, QueryBuildException, FilterException, IOException {
+		Logger log = Logger.getInstance();
+		Path indexFile = getIndexFile(query, tiling, databaseAdapter.hasVersioningSupport() ? workspace : null, databaseAdapter.getConnectionDetails());
+		long[] state = queryDatabaseState(connection, databaseAdapter.getConnectionDetails().getSchema());
+
+		TileIndex index = read(indexFile, tiling, state);
+		if (index == null) {
+			log.info("Building tile index for " + tiling.getRows() + "x" + tiling.getColumns() + " tiles...");
+			index = build(query, tiling, schemaMapping, databaseAdapter, connection);
+			index.write(indexFile, state);
+		} else
+			log.info("Using tile index '" + indexFile.getFileName() + "'.");
+
+		return index;
+	}
+
+	public boolean isEmpty(int row, int column) {
+		return ids[row * columns + column].length == 0;
+	}
+
+	public Predicate getFilterPredicate(int row, int column, Query query, SchemaMapping schemaMapping) throws FilterException {
+		long[] tileRanges = ranges[row * columns + column];
+		if (tileRanges.length == 0 || tileRanges.length / 2 > MAX_RANGES)
+			return null;
+
+		ValueReference valueReference;
+		try {
+			FeatureType superType = schemaMapping.getCommonSuperType(query.getFeatureTypeFilter().getFeatureTypes());
+			SchemaPath path = new SchemaPath(superType);
+			path.appendChild(superType.getProperty(MappingConstants.ID, CityDBADE200Module.v3_0.getNamespaceURI(), true));
+			valueReference = new ValueReference(path);
+		} catch (InvalidSchemaPathException e) {
+			throw new FilterException("Failed to create tile index filter.", e);
+		}
+
+		List<Predicate> predicates = new ArrayList<>(tileRanges.length / 2);
+		for (int i = 0; i < tileRanges.length; i += 2) {
+			predicates.add(tileRanges[i] == tileRanges[i + 1] ?
+					ComparisonFactory.equalTo(valueReference, new LongLiteral(tileRanges[i])) :
+					ComparisonFactory.between(valueReference, new LongLiteral(tileRanges[i]), new LongLiteral(tileRanges[i + 1])));
+		}
+
+		return predicates.size() == 1 ? predicates.get(0) : LogicalOperationFactory.OR(predicates);
+	}
+
+	private static TileIndex build(Query query, Tiling tiling, SchemaMapping schemaMapping, AbstractDatabaseAdapter databaseAdapter, Connection connection) throws SQLException, QueryBuildException, FilterException {
+		// scan all features once. features outside the tiling extent must be known
+		// as well since an id range of a tile must not enclose them
+		Query indexQuery = new Query(query);
+		indexQuery.unsetSelection();
+		indexQuery.unsetSorting();
+		indexQuery.unsetCounterFilter();
+
+		SQLQueryBuilder builder = new SQLQueryBuilder(schemaMapping, databaseAdapter, BuildProperties.defaults()
+				.addProjectionColumn(MappingConstants.ENVELOPE));
+		Select select = builder.buildQuery(indexQuery);
+
+		BoundingBox extent = tiling.getExtent();
+		DatabaseSrs dbSrs = databaseAdapter.getConnectionMetaData().getReferenceSystem();
+		DatabaseSrs tilingSrs = extent.isSetSrs() ? extent.getSrs() : dbSrs;
+		CoordinateTransformer transformer = tilingSrs.getSrid() != dbSrs.getSrid() ?
+				databaseAdapter.getUtil().getCoordinateTransformer(dbSrs, tilingSrs) : null;
+
+		double minX = extent.getLowerCorner().getX();
+		double minY = extent.getLowerCorner().getY();
+		double tileWidth = (extent.getUpperCorner().getX() - minX) / tiling.getColumns();
+		double tileHeight = (extent.getUpperCorner().getY() - minY) / tiling.getRows();
+
+		LongList[] tiles = new LongList[tiling.getRows() * tiling.getColumns()];
+		for (int i = 0; i < tiles.length; i++)
+			tiles[i] = new LongList();
+
+		LongList unassigned = new LongList();
+
+		try (PreparedStatement stmt = databaseAdapter.getSQLAdapter().prepareStatement(select, connection)) {
+			stmt.setFetchSize(10000);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					long id = rs.getLong(MappingConstants.ID);
+					Object geomObj = rs.getObject(MappingConstants.ENVELOPE);
+					if (rs.wasNull() || geomObj == null) {
+						unassigned.add(id);
+						continue;
+					}
+
+					GeometryObject envelope = databaseAdapter.getGeometryConverter().getEnvelope(geomObj);
+					if (envelope == null || envelope.getGeometryType() != GeometryType.ENVELOPE) {
+						unassigned.add(id);
+						continue;
+					}
+
+					double[] coordinates = envelope.getCoordinates(0);
+					double[] center = new double[]{(coordinates[0] + coordinates[3]) / 2.0, (coordinates[1] + coordinates[4]) / 2.0};
+					if (tilingSrs.getSrid() != dbSrs.getSrid())
+						center = transform(center, transformer, tilingSrs, dbSrs, databaseAdapter);
+
+					// same semantics as Tile.isOnTile: lower bound exclusive, upper bound inclusive
+					int row = getIndex(center[1] - minY, tileHeight, tiling.getRows());
+					int column = getIndex(center[0] - minX, tileWidth, tiling.getColumns());
+					if (row >= 0 && column >= 0)
+						tiles[row * tiling.getColumns() + column].add(id);
+					else
+						unassigned.add(id);
+				}
+			}
+		}
+
+		long[][] ids = new long[tiles.length][];
+		for (int i = 0; i < tiles.length; i++) {
+			ids[i] = tiles[i].toArray();
+			Arrays.sort(ids[i]);
+		}
+
+		long[] unassignedIds = unassigned.toArray();
+		Arrays.sort(unassignedIds);
+
+		return new TileIndex(tiling.getRows(), tiling.getColumns(), ids, unassignedIds);
+	}
+
+	private static TileIndex read(Path indexFile, Tiling tiling, long[] state) throws IOException {
+		try (DataInputStream stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			if (stream.readInt() != VERSION)
+				return null;
+
+			for (long value : state) {
+				if (stream.readLong() != value)
+					return null;
+			}
+
+			int rows = stream.readInt();
+			int columns = stream.readInt();
+			if (rows != tiling.getRows() || columns != tiling.getColumns())
+				return null;
+
+			long[][] ids = new long[rows * columns][];
+			for (int i = 0; i < ids.length; i++)
+				ids[i] = readIds(stream);
+
+			return new TileIndex(rows, columns, ids, readIds(stream));
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	private void write(Path indexFile, long[] state) throws IOException {
+		Files.createDirectories(indexFile.getParent());
+		Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+
+		try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			stream.writeInt(VERSION);
+			for (long value : state)
+				stream.writeLong(value);
+
+			stream.writeInt(rows);
+			stream.writeInt(columns);
+
+			for (long[] tile : ids)
+				writeIds(stream, tile);
+
+			writeIds(stream, unassigned);
+		}
+
+		Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void computeRanges() {
+		// merge the ids of all tiles and collect runs of consecutive ids belonging to the same tile.
+		// the unassigned ids are merged as an additional tile that only separates the ranges
+		long[][] all = Arrays.copyOf(ids, ids.length + 1);
+		all[ids.length] = unassigned;
+
+		int[] positions = new int[all.length];
+		PriorityQueue<Integer> queue = new PriorityQueue<>(all.length,
+				Comparator.comparingLong(tile -> all[tile][positions[tile]]));
+
+		for (int tile = 0; tile < all.length; tile++) {
+			if (all[tile].length > 0)
+				queue.add(tile);
+		}
+
+		LongList[] tileRanges = new LongList[ids.length];
+		for (int i = 0; i < tileRanges.length; i++)
+			tileRanges[i] = new LongList();
+
+		while (!queue.isEmpty()) {
+			int tile = queue.poll();
+			long lower = all[tile][positions[tile]];
+			long upper = lower;
+
+			// extend the range as long as no other tile holds a smaller id
+			long next = queue.isEmpty() ? Long.MAX_VALUE : all[queue.peek()][positions[queue.peek()]];
+			while (++positions[tile] < all[tile].length && all[tile][positions[tile]] < next)
+				upper = all[tile][positions[tile]];
+
+			if (tile < ids.length) {
+				tileRanges[tile].add(lower);
+				tileRanges[tile].add(upper);
+			}
+
+			if (positions[tile] < all[tile].length)
+				queue.add(tile);
+		}
+
+		ranges = new long[ids.length][];
+		for (int i = 0; i < ranges.length; i++)
+			ranges[i] = tileRanges[i].toArray();
+	}
+
+	private static double[] transform(double[] point, CoordinateTransformer transformer, DatabaseSrs tilingSrs, DatabaseSrs dbSrs, AbstractDatabaseAdapter databaseAdapter) throws SQLException, FilterException {
+		GeometryObject geometry = GeometryObject.createPoint(point, 2, dbSrs.getSrid());
+		if (transformer != null) {
+			try {
+				return transformer.transform(geometry).getCoordinates(0);
+			} catch (TransformException e) {
+				//
+			}
+		}
+
+		GeometryObject transformed = databaseAdapter.getUtil().transform(geometry, tilingSrs);
+		if (transformed == null)
+			throw new FilterException("Failed to convert input geometry to tile SRS.");
+
+		return transformed.getCoordinates(0);
+	}
+
+	private static int getIndex(double offset, double tileSize, int tiles) {
+		if (offset <= 0 || offset > tileSize * tiles)
+			return -1;
+
+		return Math.min((int) Math.ceil(offset / tileSize) - 1, tiles - 1);
+	}
+
+	private static long[] queryDatabaseState(Connection connection, String schema) throws SQLException {
+		try (Statement stmt = connection.createStatement();
+			 ResultSet rs = stmt.executeQuery("select max(last_modification_date), max(id), count(*) from " + schema + ".cityobject")) {
+			if (!rs.next())
+				return new long[3];
+
+			Timestamp lastModification = rs.getTimestamp(1);
+			return new long[]{lastModification != null ? lastModification.getTime() : 0, rs.getLong(2), rs.getLong(3)};
+		}
+	}
+
+	private static Path getIndexFile(Query query, Tiling tiling, Workspace workspace, DatabaseConnectionDetails details) {
+		String database = details.getDatabaseType() + "://" + details.getServer() + ":" + details.getPort() + "/" + details.getSid() + "/" + details.getSchema();
+		if (workspace != null) {
+			database += "/" + workspace.getName();
+			if (workspace.isSetTimestamp())
+				database += "@" + workspace.getTimestamp().getTime();
+		}
+
+		BoundingBox extent = tiling.getExtent();
+		StringBuilder scheme = new StringBuilder()
+				.append(extent.getLowerCorner().getX()).append(',').append(extent.getLowerCorner().getY()).append(',')
+				.append(extent.getUpperCorner().getX()).append(',').append(extent.getUpperCorner().getY()).append(',')
+				.append(extent.isSetSrs() ? extent.getSrs().getSrid() : 0).append(',')
+				.append(tiling.getRows()).append(',').append(tiling.getColumns());
+
+		query.getFeatureTypeFilter().getFeatureTypes().stream()
+				.mapToInt(FeatureType::getObjectClassId)
+				.sorted()
+				.forEach(objectClassId -> scheme.append(',').append(objectClassId));
+
+		return CoreConstants.IMPEXP_DATA_DIR.resolve(CoreConstants.TILE_INDEX_DIR)
+				.resolve(UUID.nameUUIDFromBytes(database.getBytes(StandardCharsets.UTF_8)).toString())
+				.resolve(UUID.nameUUIDFromBytes(scheme.toString().getBytes(StandardCharsets.UTF_8)) + ".idx");
+	}
+
+	private static void writeIds(DataOutputStream stream, long[] ids) throws IOException {
+		// ids are sorted, so we only store the deltas
+		stream.writeInt(ids.length);
+		long previous = 0;
+		for (long id : ids) {
+			writeVarLong(stream, id - previous);
+			previous = id;
+		}
+	}
+
+	private static long[] readIds(DataInputStream stream) throws IOException {
+		long[] ids = new long[stream.readInt()];
+		long previous = 0;
+		for (int i = 0; i < ids.length; i++) {
+			previous += readVarLong(stream);
+			ids[i] = previous;
+		}
+
+		return ids;
+	}
+
+	private static void writeVarLong(DataOutputStream stream, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			stream.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		stream.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInputStream stream) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = stream.readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+
+		throw new IOException("Malformed tile index entry.");
+	}
+
+	private static final class LongList {
+		private long[] values = new long[16];
+		private int size;
+
+		void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+
+			values[size++] = value;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+
+}
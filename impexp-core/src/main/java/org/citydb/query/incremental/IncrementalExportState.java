@@ -0,0 +1,432 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.query.incremental;
+
+import org.citydb.citygml.common.database.cache.CacheTable;
+import org.citydb.citygml.common.database.cache.CacheTableManager;
+import org.citydb.citygml.common.database.cache.model.CacheTableModel;
+import org.citydb.config.Config;
+import org.citydb.config.geometry.BoundingBox;
+import org.citydb.config.geometry.GeometryObject;
+import org.citydb.config.geometry.Position;
+import org.citydb.config.project.database.DatabaseSrs;
+import org.citydb.config.project.database.Workspace;
+import org.citydb.config.project.exporter.IncrementalExport;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.AbstractSQLAdapter;
+import org.citydb.database.connection.DatabaseConnectionPool;
+import org.citydb.database.schema.mapping.MappingConstants;
+import org.citydb.database.schema.mapping.SchemaMapping;
+import org.citydb.log.Logger;
+import org.citydb.query.Query;
+import org.citydb.query.builder.QueryBuildException;
+import org.citydb.query.builder.config.ConfigQueryBuilder;
+import org.citydb.query.builder.sql.BuildProperties;
+import org.citydb.query.builder.sql.SQLQueryBuilder;
+import org.citydb.query.filter.FilterException;
+import org.citydb.query.filter.selection.Predicate;
+import org.citydb.query.filter.selection.SelectionFilter;
+import org.citydb.query.filter.selection.operator.logical.LogicalOperationFactory;
+import org.citydb.query.filter.tiling.Tile;
+import org.citydb.query.filter.tiling.Tiling;
+import org.citydb.sqlbuilder.select.Select;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the state of an incremental export. The state comprises the
+ * high-water mark of the last successful export, which is compared against the
+ * last modification date of the city objects, and a manifest listing the gml:ids
+ * of the exported top-level features per tile. The manifest is used to identify
+ * terminated or deleted features and the tiles affected by changes.
+ */
+public class IncrementalExportState {
+	public static final String UNTILED = "";
+	private static final String HIGH_WATER_MARK = "highWaterMark";
+
+	private final Logger log = Logger.getInstance();
+	private final Path file;
+	private final Path exportFile;
+	private final IncrementalExport options;
+	private final Map<String, Set<String>> tiles = new HashMap<>();
+	private final Map<String, String> objects = new HashMap<>();
+	private OffsetDateTime highWaterMark;
+	private OffsetDateTime exportTime;
+	private Map<String, String> removedObjects;
+	private Set<String> affectedTiles;
+
+	private IncrementalExportState(Path file, Path exportFile, IncrementalExport options) {
+		this.file = file;
+		this.exportFile = exportFile;
+		this.options = options;
+	}
+
+	public static IncrementalExportState open(IncrementalExport options, Path exportFile) throws IncrementalExportException {
+		Path file = null;
+		try {
+			file = options.isSetStateFile() ?
+					Paths.get(options.getStateFile()) :
+					exportFile.resolveSibling(exportFile.getFileName() + ".state");
+
+			IncrementalExportState state = new IncrementalExportState(file, exportFile, options);
+			state.load();
+			return state;
+		} catch (IOException | InvalidPathException e) {
+			throw new IncrementalExportException("Failed to read incremental export state from '" +
+					(file != null ? file : options.getStateFile()) + "'.", e);
+		}
+	}
+
+	public static String getTileKey(int row, int column) {
+		return row + "_" + column;
+	}
+
+	public boolean isInitial() {
+		return highWaterMark == null;
+	}
+
+	public OffsetDateTime getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	public void determineChanges(Query query, Predicate predicate, Tiling tiling, Workspace workspace, SchemaMapping schemaMapping, AbstractDatabaseAdapter databaseAdapter, Config config) throws IncrementalExportException {
+		if (isInitial())
+			log.info("No previous incremental export found. Exporting all matching top-level features.");
+		else
+			log.info("Exporting changes since " + highWaterMark + ".");
+
+		try (Connection connection = DatabaseConnectionPool.getInstance().getConnection()) {
+			if (databaseAdapter.hasVersioningSupport())
+				databaseAdapter.getWorkspaceManager().gotoWorkspace(connection, workspace);
+
+			// changes made during the export will be picked up by the next run. we use
+			// the database clock since it also sets the last modification dates
+			exportTime = queryCurrentTimestamp(databaseAdapter.getSQLAdapter(), connection);
+			if (isInitial())
+				return;
+
+			removedObjects = findRemovedObjects(workspace, databaseAdapter, config);
+			log.info("Found " + removedObjects.size() + " terminated or deleted top-level feature(s).");
+
+			Predicate changeFilter = new ConfigQueryBuilder(schemaMapping, databaseAdapter).buildIncrementalExportFilter(
+					query, highWaterMark, config.getProject().getNamespaceFilter());
+
+			if (tiling != null) {
+				// only rewrite tiles containing changed, terminated or deleted features
+				Query changeQuery = new Query(query);
+				Predicate bboxFilter = new Tile(tiling.getExtent(), 0, 0).getFilterPredicate(databaseAdapter);
+				changeQuery.setSelection(new SelectionFilter(predicate != null ?
+						LogicalOperationFactory.AND(predicate, changeFilter, bboxFilter) :
+						LogicalOperationFactory.AND(changeFilter, bboxFilter)));
+				changeQuery.unsetSorting();
+				changeQuery.unsetCounterFilter();
+
+				affectedTiles = findAffectedTiles(changeQuery, tiling, schemaMapping, databaseAdapter, connection);
+				affectedTiles.addAll(removedObjects.values());
+				log.info(affectedTiles.size() + " of " + (tiling.getRows() * tiling.getColumns()) + " tile(s) are affected by changes.");
+			} else {
+				query.setSelection(new SelectionFilter(query.isSetSelection() ?
+						LogicalOperationFactory.AND(query.getSelection().getPredicate(), changeFilter) :
+						changeFilter));
+			}
+		} catch (SQLException | IOException | QueryBuildException | FilterException e) {
+			throw new IncrementalExportException("Failed to query changes since the last incremental export.", e);
+		}
+	}
+
+	public boolean isAffected(int row, int column) {
+		return affectedTiles == null || affectedTiles.contains(getTileKey(row, column));
+	}
+
+	public boolean hasObjects(int row, int column) {
+		return tiles.containsKey(getTileKey(row, column));
+	}
+
+	public void setObjects(int row, int column, Collection<String> gmlIds) {
+		Set<String> previous = tiles.remove(getTileKey(row, column));
+		if (previous != null) {
+			for (String gmlId : previous)
+				objects.remove(gmlId);
+		}
+
+		addObjects(getTileKey(row, column), gmlIds);
+	}
+
+	public void addObjects(Collection<String> gmlIds) {
+		addObjects(UNTILED, gmlIds);
+	}
+
+	public void finish() throws IncrementalExportException {
+		try {
+			if (removedObjects != null) {
+				removeObjects(removedObjects.keySet());
+				if (options.isWriteDeleteList()) {
+					String fileName = exportFile.getFileName().toString();
+					int index = fileName.lastIndexOf('.');
+					Path deleteListFile = exportFile.resolveSibling((index > 0 ? fileName.substring(0, index) : fileName) + "_deleted.txt");
+
+					writeDeleteList(deleteListFile, removedObjects.keySet());
+					log.info("Wrote " + removedObjects.size() + " gml:id(s) of terminated or deleted features to '" + deleteListFile + "'.");
+				}
+			}
+
+			commit();
+		} catch (IOException e) {
+			throw new IncrementalExportException("Failed to store incremental export state.", e);
+		}
+	}
+
+	private void load() throws IOException {
+		if (Files.exists(file)) {
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				String line = reader.readLine();
+				if (line == null || !line.startsWith(HIGH_WATER_MARK + '='))
+					throw new IOException("The file '" + file + "' is not a valid incremental export state.");
+
+				highWaterMark = OffsetDateTime.parse(line.substring(HIGH_WATER_MARK.length() + 1));
+
+				while ((line = reader.readLine()) != null) {
+					int index = line.indexOf('\t');
+					if (index < 0)
+						throw new IOException("The file '" + file + "' is not a valid incremental export state.");
+
+					put(line.substring(0, index), line.substring(index + 1));
+				}
+			} catch (DateTimeParseException e) {
+				throw new IOException("Failed to parse the high-water mark of the incremental export state.", e);
+			}
+		}
+	}
+
+	private OffsetDateTime queryCurrentTimestamp(AbstractSQLAdapter sqlAdapter, Connection connection) throws SQLException {
+		String query = "select current_timestamp" +
+				(sqlAdapter.requiresPseudoTableInSelect() ? " from " + sqlAdapter.getPseudoTableName() : "");
+
+		try (Statement stmt = connection.createStatement();
+			 ResultSet rs = stmt.executeQuery(query)) {
+			if (!rs.next() || rs.getTimestamp(1) == null)
+				throw new SQLException("Failed to query the current timestamp of the database.");
+
+			return OffsetDateTime.ofInstant(rs.getTimestamp(1).toInstant(), ZoneId.systemDefault());
+		}
+	}
+
+	private Map<String, String> findRemovedObjects(Workspace workspace, AbstractDatabaseAdapter databaseAdapter, Config config) throws SQLException, IOException {
+		Map<String, String> removed = new HashMap<>();
+		if (objects.isEmpty())
+			return removed;
+
+		// copy the manifest to a temporary table and look up the features
+		// that are no longer alive by a single anti-join
+		CacheTableManager cacheTableManager = new CacheTableManager(1, config);
+		try {
+			CacheTable manifest = cacheTableManager.createCacheTableInDatabase(CacheTableModel.GMLID_FEATURE);
+			Connection connection = manifest.getConnection();
+			if (databaseAdapter.hasVersioningSupport())
+				databaseAdapter.getWorkspaceManager().gotoWorkspace(connection, workspace);
+
+			try (PreparedStatement stmt = connection.prepareStatement("insert into " + manifest.getTableName() + " (GMLID) values (?)")) {
+				int batchCounter = 0;
+				for (String gmlId : objects.keySet()) {
+					stmt.setString(1, gmlId);
+					stmt.addBatch();
+
+					if (++batchCounter == databaseAdapter.getMaxBatchSize()) {
+						stmt.executeBatch();
+						batchCounter = 0;
+					}
+				}
+
+				if (batchCounter > 0)
+					stmt.executeBatch();
+			}
+
+			manifest.createIndexes();
+
+			try (Statement stmt = connection.createStatement();
+				 ResultSet rs = stmt.executeQuery("select t.GMLID from " + manifest.getTableName() + " t " +
+						 "where not exists (select 1 from " + databaseAdapter.getConnectionDetails().getSchema() + ".cityobject c " +
+						 "where c.gmlid = t.GMLID and c.termination_date is null)")) {
+				while (rs.next()) {
+					String gmlId = rs.getString(1);
+					removed.put(gmlId, objects.get(gmlId));
+				}
+			}
+		} finally {
+			cacheTableManager.dropAll();
+		}
+
+		return removed;
+	}
+
+	private Set<String> findAffectedTiles(Query query, Tiling tiling, SchemaMapping schemaMapping, AbstractDatabaseAdapter databaseAdapter, Connection connection) throws SQLException, QueryBuildException {
+		SQLQueryBuilder builder = new SQLQueryBuilder(schemaMapping, databaseAdapter, BuildProperties.defaults()
+				.addProjectionColumn(MappingConstants.GMLID)
+				.addProjectionColumn(MappingConstants.ENVELOPE));
+
+		Select select = builder.buildQuery(query);
+		DatabaseSrs dbSrs = databaseAdapter.getConnectionMetaData().getReferenceSystem();
+		DatabaseSrs tilingSrs = tiling.getExtent().isSetSrs() ? tiling.getExtent().getSrs() : dbSrs;
+		Set<String> affected = new HashSet<>();
+
+		try (PreparedStatement stmt = databaseAdapter.getSQLAdapter().prepareStatement(select, connection);
+			 ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				// a changed feature affects the tile it has been exported to so far...
+				String gmlId = rs.getString(MappingConstants.GMLID);
+				if (gmlId != null && objects.containsKey(gmlId))
+					affected.add(objects.get(gmlId));
+
+				// ...and all tiles overlapping its current envelope
+				Object geomObj = rs.getObject(MappingConstants.ENVELOPE);
+				if (!rs.wasNull() && geomObj != null) {
+					GeometryObject envelope = databaseAdapter.getGeometryConverter().getEnvelope(geomObj);
+					double[] coordinates = envelope.getCoordinates(0);
+					BoundingBox bbox = new BoundingBox(new Position(coordinates[0], coordinates[1]), new Position(coordinates[3], coordinates[4]));
+					if (tilingSrs.getSrid() != dbSrs.getSrid())
+						bbox = databaseAdapter.getUtil().transformBoundingBox(bbox, dbSrs, tilingSrs);
+
+					addTiles(bbox, tiling, affected);
+				}
+			}
+		}
+
+		return affected;
+	}
+
+	private void addObjects(String tileKey, Collection<String> gmlIds) {
+		for (String gmlId : gmlIds)
+			put(tileKey, gmlId);
+	}
+
+	private void removeObjects(Collection<String> gmlIds) {
+		for (String gmlId : gmlIds) {
+			String tileKey = objects.remove(gmlId);
+			if (tileKey != null)
+				removeFromTile(tileKey, gmlId);
+		}
+	}
+
+	private void writeDeleteList(Path deleteListFile, Collection<String> gmlIds) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(deleteListFile, StandardCharsets.UTF_8)) {
+			for (String gmlId : gmlIds) {
+				writer.write(gmlId);
+				writer.newLine();
+			}
+		}
+	}
+
+	private void commit() throws IOException {
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+			writer.write(HIGH_WATER_MARK + '=' + exportTime);
+			writer.newLine();
+
+			for (Map.Entry<String, String> entry : objects.entrySet()) {
+				writer.write(entry.getValue());
+				writer.write('\t');
+				writer.write(entry.getKey());
+				writer.newLine();
+			}
+		}
+
+		try {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		highWaterMark = exportTime;
+	}
+
+	private void addTiles(BoundingBox bbox, Tiling tiling, Set<String> affected) {
+		BoundingBox extent = tiling.getExtent();
+		double tileWidth = (extent.getUpperCorner().getX() - extent.getLowerCorner().getX()) / tiling.getColumns();
+		double tileHeight = (extent.getUpperCorner().getY() - extent.getLowerCorner().getY()) / tiling.getRows();
+
+		if (bbox.getUpperCorner().getX() < extent.getLowerCorner().getX()
+				|| bbox.getLowerCorner().getX() > extent.getUpperCorner().getX()
+				|| bbox.getUpperCorner().getY() < extent.getLowerCorner().getY()
+				|| bbox.getLowerCorner().getY() > extent.getUpperCorner().getY())
+			return;
+
+		int minColumn = getIndex(bbox.getLowerCorner().getX() - extent.getLowerCorner().getX(), tileWidth, tiling.getColumns());
+		int maxColumn = getIndex(bbox.getUpperCorner().getX() - extent.getLowerCorner().getX(), tileWidth, tiling.getColumns());
+		int minRow = getIndex(bbox.getLowerCorner().getY() - extent.getLowerCorner().getY(), tileHeight, tiling.getRows());
+		int maxRow = getIndex(bbox.getUpperCorner().getY() - extent.getLowerCorner().getY(), tileHeight, tiling.getRows());
+
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++)
+				affected.add(getTileKey(row, column));
+		}
+	}
+
+	private int getIndex(double offset, double tileSize, int tiles) {
+		return Math.max(0, Math.min((int) Math.floor(offset / tileSize), tiles - 1));
+	}
+
+	private void put(String tileKey, String gmlId) {
+		String previous = objects.put(gmlId, tileKey);
+		if (previous != null && !previous.equals(tileKey))
+			removeFromTile(previous, gmlId);
+
+		tiles.computeIfAbsent(tileKey, v -> new HashSet<>()).add(gmlId);
+	}
+
+	private void removeFromTile(String tileKey, String gmlId) {
+		Set<String> gmlIds = tiles.get(tileKey);
+		if (gmlIds != null) {
+			gmlIds.remove(gmlId);
+			if (gmlIds.isEmpty())
+				tiles.remove(tileKey);
+		}
+	}
+
+}
@@ -34,6 +34,8 @@ import java.nio.file.Paths;
 public class CoreConstants {
     public static final Path IMPEXP_DATA_DIR = Paths.get(System.getProperty("user.home"), "3dcitydb", "importer-exporter");
     public static final String IMPORT_LOG_DIR = "imported-features";
+    public static final String GMLID_INDEX_DIR = "gmlid-index";
+    public static final String TILE_INDEX_DIR = "tile-index";
     public static final String LIBRARY_OBJECTS_DIR = "library-objects";
     public static final URL CITYDB_SCHEMA_MAPPING_FILE = CoreConstants.class.getResource("/org/citydb/database/schema/3dcitydb-schema.xml");
 
@@ -43,6 +45,7 @@ public class CoreConstants {
     public static final String GEOMETRY_ORIGINAL = "origGeom";
     public static final String GEOMETRY_INVALID = "geomInvalid";
     public static final String TEXTURE_IMAGE_XLINK = "textureXlink";
+    public static final String TEXTURE_IMAGE_ID = "textureImageId";
     public static final String FOREIGN_KEYS_SET = "foreignKeys";
     public static final String EXPORT_STUB = "exportStub";
     public static final String EXPORT_AS_ADDITIONAL_OBJECT = "additionalObject";
@@ -0,0 +1,70 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.util;
+
+import org.citydb.writer.MeasuredSAXEventBuffer;
+import org.citygml4j.model.citygml.CityGML;
+import org.citygml4j.model.gml.base.AbstractGML;
+import org.citygml4j.util.xml.SAXEventBuffer;
+
+/**
+ * Provides rough estimates of the heap memory occupied by the work items that
+ * are passed between worker pools. The estimates are used to limit the work
+ * queues by a memory budget and are not meant to be exact. They are derived
+ * from sizes recorded while the work items are produced, so estimating never
+ * requires another pass over the content of a work item.
+ */
+public class WorkSizeEstimator {
+	public static final String WORK_SIZE = "workSize";
+	private static final long OBJECT_SIZE = 512;
+	private static final long ELEMENT_SIZE = 64;
+	private static final long BYTE_SIZE = 3;
+
+	public static long estimate(long bytes) {
+		// parsed XML content takes about three times the heap of its UTF-8 encoding
+		return OBJECT_SIZE + BYTE_SIZE * bytes;
+	}
+
+	public static long estimate(SAXEventBuffer buffer) {
+		return buffer instanceof MeasuredSAXEventBuffer ?
+				((MeasuredSAXEventBuffer) buffer).getSize() :
+				OBJECT_SIZE;
+	}
+
+	public static long estimate(String text) {
+		return ELEMENT_SIZE + 2L * text.length();
+	}
+
+	public static long estimate(CityGML object) {
+		// features read from CityGML carry the estimated size of their XML chunk
+		if (object instanceof AbstractGML && ((AbstractGML) object).hasLocalProperty(WORK_SIZE))
+			return (Long) ((AbstractGML) object).getLocalProperty(WORK_SIZE);
+
+		return OBJECT_SIZE;
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.writer;
+
+import org.citygml4j.util.xml.SAXEventBuffer;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link SAXEventBuffer} that keeps track of the approximate heap size of the
+ * buffered events while they are recorded. This allows for estimating the size
+ * of a buffer without sending its events.
+ */
+public class MeasuredSAXEventBuffer extends SAXEventBuffer {
+	private static final long ELEMENT_SIZE = 64;
+	private static final long ATTRIBUTE_SIZE = 48;
+
+	private long size;
+
+	public long getSize() {
+		return size;
+	}
+
+	public void resetSize() {
+		size = 0;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		size += ELEMENT_SIZE + 2L * localName.length();
+		for (int i = 0; i < atts.getLength(); i++)
+			size += ATTRIBUTE_SIZE + 2L * atts.getValue(i).length();
+
+		super.startElement(uri, localName, qName, atts);
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) throws SAXException {
+		size += 2L * length;
+		super.characters(ch, start, length);
+	}
+}
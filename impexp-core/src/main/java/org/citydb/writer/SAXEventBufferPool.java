@@ -0,0 +1,70 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.writer;
+
+import org.citygml4j.util.xml.SAXEventBuffer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of {@link SAXEventBuffer} instances shared between the workers
+ * producing XML content and the writer worker consuming it. Buffers are returned
+ * to the pool once their events have been sent and released.
+ */
+public class SAXEventBufferPool {
+	private final ConcurrentLinkedQueue<MeasuredSAXEventBuffer> buffers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final int capacity;
+
+	public SAXEventBufferPool(int capacity) {
+		this.capacity = capacity;
+	}
+
+	public SAXEventBuffer take() {
+		MeasuredSAXEventBuffer buffer = buffers.poll();
+		if (buffer == null)
+			return new MeasuredSAXEventBuffer();
+
+		size.decrementAndGet();
+		buffer.resetSize();
+		return buffer;
+	}
+
+	public void release(SAXEventBuffer buffer) {
+		// only recycle buffers whose content has been released
+		if (!(buffer instanceof MeasuredSAXEventBuffer) || !buffer.isEmpty())
+			return;
+
+		if (size.incrementAndGet() <= capacity)
+			buffers.offer((MeasuredSAXEventBuffer) buffer);
+		else
+			size.decrementAndGet();
+	}
+
+}
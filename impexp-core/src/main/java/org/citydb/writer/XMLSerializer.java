@@ -0,0 +1,437 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.writer;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+
+import javax.xml.XMLConstants;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class XMLSerializer {
+	private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+	private final Map<String, String> prefixes = new LinkedHashMap<>();
+	private final Map<String, String> schemaLocations = new LinkedHashMap<>();
+	private String[] headerComment;
+	private String indentString = "";
+	private boolean writeEncoding;
+
+	public void setPrefix(String prefix, String namespaceURI) {
+		if (prefix != null && namespaceURI != null) {
+			prefixes.values().remove(prefix);
+			prefixes.put(namespaceURI, prefix);
+		}
+	}
+
+	public void setSchemaLocation(String namespaceURI, String schemaLocation) {
+		if (namespaceURI != null && schemaLocation != null)
+			schemaLocations.put(namespaceURI, schemaLocation);
+	}
+
+	public void setHeaderComment(String... headerComment) {
+		this.headerComment = headerComment;
+	}
+
+	public String getIndentString() {
+		return indentString;
+	}
+
+	public void setIndentString(String indentString) {
+		this.indentString = indentString != null ? indentString : "";
+	}
+
+	public void setWriteEncoding(boolean writeEncoding) {
+		this.writeEncoding = writeEncoding;
+	}
+
+	public String getStartDocument() {
+		StringBuilder builder = new StringBuilder("<?xml version=\"1.0\"");
+		if (writeEncoding)
+			builder.append(" encoding=\"UTF-8\"");
+
+		builder.append("?>");
+
+		if (headerComment != null) {
+			for (String line : headerComment) {
+				if (line != null)
+					builder.append('\n').append("<!-- ").append(line.replace("--", "- -")).append(" -->");
+			}
+		}
+
+		return builder.toString();
+	}
+
+	public String getEndElement(String qName) {
+		return (!indentString.isEmpty() ? "\n" : "") + "</" + qName + ">";
+	}
+
+	public Fragment createRootFragment() {
+		return new Fragment(0, true);
+	}
+
+	public Fragment createFragment(int depth) {
+		return new Fragment(depth, false);
+	}
+
+	private void escape(String value, boolean isAttribute, StringBuilder builder) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '&':
+					builder.append("&amp;");
+					break;
+				case '<':
+					builder.append("&lt;");
+					break;
+				case '>':
+					builder.append("&gt;");
+					break;
+				case '"':
+					builder.append(isAttribute ? "&quot;" : "\"");
+					break;
+				case '\r':
+					builder.append("&#xD;");
+					break;
+				case '\n':
+					builder.append(isAttribute ? "&#xA;" : "\n");
+					break;
+				case '\t':
+					builder.append(isAttribute ? "&#x9;" : "\t");
+					break;
+				default:
+					builder.append(c);
+			}
+		}
+	}
+
+	public final class Fragment implements ContentHandler {
+		private final StringBuilder builder = new StringBuilder();
+		private final ArrayDeque<String> elements = new ArrayDeque<>();
+		private final ArrayDeque<Map<String, String>> scopes = new ArrayDeque<>();
+		private final Map<String, String> reportedPrefixes = new HashMap<>();
+		private final boolean isRoot;
+		private final int initialDepth;
+
+		private int depth;
+		private boolean isStartTagOpen;
+		private boolean lastWasText;
+		private String rootElement;
+		private int prefixCounter;
+
+		private Fragment(int depth, boolean isRoot) {
+			this.depth = depth;
+			this.isRoot = isRoot;
+			initialDepth = depth;
+		}
+
+		public boolean isEmpty() {
+			return builder.length() == 0;
+		}
+
+		public void reset() {
+			// keep the character storage for the next fragment unless it has grown too large
+			builder.setLength(0);
+			if (builder.capacity() > MAX_RETAINED_CAPACITY)
+				builder.trimToSize();
+
+			elements.clear();
+			scopes.clear();
+			reportedPrefixes.clear();
+			depth = initialDepth;
+			isStartTagOpen = false;
+			lastWasText = false;
+			rootElement = null;
+			prefixCounter = 0;
+		}
+
+		public String getRootElement() {
+			return rootElement;
+		}
+
+		@Override
+		public String toString() {
+			return builder.toString();
+		}
+
+		@Override
+		public void startPrefixMapping(String prefix, String uri) {
+			reportedPrefixes.put(prefix, uri);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) {
+			closeStartTag();
+
+			boolean isDocumentRoot = isRoot && rootElement == null;
+			Map<String, String> declarations = isDocumentRoot ? new LinkedHashMap<>(prefixes) : null;
+			scopes.push(declarations != null ? declarations : new LinkedHashMap<>());
+
+			String name = getQName(uri, localName, false);
+			elements.push(name);
+
+			if (!indentString.isEmpty()) {
+				builder.append('\n');
+				for (int i = 0; i < depth; i++)
+					builder.append(indentString);
+			}
+
+			builder.append('<').append(name);
+			int declarationsOffset = builder.length();
+
+			for (int i = 0; i < atts.getLength(); i++) {
+				String attributeQName = atts.getQName(i);
+				if (attributeQName.equals(XMLConstants.XMLNS_ATTRIBUTE) || attributeQName.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ':'))
+					continue;
+
+				String attributeURI = atts.getURI(i);
+				String value = atts.getValue(i);
+
+				if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(attributeURI) && "type".equals(atts.getLocalName(i)))
+					value = getTypeName(value);
+
+				builder.append(' ').append(attributeURI.isEmpty() ? atts.getLocalName(i) : getQName(attributeURI, atts.getLocalName(i), true)).append("=\"");
+				escape(value, true, builder);
+				builder.append('"');
+			}
+
+			if (isDocumentRoot && !schemaLocations.isEmpty()) {
+				StringBuilder value = new StringBuilder();
+				for (Map.Entry<String, String> entry : schemaLocations.entrySet()) {
+					if (value.length() > 0)
+						value.append(' ');
+
+					value.append(entry.getKey()).append(' ').append(entry.getValue());
+				}
+
+				builder.append(' ').append(getQName(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation", true)).append("=\"");
+				escape(value.toString(), true, builder);
+				builder.append('"');
+			}
+
+			// namespace declarations are only known after all names of this element have been resolved
+			StringBuilder namespaces = new StringBuilder();
+			for (Map.Entry<String, String> entry : scopes.peek().entrySet()) {
+				namespaces.append(' ').append(XMLConstants.XMLNS_ATTRIBUTE);
+				if (!entry.getValue().isEmpty())
+					namespaces.append(':').append(entry.getValue());
+
+				namespaces.append("=\"");
+				escape(entry.getKey(), true, namespaces);
+				namespaces.append('"');
+			}
+
+			builder.insert(declarationsOffset, namespaces);
+
+			if (isDocumentRoot)
+				rootElement = name;
+
+			isStartTagOpen = true;
+			lastWasText = false;
+			depth++;
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			depth--;
+			String name = elements.pop();
+			scopes.pop();
+
+			if (isRoot && elements.isEmpty()) {
+				// keep the root element open so that further content can be appended
+				closeStartTag();
+				return;
+			}
+
+			if (isStartTagOpen) {
+				builder.append("/>");
+				isStartTagOpen = false;
+			} else {
+				if (!lastWasText && !indentString.isEmpty()) {
+					builder.append('\n');
+					for (int i = 0; i < depth; i++)
+						builder.append(indentString);
+				}
+
+				builder.append("</").append(name).append('>');
+			}
+
+			lastWasText = false;
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (length == 0)
+				return;
+
+			closeStartTag();
+			escape(new String(ch, start, length), false, builder);
+			lastWasText = true;
+		}
+
+		@Override
+		public void ignorableWhitespace(char[] ch, int start, int length) {
+			// ignore
+		}
+
+		@Override
+		public void processingInstruction(String target, String data) {
+			closeStartTag();
+			builder.append("<?").append(target);
+			if (data != null && !data.isEmpty())
+				builder.append(' ').append(data);
+
+			builder.append("?>");
+		}
+
+		@Override
+		public void setDocumentLocator(Locator locator) {
+			// nothing to do
+		}
+
+		@Override
+		public void startDocument() {
+			// nothing to do
+		}
+
+		@Override
+		public void endDocument() {
+			// nothing to do
+		}
+
+		@Override
+		public void endPrefixMapping(String prefix) {
+			// nothing to do
+		}
+
+		@Override
+		public void skippedEntity(String name) {
+			// nothing to do
+		}
+
+		private void closeStartTag() {
+			if (isStartTagOpen) {
+				builder.append('>');
+				isStartTagOpen = false;
+			}
+		}
+
+		private String getQName(String uri, String localName, boolean isAttribute) {
+			String prefix = getPrefix(uri, isAttribute);
+			return prefix.isEmpty() ? localName : prefix + ':' + localName;
+		}
+
+		private String getPrefix(String uri, boolean isAttribute) {
+			// look for an in-scope binding of the namespace
+			for (Map<String, String> scope : scopes) {
+				String prefix = scope.get(uri);
+				if (prefix != null && !(isAttribute && prefix.isEmpty()) && isBoundTo(prefix, uri))
+					return prefix;
+			}
+
+			String prefix = prefixes.get(uri);
+			if (prefix != null && !(isAttribute && prefix.isEmpty()) && isBoundTo(prefix, uri))
+				return prefix;
+
+			// the empty namespace requires an undeclaration of a default namespace
+			if (uri.isEmpty()) {
+				if (isBoundTo("", ""))
+					return "";
+
+				prefix = "";
+			} else {
+				prefix = null;
+				for (Map.Entry<String, String> entry : reportedPrefixes.entrySet()) {
+					if (uri.equals(entry.getValue()) && !entry.getKey().isEmpty() && isFree(entry.getKey())) {
+						prefix = entry.getKey();
+						break;
+					}
+				}
+
+				if (prefix == null && XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(uri) && isFree("xsi"))
+					prefix = "xsi";
+
+				while (prefix == null) {
+					String candidate = "ns" + ++prefixCounter;
+					if (isFree(candidate))
+						prefix = candidate;
+				}
+			}
+
+			scopes.peek().put(uri, prefix);
+			return prefix;
+		}
+
+		private boolean isBoundTo(String prefix, String uri) {
+			for (Map<String, String> scope : scopes) {
+				for (Map.Entry<String, String> entry : scope.entrySet()) {
+					if (entry.getValue().equals(prefix))
+						return entry.getKey().equals(uri);
+				}
+			}
+
+			if (prefix.isEmpty() && !prefixes.containsValue(prefix))
+				return uri.isEmpty();
+
+			return uri.equals(getDocumentURI(prefix));
+		}
+
+		private boolean isFree(String prefix) {
+			for (Map<String, String> scope : scopes) {
+				if (scope.containsValue(prefix))
+					return false;
+			}
+
+			return !prefixes.containsValue(prefix);
+		}
+
+		private String getDocumentURI(String prefix) {
+			for (Map.Entry<String, String> entry : prefixes.entrySet()) {
+				if (entry.getValue().equals(prefix))
+					return entry.getKey();
+			}
+
+			return null;
+		}
+
+		private String getTypeName(String value) {
+			int index = value.indexOf(':');
+			String uri = reportedPrefixes.get(index > 0 ? value.substring(0, index) : "");
+			if (uri == null)
+				return value;
+
+			String prefix = getPrefix(uri, false);
+			String localName = index > 0 ? value.substring(index + 1) : value;
+			return prefix.isEmpty() ? localName : prefix + ':' + localName;
+		}
+	}
+}
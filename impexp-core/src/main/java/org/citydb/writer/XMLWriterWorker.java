@@ -43,13 +43,19 @@ public class XMLWriterWorker extends Worker<SAXEventBuffer> {
 	private volatile boolean shouldWork = true;
 
 	private final SAXWriter saxWriter;
+	private final SAXEventBufferPool bufferPool;
 	private final EventDispatcher eventDispatcher;
 
-	public XMLWriterWorker(SAXWriter saxWriter, EventDispatcher eventDispatcher) {
+	public XMLWriterWorker(SAXWriter saxWriter, SAXEventBufferPool bufferPool, EventDispatcher eventDispatcher) {
 		this.saxWriter = saxWriter;
+		this.bufferPool = bufferPool;
 		this.eventDispatcher = eventDispatcher;
 	}
 
+	public XMLWriterWorker(SAXWriter saxWriter, EventDispatcher eventDispatcher) {
+		this(saxWriter, null, eventDispatcher);
+	}
+
 	@Override
 	public void interrupt() {
 		shouldRun = false;
@@ -81,6 +87,8 @@ public class XMLWriterWorker extends Worker<SAXEventBuffer> {
 				return;
 			
 			work.send(saxWriter, true);
+			if (bufferPool != null)
+				bufferPool.release(work);
 		} catch (SAXException e) {
 			eventDispatcher.triggerSyncEvent(new InterruptEvent("Failed to write XML content.", LogLevel.ERROR, e, eventChannel, this));
 			shouldWork = false;
@@ -35,15 +35,21 @@ import org.citygml4j.util.xml.SAXWriter;
 
 public class XMLWriterWorkerFactory implements WorkerFactory<SAXEventBuffer> {
 	private final SAXWriter saxWriter;
+	private final SAXEventBufferPool bufferPool;
 	private final EventDispatcher eventDispatcher;
 
-	public XMLWriterWorkerFactory(SAXWriter saxWriter, EventDispatcher eventDispatcher) {
+	public XMLWriterWorkerFactory(SAXWriter saxWriter, SAXEventBufferPool bufferPool, EventDispatcher eventDispatcher) {
 		this.saxWriter = saxWriter;
+		this.bufferPool = bufferPool;
 		this.eventDispatcher = eventDispatcher;
 	}
 
+	public XMLWriterWorkerFactory(SAXWriter saxWriter, EventDispatcher eventDispatcher) {
+		this(saxWriter, null, eventDispatcher);
+	}
+
 	@Override
 	public Worker<SAXEventBuffer> createWorker() {
-		return new XMLWriterWorker(saxWriter, eventDispatcher);
+		return new XMLWriterWorker(saxWriter, bufferPool, eventDispatcher);
 	}
 }
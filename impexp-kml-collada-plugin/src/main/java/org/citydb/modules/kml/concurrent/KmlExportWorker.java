@@ -35,11 +35,15 @@ import org.citydb.config.project.kmlExporter.Balloon;
 import org.citydb.config.project.kmlExporter.BalloonContentMode;
 import org.citydb.config.project.kmlExporter.ColladaOptions;
 import org.citydb.config.project.kmlExporter.DisplayForm;
+import org.citydb.config.project.kmlExporter.ElevationProviderType;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
 import org.citydb.database.adapter.BlobExportAdapter;
 import org.citydb.database.adapter.BlobType;
 import org.citydb.database.schema.mapping.FeatureType;
+import org.citydb.event.Event;
 import org.citydb.event.EventDispatcher;
+import org.citydb.event.EventHandler;
+import org.citydb.event.global.EventType;
 import org.citydb.event.global.ObjectCounterEvent;
 import org.citydb.log.Logger;
 import org.citydb.modules.kml.database.Bridge;
@@ -52,6 +56,7 @@ import org.citydb.modules.kml.database.KmlExporterManager;
 import org.citydb.modules.kml.database.KmlGenericObject;
 import org.citydb.modules.kml.database.KmlSplittingResult;
 import org.citydb.modules.kml.database.LandUse;
+import org.citydb.modules.kml.database.LodAvailabilityCache;
 import org.citydb.modules.kml.database.PlantCover;
 import org.citydb.modules.kml.database.Relief;
 import org.citydb.modules.kml.database.SolitaryVegetationObject;
@@ -59,11 +64,17 @@ import org.citydb.modules.kml.database.Transportation;
 import org.citydb.modules.kml.database.Tunnel;
 import org.citydb.modules.kml.database.WaterBody;
 import org.citydb.modules.kml.util.BalloonTemplateHandler;
+import org.citydb.modules.kml.util.ElevationGrid;
+import org.citydb.modules.kml.util.ElevationProvider;
 import org.citydb.modules.kml.util.ElevationServiceHandler;
 import org.citydb.modules.kml.util.ExportTracker;
+import org.citydb.modules.kml.util.ReliefElevationProvider;
+import org.citydb.modules.kml.util.TextureCache;
+import org.citydb.modules.kml.util.TriangulationCache;
 import org.citydb.query.Query;
 import org.citydb.query.filter.type.FeatureTypeFilter;
 import org.citydb.util.Util;
+import org.citydb.writer.SAXEventBufferPool;
 import org.citygml4j.model.citygml.CityGMLClass;
 import org.citygml4j.util.xml.SAXEventBuffer;
 
@@ -71,12 +82,18 @@ import javax.xml.bind.JAXBContext;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class KmlExportWorker extends Worker<KmlSplittingResult> {
+public class KmlExportWorker extends Worker<KmlSplittingResult> implements EventHandler {
+	private static final int BATCH_SIZE = 20;
+
 	private final ReentrantLock runLock = new ReentrantLock();
 	private volatile boolean shouldRun = true;
+	private volatile boolean shouldWork = true;
 
 	private final Connection connection;
 	private final AbstractDatabaseAdapter databaseAdapter;
@@ -86,6 +103,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 	private final Config config;
 	private final EventDispatcher eventDispatcher;
 	private final KmlExporterManager kmlExporterManager;
+	private final LodAvailabilityCache lodAvailabilityCache;
 
 	private KmlGenericObject singleObject = null;
 
@@ -94,13 +112,17 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 	private EnumMap<CityGMLClass, KmlGenericObject>objectGroup = new EnumMap<>(CityGMLClass.class);
 	private EnumMap<CityGMLClass, BalloonTemplateHandler>balloonTemplateHandler = new EnumMap<>(CityGMLClass.class);
 
-	private ElevationServiceHandler elevationServiceHandler;
+	private ElevationProvider elevationProvider;
 
 	public KmlExportWorker(Connection connection,
 			AbstractDatabaseAdapter databaseAdapter,
 			JAXBContext jaxbKmlContext,
 			JAXBContext jaxbColladaContext,
 			WorkerPool<SAXEventBuffer> writerPool,
+			SAXEventBufferPool bufferPool,
+			TextureCache textureCache,
+			TriangulationCache triangulationCache,
+			ElevationGrid elevationGrid,
 			ExportTracker tracker,
 			Query query,
 			ObjectFactory kmlFactory,
@@ -119,6 +141,9 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 				jaxbColladaContext,
 				databaseAdapter,
 				writerPool,
+				bufferPool,
+				textureCache,
+				triangulationCache,
 				tracker,
 				query,
 				kmlFactory,
@@ -126,7 +151,12 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 				eventDispatcher,
 				config);
 
-		elevationServiceHandler = new ElevationServiceHandler(config);
+		lodAvailabilityCache = new LodAvailabilityCache(connection, databaseAdapter);
+
+		if (config.getProject().getKmlExporter().getElevationProvider() == ElevationProviderType.RELIEF && elevationGrid != null)
+			elevationProvider = new ReliefElevationProvider(connection, databaseAdapter, elevationGrid);
+		else
+			elevationProvider = new ElevationServiceHandler(config);
 
 		FeatureTypeFilter typeFilter = query.getFeatureTypeFilter();
 		ColladaOptions colladaOptions;
@@ -232,7 +262,9 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 				break;
 			}
 			// CityGMLClass.CITY_OBJECT_GROUP is left out, it does not make sense to group it without COLLADA DisplayForm 
-		}		
+		}
+
+		eventDispatcher.addEventHandler(EventType.INTERRUPT, this);
 	}
 
 	@Override
@@ -243,16 +275,20 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 	@Override
 	public void run() {
 		try {
+			List<KmlSplittingResult> batch = new ArrayList<>(BATCH_SIZE);
 			if (firstWork != null) {
-				doWork(firstWork);
+				batch.add(firstWork);
 				firstWork = null;
+				workQueue.drainTo(batch, BATCH_SIZE - 1);
+				doWork(batch);
 			}
 
-			KmlSplittingResult work;
 			while (shouldRun) {
 				try {
-					work = workQueue.take();
-					doWork(work);
+					batch.clear();
+					batch.add(workQueue.take());
+					workQueue.drainTo(batch, BATCH_SIZE - 1);
+					doWork(batch);
 				}
 				catch (InterruptedException ie) {
 					// re-check state
@@ -279,6 +315,9 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 			eventDispatcher.triggerEvent(new ObjectCounterEvent(kmlExporterManager.getObjectCounter(), this));
 		}
 		finally {
+			for (BalloonTemplateHandler handler : balloonTemplateHandler.values())
+				handler.close();
+
 			if (textureExportAdapter != null) {
 				try {
 					textureExportAdapter.close();
@@ -287,12 +326,59 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 				}
 			}
 
+			if (elevationProvider instanceof ReliefElevationProvider) {
+				try {
+					((ReliefElevationProvider) elevationProvider).close();
+				} catch (SQLException e) {
+					//
+				}
+			}
+
 			try {
 				connection.commit(); // for all possible GE_LoDn_zOffset values
 				connection.close();
 			} catch (SQLException e) {
 				//
 			}
+
+			eventDispatcher.removeEventHandler(this);
+		}
+	}
+
+	private void doWork(List<KmlSplittingResult> batch) {
+		final ReentrantLock runLock = this.runLock;
+		runLock.lock();
+
+		try {
+			if (!shouldWork)
+				return;
+
+			// query the available LoDs of all features in the batch at once
+			// instead of probing each LoD for each feature
+			if (config.getProject().getKmlExporter().getLodToExportFrom() == 5)
+				lodAvailabilityCache.prefetch(batch);
+
+			// let the balloon template handlers fetch their placeholder values for
+			// all objects of the batch with one query per placeholder
+			EnumMap<CityGMLClass, List<Long>> balloonIds = new EnumMap<>(CityGMLClass.class);
+			for (KmlSplittingResult work : batch)
+				balloonIds.computeIfAbsent(work.getCityGMLClass(), v -> new ArrayList<>()).add(work.getId());
+
+			for (Map.Entry<CityGMLClass, List<Long>> entry : balloonIds.entrySet()) {
+				BalloonTemplateHandler handler = getBalloonTemplateHandler(entry.getKey());
+				if (handler != null)
+					handler.setBatch(entry.getValue());
+			}
+		} finally {
+			runLock.unlock();
+		}
+
+		// a drained batch is always completed unless the export has been aborted
+		for (KmlSplittingResult work : batch) {
+			if (!shouldWork)
+				break;
+
+			doWork(work);
 		}
 	}
 
@@ -310,7 +396,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -323,7 +409,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -336,7 +422,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -349,7 +435,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -362,7 +448,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -379,7 +465,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -392,7 +478,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -405,7 +491,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -418,7 +504,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -431,7 +517,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -443,7 +529,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -455,7 +541,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 						kmlFactory,
 						databaseAdapter,
 						textureExportAdapter,
-						elevationServiceHandler,
+						elevationProvider,
 						getBalloonTemplateHandler(featureClass),
 						eventDispatcher,
 						config);
@@ -465,6 +551,7 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 
 			}
 
+			singleObject.setLodAvailabilityCache(lodAvailabilityCache);
 			singleObject.read(work);
 
 			if (work.getCityGMLClass() != CityGMLClass.CITY_OBJECT_GROUP && 
@@ -504,35 +591,8 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 
 	private void sendGroupToFile(KmlGenericObject objectGroup) {
 		try {
-			double imageScaleFactor = 1;
-			ColladaOptions colladaOptions = objectGroup.getColladaOptions();
-			
-			if (colladaOptions.isCropImages()) {
-				objectGroup.cropImages();
-			}
-			
-			if (colladaOptions.isGenerateTextureAtlases()) {
-				if (colladaOptions.isScaleImages()) {
-					imageScaleFactor = colladaOptions.getImageScaleFactor();
-				}
-				objectGroup.createTextureAtlas(colladaOptions.getPackingAlgorithm(),
-						imageScaleFactor,
-						colladaOptions.isTextureAtlasPots());
-			}
-			else if (colladaOptions.isScaleImages()) {
-				imageScaleFactor = colladaOptions.getImageScaleFactor();
-				if (imageScaleFactor < 1) {
-					objectGroup.resizeAllImagesByFactor(imageScaleFactor);
-				}
-			}
-
-			ColladaBundle colladaBundle = new ColladaBundle();
-			colladaBundle.setCollada(objectGroup.generateColladaTree());
-			colladaBundle.setTexImages(objectGroup.getTexImages());
-			colladaBundle.setUnsupportedTexImageIds(objectGroup.getUnsupportedTexImageIds());
+			ColladaBundle colladaBundle = objectGroup.createColladaBundle();
 			colladaBundle.setPlacemark(objectGroup.createPlacemarkForColladaModel());
-			colladaBundle.setGmlId(objectGroup.getGmlId());
-			colladaBundle.setId(objectGroup.getId());
 
 			kmlExporterManager.print(colladaBundle,
 					objectGroup.getId(),					
@@ -613,4 +673,10 @@ public class KmlExportWorker extends Worker<KmlSplittingResult> {
 		return balloonSettings;
 	}
 
+	@Override
+	public void handleEvent(Event event) throws Exception {
+		if (event.getChannel() == eventChannel)
+			shouldWork = false;
+	}
+
 }
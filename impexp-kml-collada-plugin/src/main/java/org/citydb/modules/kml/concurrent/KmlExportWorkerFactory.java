@@ -38,8 +38,12 @@ import org.citydb.database.connection.DatabaseConnectionPool;
 import org.citydb.event.EventDispatcher;
 import org.citydb.log.Logger;
 import org.citydb.modules.kml.database.KmlSplittingResult;
+import org.citydb.modules.kml.util.ElevationGrid;
 import org.citydb.modules.kml.util.ExportTracker;
+import org.citydb.modules.kml.util.TextureCache;
+import org.citydb.modules.kml.util.TriangulationCache;
 import org.citydb.query.Query;
+import org.citydb.writer.SAXEventBufferPool;
 import org.citygml4j.util.xml.SAXEventBuffer;
 
 import javax.xml.bind.JAXBContext;
@@ -52,6 +56,10 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 	private final JAXBContext jaxbKmlContext;
 	private final JAXBContext jaxbColladaContext;
 	private final WorkerPool<SAXEventBuffer> writerPool;
+	private final SAXEventBufferPool bufferPool;
+	private final TextureCache textureCache;
+	private final TriangulationCache triangulationCache;
+	private final ElevationGrid elevationGrid;
 	private final Query query;
 	private final ExportTracker tracker;
 	private final ObjectFactory kmlFactory;
@@ -62,6 +70,10 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 			JAXBContext jaxbKmlContext,
 			JAXBContext jaxbColladaContext,
 			WorkerPool<SAXEventBuffer> writerPool,
+			SAXEventBufferPool bufferPool,
+			TextureCache textureCache,
+			TriangulationCache triangulationCache,
+			ElevationGrid elevationGrid,
 			ExportTracker tracker,
 			Query query,
 			ObjectFactory kmlFactory,
@@ -70,6 +82,10 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 		this.jaxbKmlContext = jaxbKmlContext;
 		this.jaxbColladaContext = jaxbColladaContext;
 		this.writerPool = writerPool;
+		this.bufferPool = bufferPool;
+		this.textureCache = textureCache;
+		this.triangulationCache = triangulationCache;
+		this.elevationGrid = elevationGrid;
 		this.tracker = tracker;
 		this.query = query;
 		this.kmlFactory = kmlFactory;
@@ -93,7 +109,7 @@ public class KmlExportWorkerFactory implements WorkerFactory<KmlSplittingResult>
 			}
 
 			kmlWorker = new KmlExportWorker(connection, databaseAdapter, jaxbKmlContext, jaxbColladaContext, writerPool,
-					tracker, query, kmlFactory, config, eventDispatcher);
+					bufferPool, textureCache, triangulationCache, elevationGrid, tracker, query, kmlFactory, config, eventDispatcher);
 		} catch (SQLException e) {
 			log.error("Failed to create export worker: " + e.getMessage());
 		}
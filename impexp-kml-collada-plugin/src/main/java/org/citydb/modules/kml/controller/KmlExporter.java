@@ -51,6 +51,7 @@ import net.opengis.kml._2.StyleStateEnumType;
 import net.opengis.kml._2.StyleType;
 import net.opengis.kml._2.ViewRefreshModeEnumType;
 import org.citydb.ade.ADEExtensionManager;
+import org.citydb.concurrent.MemoryBudget;
 import org.citydb.concurrent.PoolSizeAdaptationStrategy;
 import org.citydb.concurrent.SingleWorkerPool;
 import org.citydb.concurrent.WorkerPool;
@@ -58,11 +59,13 @@ import org.citydb.config.Config;
 import org.citydb.config.geometry.BoundingBox;
 import org.citydb.config.i18n.Language;
 import org.citydb.config.project.database.Database;
+import org.citydb.config.project.database.DatabaseSrsType;
 import org.citydb.config.project.database.Workspace;
 import org.citydb.config.project.kmlExporter.AltitudeOffsetMode;
 import org.citydb.config.project.kmlExporter.Balloon;
 import org.citydb.config.project.kmlExporter.BalloonContentMode;
 import org.citydb.config.project.kmlExporter.DisplayForm;
+import org.citydb.config.project.kmlExporter.ElevationProviderType;
 import org.citydb.config.project.kmlExporter.KmlTilingOptions;
 import org.citydb.config.project.kmlExporter.PointAndCurve;
 import org.citydb.config.project.kmlExporter.PointDisplayMode;
@@ -88,6 +91,7 @@ import org.citydb.modules.kml.database.CityFurniture;
 import org.citydb.modules.kml.database.CityObjectGroup;
 import org.citydb.modules.kml.database.GenericCityObject;
 import org.citydb.modules.kml.database.KmlSplitter;
+import org.citydb.modules.kml.database.KmlTileRouting;
 import org.citydb.modules.kml.database.KmlSplittingResult;
 import org.citydb.modules.kml.database.LandUse;
 import org.citydb.modules.kml.database.Relief;
@@ -97,7 +101,13 @@ import org.citydb.modules.kml.database.Tunnel;
 import org.citydb.modules.kml.database.WaterBody;
 import org.citydb.modules.kml.datatype.TypeAttributeValueEnum;
 import org.citydb.modules.kml.util.CityObject4JSON;
+import org.citydb.modules.kml.util.ColladaStatistics;
+import org.citydb.modules.kml.util.ElevationGrid;
+import org.citydb.modules.kml.util.EnvelopeCache;
 import org.citydb.modules.kml.util.ExportTracker;
+import org.citydb.modules.kml.util.KmzArchive;
+import org.citydb.modules.kml.util.TextureCache;
+import org.citydb.modules.kml.util.TriangulationCache;
 import org.citydb.query.Query;
 import org.citydb.query.builder.QueryBuildException;
 import org.citydb.query.builder.config.ConfigQueryBuilder;
@@ -106,10 +116,15 @@ import org.citydb.query.filter.selection.Predicate;
 import org.citydb.query.filter.selection.SelectionFilter;
 import org.citydb.query.filter.selection.operator.logical.LogicalOperationFactory;
 import org.citydb.query.filter.tiling.Tile;
+import org.citydb.query.filter.tiling.TileIndex;
 import org.citydb.query.filter.tiling.Tiling;
 import org.citydb.query.filter.type.FeatureTypeFilter;
+import org.citydb.query.incremental.IncrementalExportException;
+import org.citydb.query.incremental.IncrementalExportState;
 import org.citydb.util.ClientConstants;
 import org.citydb.util.Util;
+import org.citydb.util.WorkSizeEstimator;
+import org.citydb.writer.SAXEventBufferPool;
 import org.citydb.writer.XMLWriterWorkerFactory;
 import org.citygml4j.model.citygml.CityGML;
 import org.citygml4j.model.citygml.CityGMLClass;
@@ -126,7 +141,6 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.namespace.QName;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -134,16 +148,17 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.stream.Stream;
 
 public class KmlExporter implements EventHandler {
 	private final Logger log = Logger.getInstance();
@@ -207,6 +222,7 @@ public class KmlExporter implements EventHandler {
 		// check API key when using the elevation API
 		if (config.getProject().getKmlExporter().getAltitudeOffsetMode() == AltitudeOffsetMode.GENERIC_ATTRIBUTE
 			&& config.getProject().getKmlExporter().isCallGElevationService()
+			&& config.getProject().getKmlExporter().getElevationProvider() == ElevationProviderType.GOOGLE_ELEVATION_API
 			&& !config.getProject().getGlobal().getApiKeys().isSetGoogleElevation()) {
 			log.error("The Google Elevation API cannot be used due to a missing API key.");
 			log.error("Please enter an API key or change the export preferences.");
@@ -330,6 +346,20 @@ public class KmlExporter implements EventHandler {
 			path = path.substring(0, path.lastIndexOf(File.separator));
 		}
 
+		// determine changes for incremental exports
+		IncrementalExportState incrementalState = null;
+		if (config.getProject().getKmlExporter().getIncrementalExport().isActive() && shouldRun) {
+			try {
+				incrementalState = IncrementalExportState.open(config.getProject().getKmlExporter().getIncrementalExport(), config.getInternal().getExportFile());
+				incrementalState.determineChanges(query, predicate, useTiling ? tiling : null, workspace, schemaMapping, databaseAdapter, config);
+			} catch (IncrementalExportException e) {
+				throw new KmlExportException(e.getMessage(), e.getCause());
+			}
+
+			if (useTiling && !incrementalState.isInitial() && config.getProject().getKmlExporter().isWriteJSONFile())
+				log.warn("The JSON file will only list the city objects of updated tiles.");
+		}
+
 		// start writing KML master file if required
 		SAXWriter masterFileWriter = null;
 		if (useTiling) {
@@ -361,10 +391,99 @@ public class KmlExporter implements EventHandler {
 
 		long start = System.currentTimeMillis();
 
+		// open persistent tile index
+		TileIndex tileIndex = null;
+		if (useTiling && tilingOptions.isUseTileIndex() && shouldRun) {
+			try (Connection connection = DatabaseConnectionPool.getInstance().getConnection()) {
+				if (databaseAdapter.hasVersioningSupport())
+					databaseAdapter.getWorkspaceManager().gotoWorkspace(connection, workspace);
+
+				tileIndex = TileIndex.open(query, tiling, workspace, schemaMapping, databaseAdapter, connection);
+			} catch (SQLException | QueryBuildException | FilterException | IOException e) {
+				if (jsonFileWriter != null) try { jsonFileWriter.close(); } catch (IOException ioe) { }
+				throw new KmlExportException("Failed to open tile index.", e);
+			}
+		}
+
+		// scan the tiling extent once and assign each object to a single tile
+		KmlTileRouting routing = null;
+		if (useTiling && tilingOptions.isSingleScan() && tileIndex == null && shouldRun) {
+			log.info("Assigning city objects to tiles...");
+			try {
+				Predicate bboxFilter = new Tile(tiling.getExtent(), 0, 0).getFilterPredicate(databaseAdapter);
+				if (predicate != null)
+					query.setSelection(new SelectionFilter(LogicalOperationFactory.AND(predicate, bboxFilter)));
+				else
+					query.setSelection(new SelectionFilter(bboxFilter));
+
+				kmlSplitter = new KmlSplitter(
+						schemaMapping,
+						null,
+						query,
+						null,
+						config);
+
+				routing = kmlSplitter.routeObjects();
+				log.info(routing.getObjectCount() + " city object(s) assigned to tiles.");
+			} catch (SQLException | QueryBuildException | FilterException e) {
+				if (jsonFileWriter != null) try { jsonFileWriter.close(); } catch (IOException ioe) { }
+				throw new KmlExportException("Failed to query the database.", e);
+			}
+		}
+
+		// recycle event buffers between the export workers and the writer
+		SAXEventBufferPool bufferPool = new SAXEventBufferPool(100 +
+				config.getProject().getKmlExporter().getResources().getThreadPool().getDefaultPool().getMaxThreads());
+
+		// share fetched and decoded texture images between the export workers
+		TextureCache textureCache = TextureCache.ofHeapFraction(8);
+
+		// reuse triangulated surface geometries across display forms and tiles
+		TriangulationCache triangulationCache = new TriangulationCache();
+
+		// features crossing tile borders are queried once per tile and display form,
+		// so keep their reprojected envelopes unless they have been routed already
+		EnvelopeCache envelopeCache = useTiling && routing == null ? new EnvelopeCache() : null;
+
+		// derive altitude offsets from the relief data of the database
+		ElevationGrid elevationGrid = null;
+		if (config.getProject().getKmlExporter().getAltitudeOffsetMode() == AltitudeOffsetMode.GENERIC_ATTRIBUTE
+				&& config.getProject().getKmlExporter().isCallGElevationService()
+				&& config.getProject().getKmlExporter().getElevationProvider() == ElevationProviderType.RELIEF) {
+			DatabaseSrsType srsType = databaseAdapter.getConnectionMetaData().getReferenceSystem().getType();
+			boolean isGeographic = srsType == DatabaseSrsType.GEOGRAPHIC2D || srsType == DatabaseSrsType.GEOGRAPHIC3D;
+			elevationGrid = new ElevationGrid(isGeographic ? 0.001 : 100);
+			log.info("Using the relief data of the database to calculate altitude offsets.");
+		}
+
+		// limit the queue of the writer by its estimated memory consumption
+		MemoryBudget memoryBudget = null;
+		if (config.getProject().getKmlExporter().getResources().isSetMemoryBudget()) {
+			memoryBudget = MemoryBudget.ofMegabytes(config.getProject().getKmlExporter().getResources().getMemoryBudget());
+			log.info("Limiting queued placemarks to a memory budget of " + config.getProject().getKmlExporter().getResources().getMemoryBudget() + " MB.");
+		}
+
 		// iterate over tiles
 		for (int i = 0; shouldRun && i < rows; i++) {
 			for (int j = 0; shouldRun && j < columns; j++) {
 
+				// skip tiles that are not affected by changes but keep their references in the master file
+				if (incrementalState != null && !incrementalState.isAffected(i, j)) {
+					remainingTiles -= config.getProject().getKmlExporter().getActiveDisplayFormsAmount(config.getProject().getKmlExporter().getBuildingDisplayForms());
+					eventDispatcher.triggerEvent(new CounterEvent(CounterType.REMAINING_TILES, remainingTiles, this));
+
+					if (masterFileWriter != null && incrementalState.hasObjects(i, j)) {
+						try {
+							writeMasterFileTileReference(fileName, tiling.getTileAt(i, j), tilingOptions, masterFileWriter);
+						} catch (JAXBException | FilterException e) {
+							if (jsonFileWriter != null) try { jsonFileWriter.close(); } catch (IOException ioe) { }
+							throw new KmlExportException("Failed to write tile reference to master file.", e);
+						}
+					}
+
+					continue;
+				}
+
 				// track exported objects
 				ExportTracker tracker = new ExportTracker();
 
@@ -375,11 +494,17 @@ public class KmlExporter implements EventHandler {
 						tile = tiling.getTileAt(i, j);
 						tiling.setActiveTile(tile);
 
-						Predicate bboxFilter = tile.getFilterPredicate(databaseAdapter);
-						if (predicate != null)
-							query.setSelection(new SelectionFilter(LogicalOperationFactory.AND(predicate, bboxFilter)));
-						else
-							query.setSelection(new SelectionFilter(bboxFilter));
+						if (routing == null) {
+							// select the objects of the tile by their ids if possible
+							Predicate tileFilter = tileIndex != null ? tileIndex.getFilterPredicate(i, j, query, schemaMapping) : null;
+							if (tileFilter == null)
+								tileFilter = tile.getFilterPredicate(databaseAdapter);
+
+							if (predicate != null)
+								query.setSelection(new SelectionFilter(LogicalOperationFactory.AND(predicate, tileFilter)));
+							else
+								query.setSelection(new SelectionFilter(tileFilter));
+						}
 					} catch (FilterException e) {
 						if (jsonFileWriter != null) try { jsonFileWriter.close(); } catch (IOException ioe) { }
 						throw new KmlExportException("Failed to get tile at [" + i + "," + j + "].", e);
@@ -391,11 +516,18 @@ public class KmlExporter implements EventHandler {
 					if (!displayForm.isActive()) 
 						continue;
 
+					// skip tiles without objects rather than opening their files
+					if (((routing != null && routing.isEmpty(i, j)) || (tileIndex != null && tileIndex.isEmpty(i, j)))
+							&& !config.getProject().getKmlExporter().isExportEmptyTiles()) {
+						eventDispatcher.triggerEvent(new CounterEvent(CounterType.REMAINING_TILES, --remainingTiles, this));
+						continue;
+					}
+
 					if (lastTempFolder != null && lastTempFolder.exists()) 
 						deleteFolder(lastTempFolder); // just in case
 
 					File file = null;
-					ZipOutputStream zipOut = null;
+					KmzArchive kmzArchive = null;
 					String currentWorkingDirectoryPath = null;
 					try {
 						if (useTiling) {
@@ -421,10 +553,9 @@ public class KmlExporter implements EventHandler {
 						try {
 							OutputStreamWriter fileWriter = null;
 							if (config.getProject().getKmlExporter().isExportAsKmz()) {
-								zipOut = new ZipOutputStream(new FileOutputStream(file));
-								ZipEntry zipEntry = new ZipEntry("doc.kml");
-								zipOut.putNextEntry(zipEntry);
-								fileWriter = new OutputStreamWriter(zipOut, CHARSET);
+								kmzArchive = new KmzArchive(file);
+								fileWriter = new OutputStreamWriter(kmzArchive.openMainEntry("doc.kml"), CHARSET);
+								tracker.setCurrentKmzArchive(kmzArchive);
 							} else
 								fileWriter = new OutputStreamWriter(new FileOutputStream(file), CHARSET);
 
@@ -438,10 +569,13 @@ public class KmlExporter implements EventHandler {
 						// here we have an open issue: queue sizes are fix...
 						writerPool = new SingleWorkerPool<SAXEventBuffer>(
 								"kml_writer_pool",
-								new XMLWriterWorkerFactory(saxWriter, eventDispatcher),
-								100,
+								new XMLWriterWorkerFactory(saxWriter, bufferPool, eventDispatcher),
+								memoryBudget != null ? MemoryBudget.DEFAULT_QUEUE_SIZE : 100,
 								true);
 
+						if (memoryBudget != null)
+							writerPool.setMemoryBudget(memoryBudget, WorkSizeEstimator::estimate);
+
 						kmlWorkerPool = new WorkerPool<KmlSplittingResult>(
 								"db_exporter_pool",
 								config.getProject().getKmlExporter().getResources().getThreadPool().getDefaultPool().getMinThreads(),
@@ -451,6 +585,10 @@ public class KmlExporter implements EventHandler {
 										jaxbKmlContext,
 										jaxbColladaContext,
 										writerPool,
+										bufferPool,
+										textureCache,
+										triangulationCache,
+										elevationGrid,
 										tracker,
 										query,
 										kmlFactory,
@@ -500,19 +638,31 @@ public class KmlExporter implements EventHandler {
 							throw new KmlExportException("Failed to write output file.", e);
 						}
 
-						// get database splitter and start query
-						try {
-							kmlSplitter = new KmlSplitter(
-									schemaMapping,
-									kmlWorkerPool,
-									query,
-									displayForm,
-									config);
-
-							if (shouldRun)
-								kmlSplitter.startQuery();
-						} catch (SQLException | QueryBuildException | FilterException e) {
-							throw new KmlExportException("Failed to query the database.", e);
+						if (routing != null) {
+							// hand over the objects assigned to this tile
+							for (KmlSplittingResult object : routing.getObjects(i, j)) {
+								if (!shouldRun)
+									break;
+
+								kmlWorkerPool.addWork(new KmlSplittingResult(object.getId(), object.getGmlId(),
+										object.getObjectClassId(), object.getJson(), displayForm));
+							}
+						} else {
+							// get database splitter and start query
+							try {
+								kmlSplitter = new KmlSplitter(
+										schemaMapping,
+										kmlWorkerPool,
+										query,
+										displayForm,
+										config);
+
+								kmlSplitter.setEnvelopeCache(envelopeCache);
+								if (shouldRun)
+									kmlSplitter.startQuery();
+							} catch (SQLException | QueryBuildException | FilterException e) {
+								throw new KmlExportException("Failed to query the database.", e);
+							}
 						}
 
 						// shutdown worker pools
@@ -523,6 +673,23 @@ public class KmlExporter implements EventHandler {
 							throw new KmlExportException("Failed to shutdown worker pools.", e);
 						}
 
+						// report the geometry reduction and encoding time of COLLADA models
+						ColladaStatistics colladaStatistics = tracker.getColladaStatistics();
+						if (colladaStatistics.getSurfaces() > 0) {
+							String message = (useTiling ? "Tile_" + i + "_" + j + ": " : "") + "Encoded "
+									+ colladaStatistics.getTriangles() + " triangles of " + colladaStatistics.getSurfaces()
+									+ " surfaces in " + colladaStatistics.getEncodingTime() + " ms";
+
+							if (colladaStatistics.getSimplifiedSurfaces() > 0) {
+								log.info(message + ", simplification kept " + colladaStatistics.getRetainedVertices() + " of "
+										+ colladaStatistics.getVertices() + " vertices and removed "
+										+ colladaStatistics.getRemovedSurfaces() + " surfaces.");
+							} else
+								log.debug(message + ".");
+
+							colladaStatistics.reset();
+						}
+
 						try {
 							// add styles
 							if (!objectCounter.isEmpty() &&
@@ -547,38 +714,21 @@ public class KmlExporter implements EventHandler {
 						try {
 							if (!objectCounter.isEmpty()) {
 								saxWriter.flush();
-								if (config.getProject().getKmlExporter().isExportAsKmz()) {
-									zipOut.closeEntry();
-
-									List<File> filesToZip = new ArrayList<File>();
+								if (kmzArchive != null) {
 									File tempFolder = new File(currentWorkingDirectoryPath, TEMP_FOLDER);
 									lastTempFolder = tempFolder;
-									int indexOfZipFilePath = tempFolder.getCanonicalPath().length() + 1;
-
-									if (tempFolder.exists()) { // !config.getProject().getKmlExporter().isOneFilePerObject()
-										log.info("Zipping to kmz archive from temporary folder...");
-										getAllFiles(tempFolder, filesToZip);
-										for (File fileToZip : filesToZip) {
-											if (!fileToZip.isDirectory()) {
-												FileInputStream inputStream = new FileInputStream(fileToZip);
-												String zipEntryName = fileToZip.getCanonicalPath().substring(indexOfZipFilePath);
-												zipEntryName = zipEntryName.replace(File.separator, "/"); // MUST
-												ZipEntry zipEntry = new ZipEntry(zipEntryName);
-												zipOut.putNextEntry(zipEntry);
-
-												byte[] bytes = new byte[64*1024]; // 64K should be enough for most
-												int length;
-												while ((length = inputStream.read(bytes)) >= 0) {
-													zipOut.write(bytes, 0, length);
-												}
-												inputStream.close();
-												zipOut.closeEntry();
-											}
+
+									// only files that must be post-processed on disk (e.g., glTF models)
+									// are written to the temporary folder, all other files are streamed
+									if (tempFolder.exists()) {
+										log.info("Adding files from temporary folder to kmz archive...");
+										Path tempPath = tempFolder.toPath();
+										KmzArchive archive = kmzArchive;
+										try (Stream<Path> stream = Files.walk(tempPath)) {
+											stream.filter(Files::isRegularFile).forEach(fileToZip -> archive.addEntry(
+													tempPath.relativize(fileToZip).toString().replace(File.separator, "/"), fileToZip));
 										}
-										log.info("Removing temporary folder...");
-										deleteFolder(tempFolder);
 									}
-									zipOut.close();
 								}
 							}
 						} catch (Exception e) {
@@ -588,11 +738,21 @@ public class KmlExporter implements EventHandler {
 						// flush sax writer and close file
 						try {
 							saxWriter.flush();
+							if (kmzArchive != null) {
+								tracker.setCurrentKmzArchive(null);
+								kmzArchive.close();
+							}
+
 							saxWriter.getOutputWriter().close();
 						} catch (Exception e) {
 							throw new KmlExportException("Failed to close output file.", e);
 						}
 
+						if (lastTempFolder != null && lastTempFolder.exists()) {
+							log.info("Removing temporary folder...");
+							deleteFolder(lastTempFolder);
+						}
+
 						// delete empty tile file if requested
 						if (useTiling && objectCounter.isEmpty() && !config.getProject().getKmlExporter().isExportEmptyTiles()) {
 							log.debug("Tile_" + i + "_" + j + " is empty. Deleting file " + file.getName() + ".");
@@ -602,6 +762,11 @@ public class KmlExporter implements EventHandler {
 						eventDispatcher.triggerEvent(new StatusDialogMessage(Language.I18N.getString("export.dialog.finish.msg"), this));
 					} finally {
 						// clean up
+						if (kmzArchive != null) {
+							tracker.setCurrentKmzArchive(null);
+							kmzArchive.discard();
+						}
+
 						if (writerPool != null && !writerPool.isTerminated())
 							writerPool.shutdownNow();
 
@@ -648,6 +813,18 @@ public class KmlExporter implements EventHandler {
 					}
 				}
 
+				// update manifest of exported features
+				if (incrementalState != null && shouldRun) {
+					Set<String> exportedFeatures = new HashSet<>();
+					for (CityObject4JSON object : tracker.values())
+						exportedFeatures.add(object.getGmlId());
+
+					if (useTiling)
+						incrementalState.setObjects(i, j, exportedFeatures);
+					else
+						incrementalState.addObjects(exportedFeatures);
+				}
+
 				objectCounter.clear();
 			}
 		}
@@ -685,6 +862,15 @@ public class KmlExporter implements EventHandler {
 			}
 		}		
 
+		// write delete list and store state of incremental export
+		if (incrementalState != null && shouldRun) {
+			try {
+				incrementalState.finish();
+			} catch (IncrementalExportException e) {
+				throw new KmlExportException(e.getMessage(), e.getCause());
+			}
+		}
+
 		// show exported features
 		if (!totalObjectCounter.isEmpty()) {
 			log.info("Exported city objects:");
@@ -694,6 +880,19 @@ public class KmlExporter implements EventHandler {
 
 		log.info("Processed geometry objects: " + geometryCounter);
 
+		if (memoryBudget != null)
+			memoryBudget.logUsage();
+
+		if (textureCache.getHits() > 0)
+			log.debug("Texture cache hits: " + textureCache.getHits() + ", misses: " + textureCache.getMisses() + ".");
+
+		textureCache.clear();
+		triangulationCache.clear();
+		if (envelopeCache != null)
+			envelopeCache.clear();
+		if (elevationGrid != null)
+			elevationGrid.clear();
+
 		if (lastTempFolder != null && lastTempFolder.exists()) 
 			deleteFolder(lastTempFolder); // just in case
 
@@ -1513,15 +1712,6 @@ public class KmlExporter implements EventHandler {
 		return success;
 	}
 
-	private void getAllFiles(File startFolder, List<File> fileList) {
-		File[] files = startFolder.listFiles();
-		for (File file : files) {
-			fileList.add(file);
-			if (file.isDirectory())
-				getAllFiles(file, fileList);
-		}
-	}
-
 	private void deleteFolder(File folder) {
 		if (folder == null) return;
 		File[] files = folder.listFiles();
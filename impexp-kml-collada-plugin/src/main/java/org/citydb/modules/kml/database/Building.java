@@ -40,7 +40,7 @@ import org.citydb.database.connection.DatabaseConnectionPool;
 import org.citydb.event.EventDispatcher;
 import org.citydb.log.Logger;
 import org.citydb.modules.kml.util.BalloonTemplateHandler;
-import org.citydb.modules.kml.util.ElevationServiceHandler;
+import org.citydb.modules.kml.util.ElevationProvider;
 import org.citydb.query.Query;
 
 import javax.vecmath.Point3d;
@@ -63,7 +63,7 @@ public class Building extends KmlGenericObject{
 			net.opengis.kml._2.ObjectFactory kmlFactory,
 			AbstractDatabaseAdapter databaseAdapter,
 			BlobExportAdapter textureExportAdapter,
-			ElevationServiceHandler elevationServiceHandler,
+			ElevationProvider elevationProvider,
 			BalloonTemplateHandler balloonTemplateHandler,
 			EventDispatcher eventDispatcher,
 			Config config) {
@@ -74,7 +74,7 @@ public class Building extends KmlGenericObject{
 				kmlFactory,
 				databaseAdapter,
 				textureExportAdapter,
-				elevationServiceHandler,
+				elevationProvider,
 				balloonTemplateHandler,
 				eventDispatcher,
 				config);
@@ -101,25 +101,34 @@ public class Building extends KmlGenericObject{
 		PreparedStatement psQuery = null;
 		ResultSet rs = null;
 		
-		try {
-			String query = queries.getBuildingPartsFromBuilding();
-			psQuery = connection.prepareStatement(query);
-			for (int i = 1; i <= getParameterCount(query); i++)
-				psQuery.setLong(i, work.getId());
-
-			rs = psQuery.executeQuery();
-			while (rs.next()) {
-				long buildingPartId = rs.getLong(1);
+		List<Long> partIds = lodAvailabilityCache != null ? lodAvailabilityCache.getPartIds(work.getId()) : null;
+		if (partIds != null) {
+			for (long buildingPartId : partIds) {
 				List<PlacemarkType> placemarkBPart = readBuildingPart(buildingPartId, work);
 				if (placemarkBPart != null)
 					placemarks.addAll(placemarkBPart);
 			}
-		} catch (SQLException sqlEx) {
-			log.error("SQL error while getting building parts for building " + work.getGmlId() + ": " + sqlEx.getMessage());
-			return;
-		} finally {
-			try { if (rs != null) rs.close(); } catch (SQLException sqle) {} 
-			try { if (psQuery != null) psQuery.close(); } catch (SQLException sqle) {}
+		} else {
+			try {
+				String query = queries.getBuildingPartsFromBuilding();
+				psQuery = connection.prepareStatement(query);
+				for (int i = 1; i <= getParameterCount(query); i++)
+					psQuery.setLong(i, work.getId());
+
+				rs = psQuery.executeQuery();
+				while (rs.next()) {
+					long buildingPartId = rs.getLong(1);
+					List<PlacemarkType> placemarkBPart = readBuildingPart(buildingPartId, work);
+					if (placemarkBPart != null)
+						placemarks.addAll(placemarkBPart);
+				}
+			} catch (SQLException sqlEx) {
+				log.error("SQL error while getting building parts for building " + work.getGmlId() + ": " + sqlEx.getMessage());
+				return;
+			} finally {
+				try { if (rs != null) rs.close(); } catch (SQLException sqle) {} 
+				try { if (psQuery != null) psQuery.close(); } catch (SQLException sqle) {}
+			}
 		}
 
 		if (placemarks.size() == 0) {
@@ -178,10 +187,19 @@ public class Building extends KmlGenericObject{
 					// find the highest available LOD to export from. to increase performance, 
 					// this is just a light-weight query that only checks for the main exterior 
 					// building shell without appearances 
+					int availableLods = lodAvailabilityCache != null ? lodAvailabilityCache.getAvailableLods(buildingPartId) : -1;
 					while (--currentLod > 0) {
 						if (!work.getDisplayForm().isAchievableFromLoD(currentLod)) 
 							break;
 
+						// the available LoDs have already been fetched for the whole work batch
+						if (availableLods != -1) {
+							if (LodAvailabilityCache.isLodAvailable(availableLods, currentLod))
+								break;
+
+							continue;
+						}
+
 						try {
 							String query = queries.getBuildingPartQuery(currentLod, lod0FootprintMode, work.getDisplayForm(), true);
 							psQuery = connection.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
@@ -40,7 +40,7 @@ import org.citydb.event.EventDispatcher;
 import org.citydb.log.Logger;
 import org.citydb.modules.kml.util.AffineTransformer;
 import org.citydb.modules.kml.util.BalloonTemplateHandler;
-import org.citydb.modules.kml.util.ElevationServiceHandler;
+import org.citydb.modules.kml.util.ElevationProvider;
 import org.citydb.query.Query;
 import org.citydb.util.Util;
 import org.citygml4j.geometry.Matrix;
@@ -65,7 +65,7 @@ public class CityFurniture extends KmlGenericObject{
 			net.opengis.kml._2.ObjectFactory kmlFactory,
 			AbstractDatabaseAdapter databaseAdapter,
 			BlobExportAdapter textureExportAdapter,
-			ElevationServiceHandler elevationServiceHandler,
+			ElevationProvider elevationProvider,
 			BalloonTemplateHandler balloonTemplateHandler,
 			EventDispatcher eventDispatcher,
 			Config config) {
@@ -76,7 +76,7 @@ public class CityFurniture extends KmlGenericObject{
 				kmlFactory,
 				databaseAdapter,
 				textureExportAdapter,
-				elevationServiceHandler,
+				elevationProvider,
 				balloonTemplateHandler,
 				eventDispatcher,
 				config);
@@ -222,6 +222,15 @@ public class CityFurniture extends KmlGenericObject{
 					break;
 
 				case DisplayForm.COLLADA:
+					// implicit geometries may reference a shared prototype model
+					if (transformer != null && isColladaInstancingEnabled()
+							&& exportAsColladaInstance(rs, work, sgRootId, transformer)) {
+						if (work.getDisplayForm().isHighlightingEnabled())
+							kmlExporterManager.print(createPlacemarksForHighlighting(rs, work, transformer, false), work, getBalloonSettings().isBalloonContentInSeparateFile());
+
+						break;
+					}
+
 					String currentgmlId = getGmlId();
 					setGmlId(work.getGmlId());
 					setId(work.getId());
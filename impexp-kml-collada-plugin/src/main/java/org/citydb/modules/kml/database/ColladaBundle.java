@@ -43,11 +43,15 @@ public class ColladaBundle {
 	// images or atlases in usual formats (like .jpg)
 	private HashMap<String, TextureImage> texImages;
 
+	// encoded bytes of images that have not been cropped, scaled or atlased
+	private HashMap<String, byte[]> originalTexImages;
+
 	private COLLADA collada;
 	private String colladaAsString;
 	private PlacemarkType placemark;
 	private String gmlId;
 	private long id;
+	private String directoryName;
 	private String externalBalloonFileContent;
 
 	public void setTexImages(HashMap<String, TextureImage> texImages) {
@@ -58,6 +62,14 @@ public class ColladaBundle {
 		return texImages;
 	}
 
+	public void setOriginalTexImages(HashMap<String, byte[]> originalTexImages) {
+		this.originalTexImages = originalTexImages;
+	}
+
+	public HashMap<String, byte[]> getOriginalTexImages() {
+		return originalTexImages;
+	}
+
 	public 	void setUnsupportedTexImageIds(HashMap<String, Long> unsupportedTexImageIds) {
 		this.unsupportedTexImageIds = unsupportedTexImageIds;
 	}
@@ -98,6 +110,15 @@ public class ColladaBundle {
 		this.id = id;
 	}
 
+	// the model and its textures are stored in a folder named after the id by default
+	public String getDirectoryName() {
+		return directoryName != null ? directoryName : String.valueOf(id);
+	}
+
+	public void setDirectoryName(String directoryName) {
+		this.directoryName = directoryName;
+	}
+
 	public void setColladaAsString(String colladaAsString) {
 		this.colladaAsString = colladaAsString;
 	}
@@ -53,7 +53,7 @@ import org.citydb.event.global.GeometryCounterEvent;
 import org.citydb.log.Logger;
 import org.citydb.modules.kml.util.AffineTransformer;
 import org.citydb.modules.kml.util.BalloonTemplateHandler;
-import org.citydb.modules.kml.util.ElevationServiceHandler;
+import org.citydb.modules.kml.util.ElevationProvider;
 import org.citydb.query.Query;
 import org.citydb.util.Util;
 import org.citygml4j.geometry.Matrix;
@@ -85,7 +85,7 @@ public class GenericCityObject extends KmlGenericObject{
 			net.opengis.kml._2.ObjectFactory kmlFactory,
 			AbstractDatabaseAdapter databaseAdapter,
 			BlobExportAdapter textureExportAdapter,
-			ElevationServiceHandler elevationServiceHandler,
+			ElevationProvider elevationProvider,
 			BalloonTemplateHandler balloonTemplateHandler,
 			EventDispatcher eventDispatcher,
 			Config config) {
@@ -96,7 +96,7 @@ public class GenericCityObject extends KmlGenericObject{
 				kmlFactory,
 				databaseAdapter,
 				textureExportAdapter,
-				elevationServiceHandler,
+				elevationProvider,
 				balloonTemplateHandler,
 				eventDispatcher,
 				config);
@@ -272,6 +272,15 @@ public class GenericCityObject extends KmlGenericObject{
 						break;
 						
 					case DisplayForm.COLLADA:
+						// implicit geometries may reference a shared prototype model
+						if (transformer != null && isColladaInstancingEnabled()
+								&& exportAsColladaInstance(rs, work, sgRootId, transformer)) {
+							if (work.getDisplayForm().isHighlightingEnabled())
+								kmlExporterManager.print(createPlacemarksForHighlighting(rs, work, transformer, false), work, getBalloonSettings().isBalloonContentInSeparateFile());
+
+							break;
+						}
+
 					String currentgmlId = getGmlId();
 					setGmlId(work.getGmlId());
 					setId(work.getId());
@@ -617,6 +626,8 @@ public class GenericCityObject extends KmlGenericObject{
 						setBalloonTemplateHandler(new BalloonTemplateHandler(new File(balloonTemplateFilename), databaseAdapter));
 					}
 					addBalloonContents(placemark, work.getId());
+					if (getBalloonTemplateHandler() != null)
+						getBalloonTemplateHandler().close();
 				}
 
 			}
@@ -645,6 +656,8 @@ public class GenericCityObject extends KmlGenericObject{
 					}
 					// this is the reason for the isPoint dirty hack
 					addBalloonContents(placemark, work.getId());
+					if (getBalloonTemplateHandler() != null)
+						getBalloonTemplateHandler().close();
 				}
 				switch (pacSettings.getCurveAltitudeMode()) {
 				case ABSOLUTE:
@@ -49,8 +49,14 @@ import org.citydb.log.Logger;
 import org.citydb.modules.kml.util.BalloonTemplateHandler;
 import org.citydb.modules.kml.util.CityObject4JSON;
 import org.citydb.modules.kml.util.ExportTracker;
+import org.citydb.modules.kml.util.KmzArchive;
+import org.citydb.modules.kml.util.TextureCache;
+import org.citydb.modules.kml.util.TextureCache.CachedTexture;
+import org.citydb.modules.kml.util.TriangulationCache;
 import org.citydb.query.Query;
+import org.citydb.textureAtlas.model.TextureImage;
 import org.citydb.util.ClientConstants;
+import org.citydb.writer.SAXEventBufferPool;
 import org.citygml4j.util.xml.SAXEventBuffer;
 
 import javax.imageio.ImageIO;
@@ -58,6 +64,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -65,10 +72,13 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -79,6 +89,9 @@ public class KmlExporterManager {
 	private final JAXBContext jaxbColladaContext;
 	private final AbstractDatabaseAdapter databaseAdapter;
 	private final WorkerPool<SAXEventBuffer> writerPool;
+	private final SAXEventBufferPool bufferPool;
+	private final TextureCache textureCache;
+	private final TriangulationCache triangulationCache;
 	private final ExportTracker tracker;
 	private final ObjectFactory kmlFactory; 
 	private final BlobExportAdapter textureExportAdapter;
@@ -95,10 +108,17 @@ public class KmlExporterManager {
 
 	private long implicitId;
 
+	// each export worker owns its manager, so the marshallers are never shared between threads
+	private Marshaller kmlMarshaller;
+	private Marshaller colladaMarshaller;
+
 	public KmlExporterManager(JAXBContext jaxbKmlContext,
 			JAXBContext jaxbColladaContext,
 			AbstractDatabaseAdapter databaseAdapter,
 			WorkerPool<SAXEventBuffer> writerPool,
+			SAXEventBufferPool bufferPool,
+			TextureCache textureCache,
+			TriangulationCache triangulationCache,
 			ExportTracker tracker,
 			Query query,
 			ObjectFactory kmlFactory,
@@ -109,6 +129,9 @@ public class KmlExporterManager {
 		this.jaxbColladaContext = jaxbColladaContext;
 		this.databaseAdapter = databaseAdapter;
 		this.writerPool = writerPool;
+		this.bufferPool = bufferPool;
+		this.textureCache = textureCache;
+		this.triangulationCache = triangulationCache;
 		this.tracker = tracker;
 		this.kmlFactory = kmlFactory;
 		this.textureExportAdapter = textureExportAdapter;
@@ -164,17 +187,19 @@ public class KmlExporterManager {
 		return this.tracker;
 	}
 
+	public TextureCache getTextureCache() {
+		return textureCache;
+	}
+
+	public TriangulationCache getTriangulationCache() {
+		return triangulationCache;
+	}
+
 	public void print(List<PlacemarkType> placemarkList,
 			KmlSplittingResult work,
 			boolean balloonInSeparateFile) throws JAXBException {
-		SAXEventBuffer buffer = new SAXEventBuffer();
-		Marshaller kmlMarshaller = jaxbKmlContext.createMarshaller();
-		if (useTiling && config.getProject().getKmlExporter().isOneFilePerObject()) {
-			kmlMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-		}
-		else {
-			kmlMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-		}
+		SAXEventBuffer buffer = bufferPool.take();
+		Marshaller kmlMarshaller = getKmlMarshaller();
 
 		// all placemarks in this list belong together (same gmlid),
 		// so the balloon must be extracted only once.
@@ -208,7 +233,16 @@ public class KmlExporterManager {
 
 							// --------------- create subfolder ---------------
 
-							if (config.getProject().getKmlExporter().isExportAsKmz()) {
+							KmzArchive kmzArchive = tracker.getCurrentKmzArchive();
+							if (config.getProject().getKmlExporter().isExportAsKmz() && kmzArchive != null) {
+								if (!useTiling || !config.getProject().getKmlExporter().isOneFilePerObject()) {
+									// stream the balloon into the kmz archive
+									kmzArchive.addEntry(BalloonTemplateHandler.balloonDirectoryName + "/" + work.getGmlId() + '-' + work.getId() + ".html",
+											placemarkDescription.getBytes(CHARSET));
+									directory = null;
+								}
+							}
+							else if (config.getProject().getKmlExporter().isExportAsKmz()) {
 								if (!useTiling || !config.getProject().getKmlExporter().isOneFilePerObject()) {
 									// export temporarily as kml, it will be later added to kmz if needed
 									directory = new File(path, TEMP_FOLDER);
@@ -227,7 +261,7 @@ public class KmlExporterManager {
 								}
 							}
 
-							if (!useTiling || !config.getProject().getKmlExporter().isOneFilePerObject() || !config.getProject().getKmlExporter().isExportAsKmz()) {
+							if (directory != null && (!useTiling || !config.getProject().getKmlExporter().isOneFilePerObject() || !config.getProject().getKmlExporter().isExportAsKmz())) {
 								try {
 									File balloonsDirectory = new File(directory, BalloonTemplateHandler.balloonDirectoryName);
 									if (!balloonsDirectory.exists()) {
@@ -371,7 +405,8 @@ public class KmlExporterManager {
 			// buffer should not be empty, otherwise cause an error exception in IO Worker
 			if (!buffer.isEmpty()) {
 				writerPool.addWork(buffer); // placemark or region depending on isOneFilePerObject()
-			}      		       		
+			} else
+				bufferPool.release(buffer);
 		}
 		catch (IOException ioe) {
 			log.logStackTrace(ioe);
@@ -384,24 +419,14 @@ public class KmlExporterManager {
 	SQLException {
 		ZipOutputStream zipOut = null;
 		OutputStreamWriter fileWriter = null;
-		SAXEventBuffer buffer = new SAXEventBuffer();
-
-		Marshaller kmlMarshaller = jaxbKmlContext.createMarshaller();
-		if (useTiling && config.getProject().getKmlExporter().isOneFilePerObject()) {
-			kmlMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-		}
-		else {
-			kmlMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-		}
-
-		Marshaller colladaMarshaller = jaxbColladaContext.createMarshaller();
-		colladaMarshaller.setProperty(Marshaller.JAXB_ENCODING, ENCODING);
-		colladaMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+		Marshaller kmlMarshaller = getKmlMarshaller();
+		Marshaller colladaMarshaller = getColladaMarshaller();
 
 		PlacemarkType placemark = colladaBundle.getPlacemark();
 		String path = tracker.getCurrentWorkingDirectoryPath();
 
 		if (placemark != null) {
+			SAXEventBuffer buffer = bufferPool.take();
 			String placemarkDescription = placemark.getDescription();
 
 			if (placemarkDescription != null && balloonInSeparateFile) {
@@ -512,7 +537,7 @@ public class KmlExporterManager {
 			colladaBundle.setCollada(null); // free heap space
 
 			// ----------------- model saving -----------------
-			ZipEntry zipEntry = new ZipEntry(colladaBundle.getId() + "/" + colladaBundle.getGmlId() + ".dae");
+			ZipEntry zipEntry = new ZipEntry(colladaBundle.getDirectoryName() + "/" + colladaBundle.getGmlId() + ".dae");
 			zipOut.putNextEntry(zipEntry);
 			zipOut.write(colladaBundle.getColladaAsString().getBytes(CHARSET));
 			zipOut.closeEntry();
@@ -523,10 +548,10 @@ public class KmlExporterManager {
 				Iterator<String> iterator = keySet.iterator();
 				while (iterator.hasNext()) {
 					String imageFilename = iterator.next();
-					byte[] ordImageBytes = textureExportAdapter.getInByteArray(colladaBundle.getUnsupportedTexImageIds().get(imageFilename), imageFilename);
+					byte[] ordImageBytes = getTexImageBytes(colladaBundle.getUnsupportedTexImageIds().get(imageFilename), imageFilename);
 					zipEntry = imageFilename.startsWith("..") ?
 							new ZipEntry(imageFilename.substring(3)): // skip .. and File.separator
-								new ZipEntry(colladaBundle.getId() + "/" + imageFilename);
+								new ZipEntry(colladaBundle.getDirectoryName() + "/" + imageFilename);
 							zipOut.putNextEntry(zipEntry);
 							zipOut.write(ordImageBytes, 0, ordImageBytes.length);
 							zipOut.closeEntry();
@@ -540,12 +565,17 @@ public class KmlExporterManager {
 					String imageFilename = iterator.next();
 					BufferedImage texImage = colladaBundle.getTexImages().get(imageFilename).getBufferedImage();
 					String imageType = imageFilename.substring(imageFilename.lastIndexOf('.') + 1);
+					byte[] originalBytes = colladaBundle.getOriginalTexImages() != null ? colladaBundle.getOriginalTexImages().get(imageFilename) : null;
 
 					zipEntry = imageFilename.startsWith("..") ?
 							new ZipEntry(imageFilename.substring(3)): // skip .. and File.separator
-								new ZipEntry(colladaBundle.getId() + "/" + imageFilename);
+								new ZipEntry(colladaBundle.getDirectoryName() + "/" + imageFilename);
 							zipOut.putNextEntry(zipEntry);
-							ImageIO.write(texImage, imageType, zipOut);
+							// unmodified images are copied as they are stored in the database
+							if (originalBytes != null)
+								zipOut.write(originalBytes, 0, originalBytes.length);
+							else
+								ImageIO.write(texImage, imageType, zipOut);
 							zipOut.closeEntry();
 				}
 			}
@@ -560,6 +590,11 @@ public class KmlExporterManager {
 
 			zipOut.close();
 		}
+		else if (config.getProject().getKmlExporter().isExportAsKmz()
+				&& !config.getProject().getKmlExporter().isCreateGltfModel()
+				&& tracker.getCurrentKmzArchive() != null) {
+			printToKmzArchive(colladaBundle, tracker.getCurrentKmzArchive());
+		}
 		else {
 			if (config.getProject().getKmlExporter().isExportAsKmz()) {
 
@@ -573,7 +608,7 @@ public class KmlExporterManager {
 			}
 
 			// --------------- create subfolder ---------------
-			File buildingDirectory = new File(path, String.valueOf(colladaBundle.getId()));
+			File buildingDirectory = new File(path, colladaBundle.getDirectoryName());
 			if (!buildingDirectory.exists()) {
 				buildingDirectory.mkdir();
 			}
@@ -598,7 +633,11 @@ public class KmlExporterManager {
 				while (iterator.hasNext()) {
 					String imageFilename = iterator.next();
 					String fileName = buildingDirectory + File.separator + imageFilename;
-					textureExportAdapter.writeToFile(colladaBundle.getUnsupportedTexImageIds().get(imageFilename), imageFilename, fileName);
+					CachedTexture cachedTexture = textureCache != null ? textureCache.get(colladaBundle.getUnsupportedTexImageIds().get(imageFilename)) : null;
+					if (cachedTexture != null)
+						Files.write(Paths.get(fileName), cachedTexture.getBytes());
+					else
+						textureExportAdapter.writeToFile(colladaBundle.getUnsupportedTexImageIds().get(imageFilename), imageFilename, fileName);
 				}
 			}
 
@@ -611,8 +650,15 @@ public class KmlExporterManager {
 					String imageType = imageFilename.substring(imageFilename.lastIndexOf('.') + 1);
 
 					File imageFile = new File(buildingDirectory, imageFilename);
-					if (!imageFile.exists()) // avoid overwriting and access conflicts
-						ImageIO.write(texImage, imageType, imageFile);					
+					if (!imageFile.exists()) { // avoid overwriting and access conflicts
+						byte[] originalBytes = colladaBundle.getOriginalTexImages() != null ? colladaBundle.getOriginalTexImages().get(imageFilename) : null;
+
+						// unmodified images are copied as they are stored in the database
+						if (originalBytes != null)
+							Files.write(imageFile.toPath(), originalBytes);
+						else
+							ImageIO.write(texImage, imageType, imageFile);
+					}
 				}
 			}
 
@@ -650,6 +696,86 @@ public class KmlExporterManager {
 		}
 	}
 
+	private void printToKmzArchive(ColladaBundle colladaBundle, KmzArchive kmzArchive) throws JAXBException, IOException, SQLException {
+		String buildingDirectory = colladaBundle.getDirectoryName();
+
+		// ----------------- model saving -----------------
+		ByteArrayOutputStream model = new ByteArrayOutputStream();
+		getColladaMarshaller().marshal(colladaBundle.getCollada(), model);
+		colladaBundle.setCollada(null); // free heap space
+		kmzArchive.addEntry(buildingDirectory + "/" + colladaBundle.getGmlId() + ".dae", model.toByteArray());
+
+		// ----------------- image saving -----------------
+		if (colladaBundle.getUnsupportedTexImageIds() != null) {
+			for (Entry<String, Long> entry : colladaBundle.getUnsupportedTexImageIds().entrySet()) {
+				String entryName = getKmzEntryName(buildingDirectory, entry.getKey());
+				if (!kmzArchive.containsEntry(entryName))
+					kmzArchive.addEntry(entryName, getTexImageBytes(entry.getValue(), entry.getKey()));
+			}
+		}
+
+		if (colladaBundle.getTexImages() != null) {
+			for (Entry<String, TextureImage> entry : colladaBundle.getTexImages().entrySet()) {
+				String imageFilename = entry.getKey();
+				String entryName = getKmzEntryName(buildingDirectory, imageFilename);
+				if (kmzArchive.containsEntry(entryName))
+					continue;
+
+				// unmodified images are copied as they are stored in the database
+				byte[] imageBytes = colladaBundle.getOriginalTexImages() != null ? colladaBundle.getOriginalTexImages().get(imageFilename) : null;
+				if (imageBytes == null) {
+					ByteArrayOutputStream image = new ByteArrayOutputStream();
+					ImageIO.write(entry.getValue().getBufferedImage(), imageFilename.substring(imageFilename.lastIndexOf('.') + 1), image);
+					imageBytes = image.toByteArray();
+				}
+
+				kmzArchive.addEntry(entryName, imageBytes);
+			}
+		}
+
+		// ----------------- balloon saving -----------------
+		if (colladaBundle.getExternalBalloonFileContent() != null) {
+			kmzArchive.addEntry(buildingDirectory + "/" + BalloonTemplateHandler.balloonDirectoryName + "/" + colladaBundle.getGmlId() + '-' + colladaBundle.getId() + ".html",
+					colladaBundle.getExternalBalloonFileContent().getBytes(CHARSET));
+		}
+	}
+
+	private String getKmzEntryName(String buildingDirectory, String fileName) {
+		// file names starting with .. point to the parent folder of the building directory
+		return fileName.startsWith("..") ?
+				fileName.substring(3).replace(File.separator, "/") :
+				buildingDirectory + "/" + fileName.replace(File.separator, "/");
+	}
+
+	private Marshaller getKmlMarshaller() throws JAXBException {
+		if (kmlMarshaller == null) {
+			kmlMarshaller = jaxbKmlContext.createMarshaller();
+			if (useTiling && config.getProject().getKmlExporter().isOneFilePerObject()) {
+				kmlMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+			}
+			else {
+				kmlMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+			}
+		}
+
+		return kmlMarshaller;
+	}
+
+	private byte[] getTexImageBytes(long texImageId, String imageFilename) throws SQLException {
+		CachedTexture cachedTexture = textureCache != null ? textureCache.get(texImageId) : null;
+		return cachedTexture != null ? cachedTexture.getBytes() : textureExportAdapter.getInByteArray(texImageId, imageFilename);
+	}
+
+	private Marshaller getColladaMarshaller() throws JAXBException {
+		if (colladaMarshaller == null) {
+			colladaMarshaller = jaxbColladaContext.createMarshaller();
+			colladaMarshaller.setProperty(Marshaller.JAXB_ENCODING, ENCODING);
+			colladaMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+		}
+
+		return colladaMarshaller;
+	}
+
 	private void convertColladaToglTF(ColladaBundle colladaBundle, File buildingDirectory, File colladaModelFile, File gltfModelFile, boolean exportGltfV1) {
 		String collada2gltfPath = config.getProject().getKmlExporter().getPathOfGltfConverter();
 		File collada2gltfFile = new File(ClientConstants.IMPEXP_HOME.resolve(collada2gltfPath).toString());
@@ -27,8 +27,6 @@
  */
 package org.citydb.modules.kml.database;
 
-import com.sun.j3d.utils.geometry.GeometryInfo;
-import com.sun.j3d.utils.geometry.NormalGenerator;
 import net.opengis.kml._2.AltitudeModeEnumType;
 import net.opengis.kml._2.BoundaryType;
 import net.opengis.kml._2.LinearRingType;
@@ -39,6 +37,7 @@ import net.opengis.kml._2.MultiGeometryType;
 import net.opengis.kml._2.OrientationType;
 import net.opengis.kml._2.PlacemarkType;
 import net.opengis.kml._2.PolygonType;
+import net.opengis.kml._2.ScaleType;
 import org.citydb.config.Config;
 import org.citydb.config.geometry.ElementType;
 import org.citydb.config.geometry.GeometryObject;
@@ -54,6 +53,7 @@ import org.citydb.config.project.kmlExporter.KmlExporter;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
 import org.citydb.database.adapter.AbstractGeometryConverterAdapter;
 import org.citydb.database.adapter.BlobExportAdapter;
+import org.citydb.database.adapter.CoordinateTransformer;
 import org.citydb.event.EventDispatcher;
 import org.citydb.event.global.CounterEvent;
 import org.citydb.event.global.CounterType;
@@ -62,7 +62,17 @@ import org.citydb.log.Logger;
 import org.citydb.modules.kml.datatype.TypeAttributeValueEnum;
 import org.citydb.modules.kml.util.AffineTransformer;
 import org.citydb.modules.kml.util.BalloonTemplateHandler;
-import org.citydb.modules.kml.util.ElevationServiceHandler;
+import org.citydb.modules.kml.util.ColladaStatistics;
+import org.citydb.modules.kml.util.ElevationProvider;
+import org.citydb.modules.kml.util.GeometrySimplifier;
+import org.citydb.modules.kml.util.ImplicitGeometryPrototype;
+import org.citydb.modules.kml.util.MeshBuilder;
+import org.citydb.modules.kml.util.MeshBuilder.IndexBuffer;
+import org.citydb.modules.kml.util.PolygonTriangulator;
+import org.citydb.modules.kml.util.PolygonTriangulator.Triangulation;
+import org.citydb.modules.kml.util.TextureCache;
+import org.citydb.modules.kml.util.TextureCache.CachedTexture;
+import org.citydb.modules.kml.util.TriangulationCache;
 import org.citydb.query.Query;
 import org.citydb.textureAtlas.TextureAtlasCreator;
 import org.citydb.textureAtlas.image.ImageReader;
@@ -113,11 +123,12 @@ import org.collada._2005._11.colladaschema.Triangles;
 import org.collada._2005._11.colladaschema.UpAxisType;
 import org.collada._2005._11.colladaschema.Vertices;
 import org.collada._2005._11.colladaschema.VisualScene;
+import org.opengis.referencing.operation.TransformException;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import javax.vecmath.Point3d;
-import javax.vecmath.Vector3f;
+import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeConstants;
 import javax.xml.datatype.DatatypeFactory;
@@ -129,6 +140,8 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.math.BigInteger;
@@ -143,7 +156,9 @@ import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringTokenizer;
 
@@ -161,6 +176,9 @@ public abstract class KmlGenericObject {
 	private HashMap<Object, String> texImageUris = new HashMap<Object, String>();
 	// key is imageUri
 	private HashMap<String, TextureImage> texImages = new HashMap<String, TextureImage>();
+	// decoded images together with their encoded bytes as read from the database
+	// key is imageUri
+	private HashMap<String, CachedTexture> cachedTexImages = new HashMap<String, CachedTexture>();
 	// for images in unusual formats or wrapping textures. Most times it will be null.
 	// key is imageUri
 	private HashMap<String, Long> unsupportedTexImageIds = null;
@@ -169,7 +187,7 @@ public abstract class KmlGenericObject {
 
 	private long id;
 	private String gmlId;
-	private BigInteger vertexIdCounter = new BigInteger("-1");
+	private long vertexIdCounter = -1;
 	protected VertexInfo firstVertexInfo = null;
 	private VertexInfo lastVertexInfo = null;
 
@@ -189,7 +207,7 @@ public abstract class KmlGenericObject {
 	protected AbstractDatabaseAdapter databaseAdapter;
 	protected BlobExportAdapter textureExportAdapter;
 	protected AbstractGeometryConverterAdapter geometryConverterAdapter;
-	protected ElevationServiceHandler elevationServiceHandler;
+	protected ElevationProvider elevationProvider;
 	protected BalloonTemplateHandler balloonTemplateHandler;
 	protected EventDispatcher eventDispatcher;
 	protected Config config;
@@ -198,6 +216,7 @@ public abstract class KmlGenericObject {
 	protected DatabaseSrs dbSrs;
 	protected X3DMaterial defaultX3dMaterial;
 	protected Queries queries;
+	protected LodAvailabilityCache lodAvailabilityCache;
 
 	private SimpleDateFormat dateFormatter;
 	private final ImageReader imageReader;
@@ -208,7 +227,7 @@ public abstract class KmlGenericObject {
 			net.opengis.kml._2.ObjectFactory kmlFactory,
 			AbstractDatabaseAdapter databaseAdapter,
 			BlobExportAdapter textureExportAdapter,
-			ElevationServiceHandler elevationServiceHandler,
+			ElevationProvider elevationProvider,
 			BalloonTemplateHandler balloonTemplateHandler,
 			EventDispatcher eventDispatcher,
 			Config config) {
@@ -218,7 +237,7 @@ public abstract class KmlGenericObject {
 		this.kmlExporterManager = kmlExporterManager;
 		this.kmlFactory = kmlFactory;
 		this.textureExportAdapter = textureExportAdapter;
-		this.elevationServiceHandler = elevationServiceHandler;
+		this.elevationProvider = elevationProvider;
 		this.balloonTemplateHandler = balloonTemplateHandler;
 		this.eventDispatcher = eventDispatcher;
 		this.config = config;
@@ -242,6 +261,11 @@ public abstract class KmlGenericObject {
 	}
 
 	public abstract void read(KmlSplittingResult work);
+
+	public void setLodAvailabilityCache(LodAvailabilityCache lodAvailabilityCache) {
+		this.lodAvailabilityCache = lodAvailabilityCache;
+	}
+
 	public abstract String getStyleBasisName();
 	public abstract ColladaOptions getColladaOptions();
 	public abstract Balloon getBalloonSettings();
@@ -265,7 +289,7 @@ public abstract class KmlGenericObject {
 	}
 
 	public void setGmlId(String gmlId) {
-		this.gmlId = gmlId.replace(':', '_');
+		this.gmlId = gmlId != null ? gmlId.replace(':', '_') : null;
 	}
 
 	public String getGmlId() {
@@ -323,7 +347,7 @@ public abstract class KmlGenericObject {
 	}
 
 	public COLLADA generateColladaTree() throws DatatypeConfigurationException{
-
+		long start = System.nanoTime();
 		ObjectFactory colladaFactory = new ObjectFactory();
 
 		// java and XML...
@@ -446,7 +470,6 @@ public abstract class KmlGenericObject {
 
 		geometry.setMesh(mesh);
 		libraryGeometries.getGeometry().add(geometry);
-		BigInteger texCoordsCounter = BigInteger.ZERO;
 
 		// --------------------------- visual scenes ---------------------------
 		VisualScene visualScene = colladaFactory.createVisualScene();
@@ -466,10 +489,20 @@ public abstract class KmlGenericObject {
 		Triangles triangles = null;
 		HashMap<String, Triangles> trianglesByTexImageName = new HashMap<String, Triangles>();
 
+		PolygonTriangulator triangulator = new PolygonTriangulator();
+		TriangulationCache triangulationCache = kmlExporterManager.getTriangulationCache();
+		ColladaStatistics statistics = kmlExporterManager.getExportTracker().getColladaStatistics();
+
+		// simplify surfaces within the geometric error before they are triangulated
+		GeometrySimplifier simplifier = getColladaOptions().isSimplifyGeometries() ?
+				new GeometrySimplifier(getColladaOptions().getSimplificationError()) : null;
+
+		// positions, normals and texture coordinates are welded into indexed buffers
+		MeshBuilder meshBuilder = new MeshBuilder();
+
 		// geometryInfos contains all surfaces, textured or not
 		Set<Long> keySet = surfaceInfos.keySet();
 		Iterator<Long> iterator = keySet.iterator();
-		int normalIndexOffset = 0;
 
 		while (iterator.hasNext()) {
 			Long surfaceId = iterator.next();
@@ -685,114 +718,73 @@ public abstract class KmlGenericObject {
 			// --------------------------- geometry (variable part) ---------------------------
 			SurfaceInfo surfaceInfo = surfaceInfos.get(surfaceId);						
 			List<VertexInfo> vertexInfos = surfaceInfo.getVertexInfos();
-			double[] ordinatesArray = new double[vertexInfos.size() * 3];
-
-			int count = 0;
-			for (VertexInfo vertexInfo : vertexInfos) {
-				ordinatesArray[count++] = vertexInfo.getX() - origin.x;
-				ordinatesArray[count++] = vertexInfo.getY() - origin.y;
-				ordinatesArray[count++] = vertexInfo.getZ() - origin.z;
-			}
 
-			GeometryInfo ginfo = new GeometryInfo(GeometryInfo.POLYGON_ARRAY);
-			ginfo.setCoordinates(ordinatesArray);
-			ginfo.setContourCounts(surfaceInfo.getRingCountAsArray());
-			ginfo.setStripCounts(surfaceInfo.getVertexCount());
-			int outerRingCount = ginfo.getStripCounts()[0];
+			// implicit geometries are assigned generated negative ids and must not be cached
+			Triangulation triangulation = triangulationCache != null && surfaceId >= 0 ?
+					triangulationCache.get(surfaceId, vertexInfos.size()) : null;
 
-			// triangulate the surface geometry
-			ginfo.convertToIndexedTriangles();
+			if (triangulation == null) {
+				double[] ordinatesArray = new double[vertexInfos.size() * 3];
 
-			// generate normals
-			NormalGenerator ng = new NormalGenerator();
-			ng.generateNormals(ginfo);
-
-			int[] indexes = ginfo.getCoordinateIndices();
-			int[] normalIndexes = ginfo.getNormalIndices();			
-			Vector3f[] normals = ginfo.getNormals();
-
-			// fix a reversed orientation of the triangulated surface 
-			byte[] edges = {0, 1, 1, 2, 2, 0};			
-			boolean hasFound = false;
-			boolean reverse = false;
-
-			for (int i = 0; !hasFound && i < indexes.length; i += 3) {				
-				// skip degenerated triangles
-				if (indexes[i] == indexes[i + 1] || indexes[i + 1] == indexes[i + 2] || indexes[i] == indexes[i + 2])
-					continue;
-
-				// find the first edge on the exterior ring
-				for (int j = 0; j < edges.length; j += 2) {
-					int first = i + edges[j];
-					int second = i + edges[j + 1]; 
-
-					if (indexes[first] < outerRingCount && indexes[second] < outerRingCount && Math.abs(indexes[first] - indexes[second]) == 1) {
-						// ok, we found it. now check the order of the vertex indices
-						hasFound = true;						
-						if (indexes[first] > indexes[second])
-							reverse = true;
-
-						break;
-					}
+				int count = 0;
+				for (VertexInfo vertexInfo : vertexInfos) {
+					ordinatesArray[count++] = vertexInfo.getX() - origin.x;
+					ordinatesArray[count++] = vertexInfo.getY() - origin.y;
+					ordinatesArray[count++] = vertexInfo.getZ() - origin.z;
 				}
-			}
 
-			// reverse indexes and normals
-			if (reverse) {
-				ginfo.reverse();
-				for (int i = 0; i < normals.length; i++)
-					normals[i].negate();
+				// triangulate the surface geometry keeping the orientation of the exterior ring
+				triangulation = simplifier != null ?
+						simplifier.triangulate(triangulator, ordinatesArray, surfaceInfo.getVertexCount()) :
+						triangulator.triangulate(ordinatesArray, surfaceInfo.getVertexCount());
+				if (triangulationCache != null && surfaceId >= 0)
+					triangulationCache.put(surfaceId, vertexInfos.size(), triangulation);
 			}
 
+			int[] indexes = triangulation.getIndices();
+			double[] normal = triangulation.getNormal();
+			statistics.addSurface(vertexInfos.size(), indexes, simplifier != null);
+			if (indexes.length == 0)
+				continue;
+
+			// the surface is planar, so a single flat normal is shared by all its triangles
+			int normalIndex = getColladaOptions().isGenerateSurfaceNormals() ?
+					meshBuilder.addNormal(normal[0], normal[1], normal[2]) : -1;
+
 			// use vertex indices of the triangulation to populate
-			// the vertex arrays in the collada file
+			// the index buffer of the material
+			IndexBuffer indexBuffer = meshBuilder.getIndexBuffer(texImageName);
 			for (int i = 0; i < indexes.length; i++) {				
 				VertexInfo vertexInfo = vertexInfos.get(indexes[i]);
-				triangles.getP().add(vertexInfo.getVertexId());
+				indexBuffer.add(meshBuilder.addPosition(vertexInfo.getX() - origin.x,
+						vertexInfo.getY() - origin.y,
+						vertexInfo.getZ() - origin.z));
 
-				if (getColladaOptions().isGenerateSurfaceNormals())
-					triangles.getP().add(BigInteger.valueOf(normalIndexes[i] + normalIndexOffset));
+				if (normalIndex != -1)
+					indexBuffer.add(normalIndex);
 
 				if (surfaceTextured) {
 					TexCoords texCoords = vertexInfo.getTexCoords(surfaceId);
-					if (texCoords != null) {
-						// trying to save some texture points
-						int indexOfT = texCoordsValues.indexOf(texCoords.getT()); 
-						if (indexOfT > 0 && indexOfT%2 == 1 && // avoid coincidences
-								texCoordsValues.get(indexOfT - 1).equals(texCoords.getS())) {
-							triangles.getP().add(new BigInteger(String.valueOf((indexOfT - 1)/2)));
-						}
-						else {
-							texCoordsValues.add(texCoords.getS());
-							texCoordsValues.add(texCoords.getT());
-							triangles.getP().add(texCoordsCounter);
-							texCoordsCounter = texCoordsCounter.add(BigInteger.ONE);
-						}
-					}
+					if (texCoords != null)
+						indexBuffer.add(meshBuilder.addTexCoords(texCoords.getS(), texCoords.getT()));
 					else { // should never happen
-						triangles.getP().add(texCoordsCounter); // wrong data is better than triangles out of sync
+						indexBuffer.add(meshBuilder.addTexCoords(0, 0)); // wrong data is better than triangles out of sync
 						log.log(LogLevel.DEBUG,
 								"texCoords not found for (" + vertexInfo.getX() + ", " + vertexInfo.getY() + ", "
 										+ vertexInfo.getZ() + "). TOLERANCE = " + TOLERANCE);
 					}
 				}
 			}
-
-			for (Vector3f normal : normals) {
-				normalValues.add(reducePrecisionForXorY((double) normal.x));
-				normalValues.add(reducePrecisionForXorY((double) normal.y));
-				normalValues.add(reducePrecisionForXorY((double) normal.z));
-				normalIndexOffset++;
-			}
 		}
 
-		VertexInfo vertexInfoIterator = firstVertexInfo;
-		while (vertexInfoIterator != null) {
-			positionValues.add(reducePrecisionForXorY((vertexInfoIterator.getX() - origin.x)));
-			positionValues.add(reducePrecisionForXorY((vertexInfoIterator.getY() - origin.y)));
-			positionValues.add(reducePrecisionForZ((vertexInfoIterator.getZ() - origin.z)));
-			vertexInfoIterator = vertexInfoIterator.getNextVertexInfo();
-		} 
+		for (double value : meshBuilder.getPositions())
+			positionValues.add(value);
+
+		for (double value : meshBuilder.getNormals())
+			normalValues.add(value);
+
+		for (double value : meshBuilder.getTexCoords())
+			texCoordsValues.add(value);
 
 		positionArray.setCount(new BigInteger(String.valueOf(positionValues.size()))); // gotta love BigInteger!
 		normalArray.setCount(new BigInteger(String.valueOf(normalValues.size()))); // gotta love BigInteger!
@@ -806,6 +798,7 @@ public abstract class KmlGenericObject {
 		while (trianglesIterator.hasNext()) {
 			String texImageName = trianglesIterator.next();
 			triangles = trianglesByTexImageName.get(texImageName);
+			triangles.getP().addAll(meshBuilder.getIndices(texImageName));
 			triangles.setCount(new BigInteger(String.valueOf(triangles.getP().size()/(3*triangles.getInput().size()))));
 			
 			// Triangles with textures must be first printed. Otherwise it will cause incorrect textures in glTF model
@@ -838,6 +831,7 @@ public abstract class KmlGenericObject {
 		scene.setInstanceVisualScene(instanceWithExtra);
 		collada.setScene(scene);
 
+		statistics.addEncodingTime(System.nanoTime() - start);
 		return collada;
 	}
 
@@ -896,6 +890,25 @@ public abstract class KmlGenericObject {
 
 	protected void removeTexImage(String texImageUri){
 		texImages.remove(texImageUri);
+		cachedTexImages.remove(texImageUri);
+	}
+
+	protected void addCachedTexImage(String texImageUri, CachedTexture cachedTexture){
+		if (cachedTexture != null && cachedTexture.isSupported()) {
+			texImages.put(texImageUri, cachedTexture.getImage());
+			cachedTexImages.put(texImageUri, cachedTexture);
+		}
+	}
+
+	public HashMap<String, byte[]> getOriginalTexImages(){
+		HashMap<String, byte[]> originalTexImages = new HashMap<String, byte[]>();
+		for (Entry<String, CachedTexture> entry : cachedTexImages.entrySet()) {
+			// images that have been cropped, scaled or atlased are no longer the decoded instance
+			if (texImages.get(entry.getKey()) == entry.getValue().getImage())
+				originalTexImages.put(entry.getKey(), entry.getValue().getBytes());
+		}
+
+		return originalTexImages;
 	}
 
 	public HashMap<String, TextureImage> getTexImages(){
@@ -935,7 +948,7 @@ public abstract class KmlGenericObject {
 	}
 
 	protected VertexInfo setVertexInfoForXYZ(long surfaceId, double x, double y, double z){
-		vertexIdCounter = vertexIdCounter.add(BigInteger.ONE);
+		vertexIdCounter++;
 		VertexInfo vertexInfo = new VertexInfo(vertexIdCounter, x, y, z);
 		NodeZ nodeToInsert = new NodeZ(z, new NodeY(y, new NodeX(x, vertexInfo)));
 		if (coordinateTree == null) {
@@ -986,7 +999,7 @@ public abstract class KmlGenericObject {
 				currentBasis.value = nodeToInsert.value;
 				linkCurrentVertexInfoToLastVertexInfo(vertexInfoToInsert);
 			} else
-				vertexIdCounter = vertexIdCounter.subtract(BigInteger.ONE);
+				vertexIdCounter--;
 
 			return currentBasis;
 		}
@@ -1051,6 +1064,8 @@ public abstract class KmlGenericObject {
 			String imageUri = objectToAppend.texImageUris.get(surfaceId);
 			this.addTexImageUri(surfaceId, imageUri);
 			this.addTexImage(imageUri, objectToAppend.getTexImage(imageUri));
+			if (objectToAppend.cachedTexImages.containsKey(imageUri))
+				this.cachedTexImages.put(imageUri, objectToAppend.cachedTexImages.get(imageUri));
 			this.addUnsupportedTexImageId(imageUri, objectToAppend.getUnsupportedTexImageId(imageUri));
 			this.surfaceInfos.put(surfaceId, objectToAppend.surfaceInfos.get(surfaceId));
 		}
@@ -1183,6 +1198,13 @@ public abstract class KmlGenericObject {
 
 	private void useExternalTAGenerator(int packingAlgorithm, double scaleFactor, boolean pots) throws SQLException, IOException {
 				
+		// decoded images are shared with other objects through the texture cache (also as
+		// cropped subimages), but the texture atlas creator works on its input images in place
+		if (kmlExporterManager.getTextureCache() != null) {
+			for (Entry<String, TextureImage> entry : texImages.entrySet())
+				entry.setValue(copyTextureImage(entry.getValue()));
+		}
+
 		TextureAtlasCreator taCreator = new TextureAtlasCreator();
 		TextureImagesInfo tiInfo = new TextureImagesInfo();
 		tiInfo.setTexImageURIs(texImageUris);
@@ -1236,6 +1258,13 @@ public abstract class KmlGenericObject {
 		} 
 	}	
 
+	private TextureImage copyTextureImage(TextureImage texImage) {
+		BufferedImage image = texImage.getBufferedImage();
+		ColorModel colorModel = image.getColorModel();
+		WritableRaster raster = image.copyData(image.getRaster().createCompatibleWritableRaster());
+		return new TextureImage(new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null));
+	}
+
 	public void resizeAllImagesByFactor (double factor) throws SQLException, IOException {
 		if (texImages.size() == 0) { // building has no textures at all
 			return;
@@ -1514,209 +1543,204 @@ public abstract class KmlGenericObject {
 		MultiGeometryType multiGeometry = null;
 		PolygonType polygon = null;
 
-		_rs.beforeFirst(); // return cursor to beginning
-
-		while (_rs.next()) {
-			AffineTransformer transformer = globalTransformer;
-			long rootId = _rs.getLong(1);
+		SurfaceGeometryBatch geometries = querySurfaceGeometries(_rs, false, globalTransformer, supportsNestedImplicitGeometries);
+		try {
+			while (_rs.next()) {
+				AffineTransformer transformer = globalTransformer;
+				long rootId = _rs.getLong(1);
+
+				if (rootId == 0) {
+					// get nested implicit geometry
+					if (supportsNestedImplicitGeometries) {
+						rootId = _rs.getLong(3);
+						transformer = getAffineTransformer(_rs, 4, 5);
+					}
 
-			if (rootId == 0) {
-				// get nested implicit geometry
-				if (supportsNestedImplicitGeometries) {
-					rootId = _rs.getLong(3);
-					transformer = getAffineTransformer(_rs, 4, 5);
+					if (rootId == 0 || transformer == null)
+						continue;
 				}
 
-				if (rootId == 0 || transformer == null)
+				// skip closure surfaces
+				int surfaceTypeID = _rs.getInt("objectclass_id");
+				if (surfaceTypeID != 0
+						&& (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_CLOSURE_SURFACE 
+						|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_CLOSURE_SURFACE 
+						|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_CLOSURE_SURFACE))				
 					continue;
-			}
 
-			// skip closure surfaces
-			int surfaceTypeID = _rs.getInt("objectclass_id");
-			if (surfaceTypeID != 0
-					&& (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_CLOSURE_SURFACE 
-					|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_CLOSURE_SURFACE 
-					|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_CLOSURE_SURFACE))				
-				continue;
+				ResultSet rs = null;			
 
-			PreparedStatement geometryQuery = null;
-			ResultSet rs = null;			
-
-			try {
-				String query = queries.getSurfaceGeometries(false, transformer != null);
-				geometryQuery = connection.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-				for (int i = 1; i <= getParameterCount(query); i++)
-					geometryQuery.setLong(i, rootId);
-
-				rs = geometryQuery.executeQuery();				
-
-				double zOffset = getZOffsetFromConfigOrDB(work.getId());
-				List<Point3d> lowestPointCandidates = getLowestPointsCoordinates(rs, (zOffset == Double.MAX_VALUE));
-				if (zOffset == Double.MAX_VALUE)
-					zOffset = getZOffsetFromGEService(work.getId(), lowestPointCandidates);
-
-				double lowestZCoordinate = convertPointCoordinatesToWGS84(new double[] {
-						lowestPointCandidates.get(0).x,
-						lowestPointCandidates.get(0).y,	
-						lowestPointCandidates.get(0).z}) [2];
-
-				rs.beforeFirst(); // return cursor to beginning
-
-				while (rs.next()) {
-					// skip duplicate geometries
-					String gmlId = rs.getString("gmlid");
-					boolean isXlink = rs.getBoolean("is_xlink");
-					if (isXlink && gmlId != null && !exportedGmlIds.add(gmlId))
-						continue;
-
-					// skip entries without geometry
-					Object buildingGeometryObj = rs.getObject(1);
-					if (buildingGeometryObj == null)
+				try {
+					if (!geometries.select(rootId, transformer != null))
 						continue;
 
-					GeometryObject unconvertedSurface = geometryConverterAdapter.getPolygon(buildingGeometryObj);
-					if (unconvertedSurface == null || unconvertedSurface.getNumElements() == 0)
-						continue;
+					rs = geometries.getResultSet();
 
-					// for implicit geometries, we need to apply the transformation matrix first
-					if (transformer != null)
-						unconvertedSurface = transformer.applyTransformation(unconvertedSurface);
+					double zOffset = getZOffsetFromConfigOrDB(work.getId());
+					List<Point3d> lowestPointCandidates = getLowestPointsCoordinates(geometries, (zOffset == Double.MAX_VALUE));
+					if (zOffset == Double.MAX_VALUE)
+						zOffset = getZOffsetFromGEService(work.getId(), lowestPointCandidates);
 
-					GeometryObject surface = convertToWGS84(unconvertedSurface);
-					unconvertedSurface = null;
+					double lowestZCoordinate = convertPointCoordinatesToWGS84(new double[] {
+							lowestPointCandidates.get(0).x,
+							lowestPointCandidates.get(0).y,	
+							lowestPointCandidates.get(0).z}) [2];
 
-					eventDispatcher.triggerEvent(new GeometryCounterEvent(null, this));
+					geometries.select(rootId, transformer != null); // return cursor to beginning
 
-					polygon = kmlFactory.createPolygonType();
-					switch (config.getProject().getKmlExporter().getAltitudeMode()) {
-					case ABSOLUTE:
-						polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.ABSOLUTE));
-						break;
-					case RELATIVE:
-						polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.RELATIVE_TO_GROUND));
-						break;
-					case CLAMP_TO_GROUND:
-						polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.CLAMP_TO_GROUND));
-						break;
-					}
+					while (geometries.next()) {
+						// skip duplicate geometries
+						String gmlId = rs.getString("gmlid");
+						boolean isXlink = rs.getBoolean("is_xlink");
+						if (isXlink && gmlId != null && !exportedGmlIds.add(gmlId))
+							continue;
 
-					// in case that the Building, Bridge or Tunnel don't have thematic Surface, but normal LODxSurface, the "surfaceType" variable will be null.
-					// in this case, the thematic surface e.g. WallSurface, RoofSurface can be determined by using a walk-around-way e.g. calculate the Normal-vector
-					String surfaceType = null;
-					if (surfaceTypeID != 0)
-						surfaceType = TypeAttributeValueEnum.fromCityGMLClass(Util.getCityGMLClass(surfaceTypeID)).toString();	
-
-					// just in case surfaceType == null
-					boolean probablyRoof = true;
-					double nx = 0;
-					double ny = 0;
-					double nz = 0;
-
-					for (int i = 0; i < surface.getNumElements(); i++) {
-						LinearRingType linearRing = kmlFactory.createLinearRingType();
-						BoundaryType boundary = kmlFactory.createBoundaryType();
-						boundary.setLinearRing(linearRing);
-
-						if (i == 0)
-							polygon.setOuterBoundaryIs(boundary);
-						else
-							polygon.getInnerBoundaryIs().add(boundary);
-
-						// order points clockwise
-						double[] ordinatesArray = surface.getCoordinates(i);
-						for (int j = 0; j < ordinatesArray.length; j = j+3) {
-							linearRing.getCoordinates().add(String.valueOf(reducePrecisionForXorY(ordinatesArray[j]) + "," 
-									+ reducePrecisionForXorY(ordinatesArray[j+1]) + ","
-									+ reducePrecisionForZ(ordinatesArray[j+2] + zOffset)));
-
-							// not touching the ground
-							probablyRoof = probablyRoof && (reducePrecisionForZ(ordinatesArray[j+2] - lowestZCoordinate) > 0);
-
-							if (currentLod == 1) {
-								// calculate normal
-								int current = j;
-								int next = j+3;
-								if (next >= ordinatesArray.length) next = 0;
-								nx = nx + ((ordinatesArray[current+1] - ordinatesArray[next+1]) * (ordinatesArray[current+2] + ordinatesArray[next+2])); 
-								ny = ny + ((ordinatesArray[current+2] - ordinatesArray[next+2]) * (ordinatesArray[current] + ordinatesArray[next])); 
-								nz = nz + ((ordinatesArray[current] - ordinatesArray[next]) * (ordinatesArray[current+1] + ordinatesArray[next+1]));
-							}
-						}
-					}
+						// skip entries without geometry
+						Object buildingGeometryObj = rs.getObject(1);
+						if (buildingGeometryObj == null)
+							continue;
 
-					if (currentLod == 1) { // calculate normal
-						double value = Math.sqrt(nx * nx + ny * ny + nz * nz);
-						if (value == 0) { // not a surface, but a line
+						GeometryObject unconvertedSurface = geometryConverterAdapter.getPolygon(buildingGeometryObj);
+						if (unconvertedSurface == null || unconvertedSurface.getNumElements() == 0)
 							continue;
+
+						// for implicit geometries, we need to apply the transformation matrix first
+						if (transformer != null)
+							unconvertedSurface = transformer.applyTransformation(unconvertedSurface);
+
+						GeometryObject surface = convertToWGS84(unconvertedSurface);
+						unconvertedSurface = null;
+
+						eventDispatcher.triggerEvent(new GeometryCounterEvent(null, this));
+
+						polygon = kmlFactory.createPolygonType();
+						switch (config.getProject().getKmlExporter().getAltitudeMode()) {
+						case ABSOLUTE:
+							polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.ABSOLUTE));
+							break;
+						case RELATIVE:
+							polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.RELATIVE_TO_GROUND));
+							break;
+						case CLAMP_TO_GROUND:
+							polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.CLAMP_TO_GROUND));
+							break;
 						}
-						nx = nx / value;
-						ny = ny / value;
-						nz = nz / value;
-					}
 
-					if (surfaceType == null) {
-						if (work.getCityGMLClass() == CityGMLClass.BUILDING){
-							surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BUILDING_WALL_SURFACE).toString();
-							switch (currentLod) {
-							case 1:
-								if (probablyRoof && (nz > 0.999)) {
-									surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BUILDING_ROOF_SURFACE).toString();
-								}
-								break;
-							case 2:
-								if (probablyRoof) {
-									surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BUILDING_ROOF_SURFACE).toString();
+						// in case that the Building, Bridge or Tunnel don't have thematic Surface, but normal LODxSurface, the "surfaceType" variable will be null.
+						// in this case, the thematic surface e.g. WallSurface, RoofSurface can be determined by using a walk-around-way e.g. calculate the Normal-vector
+						String surfaceType = null;
+						if (surfaceTypeID != 0)
+							surfaceType = TypeAttributeValueEnum.fromCityGMLClass(Util.getCityGMLClass(surfaceTypeID)).toString();	
+
+						// just in case surfaceType == null
+						boolean probablyRoof = true;
+						double nx = 0;
+						double ny = 0;
+						double nz = 0;
+
+						for (int i = 0; i < surface.getNumElements(); i++) {
+							LinearRingType linearRing = kmlFactory.createLinearRingType();
+							BoundaryType boundary = kmlFactory.createBoundaryType();
+							boundary.setLinearRing(linearRing);
+
+							if (i == 0)
+								polygon.setOuterBoundaryIs(boundary);
+							else
+								polygon.getInnerBoundaryIs().add(boundary);
+
+							// order points clockwise
+							double[] ordinatesArray = surface.getCoordinates(i);
+							for (int j = 0; j < ordinatesArray.length; j = j+3) {
+								linearRing.getCoordinates().add(String.valueOf(reducePrecisionForXorY(ordinatesArray[j]) + "," 
+										+ reducePrecisionForXorY(ordinatesArray[j+1]) + ","
+										+ reducePrecisionForZ(ordinatesArray[j+2] + zOffset)));
+
+								// not touching the ground
+								probablyRoof = probablyRoof && (reducePrecisionForZ(ordinatesArray[j+2] - lowestZCoordinate) > 0);
+
+								if (currentLod == 1) {
+									// calculate normal
+									int current = j;
+									int next = j+3;
+									if (next >= ordinatesArray.length) next = 0;
+									nx = nx + ((ordinatesArray[current+1] - ordinatesArray[next+1]) * (ordinatesArray[current+2] + ordinatesArray[next+2])); 
+									ny = ny + ((ordinatesArray[current+2] - ordinatesArray[next+2]) * (ordinatesArray[current] + ordinatesArray[next])); 
+									nz = nz + ((ordinatesArray[current] - ordinatesArray[next]) * (ordinatesArray[current+1] + ordinatesArray[next+1]));
 								}
-								break;
-							}					
+							}
 						}
-						else if (work.getCityGMLClass() == CityGMLClass.BRIDGE){
-							surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BRIDGE_WALL_SURFACE).toString();
-							/*							switch (currentLod) {
-							case 1:
-								if (probablyRoof && (nz > 0.999)) {
-									surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BRIDGE_ROOF_SURFACE).toString();
-								}
-								break;
-							case 2:
-								if (probablyRoof) {
-									surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BRIDGE_ROOF_SURFACE).toString();
-								}
-								break;
-							}*/						
+
+						if (currentLod == 1) { // calculate normal
+							double value = Math.sqrt(nx * nx + ny * ny + nz * nz);
+							if (value == 0) { // not a surface, but a line
+								continue;
+							}
+							nx = nx / value;
+							ny = ny / value;
+							nz = nz / value;
 						}
-						else if (work.getCityGMLClass() == CityGMLClass.TUNNEL){
-							surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.TUNNEL_WALL_SURFACE).toString();
-							/*							switch (currentLod) {
-							case 1:
-								if (probablyRoof && (nz > 0.999)) {
-									surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.TUNNEL_ROOF_SURFACE).toString();
-								}
-								break;
-							case 2:
-								if (probablyRoof) {
-									surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.TUNNEL_ROOF_SURFACE).toString();
-								}
-								break;
-							}	*/					
+
+						if (surfaceType == null) {
+							if (work.getCityGMLClass() == CityGMLClass.BUILDING){
+								surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BUILDING_WALL_SURFACE).toString();
+								switch (currentLod) {
+								case 1:
+									if (probablyRoof && (nz > 0.999)) {
+										surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BUILDING_ROOF_SURFACE).toString();
+									}
+									break;
+								case 2:
+									if (probablyRoof) {
+										surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BUILDING_ROOF_SURFACE).toString();
+									}
+									break;
+								}					
+							}
+							else if (work.getCityGMLClass() == CityGMLClass.BRIDGE){
+								surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BRIDGE_WALL_SURFACE).toString();
+								/*							switch (currentLod) {
+								case 1:
+									if (probablyRoof && (nz > 0.999)) {
+										surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BRIDGE_ROOF_SURFACE).toString();
+									}
+									break;
+								case 2:
+									if (probablyRoof) {
+										surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.BRIDGE_ROOF_SURFACE).toString();
+									}
+									break;
+								}*/						
+							}
+							else if (work.getCityGMLClass() == CityGMLClass.TUNNEL){
+								surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.TUNNEL_WALL_SURFACE).toString();
+								/*							switch (currentLod) {
+								case 1:
+									if (probablyRoof && (nz > 0.999)) {
+										surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.TUNNEL_ROOF_SURFACE).toString();
+									}
+									break;
+								case 2:
+									if (probablyRoof) {
+										surfaceType = TypeAttributeValueEnum.fromCityGMLClass(CityGMLClass.TUNNEL_ROOF_SURFACE).toString();
+									}
+									break;
+								}	*/					
+							}
 						}
-					}
 
-					multiGeometry = multiGeometries.get(surfaceType);
-					if (multiGeometry == null) {
-						multiGeometry = kmlFactory.createMultiGeometryType();
-						multiGeometries.put(surfaceType, multiGeometry);
+						multiGeometry = multiGeometries.get(surfaceType);
+						if (multiGeometry == null) {
+							multiGeometry = kmlFactory.createMultiGeometryType();
+							multiGeometries.put(surfaceType, multiGeometry);
+						}
+						multiGeometry.getAbstractGeometryGroup().add(kmlFactory.createPolygon(polygon));
 					}
-					multiGeometry.getAbstractGeometryGroup().add(kmlFactory.createPolygon(polygon));
+				} catch (SQLException e) {
+					log.error("SQL error while querying surface geometries: " + e.getMessage());
 				}
-			} catch (SQLException e) {
-				log.error("SQL error while querying surface geometries: " + e.getMessage());
-			} finally {
-				if (rs != null)
-					try { rs.close(); } catch (SQLException e) {}
-				if (geometryQuery != null)
-					try { geometryQuery.close(); } catch (SQLException e) {}
 			}
+		} finally {
+			geometries.close();
 		}
 
 		List<PlacemarkType> placemarkList = new ArrayList<PlacemarkType>();
@@ -1792,231 +1816,243 @@ public abstract class KmlGenericObject {
 
 		HashMap<Long, Long> implicitIdMap = new HashMap<Long, Long>();
 
-		while (_rs.next()) {
-			AffineTransformer transformer = globalTransformer;
-			long rootId = _rs.getLong(1);
+		SurfaceGeometryBatch geometries = querySurfaceGeometries(_rs, exportAppearance, globalTransformer, supportsNestedImplicitGeometries);
+		try {
+			while (_rs.next()) {
+				AffineTransformer transformer = globalTransformer;
+				long rootId = _rs.getLong(1);
+
+				if (rootId == 0) {
+					// get nested implicit geometry
+					if (supportsNestedImplicitGeometries) {
+						rootId = _rs.getLong(3);
+						transformer = getAffineTransformer(_rs, 4, 5);
+					}
 
-			if (rootId == 0) {
-				// get nested implicit geometry
-				if (supportsNestedImplicitGeometries) {
-					rootId = _rs.getLong(3);
-					transformer = getAffineTransformer(_rs, 4, 5);
+					if (rootId == 0 || transformer == null)
+						continue;
 				}
 
-				if (rootId == 0 || transformer == null)
-					continue;
-			}
-
-			boolean isImplicit = transformer != null;
-
-			// skip closure surfaces
-			int surfaceTypeID = _rs.getInt("objectclass_id");
-			if (surfaceTypeID != 0
-					&& (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_CLOSURE_SURFACE 
-					|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_CLOSURE_SURFACE 
-					|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_CLOSURE_SURFACE))
-				continue;
-
-			PreparedStatement geometryQuery = null;
-			ResultSet rs = null;
+				boolean isImplicit = transformer != null;
 
-			try {
-				long surfaceId = 0;
-				long previousSurfaceId = -1;
-				SurfaceInfo surfaceInfo = null;
-
-				String query = queries.getSurfaceGeometries(exportAppearance, isImplicit);
-				geometryQuery = connection.prepareStatement(query);
-				for (int i = 1; i <= getParameterCount(query); i++)
-					geometryQuery.setLong(i, rootId);
-
-				rs = geometryQuery.executeQuery();			
-
-				while (rs.next()) {
-					surfaceId = rs.getLong("id");
-
-					if (isImplicit) {
-						// we generate unique ids for implicit geometries. 
-						// this is only required for grouping objects because
-						// otherwise surfaces with the same id would be overwritten
-						Long tmp = implicitIdMap.get(surfaceId);
-						if (tmp == null) {
-							tmp = kmlExporterManager.nextImplicitId();
-							implicitIdMap.put(surfaceId, tmp);
-						}
+				// skip closure surfaces
+				int surfaceTypeID = _rs.getInt("objectclass_id");
+				if (surfaceTypeID != 0
+						&& (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_CLOSURE_SURFACE 
+						|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_CLOSURE_SURFACE 
+						|| Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_CLOSURE_SURFACE))
+					continue;
 
-						surfaceId = tmp;
-					}
+				ResultSet rs = null;
 
-					if (previousSurfaceId != surfaceId) {				
-						// skip duplicate geometries
-						String gmlId = rs.getString("gmlid");
-						boolean isXlink = rs.getBoolean("is_xlink");
-						if (isXlink && gmlId != null && !exportedGmlIds.add(gmlId))
-							continue;
+				try {
+					long surfaceId = 0;
+					long previousSurfaceId = -1;
+					SurfaceInfo surfaceInfo = null;
 
-						// build geometry
-						Object surfaceObj = rs.getObject(1);
-						surfaceInfo = null;
+					if (!geometries.select(rootId, isImplicit))
+						continue;
 
-						// add surface geometry to internal vertex tree structure
-						if (surfaceObj != null) {
-							GeometryObject surface = geometryConverterAdapter.getPolygon(surfaceObj);
-							if (isImplicit)
-								surface = transformer.applyTransformation(surface);
+					rs = geometries.getResultSet();
 
-							List<VertexInfo> vertexInfos = new ArrayList<VertexInfo>();
-							int ringCount = surface.getNumElements();
-							int[] vertexCount = new int[ringCount];
+					while (geometries.next()) {
+						surfaceId = rs.getLong("id");
 
-							for (int i = 0; i < surface.getNumElements(); i++) {
-								double[] ordinatesArray = surface.getCoordinates(i);
-								int vertices = 0;
+						if (isImplicit) {
+							// we generate unique ids for implicit geometries. 
+							// this is only required for grouping objects because
+							// otherwise surfaces with the same id would be overwritten
+							Long tmp = implicitIdMap.get(surfaceId);
+							if (tmp == null) {
+								tmp = kmlExporterManager.nextImplicitId();
+								implicitIdMap.put(surfaceId, tmp);
+							}
 
-								for (int j = 0; j < ordinatesArray.length - 3; j += 3) {
-									// calculate origin and list of lowest points
-									updateOrigins(ordinatesArray[j], ordinatesArray[j + 1], ordinatesArray[j + 2]);
+							surfaceId = tmp;
+						}
 
-									// get or create node in vertex info tree
-									VertexInfo vertexInfo = setVertexInfoForXYZ(surfaceId,
-											ordinatesArray[j],
-											ordinatesArray[j+1],
-											ordinatesArray[j+2]);
+						if (previousSurfaceId != surfaceId) {				
+							// skip duplicate geometries
+							String gmlId = rs.getString("gmlid");
+							boolean isXlink = rs.getBoolean("is_xlink");
+							if (isXlink && gmlId != null && !exportedGmlIds.add(gmlId))
+								continue;
+
+							// build geometry
+							Object surfaceObj = rs.getObject(1);
+							surfaceInfo = null;
+
+							// add surface geometry to internal vertex tree structure
+							if (surfaceObj != null) {
+								GeometryObject surface = geometryConverterAdapter.getPolygon(surfaceObj);
+								if (isImplicit)
+									surface = transformer.applyTransformation(surface);
+
+								List<VertexInfo> vertexInfos = new ArrayList<VertexInfo>();
+								int ringCount = surface.getNumElements();
+								int[] vertexCount = new int[ringCount];
+
+								for (int i = 0; i < surface.getNumElements(); i++) {
+									double[] ordinatesArray = surface.getCoordinates(i);
+									int vertices = 0;
+
+									for (int j = 0; j < ordinatesArray.length - 3; j += 3) {
+										// calculate origin and list of lowest points
+										updateOrigins(ordinatesArray[j], ordinatesArray[j + 1], ordinatesArray[j + 2]);
+
+										// get or create node in vertex info tree
+										VertexInfo vertexInfo = setVertexInfoForXYZ(surfaceId,
+												ordinatesArray[j],
+												ordinatesArray[j+1],
+												ordinatesArray[j+2]);
+
+										vertexInfos.add(vertexInfo);
+										vertices++;
+									}
 
-									vertexInfos.add(vertexInfo);
-									vertices++;
+									vertexCount[i] = vertices;
 								}
 
-								vertexCount[i] = vertices;
+								surfaceInfo = new SurfaceInfo(ringCount, vertexCount, vertexInfos);
+								addSurfaceInfo(surfaceId, surfaceInfo);
+								eventDispatcher.triggerEvent(new GeometryCounterEvent(null, this));
 							}
 
-							surfaceInfo = new SurfaceInfo(ringCount, vertexCount, vertexInfos);
-							addSurfaceInfo(surfaceId, surfaceInfo);
-							eventDispatcher.triggerEvent(new GeometryCounterEvent(null, this));
+							previousSurfaceId = surfaceId;
 						}
 
-						previousSurfaceId = surfaceId;
-					}
-
-					// handle appearance
-					if (selectedTheme.equals(KmlExporter.THEME_NONE)) {
-						if (surfaceInfo != null && getX3dMaterial(surfaceId) == null) {
-							if (surfaceTypeID != 0) {
-								if (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_WALL_SURFACE ||
-										Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_WALL_SURFACE ||
-										Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_WALL_SURFACE){
-									addX3dMaterial(surfaceId, x3dWallMaterial);
-								}
-								else if (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_ROOF_SURFACE ||
-										Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_ROOF_SURFACE ||
-										Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_ROOF_SURFACE) {						
-									addX3dMaterial(surfaceId, x3dRoofMaterial);
+						// handle appearance
+						if (selectedTheme.equals(KmlExporter.THEME_NONE)) {
+							if (surfaceInfo != null && getX3dMaterial(surfaceId) == null) {
+								if (surfaceTypeID != 0) {
+									if (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_WALL_SURFACE ||
+											Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_WALL_SURFACE ||
+											Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_WALL_SURFACE){
+										addX3dMaterial(surfaceId, x3dWallMaterial);
+									}
+									else if (Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BUILDING_ROOF_SURFACE ||
+											Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.BRIDGE_ROOF_SURFACE ||
+											Util.getCityGMLClass(surfaceTypeID) == CityGMLClass.TUNNEL_ROOF_SURFACE) {						
+										addX3dMaterial(surfaceId, x3dRoofMaterial);
+									}
+									else {
+										addX3dMaterial(surfaceId, x3dWallMaterial);
+									}
 								}
 								else {
 									addX3dMaterial(surfaceId, x3dWallMaterial);
 								}
 							}
-							else {
-								addX3dMaterial(surfaceId, x3dWallMaterial);
+						} else {
+							// skip if we have already assigned a texture
+							if (texImageUris.get(surfaceId) != null)
+								continue;
+
+							String theme = rs.getString("theme");
+
+							long parentId = rs.getLong(3);
+							if (isImplicit) {
+								// since we generate unique ids for implicit geometries,
+								// we need to retrieve the parentId from the internal map 
+								Long tmp = implicitIdMap.get(parentId);
+								if (tmp != null)
+									parentId = tmp;
 							}
-						}
-					} else {
-						// skip if we have already assigned a texture
-						if (texImageUris.get(surfaceId) != null)
-							continue;
 
-						String theme = rs.getString("theme");
-
-						long parentId = rs.getLong(3);
-						if (isImplicit) {
-							// since we generate unique ids for implicit geometries,
-							// we need to retrieve the parentId from the internal map 
-							Long tmp = implicitIdMap.get(parentId);
-							if (tmp != null)
-								parentId = tmp;
-						}
+							if (selectedTheme.equalsIgnoreCase(theme)) {
+								long textureImageId = rs.getLong("tex_image_id");
+								String texImageUri = rs.getString("tex_image_uri");
+								Object texCoordsObject = rs.getObject("texture_coordinates");
+								boolean hasTexture = false;
+
+								// textures have priority
+								if (texImageUri != null && texImageUri.trim().length() != 0 && texCoordsObject != null && surfaceInfo != null) {
+									GeometryObject texCoordsGeometry = geometryConverterAdapter.getPolygon(texCoordsObject);
+									texImageUri = texImageUri.replaceAll(" ", "_"); //replace spaces with underscores
+									hasTexture = true;
+
+									// handle texture image
+									int fileSeparatorIndex = Math.max(texImageUri.lastIndexOf("\\"), texImageUri.lastIndexOf("/")); 
+									texImageUri = "_" + texImageUri.substring(fileSeparatorIndex + 1); // for example: _tex4712047.jpeg
+
+									if ((getUnsupportedTexImageId(texImageUri) == -1) && (getTexImage(texImageUri) == null)) { 
+										// textures shared by many objects are only fetched and decoded once
+										TextureCache textureCache = kmlExporterManager.getTextureCache();
+										CachedTexture cachedTexture = textureCache != null ? textureCache.get(textureImageId) : null;
+										if (cachedTexture != null && cachedTexture.isSupportRGB() != generateTextureAtlas)
+											cachedTexture = null;
+
+										if (cachedTexture == null) {
+											byte[] imageBytes = textureExportAdapter.getInByteArray(textureImageId, texImageUri);
+											if (imageBytes != null) {
+												imageReader.setSupportRGB(generateTextureAtlas);
+
+												TextureImage texImage = null;
+												try {
+													texImage = imageReader.read(new ByteArrayInputStream(imageBytes));
+												} catch (IOException ioe) {
+													// unsupported image format
+												}
+
+												cachedTexture = new CachedTexture(imageBytes, texImage, generateTextureAtlas);
+												if (textureCache != null)
+													cachedTexture = textureCache.put(textureImageId, cachedTexture);
+											}
+										}
 
-						if (selectedTheme.equalsIgnoreCase(theme)) {
-							long textureImageId = rs.getLong("tex_image_id");
-							String texImageUri = rs.getString("tex_image_uri");
-							Object texCoordsObject = rs.getObject("texture_coordinates");
-							boolean hasTexture = false;
-
-							// textures have priority
-							if (texImageUri != null && texImageUri.trim().length() != 0 && texCoordsObject != null && surfaceInfo != null) {
-								GeometryObject texCoordsGeometry = geometryConverterAdapter.getPolygon(texCoordsObject);
-								texImageUri = texImageUri.replaceAll(" ", "_"); //replace spaces with underscores
-								hasTexture = true;
-
-								// handle texture image
-								int fileSeparatorIndex = Math.max(texImageUri.lastIndexOf("\\"), texImageUri.lastIndexOf("/")); 
-								texImageUri = "_" + texImageUri.substring(fileSeparatorIndex + 1); // for example: _tex4712047.jpeg
-
-								if ((getUnsupportedTexImageId(texImageUri) == -1) && (getTexImage(texImageUri) == null)) { 
-									byte[] imageBytes = textureExportAdapter.getInByteArray(textureImageId, texImageUri);
-									if (imageBytes != null) {
-										imageReader.setSupportRGB(generateTextureAtlas);
-
-										try {
-											TextureImage texImage = imageReader.read(new ByteArrayInputStream(imageBytes));
-											if (texImage != null)
-												addTexImage(texImageUri, texImage);
+										if (cachedTexture != null) {
+											if (cachedTexture.isSupported())
+												addCachedTexImage(texImageUri, cachedTexture);
 											else
 												addUnsupportedTexImageId(texImageUri, textureImageId);
-										} catch (IOException ioe) {
-											// unsupported image format
-											addUnsupportedTexImageId(texImageUri, textureImageId);
-										}
 
-										if (++texImageCounter == 20) {
-											eventDispatcher.triggerEvent(new CounterEvent(CounterType.TEXTURE_IMAGE, texImageCounter, this));
-											texImageCounter = 0;
+											if (++texImageCounter == 20) {
+												eventDispatcher.triggerEvent(new CounterEvent(CounterType.TEXTURE_IMAGE, texImageCounter, this));
+												texImageCounter = 0;
+											}
+										} else
+											hasTexture = false;
+									}
+
+									if (hasTexture) {
+										// assign texture coordinates to vertices within internal data structure
+										Iterator<VertexInfo> iter = surfaceInfo.getVertexInfos().iterator();
+										for (int i = 0; i < texCoordsGeometry.getNumElements(); i++) {
+											double[] texCoords = texCoordsGeometry.getCoordinates(i);
+											for (int j = 0; iter.hasNext() && j < texCoords.length - 2; j += 2)
+												iter.next().addTexCoords(surfaceId, new TexCoords(texCoords[j], texCoords[j + 1]));
 										}
-									} else
-										hasTexture = false;
-								}
 
-								if (hasTexture) {
-									// assign texture coordinates to vertices within internal data structure
-									Iterator<VertexInfo> iter = surfaceInfo.getVertexInfos().iterator();
-									for (int i = 0; i < texCoordsGeometry.getNumElements(); i++) {
-										double[] texCoords = texCoordsGeometry.getCoordinates(i);
-										for (int j = 0; iter.hasNext() && j < texCoords.length - 2; j += 2)
-											iter.next().addTexCoords(surfaceId, new TexCoords(texCoords[j], texCoords[j + 1]));
+										addTexImageUri(surfaceId, texImageUri);
+										removeX3dMaterial(surfaceId);
 									}
-
-									addTexImageUri(surfaceId, texImageUri);
-									removeX3dMaterial(surfaceId);
 								}
-							}
 
-							// only use material if there is no texture
-							else {
-								X3DMaterial x3dMaterial = new X3DMaterial();
-								fillX3dMaterialValues(x3dMaterial, rs);
-								addX3dMaterial(surfaceId, x3dMaterial);
+								// only use material if there is no texture
+								else {
+									X3DMaterial x3dMaterial = new X3DMaterial();
+									fillX3dMaterialValues(x3dMaterial, rs);
+									addX3dMaterial(surfaceId, x3dMaterial);
+								}
+							} 
+
+							// appearance theme does not match selected theme
+							else if (surfaceInfo != null && getX3dMaterial(surfaceId) == null) {
+								if (getX3dMaterial(parentId) != null) // material for parent surface known
+									addX3dMaterial(surfaceId, getX3dMaterial(parentId));
+								else if (getX3dMaterial(rootId) != null) // material for root surface known
+									addX3dMaterial(surfaceId, getX3dMaterial(rootId));
+								else
+									addX3dMaterial(surfaceId, x3dWallMaterial);
 							}
-						} 
-
-						// appearance theme does not match selected theme
-						else if (surfaceInfo != null && getX3dMaterial(surfaceId) == null) {
-							if (getX3dMaterial(parentId) != null) // material for parent surface known
-								addX3dMaterial(surfaceId, getX3dMaterial(parentId));
-							else if (getX3dMaterial(rootId) != null) // material for root surface known
-								addX3dMaterial(surfaceId, getX3dMaterial(rootId));
-							else
-								addX3dMaterial(surfaceId, x3dWallMaterial);
 						}
 					}
+				} catch (SQLException e) {
+					log.error("SQL error while querying surface geometries: " + e.getMessage());
 				}
-			} catch (SQLException e) {
-				log.error("SQL error while querying surface geometries: " + e.getMessage());
-			} finally {
-				if (rs != null)
-					try { rs.close(); } catch (SQLException e) {}
-				if (geometryQuery != null)
-					try { geometryQuery.close(); } catch (SQLException e) {}
 			}
+		} finally {
+			geometries.close();
 		}
 
 		eventDispatcher.triggerEvent(new CounterEvent(CounterType.TEXTURE_IMAGE, texImageCounter, this));
@@ -2064,18 +2100,8 @@ public abstract class KmlGenericObject {
 		location.setAltitude(this.location.z + reducePrecisionForZ(getZOffset()));
 		model.setLocation(location);
 
-		// correct heading value
-		double lat1 = Math.toRadians(this.location.y);
-		double[] dummy = convertPointCoordinatesToWGS84(new double[] {origin.x, origin.y - 20, origin.z});
-		double lat2 = Math.toRadians(dummy[1]);
-		double dLon = Math.toRadians(dummy[0] - this.location.x);
-		double y = Math.sin(dLon) * Math.cos(lat2);
-		double x = Math.cos(lat1)*Math.sin(lat2) - Math.sin(lat1)*Math.cos(lat2)*Math.cos(dLon);
-		double bearing = Math.toDegrees(Math.atan2(y, x));
-		bearing = (bearing + 180) % 360;
-
 		OrientationType orientation = kmlFactory.createOrientationType();
-		orientation.setHeading(reducePrecisionForZ(bearing));
+		orientation.setHeading(reducePrecisionForZ(getHeading(origin.x, origin.y, origin.z, this.location.x, this.location.y)));
 		model.setOrientation(orientation);
 
 		LinkType link = kmlFactory.createLinkType();
@@ -2095,6 +2121,173 @@ public abstract class KmlGenericObject {
 		return placemark;
 	}
 
+	private double getHeading(double x, double y, double z, double longitude, double latitude) throws SQLException {
+		// correct heading value
+		double lat1 = Math.toRadians(latitude);
+		double[] dummy = convertPointCoordinatesToWGS84(new double[] {x, y - 20, z});
+		double lat2 = Math.toRadians(dummy[1]);
+		double dLon = Math.toRadians(dummy[0] - longitude);
+		double y1 = Math.sin(dLon) * Math.cos(lat2);
+		double x1 = Math.cos(lat1)*Math.sin(lat2) - Math.sin(lat1)*Math.cos(lat2)*Math.cos(dLon);
+		double bearing = Math.toDegrees(Math.atan2(y1, x1));
+		return (bearing + 180) % 360;
+	}
+
+	public ColladaBundle createColladaBundle() throws SQLException, IOException, DatatypeConfigurationException {
+		double imageScaleFactor = 1;
+		ColladaOptions colladaOptions = getColladaOptions();
+
+		if (colladaOptions.isCropImages()) {
+			cropImages();
+		}
+
+		if (colladaOptions.isGenerateTextureAtlases()) {
+			if (colladaOptions.isScaleImages()) {
+				imageScaleFactor = colladaOptions.getImageScaleFactor();
+			}
+			createTextureAtlas(colladaOptions.getPackingAlgorithm(),
+					imageScaleFactor,
+					colladaOptions.isTextureAtlasPots());
+		}
+		else if (colladaOptions.isScaleImages()) {
+			imageScaleFactor = colladaOptions.getImageScaleFactor();
+			if (imageScaleFactor < 1) {
+				resizeAllImagesByFactor(imageScaleFactor);
+			}
+		}
+
+		ColladaBundle colladaBundle = new ColladaBundle();
+		colladaBundle.setCollada(generateColladaTree());
+		colladaBundle.setTexImages(getTexImages());
+		colladaBundle.setOriginalTexImages(getOriginalTexImages());
+		colladaBundle.setUnsupportedTexImageIds(getUnsupportedTexImageIds());
+		colladaBundle.setGmlId(getGmlId());
+		colladaBundle.setId(getId());
+
+		return colladaBundle;
+	}
+
+	protected boolean isColladaInstancingEnabled() {
+		ColladaOptions colladaOptions = getColladaOptions();
+		return colladaOptions.isExportImplicitGeometriesAsInstances()
+				&& (!colladaOptions.isGroupObjects() || colladaOptions.getGroupSize() == 1)
+				&& !config.getProject().getKmlExporter().isCreateGltfModel()
+				&& !(query.isSetTiling() && config.getProject().getKmlExporter().isOneFilePerObject());
+	}
+
+	/**
+	 * Exports an implicit geometry as KML model that references a shared COLLADA
+	 * prototype instead of writing the transformed geometry into a model of its own.
+	 * The prototype is written once per export file.
+	 *
+	 * @return {@code false} if the transformation cannot be expressed by the location,
+	 * heading and scale of a KML model, in which case the caller has to export the
+	 * geometry as usual.
+	 */
+	protected boolean exportAsColladaInstance(ResultSet rs, KmlSplittingResult work, long prototypeId, AffineTransformer transformer) throws SQLException, JAXBException {
+		double[] rotationAndScale = transformer.getRotationAndScale();
+		if (rotationAndScale == null)
+			return false;
+
+		ImplicitGeometryPrototype prototype = kmlExporterManager.getExportTracker().getImplicitGeometryPrototype(prototypeId);
+		synchronized (prototype) {
+			if (!prototype.isExported()) {
+				prototype.setExported(true);
+				setGmlId(prototype.getName());
+				setId(prototype.getId());
+
+				// the prototype keeps the coordinates of the implicit geometry
+				AffineTransformer identity = new AffineTransformer(Matrix.identity(4, 4), new Point(0, 0, 0), dbSrs.getSrid());
+				fillGenericObjectForCollada(rs, getColladaOptions().isGenerateTextureAtlases(), identity, false);
+
+				if (getGeometryAmount() > 0) {
+					try {
+						// prototypes get a folder of their own so that their textures
+						// cannot clash with those of the city object having the same id
+						ColladaBundle colladaBundle = createColladaBundle();
+						colladaBundle.setDirectoryName(prototype.getName());
+						kmlExporterManager.print(colladaBundle, prototype.getId(), false);
+						prototype.setOrigin(new Point3d(getOrigin()));
+					} catch (IOException | DatatypeConfigurationException e) {
+						log.error("Failed to export the implicit geometry of " + work.getGmlId() + ": " + e.getMessage());
+						setGmlId(null);
+						return true;
+					}
+				}
+			}
+		}
+
+		if (!prototype.hasGeometry())
+			return false;
+
+		setGmlId(work.getGmlId());
+		setId(work.getId());
+
+		Point3d prototypeOrigin = prototype.getOrigin();
+		double[] anchor = transformer.transform(prototypeOrigin.x, prototypeOrigin.y, prototypeOrigin.z);
+		double[] anchorInWGS84 = convertPointCoordinatesToWGS84(anchor);
+
+		double zOffset = getZOffsetFromConfigOrDB(work.getId());
+		if (zOffset == Double.MAX_VALUE) {
+			List<Point3d> anchorCandidates = new ArrayList<>();
+			anchorCandidates.add(new Point3d(anchor[0], anchor[1], anchor[2]));
+			zOffset = getZOffsetFromGEService(work.getId(), anchorCandidates);
+		}
+
+		PlacemarkType placemark = kmlFactory.createPlacemarkType();
+		placemark.setName(work.getGmlId());
+		placemark.setId(config.getProject().getKmlExporter().getIdPrefixes().getPlacemarkCollada() + placemark.getName());
+
+		if (getBalloonSettings().isIncludeDescription() && !work.getDisplayForm().isHighlightingEnabled())
+			addBalloonContents(placemark, work.getId());
+
+		ModelType model = kmlFactory.createModelType();
+		switch (config.getProject().getKmlExporter().getAltitudeMode()) {
+		case ABSOLUTE:
+			model.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.ABSOLUTE));
+			break;
+		case RELATIVE:
+			model.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.RELATIVE_TO_GROUND));
+			break;
+		case CLAMP_TO_GROUND:
+			model.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.CLAMP_TO_GROUND));
+			break;
+		}
+
+		LocationType location = kmlFactory.createLocationType();
+		location.setLongitude(reducePrecisionForXorY(anchorInWGS84[0]));
+		location.setLatitude(reducePrecisionForXorY(anchorInWGS84[1]));
+		location.setAltitude(reducePrecisionForZ(anchorInWGS84[2]) + reducePrecisionForZ(zOffset));
+		model.setLocation(location);
+
+		// KML headings are clockwise whereas the rotation of the matrix is counter-clockwise
+		double heading = getHeading(anchor[0], anchor[1], anchor[2], anchorInWGS84[0], anchorInWGS84[1]) - Math.toDegrees(rotationAndScale[0]);
+		OrientationType orientation = kmlFactory.createOrientationType();
+		orientation.setHeading(reducePrecisionForZ((heading % 360 + 360) % 360));
+		model.setOrientation(orientation);
+
+		ScaleType scale = kmlFactory.createScaleType();
+		scale.setX(rotationAndScale[1]);
+		scale.setY(rotationAndScale[2]);
+		scale.setZ(rotationAndScale[3]);
+		model.setScale(scale);
+
+		LinkType link = kmlFactory.createLinkType();
+		// File.separator would be wrong here, it MUST be "/"
+		link.setHref(prototype.getName() + "/" + prototype.getName() + ".dae");
+		model.setLink(link);
+
+		placemark.setAbstractGeometryGroup(kmlFactory.createModel(model));
+
+		List<PlacemarkType> placemarks = new ArrayList<>();
+		placemarks.add(placemark);
+		kmlExporterManager.print(placemarks, work, getBalloonSettings().isBalloonContentInSeparateFile());
+
+		// instances must not be added to a COLLADA model by the export worker
+		setGmlId(null);
+		return true;
+	}
+
 	protected List<PlacemarkType> createPlacemarksForHighlighting(ResultSet rs, KmlSplittingResult work, boolean supportsNestedImplicitGeometries) throws SQLException {
 		return createPlacemarksForHighlighting(rs, work, null, supportsNestedImplicitGeometries);
 	}
@@ -2118,142 +2311,170 @@ public abstract class KmlGenericObject {
 
 		double hlDistance = work.getDisplayForm().getHighlightingDistance();
 
-		_rs.beforeFirst(); // return cursor to beginning
-
-		while (_rs.next()) {
-			AffineTransformer transformer = globalTransformer;
-			long rootId = _rs.getLong(1);
+		SurfaceGeometryBatch geometries = querySurfaceGeometries(_rs, false, globalTransformer, supportsNestedImplicitGeometries);
+		try {
+			while (_rs.next()) {
+				AffineTransformer transformer = globalTransformer;
+				long rootId = _rs.getLong(1);
+
+				if (rootId == 0) {
+					// get nested implicit geometry
+					if (supportsNestedImplicitGeometries) {
+						rootId = _rs.getLong(3);
+						transformer = getAffineTransformer(_rs, 4, 5);
+					}
 
-			if (rootId == 0) {
-				// get nested implicit geometry
-				if (supportsNestedImplicitGeometries) {
-					rootId = _rs.getLong(3);
-					transformer = getAffineTransformer(_rs, 4, 5);
+					if (rootId == 0 || transformer == null)
+						continue;
 				}
 
-				if (rootId == 0 || transformer == null)
-					continue;
-			}
+				ResultSet rs = null;
 
-			PreparedStatement geometryQuery = null;
-			ResultSet rs = null;
+				try {
+					if (!geometries.select(rootId, transformer != null))
+						continue;
 
-			try {
-				String query = queries.getSurfaceGeometries(false, transformer != null);
-				geometryQuery = connection.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-				for (int i = 1; i <= getParameterCount(query); i++)
-					geometryQuery.setLong(i, rootId);
+					rs = geometries.getResultSet();
 
-				rs = geometryQuery.executeQuery();
+					double zOffset = getZOffsetFromConfigOrDB(work.getId());
+					if (zOffset == Double.MAX_VALUE) {
+						List<Point3d> lowestPointCandidates = getLowestPointsCoordinates(geometries, (zOffset == Double.MAX_VALUE));
+						zOffset = getZOffsetFromGEService(work.getId(), lowestPointCandidates);
+					}
 
-				double zOffset = getZOffsetFromConfigOrDB(work.getId());
-				if (zOffset == Double.MAX_VALUE) {
-					List<Point3d> lowestPointCandidates = getLowestPointsCoordinates(rs, (zOffset == Double.MAX_VALUE));
-					zOffset = getZOffsetFromGEService(work.getId(), lowestPointCandidates);
-				}
+					geometries.select(rootId, transformer != null); // return cursor to beginning
 
-				rs.beforeFirst(); // return cursor to beginning
+					while (geometries.next()) {
+						// skip duplicate geometries
+						String gmlId = rs.getString("gmlid");
+						boolean isXlink = rs.getBoolean("is_xlink");
+						if (isXlink && gmlId != null && !exportedGmlIds.add(gmlId))
+							continue;
 
-				while (rs.next()) {
-					// skip duplicate geometries
-					String gmlId = rs.getString("gmlid");
-					boolean isXlink = rs.getBoolean("is_xlink");
-					if (isXlink && gmlId != null && !exportedGmlIds.add(gmlId))
-						continue;
+						// skip entries without geometry
+						Object unconvertedObj = rs.getObject(1);
+						if (unconvertedObj == null)
+							continue;
 
-					// skip entries without geometry
-					Object unconvertedObj = rs.getObject(1);
-					if (unconvertedObj == null)
-						continue;
+						GeometryObject unconvertedSurface = geometryConverterAdapter.getPolygon(unconvertedObj);
+						if (unconvertedSurface == null || unconvertedSurface.getNumElements() == 0)
+							continue;
 
-					GeometryObject unconvertedSurface = geometryConverterAdapter.getPolygon(unconvertedObj);
-					if (unconvertedSurface == null || unconvertedSurface.getNumElements() == 0)
-						continue;
+						// for implicit geometries, we need to apply the transformation matrix first
+						if (transformer != null)
+							unconvertedSurface = transformer.applyTransformation(unconvertedSurface);
+
+						double[] ordinatesArray = unconvertedSurface.getCoordinates(0);
+						double nx = 0;
+						double ny = 0;
+						double nz = 0;
+
+						for (int current = 0; current < ordinatesArray.length - 3; current = current+3) {
+							int next = current+3;
+							if (next >= ordinatesArray.length - 3) next = 0;
+							nx = nx + ((ordinatesArray[current+1] - ordinatesArray[next+1]) * (ordinatesArray[current+2] + ordinatesArray[next+2])); 
+							ny = ny + ((ordinatesArray[current+2] - ordinatesArray[next+2]) * (ordinatesArray[current] + ordinatesArray[next])); 
+							nz = nz + ((ordinatesArray[current] - ordinatesArray[next]) * (ordinatesArray[current+1] + ordinatesArray[next+1])); 
+						}
 
-					// for implicit geometries, we need to apply the transformation matrix first
-					if (transformer != null)
-						unconvertedSurface = transformer.applyTransformation(unconvertedSurface);
-
-					double[] ordinatesArray = unconvertedSurface.getCoordinates(0);
-					double nx = 0;
-					double ny = 0;
-					double nz = 0;
-
-					for (int current = 0; current < ordinatesArray.length - 3; current = current+3) {
-						int next = current+3;
-						if (next >= ordinatesArray.length - 3) next = 0;
-						nx = nx + ((ordinatesArray[current+1] - ordinatesArray[next+1]) * (ordinatesArray[current+2] + ordinatesArray[next+2])); 
-						ny = ny + ((ordinatesArray[current+2] - ordinatesArray[next+2]) * (ordinatesArray[current] + ordinatesArray[next])); 
-						nz = nz + ((ordinatesArray[current] - ordinatesArray[next]) * (ordinatesArray[current+1] + ordinatesArray[next+1])); 
-					}
+						double value = Math.sqrt(nx * nx + ny * ny + nz * nz);
+						if (value == 0) { // not a surface, but a line
+							continue;
+						}
+						nx = nx / value;
+						ny = ny / value;
+						nz = nz / value;
 
-					double value = Math.sqrt(nx * nx + ny * ny + nz * nz);
-					if (value == 0) { // not a surface, but a line
-						continue;
-					}
-					nx = nx / value;
-					ny = ny / value;
-					nz = nz / value;
-
-					for (int i = 0; i < unconvertedSurface.getNumElements(); i++) {
-						ordinatesArray = unconvertedSurface.getCoordinates(i);
-						for (int j = 0; j < ordinatesArray.length; j = j + 3) {
-							// coordinates = coordinates + hlDistance * (dot product of normal vector and unity vector)
-							ordinatesArray[j] = ordinatesArray[j] + hlDistance * nx;
-							ordinatesArray[j+1] = ordinatesArray[j+1] + hlDistance * ny;
-							ordinatesArray[j+2] = ordinatesArray[j+2] + zOffset + hlDistance * nz;
+						for (int i = 0; i < unconvertedSurface.getNumElements(); i++) {
+							ordinatesArray = unconvertedSurface.getCoordinates(i);
+							for (int j = 0; j < ordinatesArray.length; j = j + 3) {
+								// coordinates = coordinates + hlDistance * (dot product of normal vector and unity vector)
+								ordinatesArray[j] = ordinatesArray[j] + hlDistance * nx;
+								ordinatesArray[j+1] = ordinatesArray[j+1] + hlDistance * ny;
+								ordinatesArray[j+2] = ordinatesArray[j+2] + zOffset + hlDistance * nz;
+							}
 						}
-					}
 
-					// now convert to WGS84
-					GeometryObject surface = convertToWGS84(unconvertedSurface);
-					unconvertedSurface = null;
+						// now convert to WGS84
+						GeometryObject surface = convertToWGS84(unconvertedSurface);
+						unconvertedSurface = null;
+
+						PolygonType polygon = kmlFactory.createPolygonType();
+						switch (config.getProject().getKmlExporter().getAltitudeMode()) {
+						case ABSOLUTE:
+							polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.ABSOLUTE));
+							break;
+						case RELATIVE:
+							polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.RELATIVE_TO_GROUND));
+							break;
+						case CLAMP_TO_GROUND:
+							polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.CLAMP_TO_GROUND));
+							break;
+						}
+						multiGeometry.getAbstractGeometryGroup().add(kmlFactory.createPolygon(polygon));
 
-					PolygonType polygon = kmlFactory.createPolygonType();
-					switch (config.getProject().getKmlExporter().getAltitudeMode()) {
-					case ABSOLUTE:
-						polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.ABSOLUTE));
-						break;
-					case RELATIVE:
-						polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.RELATIVE_TO_GROUND));
-						break;
-					case CLAMP_TO_GROUND:
-						polygon.setAltitudeModeGroup(kmlFactory.createAltitudeMode(AltitudeModeEnumType.CLAMP_TO_GROUND));
-						break;
-					}
-					multiGeometry.getAbstractGeometryGroup().add(kmlFactory.createPolygon(polygon));
-
-					for (int i = 0; i < surface.getNumElements(); i++) {
-						LinearRingType linearRing = kmlFactory.createLinearRingType();
-						BoundaryType boundary = kmlFactory.createBoundaryType();
-						boundary.setLinearRing(linearRing);
-
-						if (i == 0)
-							polygon.setOuterBoundaryIs(boundary);
-						else
-							polygon.getInnerBoundaryIs().add(boundary);
-
-						// order points clockwise
-						ordinatesArray = surface.getCoordinates(i);
-						for (int j = 0; j < ordinatesArray.length; j = j+3)
-							linearRing.getCoordinates().add(String.valueOf(reducePrecisionForXorY(ordinatesArray[j]) + "," 
-									+ reducePrecisionForXorY(ordinatesArray[j+1]) + ","
-									+ reducePrecisionForZ(ordinatesArray[j+2])));
+						for (int i = 0; i < surface.getNumElements(); i++) {
+							LinearRingType linearRing = kmlFactory.createLinearRingType();
+							BoundaryType boundary = kmlFactory.createBoundaryType();
+							boundary.setLinearRing(linearRing);
+
+							if (i == 0)
+								polygon.setOuterBoundaryIs(boundary);
+							else
+								polygon.getInnerBoundaryIs().add(boundary);
+
+							// order points clockwise
+							ordinatesArray = surface.getCoordinates(i);
+							for (int j = 0; j < ordinatesArray.length; j = j+3)
+								linearRing.getCoordinates().add(String.valueOf(reducePrecisionForXorY(ordinatesArray[j]) + "," 
+										+ reducePrecisionForXorY(ordinatesArray[j+1]) + ","
+										+ reducePrecisionForZ(ordinatesArray[j+2])));
+						}
 					}
+				} catch (SQLException e) {
+					log.error("SQL error while querying surface geometries: " + e.getMessage());
 				}
-			} catch (SQLException e) {
-				log.error("SQL error while querying surface geometries: " + e.getMessage());
-			} finally {
-				if (rs != null)
-					try { rs.close(); } catch (SQLException e) {}
-				if (geometryQuery != null)
-					try { geometryQuery.close(); } catch (SQLException e) {}
 			}
+		} finally {
+			geometries.close();
 		}
 
 		return placemarkList;
 	}
 
+	private SurfaceGeometryBatch querySurfaceGeometries(ResultSet _rs, boolean exportAppearance, AffineTransformer globalTransformer, boolean supportsNestedImplicitGeometries) throws SQLException {
+		// fetch the surface geometries of all geometry roots with one query
+		// instead of issuing a separate query for each root
+		LinkedHashSet<Long> rootIds = new LinkedHashSet<>();
+		LinkedHashSet<Long> implicitRootIds = new LinkedHashSet<>();
+
+		_rs.beforeFirst();
+		while (_rs.next()) {
+			long rootId = _rs.getLong(1);
+			if (rootId != 0) {
+				if (globalTransformer != null)
+					implicitRootIds.add(rootId);
+				else
+					rootIds.add(rootId);
+			}
+			else if (supportsNestedImplicitGeometries && (rootId = _rs.getLong(3)) != 0)
+				implicitRootIds.add(rootId);
+		}
+		_rs.beforeFirst(); // return cursor to beginning
+
+		SurfaceGeometryBatch geometries = new SurfaceGeometryBatch(connection, queries, databaseAdapter.getSQLAdapter().getMaximumNumberOfItemsForInOperator());
+		try {
+			geometries.query(new ArrayList<>(rootIds), exportAppearance, false);
+			geometries.query(new ArrayList<>(implicitRootIds), exportAppearance, true);
+		} catch (SQLException e) {
+			// the roots that could not be queried are skipped
+			log.error("SQL error while querying surface geometries: " + e.getMessage());
+			try { connection.commit(); } catch (SQLException sqle) {}
+		}
+
+		return geometries;
+	}
+
 	protected AffineTransformer getAffineTransformer(ResultSet rs, int referencePoint, int transformationMatrix) throws SQLException {
 		GeometryObject obj = geometryConverterAdapter.getPoint(rs.getObject(referencePoint));
 		String transformationString = rs.getString(transformationMatrix);
@@ -2317,7 +2538,6 @@ public abstract class KmlGenericObject {
 				}
 			case FILE :
 				if (getBalloonTemplateHandler() != null) {
-					getBalloonTemplateHandler().getBalloonContent(id, currentLod, connection, schemaName);
 					placemark.setDescription(getBalloonTemplateHandler().getBalloonContent(id, currentLod, connection, schemaName));
 				}
 				break;
@@ -2450,7 +2670,6 @@ public abstract class KmlGenericObject {
 			ResultSet rs = null;
 
 			try {
-				// convert candidate points to WGS84
 				double[] coords = new double[candidates.size()*3];
 				int index = 0;
 				for (Point3d point3d: candidates) {
@@ -2459,15 +2678,18 @@ public abstract class KmlGenericObject {
 					coords[index++] = point3d.z;
 				}
 
-				if (candidates.size() == 1) {
-					coords = convertPointCoordinatesToWGS84(coords);
-				} else { 
-					GeometryObject geomObj = convertToWGS84(GeometryObject.createCurve(coords, 3, dbSrs.getSrid()));
-					coords = geomObj.getCoordinates(0);
+				// convert candidate points to WGS84 if required by the elevation provider
+				if (elevationProvider.requiresWGS84Coordinates()) {
+					if (candidates.size() == 1) {
+						coords = convertPointCoordinatesToWGS84(coords);
+					} else { 
+						GeometryObject geomObj = convertToWGS84(GeometryObject.createCurve(coords, 3, dbSrs.getSrid()));
+						coords = geomObj.getCoordinates(0);
+					}
 				}
 
-				log.info("Getting zOffset from Google's elevation API for " + getGmlId() + " with " + candidates.size() + " points.");
-				zOffset = elevationServiceHandler.getZOffset(coords);
+				log.info("Getting zOffset from " + elevationProvider.getName() + " for " + getGmlId() + " with " + candidates.size() + " points.");
+				zOffset = elevationProvider.getZOffset(coords);
 
 				// save result in DB for next time
 				String genericAttribName = "GE_LoD" + currentLod + "_zOffset";
@@ -2492,38 +2714,47 @@ public abstract class KmlGenericObject {
 	}
 
 	protected List<Point3d> getLowestPointsCoordinates(ResultSet rs, boolean willCallGEService) throws SQLException {
-		double currentlyLowestZCoordinate = Double.MAX_VALUE;
 		List<Point3d> coords = new ArrayList<Point3d>();
+		while (rs.next())
+			addLowestPointsCoordinates(rs.getObject(1), coords, willCallGEService);
 
-		while (rs.next()) {
-			Object buildingGeometryObj = rs.getObject(1);
+		return coords;
+	}
 
-			if (buildingGeometryObj != null) {
-				GeometryObject geometry = geometryConverterAdapter.getGeometry(rs.getObject(1));
+	private List<Point3d> getLowestPointsCoordinates(SurfaceGeometryBatch geometries, boolean willCallGEService) throws SQLException {
+		List<Point3d> coords = new ArrayList<Point3d>();
+		while (geometries.next())
+			addLowestPointsCoordinates(geometries.getResultSet().getObject(1), coords, willCallGEService);
 
-				// we are only interested in the z coordinate 
-				for (int i = 0; i < geometry.getNumElements(); i++) {
-					double[] ordinatesArray = geometry.getCoordinates(i);
+		return coords;
+	}
 
-					for (int j = 2; j < ordinatesArray.length; j = j+3) {
-						if (ordinatesArray[j] < currentlyLowestZCoordinate) {
-							coords.clear();
-							Point3d point3d = new Point3d(ordinatesArray[j-2], ordinatesArray[j-1], ordinatesArray[j]);
-							coords.add(point3d);
-							currentlyLowestZCoordinate = point3d.z;
-						}
-						if (willCallGEService && ordinatesArray[j] == currentlyLowestZCoordinate) {
-							Point3d point3d = new Point3d(ordinatesArray[j-2], ordinatesArray[j-1], ordinatesArray[j]);
-							if (!coords.contains(point3d)) {
-								coords.add(point3d);
-							}
-						}
+	private void addLowestPointsCoordinates(Object buildingGeometryObj, List<Point3d> coords, boolean willCallGEService) throws SQLException {
+		if (buildingGeometryObj == null)
+			return;
+
+		double currentlyLowestZCoordinate = coords.isEmpty() ? Double.MAX_VALUE : coords.get(0).z;
+		GeometryObject geometry = geometryConverterAdapter.getGeometry(buildingGeometryObj);
+
+		// we are only interested in the z coordinate 
+		for (int i = 0; i < geometry.getNumElements(); i++) {
+			double[] ordinatesArray = geometry.getCoordinates(i);
+
+			for (int j = 2; j < ordinatesArray.length; j = j+3) {
+				if (ordinatesArray[j] < currentlyLowestZCoordinate) {
+					coords.clear();
+					Point3d point3d = new Point3d(ordinatesArray[j-2], ordinatesArray[j-1], ordinatesArray[j]);
+					coords.add(point3d);
+					currentlyLowestZCoordinate = point3d.z;
+				}
+				if (willCallGEService && ordinatesArray[j] == currentlyLowestZCoordinate) {
+					Point3d point3d = new Point3d(ordinatesArray[j-2], ordinatesArray[j-1], ordinatesArray[j]);
+					if (!coords.contains(point3d)) {
+						coords.add(point3d);
 					}
 				}
 			}
 		}
-
-		return coords;
 	}
 
 	protected double[] convertPointCoordinatesToWGS84(double[] coords) throws SQLException {
@@ -2551,7 +2782,20 @@ public abstract class KmlGenericObject {
 		GeometryObject convertedGeomObj = null;
 		try {
 			DatabaseSrs targetSrs = dbSrs.is3D() ? databaseAdapter.getUtil().getWGS843D() : Database.PREDEFINED_SRS.get(Database.PredefinedSrsName.WGS84_2D);
-			convertedGeomObj = databaseAdapter.getUtil().transform(geomObj, targetSrs);
+
+			// reproject on the client and only fall back to the database if required
+			CoordinateTransformer transformer = geomObj.getSrid() == dbSrs.getSrid() ?
+					databaseAdapter.getUtil().getCoordinateTransformer(dbSrs, targetSrs) : null;
+			if (transformer != null) {
+				try {
+					convertedGeomObj = transformer.transform(geomObj);
+				} catch (TransformException e) {
+					//
+				}
+			}
+
+			if (convertedGeomObj == null)
+				convertedGeomObj = databaseAdapter.getUtil().transform(geomObj, targetSrs);
 		} catch (SQLException e) {
 			log.warn("SQL exception when converting geometry to WGS84: " + e.getMessage());
 			throw e;
@@ -38,18 +38,21 @@ import org.citydb.config.project.database.Database.PredefinedSrsName;
 import org.citydb.config.project.database.DatabaseSrs;
 import org.citydb.config.project.kmlExporter.DisplayForm;
 import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.CoordinateTransformer;
 import org.citydb.database.connection.DatabaseConnectionPool;
 import org.citydb.database.schema.mapping.FeatureType;
 import org.citydb.database.schema.mapping.MappingConstants;
 import org.citydb.database.schema.mapping.SchemaMapping;
 import org.citydb.log.Logger;
 import org.citydb.modules.kml.util.CityObject4JSON;
+import org.citydb.modules.kml.util.EnvelopeCache;
 import org.citydb.query.Query;
 import org.citydb.query.builder.QueryBuildException;
 import org.citydb.query.builder.sql.BuildProperties;
 import org.citydb.query.builder.sql.SQLQueryBuilder;
 import org.citydb.query.filter.FilterException;
 import org.citydb.query.filter.tiling.Tile;
+import org.citydb.query.filter.tiling.Tiling;
 import org.citydb.sqlbuilder.expression.PlaceHolder;
 import org.citydb.sqlbuilder.schema.Table;
 import org.citydb.sqlbuilder.select.Select;
@@ -58,6 +61,7 @@ import org.citydb.sqlbuilder.select.operator.comparison.ComparisonFactory;
 import org.citydb.sqlbuilder.select.operator.comparison.ComparisonName;
 import org.citydb.util.Util;
 import org.citygml4j.model.citygml.CityGMLClass;
+import org.opengis.referencing.operation.TransformException;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -78,6 +82,13 @@ public class KmlSplitter {
 	private SchemaMapping schemaMapping;
 	private SQLQueryBuilder builder;
 
+	private KmlTileRouting routing;
+	private DatabaseSrs tilingSrs;
+	private CoordinateTransformer tilingTransformer;
+	private DatabaseSrs wgs84Srs;
+	private CoordinateTransformer wgs84Transformer;
+	private EnvelopeCache envelopeCache;
+
 	public KmlSplitter(SchemaMapping schemaMapping,
 			WorkerPool<KmlSplittingResult> dbWorkerPool,
 			Query query, 
@@ -92,6 +103,18 @@ public class KmlSplitter {
 		connection = DatabaseConnectionPool.getInstance().getConnection();
 		dbSrs = databaseAdapter.getConnectionMetaData().getReferenceSystem();		
 
+		// reproject center points and envelopes on the client whenever possible
+		if (query.isSetTiling()) {
+			Tiling tiling = query.getTiling();
+			tilingSrs = tiling.getExtent().isSetSrs() ? tiling.getExtent().getSrs() : dbSrs;
+			if (tilingSrs.getSrid() != dbSrs.getSrid())
+				tilingTransformer = databaseAdapter.getUtil().getCoordinateTransformer(dbSrs, tilingSrs);
+		}
+
+		wgs84Srs = Database.PREDEFINED_SRS.get(PredefinedSrsName.WGS84_2D);
+		if (wgs84Srs.getSrid() != dbSrs.getSrid())
+			wgs84Transformer = databaseAdapter.getUtil().getCoordinateTransformer(dbSrs, wgs84Srs);
+
 		// try and change workspace for connection if needed
 		if (databaseAdapter.hasVersioningSupport()) {
 			Database database = config.getProject().getDatabase();
@@ -114,35 +137,44 @@ public class KmlSplitter {
 		// tiling
 		Tile activeTile = null;
 		if (query.isSetTiling()) {
-			activeTile = query.getTiling().getActiveTile();
+			if (routing == null)
+				activeTile = query.getTiling().getActiveTile();
+
 			builder.getBuildProperties().addProjectionColumn(MappingConstants.ENVELOPE);
 		}
 
 		// create query statement
 		Select select = builder.buildQuery(query);
 
-		try (PreparedStatement stmt = databaseAdapter.getSQLAdapter().prepareStatement(select, connection);
-			 ResultSet rs = stmt.executeQuery()) {
-			int objectCount = 0;
+		try (PreparedStatement stmt = databaseAdapter.getSQLAdapter().prepareStatement(select, connection)) {
+			// stream the candidate objects of the entire tiling extent
+			if (routing != null)
+				stmt.setFetchSize(10000);
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				int objectCount = 0;
+
+				while (rs.next() && shouldRun) {
+					long id = rs.getLong(MappingConstants.ID);
+					String gmlId = rs.getString(MappingConstants.GMLID);
+					int objectClassId = rs.getInt(MappingConstants.OBJECTCLASS_ID);
 
-			while (rs.next() && shouldRun) {
-				long id = rs.getLong(MappingConstants.ID);
-				String gmlId = rs.getString(MappingConstants.GMLID);
-				int objectClassId = rs.getInt(MappingConstants.OBJECTCLASS_ID);
+					GeometryObject envelope = null;
+					if (query.isSetTiling()) {
+						Object geomObj = rs.getObject(MappingConstants.ENVELOPE);
+						if (!rs.wasNull() && geomObj != null)
+							envelope = databaseAdapter.getGeometryConverter().getEnvelope(geomObj);
+					}
 
-				GeometryObject envelope = null;
-				if (query.isSetTiling()) {
-					Object geomObj = rs.getObject(MappingConstants.ENVELOPE);
-					if (!rs.wasNull() && geomObj != null)
-						envelope = databaseAdapter.getGeometryConverter().getEnvelope(geomObj);
+					addWorkToQueue(id, gmlId, objectClassId, envelope, activeTile, false);
+					objectCount++;
 				}
 
-				addWorkToQueue(id, gmlId, objectClassId, envelope, activeTile, false);
-				objectCount++;
+				if (activeTile != null)
+					Logger.getInstance().debug(objectCount + " candidate objects found for Tile_" + activeTile.getX() + "_" + activeTile.getY() + ".");
+				else if (routing != null)
+					Logger.getInstance().debug(objectCount + " candidate objects found for the tiling extent.");
 			}
-
-			if (query.isSetTiling())
-				Logger.getInstance().debug(objectCount + " candidate objects found for Tile_" + activeTile.getX() + "_" + activeTile.getY() + ".");
 		}
 	}
 
@@ -155,6 +187,20 @@ public class KmlSplitter {
 		}
 	}
 
+	public KmlTileRouting routeObjects() throws SQLException, QueryBuildException, FilterException {
+		if (!query.isSetTiling())
+			throw new FilterException("Routing objects to tiles requires a tiling filter.");
+
+		Tiling tiling = query.getTiling();
+		routing = new KmlTileRouting(tiling);
+		startQuery();
+		return routing;
+	}
+
+	public void setEnvelopeCache(EnvelopeCache envelopeCache) {
+		this.envelopeCache = envelopeCache;
+	}
+
 	public void shutdown() {
 		shouldRun = false;
 	}
@@ -180,26 +226,46 @@ public class KmlSplitter {
 		if (query.getFeatureTypeFilter().containsFeatureType(featureType)
 				|| (isCityObjectGroupMember && query.getFeatureTypeFilter().size() == 1)) {
 
+			int row = activeTile != null ? activeTile.getX() : 0;
+			int column = activeTile != null ? activeTile.getY() : 0;
+
+			// features spanning several tiles or display forms are queried repeatedly,
+			// so reuse their reprojected center point and envelope
+			EnvelopeCache.Entry cached = envelopeCache != null ? envelopeCache.get(id) : null;
+			if (cached == null && envelopeCache != null && envelope != null && tilingSrs != null) {
+				double[] center = envelope.getGeometryType() == GeometryType.ENVELOPE ? getCenterInTilingSrs(envelope) : null;
+				cached = envelopeCache.put(id, center, getEnvelopeInWGS84(envelope));
+			}
+
 			// check whether center point of the feature's envelope is within the tile extent
 			if (envelope != null && envelope.getGeometryType() == GeometryType.ENVELOPE) {
-				double coordinates[] = envelope.getCoordinates(0);
-				if (!activeTile.isOnTile(new org.citydb.config.geometry.Point(
-						(coordinates[0] + coordinates[3]) / 2.0,
-						(coordinates[1] + coordinates[4]) / 2.0,
-						databaseAdapter.getConnectionMetaData().getReferenceSystem()), 
-						databaseAdapter))
+				double[] center = cached != null ? cached.getCenter() : getCenterInTilingSrs(envelope);
+
+				if (routing != null) {
+					// assign the feature to exactly one tile
+					row = routing.getRow(center[1]);
+					column = routing.getColumn(center[0]);
+					if (row < 0 || column < 0)
+						return;
+
+					activeTile = query.getTiling().getTileAt(row, column);
+				} else if (!activeTile.isOnTile(center[0], center[1]))
 					return;
-			}
+			} else if (routing != null && activeTile == null)
+				return;
 
 			// create json
 			CityObject4JSON cityObject4Json = new CityObject4JSON(gmlId);
-			cityObject4Json.setTileRow(activeTile != null ? activeTile.getX() : 0);
-			cityObject4Json.setTileColumn(activeTile != null ? activeTile.getY() : 0);
-			cityObject4Json.setEnvelope(getEnvelopeInWGS84(envelope));
+			cityObject4Json.setTileRow(row);
+			cityObject4Json.setTileColumn(column);
+			cityObject4Json.setEnvelope(cached != null ? cached.getEnvelopeInWGS84() : getEnvelopeInWGS84(envelope));
 
-			// put on work queue
+			// put on work queue or keep for the tile
 			KmlSplittingResult splitter = new KmlSplittingResult(id, gmlId, objectClassId, cityObject4Json, displayForm);
-			dbWorkerPool.addWork(splitter);
+			if (routing != null)
+				routing.addObject(row, column, splitter);
+			else
+				dbWorkerPool.addWork(splitter);
 
 			if (splitter.getCityGMLClass() == CityGMLClass.CITY_OBJECT_GROUP) {
 				Table cityObject = new Table("cityobject", schema);
@@ -239,13 +305,58 @@ public class KmlSplitter {
 		}
 	}
 
+	private double[] getCenterInTilingSrs(GeometryObject envelope) throws FilterException {
+		double[] coordinates = envelope.getCoordinates(0);
+		double x = (coordinates[0] + coordinates[3]) / 2.0;
+		double y = (coordinates[1] + coordinates[4]) / 2.0;
+
+		return getPointInTilingSrs(x, y);
+	}
+
+	private double[] getPointInTilingSrs(double x, double y) throws FilterException {
+		if (tilingSrs.getSrid() == dbSrs.getSrid())
+			return new double[]{x, y};
+
+		GeometryObject point = GeometryObject.createPoint(new double[]{x, y}, 2, dbSrs.getSrid());
+		if (tilingTransformer != null) {
+			try {
+				return tilingTransformer.transform(point).getCoordinates(0);
+			} catch (TransformException e) {
+				//
+			}
+		}
+
+		try {
+			GeometryObject transformed = databaseAdapter.getUtil().transform(point, tilingSrs);
+			if (transformed == null)
+				throw new FilterException("Failed to convert input geometry to tile SRS.");
+
+			return transformed.getCoordinates(0);
+		} catch (SQLException e) {
+			throw new FilterException("Failed to convert input geometry to tile SRS.", e);
+		}
+	}
+
 	private double[] getEnvelopeInWGS84(GeometryObject envelope) throws SQLException {
 		if (envelope == null)
 			return null;
 
 		double[] coordinates = envelope.getCoordinates(0);
+		if (wgs84Srs.getSrid() == dbSrs.getSrid())
+			return new double[]{coordinates[0], coordinates[1], 0, coordinates[3], coordinates[4], 0};
+
+		if (wgs84Transformer != null) {
+			try {
+				GeometryObject bbox = GeometryObject.createEnvelope(new double[]{coordinates[0], coordinates[1], coordinates[3], coordinates[4]}, 2, dbSrs.getSrid());
+				double[] wgs84 = wgs84Transformer.transform(bbox).getCoordinates(0);
+				return new double[]{wgs84[0], wgs84[1], 0, wgs84[2], wgs84[3], 0};
+			} catch (TransformException e) {
+				//
+			}
+		}
+
 		BoundingBox bbox = new BoundingBox(new Position(coordinates[0], coordinates[1]), new Position(coordinates[3], coordinates[4]));
-		BoundingBox wgs84 = databaseAdapter.getUtil().transformBoundingBox(bbox, dbSrs, Database.PREDEFINED_SRS.get(PredefinedSrsName.WGS84_2D));
+		BoundingBox wgs84 = databaseAdapter.getUtil().transformBoundingBox(bbox, dbSrs, wgs84Srs);
 
 		double[] result = new double[6];
 		result[0] = wgs84.getLowerCorner().getX();
@@ -0,0 +1,93 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.database;
+
+import org.citydb.config.geometry.BoundingBox;
+import org.citydb.query.filter.tiling.Tiling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class KmlTileRouting {
+	private final BoundingBox extent;
+	private final int rows;
+	private final int columns;
+	private final double tileWidth;
+	private final double tileHeight;
+
+	private final Map<Integer, List<KmlSplittingResult>> objects = new HashMap<>();
+	private long objectCount;
+
+	public KmlTileRouting(Tiling tiling) {
+		extent = tiling.getExtent();
+		rows = tiling.getRows();
+		columns = tiling.getColumns();
+
+		tileWidth = (extent.getUpperCorner().getX() - extent.getLowerCorner().getX()) / columns;
+		tileHeight = (extent.getUpperCorner().getY() - extent.getLowerCorner().getY()) / rows;
+	}
+
+	public int getRow(double y) {
+		// same semantics as Tile.isOnTile: lower bound exclusive, upper bound inclusive
+		if (y <= extent.getLowerCorner().getY() || y > extent.getUpperCorner().getY())
+			return -1;
+
+		int row = (int) Math.ceil((y - extent.getLowerCorner().getY()) / tileHeight) - 1;
+		return Math.max(0, Math.min(row, rows - 1));
+	}
+
+	public int getColumn(double x) {
+		if (x <= extent.getLowerCorner().getX() || x > extent.getUpperCorner().getX())
+			return -1;
+
+		int column = (int) Math.ceil((x - extent.getLowerCorner().getX()) / tileWidth) - 1;
+		return Math.max(0, Math.min(column, columns - 1));
+	}
+
+	public void addObject(int row, int column, KmlSplittingResult object) {
+		objects.computeIfAbsent(row * columns + column, v -> new ArrayList<>()).add(object);
+		objectCount++;
+	}
+
+	public List<KmlSplittingResult> getObjects(int row, int column) {
+		List<KmlSplittingResult> result = objects.get(row * columns + column);
+		return result != null ? result : Collections.emptyList();
+	}
+
+	public boolean isEmpty(int row, int column) {
+		return !objects.containsKey(row * columns + column);
+	}
+
+	public long getObjectCount() {
+		return objectCount;
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.database;
+
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.log.Logger;
+import org.citygml4j.model.citygml.CityGMLClass;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class LodAvailabilityCache {
+	private final Logger log = Logger.getInstance();
+	private final Connection connection;
+	private final Queries queries;
+	private final int maxItems;
+
+	private final Map<Long, List<Long>> partIds = new HashMap<>();
+	private final Map<Long, Integer> availableLods = new HashMap<>();
+
+	public LodAvailabilityCache(Connection connection, AbstractDatabaseAdapter databaseAdapter) {
+		this.connection = connection;
+		queries = new Queries(databaseAdapter, databaseAdapter.getConnectionDetails().getSchema());
+		maxItems = databaseAdapter.getSQLAdapter().getMaximumNumberOfItemsForInOperator();
+	}
+
+	public void prefetch(List<KmlSplittingResult> batch) {
+		partIds.clear();
+		availableLods.clear();
+
+		EnumMap<CityGMLClass, Set<Long>> rootIds = new EnumMap<>(CityGMLClass.class);
+		for (KmlSplittingResult work : batch) {
+			switch (work.getCityGMLClass()) {
+			case BUILDING:
+			case BRIDGE:
+			case TUNNEL:
+				rootIds.computeIfAbsent(work.getCityGMLClass(), v -> new LinkedHashSet<>()).add(work.getId());
+				break;
+			default:
+				break;
+			}
+		}
+
+		for (Map.Entry<CityGMLClass, Set<Long>> entry : rootIds.entrySet()) {
+			List<Long> ids = new ArrayList<>(entry.getValue());
+			for (int i = 0; i < ids.size(); i += maxItems)
+				prefetch(entry.getKey(), ids.subList(i, Math.min(i + maxItems, ids.size())));
+		}
+	}
+
+	private void prefetch(CityGMLClass type, List<Long> ids) {
+		String query;
+		switch (type) {
+		case BUILDING:
+			query = queries.getAvailableLodsOfBuildingParts(ids.size());
+			break;
+		case BRIDGE:
+			query = queries.getAvailableLodsOfBridgeParts(ids.size());
+			break;
+		default:
+			query = queries.getAvailableLodsOfTunnelParts(ids.size());
+		}
+
+		try (PreparedStatement psQuery = connection.prepareStatement(query)) {
+			for (int i = 0; i < ids.size(); i++)
+				psQuery.setLong(i + 1, ids.get(i));
+
+			// root features without any part simply have an empty list
+			for (Long id : ids)
+				partIds.put(id, new ArrayList<>());
+
+			try (ResultSet rs = psQuery.executeQuery()) {
+				while (rs.next()) {
+					long partId = rs.getLong(1);
+					long rootId = rs.getLong(2);
+
+					int lods = 0;
+					for (int lod = 1; lod < 5; lod++) {
+						if (rs.getInt(lod + 2) == 1)
+							lods |= 1 << lod;
+					}
+
+					partIds.get(rootId).add(partId);
+					availableLods.put(partId, lods);
+				}
+			}
+		} catch (SQLException e) {
+			log.warn("SQL error while querying the available LoDs of " + ids.size() + " features: " + e.getMessage());
+
+			// let the features query their LoDs themselves
+			for (Long id : ids) {
+				List<Long> parts = partIds.remove(id);
+				if (parts != null)
+					parts.forEach(availableLods::remove);
+			}
+
+			try { connection.commit(); } catch (SQLException sqle) {}
+		}
+	}
+
+	public List<Long> getPartIds(long rootId) {
+		return partIds.get(rootId);
+	}
+
+	public int getAvailableLods(long partId) {
+		Integer lods = availableLods.get(partId);
+		return lods != null ? lods : -1;
+	}
+
+	public static boolean isLodAvailable(int availableLods, int lod) {
+		return (availableLods & (1 << lod)) != 0;
+	}
+
+}
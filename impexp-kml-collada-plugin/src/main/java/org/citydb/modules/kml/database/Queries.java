@@ -58,6 +58,22 @@ public class Queries {
 	// ----------------------------------------------------------------------
 
 	public String getSurfaceGeometries(boolean exportAppearance, boolean isImplicit) {
+		return getSurfaceGeometriesSelect(exportAppearance, isImplicit)
+				.append("WHERE sg.root_id = ? ")
+				.append("ORDER BY sg.id").toString();
+	}
+
+	public String getSurfaceGeometries(boolean exportAppearance, boolean isImplicit, int numberOfRootIds) {
+		StringBuilder query = getSurfaceGeometriesSelect(exportAppearance, isImplicit)
+				.append("WHERE sg.root_id IN (");
+
+		for (int i = 0; i < numberOfRootIds; i++)
+			query.append(i == 0 ? "?" : ", ?");
+
+		return query.append(") ORDER BY sg.root_id, sg.id").toString();
+	}
+
+	private StringBuilder getSurfaceGeometriesSelect(boolean exportAppearance, boolean isImplicit) {
 		StringBuilder query = new StringBuilder()
 		.append("select ")
 		.append(isImplicit ? "sg.implicit_geometry" : "sg.geometry")
@@ -79,10 +95,7 @@ public class Queries {
 			.append("LEFT JOIN ").append(schema).append(".appearance a ON a2sd.appearance_id = a.id ");
 		}
 
-		query.append("WHERE sg.root_id = ? ")
-		.append("ORDER BY sg.id");
-
-		return query.toString();
+		return query;
 	}
 
 	// ----------------------------------------------------------------------
@@ -153,6 +166,49 @@ public class Queries {
 		return query.toString();
 	}
 
+	// ----------------------------------------------------------------------
+	// 	LOD AVAILABILITY QUERIES
+	// ----------------------------------------------------------------------
+
+	public String getAvailableLodsOfBuildingParts(int numberOfRootIds) {
+		return getAvailableLodsOfParts("building", "building_root_id", "thematic_surface", "building_id", numberOfRootIds);
+	}
+
+	public String getAvailableLodsOfBridgeParts(int numberOfRootIds) {
+		return getAvailableLodsOfParts("bridge", "bridge_root_id", "bridge_thematic_surface", "bridge_id", numberOfRootIds);
+	}
+
+	public String getAvailableLodsOfTunnelParts(int numberOfRootIds) {
+		return getAvailableLodsOfParts("tunnel", "tunnel_root_id", "tunnel_thematic_surface", "tunnel_id", numberOfRootIds);
+	}
+
+	private String getAvailableLodsOfParts(String table, String rootColumn, String surfaceTable, String parentColumn, int numberOfRootIds) {
+		// checks the same main exterior shell as the light-weight LoD queries, but
+		// for all parts of the given root features and all LoDs at once
+		StringBuilder query = new StringBuilder("SELECT p.id, p.").append(rootColumn);
+
+		for (int lod = 1; lod < 5; lod++) {
+			query.append(", CASE WHEN p.lod").append(lod).append("_solid_id is not null ")
+			.append("OR p.lod").append(lod).append("_multi_surface_id is not null ");
+
+			if (lod > 1) {
+				query.append("OR EXISTS (SELECT 1 FROM ").append(schema).append(".").append(surfaceTable).append(" ts ")
+				.append("WHERE ts.").append(parentColumn).append(" = p.id ")
+				.append("AND ts.lod").append(lod).append("_multi_surface_id is not null) ");
+			}
+
+			query.append("THEN 1 ELSE 0 END AS has_lod").append(lod);
+		}
+
+		query.append(" FROM ").append(schema).append(".").append(table).append(" p ")
+		.append("WHERE p.").append(rootColumn).append(" IN (");
+
+		for (int i = 0; i < numberOfRootIds; i++)
+			query.append(i == 0 ? "?" : ", ?");
+
+		return query.append(")").toString();
+	}
+
 	// ----------------------------------------------------------------------
 	// 	BUILDING QUERIES
 	// ----------------------------------------------------------------------
@@ -1845,4 +1901,23 @@ public class Queries {
 		return query.toString();
 	}
 
+	public String getReliefTriangles() {
+		StringBuilder query = new StringBuilder()
+		.append("SELECT sg.geometry ")
+		.append("FROM ").append(schema).append(".surface_geometry sg ")
+		.append("JOIN ").append(schema).append(".tin_relief tr ON sg.root_id = tr.surface_geometry_id ")
+		.append("WHERE sg.geometry IS NOT NULL AND ");
+
+		switch (databaseAdapter.getDatabaseType()) {
+		case ORACLE:
+			query.append("SDO_ANYINTERACT(sg.geometry, ?) = 'TRUE'");
+			break;
+		case POSTGIS:
+			query.append("sg.geometry && ?");
+			break;
+		}
+
+		return query.toString();
+	}
+
 }
@@ -0,0 +1,120 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class SurfaceGeometryBatch implements AutoCloseable {
+	private final Connection connection;
+	private final Queries queries;
+	private final int maxItems;
+
+	private final List<PreparedStatement> statements = new ArrayList<>();
+	private final List<ResultSet> resultSets = new ArrayList<>();
+	private final Map<Long, int[]> rows = new HashMap<>();
+	private final Map<Long, int[]> implicitRows = new HashMap<>();
+
+	private ResultSet rs;
+	private int currentRow;
+	private int lastRow;
+
+	SurfaceGeometryBatch(Connection connection, Queries queries, int maxItems) {
+		this.connection = connection;
+		this.queries = queries;
+		this.maxItems = maxItems;
+	}
+
+	void query(List<Long> rootIds, boolean exportAppearance, boolean isImplicit) throws SQLException {
+		Map<Long, int[]> rows = isImplicit ? implicitRows : this.rows;
+
+		for (int i = 0; i < rootIds.size(); i += maxItems) {
+			List<Long> ids = rootIds.subList(i, Math.min(i + maxItems, rootIds.size()));
+			String query = queries.getSurfaceGeometries(exportAppearance, isImplicit, ids.size());
+
+			PreparedStatement geometryQuery = connection.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+			statements.add(geometryQuery);
+			for (int j = 0; j < ids.size(); j++)
+				geometryQuery.setLong(j + 1, ids.get(j));
+
+			ResultSet rs = geometryQuery.executeQuery();
+			resultSets.add(rs);
+
+			// the rows are ordered by root id, so we only have to
+			// remember where the rows of each root start and end
+			int resultSet = resultSets.size() - 1;
+			while (rs.next()) {
+				int row = rs.getRow();
+				rows.computeIfAbsent(rs.getLong("root_id"), v -> new int[]{resultSet, row, 0})[2] = row;
+			}
+		}
+	}
+
+	boolean select(long rootId, boolean isImplicit) {
+		int[] range = isImplicit ? implicitRows.get(rootId) : rows.get(rootId);
+		if (range == null) {
+			rs = null;
+			return false;
+		}
+
+		rs = resultSets.get(range[0]);
+		currentRow = range[1] - 1;
+		lastRow = range[2];
+		return true;
+	}
+
+	boolean next() throws SQLException {
+		return rs != null && currentRow < lastRow && rs.absolute(++currentRow);
+	}
+
+	ResultSet getResultSet() {
+		return rs;
+	}
+
+	@Override
+	public void close() {
+		for (ResultSet rs : resultSets)
+			try { rs.close(); } catch (SQLException e) {}
+
+		for (PreparedStatement statement : statements)
+			try { statement.close(); } catch (SQLException e) {}
+
+		resultSets.clear();
+		statements.clear();
+		rows.clear();
+		implicitRows.clear();
+		rs = null;
+	}
+
+}
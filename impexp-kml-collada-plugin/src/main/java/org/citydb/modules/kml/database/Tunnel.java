@@ -39,7 +39,7 @@ import org.citydb.database.connection.DatabaseConnectionPool;
 import org.citydb.event.EventDispatcher;
 import org.citydb.log.Logger;
 import org.citydb.modules.kml.util.BalloonTemplateHandler;
-import org.citydb.modules.kml.util.ElevationServiceHandler;
+import org.citydb.modules.kml.util.ElevationProvider;
 import org.citydb.query.Query;
 
 import javax.vecmath.Point3d;
@@ -62,7 +62,7 @@ public class Tunnel extends KmlGenericObject{
 			net.opengis.kml._2.ObjectFactory kmlFactory,
 			AbstractDatabaseAdapter databaseAdapter,
 			BlobExportAdapter textureExportAdapter,
-			ElevationServiceHandler elevationServiceHandler,
+			ElevationProvider elevationProvider,
 			BalloonTemplateHandler balloonTemplateHandler,
 			EventDispatcher eventDispatcher,
 			Config config) {
@@ -73,7 +73,7 @@ public class Tunnel extends KmlGenericObject{
 				kmlFactory,
 				databaseAdapter,
 				textureExportAdapter,
-				elevationServiceHandler,
+				elevationProvider,
 				balloonTemplateHandler,
 				eventDispatcher,
 				config);
@@ -99,25 +99,34 @@ public class Tunnel extends KmlGenericObject{
 		List<PlacemarkType> placemarks = new ArrayList<>();
 		PreparedStatement psQuery = null;
 		ResultSet rs = null;
-		try {
-			String query = queries.getTunnelPartsFromTunnel();
-			psQuery = connection.prepareStatement(query);
-			for (int i = 1; i <= getParameterCount(query); i++)
-				psQuery.setLong(i, work.getId());
-
-			rs = psQuery.executeQuery();						
-			while (rs.next()) {
-				long tunnelPartId = rs.getLong(1);
+		List<Long> partIds = lodAvailabilityCache != null ? lodAvailabilityCache.getPartIds(work.getId()) : null;
+		if (partIds != null) {
+			for (long tunnelPartId : partIds) {
 				List<PlacemarkType> placemarkBPart = readTunnelPart(tunnelPartId, work);
 				if (placemarkBPart != null)
 					placemarks.addAll(placemarkBPart);
 			}
-		} catch (SQLException sqlEx) {
-			log.error("SQL error while getting tunnel parts for tunnel " + work.getGmlId() + ": " + sqlEx.getMessage());
-			return;
-		} finally {
-			try { if (rs != null) rs.close(); } catch (SQLException sqle) {} 
-			try { if (psQuery != null) psQuery.close(); } catch (SQLException sqle) {}
+		} else {
+			try {
+				String query = queries.getTunnelPartsFromTunnel();
+				psQuery = connection.prepareStatement(query);
+				for (int i = 1; i <= getParameterCount(query); i++)
+					psQuery.setLong(i, work.getId());
+
+				rs = psQuery.executeQuery();						
+				while (rs.next()) {
+					long tunnelPartId = rs.getLong(1);
+					List<PlacemarkType> placemarkBPart = readTunnelPart(tunnelPartId, work);
+					if (placemarkBPart != null)
+						placemarks.addAll(placemarkBPart);
+				}
+			} catch (SQLException sqlEx) {
+				log.error("SQL error while getting tunnel parts for tunnel " + work.getGmlId() + ": " + sqlEx.getMessage());
+				return;
+			} finally {
+				try { if (rs != null) rs.close(); } catch (SQLException sqle) {} 
+				try { if (psQuery != null) psQuery.close(); } catch (SQLException sqle) {}
+			}
 		}
 		
 		if (placemarks.size() == 0) {
@@ -175,10 +184,19 @@ public class Tunnel extends KmlGenericObject{
 					// find the highest available LOD to export from. to increase performance, 
 					// this is just a light-weight query that only checks for the main exterior 
 					// building shell without appearances 
+					int availableLods = lodAvailabilityCache != null ? lodAvailabilityCache.getAvailableLods(tunnelPartId) : -1;
 					while (--currentLod > 0) {
 						if (!work.getDisplayForm().isAchievableFromLoD(currentLod)) 
 							break;
 
+						// the available LoDs have already been fetched for the whole work batch
+						if (availableLods != -1) {
+							if (LodAvailabilityCache.isLodAvailable(availableLods, currentLod))
+								break;
+
+							continue;
+						}
+
 						try {
 							String query = queries.getTunnelPartQuery(currentLod, work.getDisplayForm(), true);
 							psQuery = connection.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
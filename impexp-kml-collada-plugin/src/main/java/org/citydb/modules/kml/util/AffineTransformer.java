@@ -66,4 +66,39 @@ public class AffineTransformer {
 		return geomObj;
 	}
 
+	public double[] transform(double x, double y, double z) {
+		Matrix v = transformationMatrix.times(new Matrix(new double[]{x, y, z, 1}, 4));
+		return new double[]{v.get(0, 0) + referencePoint.getX(),
+				v.get(1, 0) + referencePoint.getY(),
+				v.get(2, 0) + referencePoint.getZ()};
+	}
+
+	/**
+	 * Decomposes the transformation into a rotation about the z axis
+	 * and a scaling along the axes of the implicit geometry.
+	 *
+	 * @return the counter-clockwise rotation angle in radians and the scale
+	 * factors in x, y and z, or {@code null} if the transformation also
+	 * tilts, shears or mirrors the geometry.
+	 */
+	public double[] getRotationAndScale() {
+		double a00 = transformationMatrix.get(0, 0), a01 = transformationMatrix.get(0, 1), a02 = transformationMatrix.get(0, 2);
+		double a10 = transformationMatrix.get(1, 0), a11 = transformationMatrix.get(1, 1), a12 = transformationMatrix.get(1, 2);
+		double a20 = transformationMatrix.get(2, 0), a21 = transformationMatrix.get(2, 1), a22 = transformationMatrix.get(2, 2);
+
+		double sx = Math.sqrt(a00 * a00 + a10 * a10 + a20 * a20);
+		double sy = Math.sqrt(a01 * a01 + a11 * a11 + a21 * a21);
+		double sz = Math.sqrt(a02 * a02 + a12 * a12 + a22 * a22);
+		double tolerance = 1e-6 * Math.max(sx, Math.max(sy, sz));
+
+		if (sx <= tolerance || sy <= tolerance || sz <= tolerance
+				|| Math.abs(a20) > tolerance || Math.abs(a21) > tolerance
+				|| Math.abs(a02) > tolerance || Math.abs(a12) > tolerance
+				|| Math.abs(a00 * a01 + a10 * a11) > tolerance * Math.max(sx, sy)
+				|| a00 * a11 - a01 * a10 <= 0 || a22 <= 0)
+			return null;
+
+		return new double[]{Math.atan2(a10, a00), sx, sy, sz};
+	}
+
 }
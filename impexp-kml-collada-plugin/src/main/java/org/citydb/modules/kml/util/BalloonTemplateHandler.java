@@ -44,9 +44,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 
@@ -1123,9 +1125,32 @@ public class BalloonTemplateHandler {
 			"  </body>\n" +
 			"</html>";
 
+	private static final int MAX_CACHED_STATEMENTS = 64;
+
 	private final AbstractDatabaseAdapter databaseAdapter;
 	private CityGMLClass cityGMLClassForBalloonHandler = null;
 
+	// prepared statements are kept open and reused for subsequent objects
+	private final LinkedHashMap<String, PreparedStatement> statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+			if (size() > MAX_CACHED_STATEMENTS) {
+				closeStatement(eldest.getValue());
+				return true;
+			}
+
+			return false;
+		}
+	};
+	private Connection statementConnection;
+	private final StringBuilder balloonContent = new StringBuilder();
+
+	// placeholder values of the current work batch, prefetched per object class
+	private final LinkedHashSet<Long> batchIds = new LinkedHashSet<>();
+	private final Map<Long, CityGMLClass> batchObjectClasses = new HashMap<>();
+	private final Map<Long, String[]> prefetchedResults = new HashMap<>();
+	private boolean batchObjectClassesQueried;
+
 	List<BalloonStatement> statementList = null;
 	List<String> htmlChunkList = null;
 
@@ -1199,7 +1224,7 @@ public class BalloonTemplateHandler {
 		htmlChunkList = new ArrayList<String>();
 		try {
 			fillStatementAndHtmlChunkList(template);
-			balloonContent = getBalloonContent(id, lod, connection, schemaName);
+			balloonContent = getBalloonContent(id, lod, connection, schemaName, false);
 		}
 		catch (Exception e) {
 			log.warn("Following message applies to generic attribute 'Balloon_Content' for cityobject with id = " + id);
@@ -1217,7 +1242,7 @@ public class BalloonTemplateHandler {
 		if (schemaName == null)
 			schemaName = databaseAdapter.getSchemaManager().getDefaultSchema();
 
-		StringBuilder balloonContent = new StringBuilder();
+		balloonContent.setLength(0);
 
 		if (statementList != null) {
 			// when properly initialized this happens only at the first object
@@ -1228,28 +1253,25 @@ public class BalloonTemplateHandler {
 			long id = -1;
 
 			ResultSet rs = null;
-			PreparedStatement query = null;
+			String query = new StringBuilder("SELECT id, objectclass_id FROM ").append(schemaName).append(".CITYOBJECT WHERE gmlid = ?").toString();
 			try {
-				query = connection.prepareStatement(new StringBuilder("SELECT id, objectclass_id FROM ").append(schemaName).append(".CITYOBJECT WHERE gmlid = ?").toString());
-				query.setString(1, gmlId);
-				rs = query.executeQuery();
+				PreparedStatement preparedStatement = getPreparedStatement(query, connection);
+				preparedStatement.setString(1, gmlId);
+				rs = preparedStatement.executeQuery();
 
 				if (rs.next()) {
 					cityObjectTypeForGmlId = Util.getCityGMLClass(rs.getInt("objectclass_id"));
 					id = rs.getLong("id");
 				}
 			}
-			catch (SQLException sqlEx) {}
+			catch (SQLException sqlEx) {
+				removePreparedStatement(query);
+			}
 			finally {
 				if (rs != null) {
 					try { rs.close(); }	catch (SQLException sqlEx) {}
 					rs = null;
 				}
-
-				if (query != null) {
-					try { query.close(); } catch (SQLException sqlEx) {}
-					query = null;
-				}
 			}
 
 			if (cityGMLClassForBalloonHandler != cityObjectTypeForGmlId) {
@@ -1278,42 +1300,53 @@ public class BalloonTemplateHandler {
 	}
 
 	public String getBalloonContent(long id, int lod, Connection connection, String schemaName) throws Exception {
+		return getBalloonContent(id, lod, connection, schemaName, true);
+	}
+
+	private String getBalloonContent(long id, int lod, Connection connection, String schemaName, boolean usePrefetchedResults) throws Exception {
 		if (connection == null) throw new SQLException("Null or invalid connection");
 		if (statementList == null && htmlChunkList == null) throw new Exception("Invalid template file");
 
 		if (schemaName == null)
 			schemaName = databaseAdapter.getSchemaManager().getDefaultSchema();
 
-		StringBuilder balloonContent = new StringBuilder();
+		balloonContent.setLength(0);
 
 		if (statementList != null) {
 			// when properly initialized this happens only at the first object
 			// otherwise it avoids problems from lousy initialization of BalloonTemplateHandlers in threads
 			// at the cost of performance
 
+			usePrefetchedResults &= batchIds.contains(id);
 			CityGMLClass cityObjectTypeForId = null;
 
-			ResultSet rs = null;
-			PreparedStatement query = null;
-			try {
-				query = connection.prepareStatement(new StringBuilder("SELECT gmlid, objectclass_id FROM ").append(schemaName).append(".CITYOBJECT WHERE id = ?").toString());
-				query.setLong(1, id);
-				rs = query.executeQuery();
+			if (usePrefetchedResults) {
+				if (!batchObjectClassesQueried)
+					queryBatchObjectClasses(connection, schemaName);
 
-				if (rs.next()) {
-					cityObjectTypeForId = Util.getCityGMLClass(rs.getInt("objectclass_id"));
-				}
+				cityObjectTypeForId = batchObjectClasses.get(id);
 			}
-			catch (SQLException sqlEx) {}
-			finally {
-				if (rs != null) {
-					try { rs.close(); }	catch (SQLException sqlEx) {}
-					rs = null;
-				}
 
-				if (query != null) {
-					try { query.close(); } catch (SQLException sqlEx) {}
-					query = null;
+			if (cityObjectTypeForId == null) {
+				ResultSet rs = null;
+				String query = new StringBuilder("SELECT gmlid, objectclass_id FROM ").append(schemaName).append(".CITYOBJECT WHERE id = ?").toString();
+				try {
+					PreparedStatement preparedStatement = getPreparedStatement(query, connection);
+					preparedStatement.setLong(1, id);
+					rs = preparedStatement.executeQuery();
+
+					if (rs.next()) {
+						cityObjectTypeForId = Util.getCityGMLClass(rs.getInt("objectclass_id"));
+					}
+				}
+				catch (SQLException sqlEx) {
+					removePreparedStatement(query);
+				}
+				finally {
+					if (rs != null) {
+						try { rs.close(); }	catch (SQLException sqlEx) {}
+						rs = null;
+					}
 				}
 			}
 
@@ -1324,24 +1357,139 @@ public class BalloonTemplateHandler {
 				cityGMLClassForBalloonHandler = cityObjectTypeForId;
 			}
 
-			List<String> resultList = new ArrayList<String>();
-			for (BalloonStatement statement: statementList) {
-				resultList.add(executeStatement(statement, id, lod, connection, schemaName));
+			String[] prefetchedResult = null;
+			if (usePrefetchedResults && cityObjectTypeForId != null) {
+				prefetchedResult = prefetchedResults.get(id);
+				if (prefetchedResult == null) {
+					prefetch(cityObjectTypeForId, lod, connection, schemaName);
+					prefetchedResult = prefetchedResults.get(id);
+				}
 			}
 
+			// the template is rendered from its html chunks and the placeholder
+			// values, which are taken from the batch whenever possible
 			Iterator<String> htmlChunkIterator = htmlChunkList.iterator();
-			Iterator<String> resultIterator = resultList.iterator();
-
-			while (htmlChunkIterator.hasNext()) {
+			for (int i = 0; htmlChunkIterator.hasNext(); i++) {
 				balloonContent.append(htmlChunkIterator.next());
-				if (resultIterator.hasNext()) {
-					balloonContent.append(resultIterator.next());
+				if (i < statementList.size()) {
+					if (prefetchedResult != null && prefetchedResult[i] != null)
+						balloonContent.append(prefetchedResult[i]);
+					else
+						balloonContent.append(executeStatement(statementList.get(i), id, lod, connection, schemaName));
 				}
 			}
 		}
 		return balloonContent.toString();
 	}
 
+	public void setBatch(List<Long> ids) {
+		batchIds.clear();
+		batchIds.addAll(ids);
+		batchObjectClasses.clear();
+		prefetchedResults.clear();
+		batchObjectClassesQueried = false;
+	}
+
+	private void queryBatchObjectClasses(Connection connection, String schemaName) {
+		batchObjectClassesQueried = true;
+
+		List<Long> ids = new ArrayList<>(batchIds);
+		int maxItems = databaseAdapter.getSQLAdapter().getMaximumNumberOfItemsForInOperator();
+
+		for (int i = 0; i < ids.size(); i += maxItems) {
+			List<Long> subList = ids.subList(i, Math.min(i + maxItems, ids.size()));
+			String query = new StringBuilder("SELECT id, objectclass_id FROM ").append(schemaName)
+					.append(".CITYOBJECT WHERE id IN (").append(getPlaceHolders(subList.size())).append(")").toString();
+
+			try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+				for (int j = 0; j < subList.size(); j++)
+					preparedStatement.setLong(j + 1, subList.get(j));
+
+				try (ResultSet rs = preparedStatement.executeQuery()) {
+					while (rs.next())
+						batchObjectClasses.put(rs.getLong(1), Util.getCityGMLClass(rs.getInt(2)));
+				}
+			}
+			catch (SQLException e) {
+				// the objects of this chunk look up their object class themselves
+				log.warn("Exception when querying the object classes of " + subList.size() + " balloon objects: " + e.getMessage());
+			}
+		}
+	}
+
+	private void prefetch(CityGMLClass cityObjectType, int lod, Connection connection, String schemaName) {
+		List<Long> ids = new ArrayList<>();
+		for (Long id : batchIds) {
+			if (batchObjectClasses.get(id) == cityObjectType && !prefetchedResults.containsKey(id)) {
+				ids.add(id);
+				prefetchedResults.put(id, new String[statementList.size()]);
+			}
+		}
+
+		int maxItems = databaseAdapter.getSQLAdapter().getMaximumNumberOfItemsForInOperator();
+		for (int i = 0; i < statementList.size(); i++) {
+			BalloonStatement statement = statementList.get(i);
+			for (int j = 0; j < ids.size(); j += maxItems) {
+				if (!executeBatchStatement(statement, i, ids.subList(j, Math.min(j + maxItems, ids.size())), lod, connection, schemaName))
+					break;
+			}
+		}
+	}
+
+	private boolean executeBatchStatement(BalloonStatement statement, int index, List<Long> ids, int lod, Connection connection, String schemaName) {
+		String query;
+		try {
+			query = statement.getBatchSQLStatement(lod, schemaName, ids.size());
+			if (query == null)
+				return false;
+		}
+		catch (Exception e) {
+			// reported when the statement is executed per object
+			return false;
+		}
+
+		Map<Long, StringBuilder> results = new HashMap<>();
+		Map<Long, Integer> rowNumbers = new HashMap<>();
+
+		try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+			for (int i = 0; i < ids.size(); i++)
+				preparedStatement.setLong(i + 1, ids.get(i));
+
+			try (ResultSet rs = preparedStatement.executeQuery()) {
+				while (rs.next()) {
+					long id = rs.getLong(1);
+					int rowNumber = rowNumbers.merge(id, 1, Integer::sum);
+					StringBuilder builder = results.computeIfAbsent(id, v -> new StringBuilder());
+
+					if (statement.isForeach()) {
+						appendForeachRow(statement.getCompiledForeachBody(), rs, rowNumber, 1, builder);
+					}
+					else {
+						if (rowNumber > 1) {
+							builder.append(", ");
+						}
+						appendValue(rs, 2, builder);
+					}
+				}
+			}
+
+			for (Long id : ids) {
+				StringBuilder builder = results.get(id);
+				prefetchedResults.get(id)[index] = builder != null ? builder.toString() : "";
+			}
+
+			return true;
+		}
+		catch (SQLException e) {
+			log.warn("Exception when executing balloon statement: " + statement.rawStatement + " --> " + e.getMessage());
+			statement.setBatchable(false);
+
+			// the objects fall back to querying the value themselves
+			try { connection.commit(); } catch (SQLException sqle) {}
+			return false;
+		}
+	}
+
 	private String executeStatement(BalloonStatement statement, long id, int lod, Connection connection, String schemaName) {
 		String result = "";
 		String query = "";
@@ -1408,7 +1556,7 @@ public class BalloonTemplateHandler {
 
 					BalloonStatement dummy = new BalloonStatement(notNestedAnymore.toString());
 					query = dummy.getProperSQLStatement(lod, schemaName);
-					preparedStatement = connection.prepareStatement(query);
+					preparedStatement = getPreparedStatement(query, connection);
 				}
 				else { // not nested
 					if (statement.getProperSQLStatement(lod, schemaName) == null) {
@@ -1416,60 +1564,30 @@ public class BalloonTemplateHandler {
 						return result; // skip db call, rs and preparedStatement are currently null
 					}
 					query = statement.getProperSQLStatement(lod, schemaName);
-					preparedStatement = connection.prepareStatement(query);
+					preparedStatement = getPreparedStatement(query, connection);
 				}
 
 				for (int i = 1; i <= getParameterCount(query); i++)
 					preparedStatement.setLong(i, id);
 
+				StringBuilder builder = new StringBuilder();
 				rs = preparedStatement.executeQuery();
 				while (rs.next()) {
 					if (rs.getRow() > 1) {
-						result = result + ", ";
-					}
-					Object object = rs.getObject(1);
-					if (!rs.wasNull() && object != null) {
-						GeometryObject geomObj = databaseAdapter.getGeometryConverter().getGeometry(object);
-						if (geomObj != null) {
-							int dimension = geomObj.getDimension();
-
-							result = result + "(";
-							for (int ringNo = 0; ringNo < geomObj.getNumElements(); ringNo++) {
-								double[] ring = geomObj.getCoordinates(ringNo);
-
-								for (int i = 0; i < ring.length; i = i + dimension) {
-									for (int j = 0; j < dimension; j++) {
-										result = result + ring[i+j];
-										if (j < dimension - 1) 
-											result = result + ",";
-									}
-
-									if (i+dimension < ring.length)
-										result = result + " ";
-								}	
-
-								if (ringNo < geomObj.getNumElements() - 1)
-									result = result + " ";
-							}
-							result = result + ")";
-						}
-						else {
-							String tmp = rs.getObject(1).toString();
-							if (tmp.indexOf("oracle.sql.TIMESTAMPTZ") >= 0) {
-								tmp =  rs.getTimestamp(1).toString();
-							}
-							result = result + tmp.replaceAll("\"", "&quot;"); // workaround, the JAXB KML marshaler does not escape " properly;
-						}
+						builder.append(", ");
 					}
+					appendValue(rs, 1, builder);
 				}
+
+				result = builder.toString();
 			}
 			catch (Exception e) {
 				log.warn("Exception when executing balloon statement: " + statement.rawStatement + " --> " + e.getMessage());
+				removePreparedStatement(query);
 			}
 			finally {
 				try {
 					if (rs != null) rs.close();
-					if (preparedStatement != null) preparedStatement.close();
 				}
 				catch (Exception e2) {}
 			}
@@ -1478,74 +1596,151 @@ public class BalloonTemplateHandler {
 	}
 
 	private String executeForeachStatement(BalloonStatement statement, long id, int lod, Connection connection, String schemaName) {
-		String resultBody = "";
+		StringBuilder resultBody = new StringBuilder();
 
-		PreparedStatement preparedStatement = null;
+		String query = null;
 		ResultSet rs = null;
 		try {
 			if (statement != null && statement.getProperSQLStatement(lod, schemaName) != null) {
-				String query = statement.getProperSQLStatement(lod, schemaName);
-				preparedStatement = connection.prepareStatement(query);
+				query = statement.getProperSQLStatement(lod, schemaName);
+				PreparedStatement preparedStatement = getPreparedStatement(query, connection);
 				for (int i = 1; i <= getParameterCount(query); i++)
 					preparedStatement.setLong(i, id);
 
+				List<Object> foreachBody = statement.getCompiledForeachBody();
 				rs = preparedStatement.executeQuery();
 				while (rs.next()) {
-					String iterationBody = statement.getForeachBody();
-					for (int n = 0; n <= statement.getColumnAmount(); n++) {
-						String columnValue = "";
-						if (n == 0) {
-							columnValue = String.valueOf(rs.getRow());
-						}
-						else {
-							Object object = rs.getObject(n);
-							if (!rs.wasNull() && object != null) {
-								GeometryObject geomObj = databaseAdapter.getGeometryConverter().getGeometry(object);
-								if (geomObj != null) {
-									int dimension = geomObj.getDimension();
-
-									columnValue = columnValue + "(";
-									for (int ringNo = 0; ringNo < geomObj.getNumElements(); ringNo++) {
-										double[] ring = geomObj.getCoordinates(ringNo);
-
-										for (int i = 0; i < ring.length; i = i + dimension) {
-											for (int j = 0; j < dimension; j++) {
-												columnValue = columnValue + ring[i+j];
-												if (j < dimension - 1) 
-													columnValue = columnValue + ",";
-											}
-
-											if (i+dimension < ring.length)
-												columnValue = columnValue + " ";
-										}	
-
-										if (ringNo < geomObj.getNumElements() - 1)
-											columnValue = columnValue + " ";
-									}
-									columnValue = columnValue + ")";
-								}
-								else {
-									columnValue = rs.getObject(n).toString().replaceAll("\"", "&quot;"); // workaround, the JAXB KML marshaler does not escape " properly
-								}
-							}
-						}
-						iterationBody = iterationBody.replaceAll("%" + n, columnValue);
-					}
-					resultBody = resultBody + iterationBody;
+					appendForeachRow(foreachBody, rs, rs.getRow(), 0, resultBody);
 				}
 			}
 		}
 		catch (Exception e) {
 			log.warn(e.getMessage());
+			removePreparedStatement(query);
 		}
 		finally {
 			try {
 				if (rs != null) rs.close();
-				if (preparedStatement != null) preparedStatement.close();
 			}
 			catch (Exception e2) {}
 		}
-		return resultBody;
+		return resultBody.toString();
+	}
+
+	private void appendValue(ResultSet rs, int column, StringBuilder builder) throws SQLException {
+		Object object = rs.getObject(column);
+		if (!rs.wasNull() && object != null) {
+			GeometryObject geomObj = databaseAdapter.getGeometryConverter().getGeometry(object);
+			if (geomObj != null) {
+				appendGeometry(geomObj, builder);
+			}
+			else {
+				String tmp = object.toString();
+				if (tmp.indexOf("oracle.sql.TIMESTAMPTZ") >= 0) {
+					tmp =  rs.getTimestamp(column).toString();
+				}
+				appendEscaped(tmp, builder);
+			}
+		}
+	}
+
+	private void appendForeachRow(List<Object> foreachBody, ResultSet rs, int rowNumber, int columnOffset, StringBuilder builder) throws SQLException {
+		for (Object part : foreachBody) {
+			if (part instanceof String) {
+				builder.append((String) part);
+				continue;
+			}
+
+			int n = (Integer) part;
+			if (n == 0) {
+				builder.append(rowNumber);
+			}
+			else {
+				Object object = rs.getObject(n + columnOffset);
+				if (!rs.wasNull() && object != null) {
+					GeometryObject geomObj = databaseAdapter.getGeometryConverter().getGeometry(object);
+					if (geomObj != null) {
+						appendGeometry(geomObj, builder);
+					}
+					else {
+						appendEscaped(object.toString(), builder);
+					}
+				}
+			}
+		}
+	}
+
+	private void appendGeometry(GeometryObject geomObj, StringBuilder builder) {
+		int dimension = geomObj.getDimension();
+
+		builder.append('(');
+		for (int ringNo = 0; ringNo < geomObj.getNumElements(); ringNo++) {
+			double[] ring = geomObj.getCoordinates(ringNo);
+
+			for (int i = 0; i < ring.length; i = i + dimension) {
+				for (int j = 0; j < dimension; j++) {
+					builder.append(ring[i+j]);
+					if (j < dimension - 1)
+						builder.append(',');
+				}
+
+				if (i+dimension < ring.length)
+					builder.append(' ');
+			}
+
+			if (ringNo < geomObj.getNumElements() - 1)
+				builder.append(' ');
+		}
+		builder.append(')');
+	}
+
+	private void appendEscaped(String value, StringBuilder builder) {
+		// workaround, the JAXB KML marshaler does not escape " properly
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"')
+				builder.append("&quot;");
+			else
+				builder.append(c);
+		}
+	}
+
+	private PreparedStatement getPreparedStatement(String query, Connection connection) throws SQLException {
+		if (connection != statementConnection) {
+			close();
+			statementConnection = connection;
+		}
+
+		PreparedStatement preparedStatement = statementCache.get(query);
+		if (preparedStatement == null) {
+			preparedStatement = connection.prepareStatement(query);
+			statementCache.put(query, preparedStatement);
+		}
+
+		return preparedStatement;
+	}
+
+	private void removePreparedStatement(String query) {
+		if (query != null)
+			closeStatement(statementCache.remove(query));
+	}
+
+	private void closeStatement(PreparedStatement preparedStatement) {
+		if (preparedStatement != null) {
+			try {
+				preparedStatement.close();
+			} catch (SQLException e) {
+				//
+			}
+		}
+	}
+
+	public void close() {
+		for (PreparedStatement preparedStatement : statementCache.values())
+			closeStatement(preparedStatement);
+
+		statementCache.clear();
+		statementConnection = null;
 	}
 
 	private void fillStatementAndHtmlChunkList(String template) throws Exception {
@@ -1610,10 +1805,16 @@ public class BalloonTemplateHandler {
 		private int columnAmount;
 		private boolean foreach = false;
 		private String foreachBody;
+		private List<Object> compiledForeachBody;
 
 		private String tableShortId;
 		private boolean orderByColumnAllowed = true;
 
+		private boolean batchable = false;
+		private String batchSQLStatementBase;
+		private String batchSQLStatementPrefix;
+		private String batchSQLStatementSuffix;
+
 		BalloonStatement (String rawStatement) {
 			this.setRawStatement(rawStatement);
 		}
@@ -1650,6 +1851,73 @@ public class BalloonTemplateHandler {
 			this.conversionTried = conversionTried;
 		}
 
+		private void setBatchable(boolean batchable) {
+			this.batchable = batchable;
+		}
+
+		private String getBatchSQLStatement(int lod, String schemaName, int size) throws Exception {
+			String sqlStatement = getProperSQLStatement(lod, schemaName);
+			if (!batchable || nested || sqlStatement == null)
+				return null;
+
+			if (!sqlStatement.equals(batchSQLStatementBase)) {
+				batchSQLStatementBase = sqlStatement;
+				batchSQLStatementPrefix = null;
+				batchSQLStatementSuffix = null;
+
+				// only statements of the form "SELECT ... WHERE key = ? ..." with the object
+				// id as single top-level parameter can be turned into "key IN (?, ...)"
+				int parameter = -1;
+				int depth = 0;
+				for (int i = 0; i < sqlStatement.length(); i++) {
+					char c = sqlStatement.charAt(i);
+					if (c == '(')
+						depth++;
+					else if (c == ')')
+						depth--;
+					else if (c == '?') {
+						if (parameter != -1 || depth != 0) {
+							batchable = false;
+							return null;
+						}
+
+						parameter = i;
+					}
+				}
+
+				int index = parameter - 1;
+				while (index >= 0 && sqlStatement.charAt(index) == ' ')
+					index--;
+
+				if (index < 0 || sqlStatement.charAt(index) != '=' || !sqlStatement.regionMatches(true, 0, "SELECT ", 0, 7)) {
+					batchable = false;
+					return null;
+				}
+
+				int keyEnd = index;
+				while (keyEnd > 0 && sqlStatement.charAt(keyEnd - 1) == ' ')
+					keyEnd--;
+
+				int keyStart = keyEnd;
+				while (keyStart > 0 && (Character.isLetterOrDigit(sqlStatement.charAt(keyStart - 1))
+						|| sqlStatement.charAt(keyStart - 1) == '_'
+						|| sqlStatement.charAt(keyStart - 1) == '.'))
+					keyStart--;
+
+				if (keyStart == keyEnd) {
+					batchable = false;
+					return null;
+				}
+
+				// the key is selected as first column to assign the rows to the objects
+				String key = sqlStatement.substring(keyStart, keyEnd);
+				batchSQLStatementPrefix = "SELECT " + key + ", " + sqlStatement.substring(7, keyStart) + key + " IN (";
+				batchSQLStatementSuffix = ")" + sqlStatement.substring(parameter + 1);
+			}
+
+			return batchSQLStatementPrefix + getPlaceHolders(size) + batchSQLStatementSuffix;
+		}
+
 		private boolean isForeach() {
 			return foreach;
 		}
@@ -1664,6 +1932,53 @@ public class BalloonTemplateHandler {
 
 		private void setForeachBody(String foreachBody) {
 			this.foreachBody = foreachBody;
+			compiledForeachBody = null;
+		}
+
+		private List<Object> getCompiledForeachBody() {
+			if (compiledForeachBody == null) {
+				// split the body into text and %n column references once
+				compiledForeachBody = new ArrayList<>();
+				StringBuilder text = new StringBuilder();
+				int length = foreachBody.length();
+
+				for (int i = 0; i < length; i++) {
+					char c = foreachBody.charAt(i);
+					int column = -1;
+					int end = i + 1;
+
+					if (c == '%') {
+						int value = 0;
+						for (int j = i + 1; j < length && Character.isDigit(foreachBody.charAt(j)); j++) {
+							value = value * 10 + Character.digit(foreachBody.charAt(j), 10);
+							if (value > columnAmount)
+								break;
+
+							column = value;
+							end = j + 1;
+							if (value == 0)
+								break;
+						}
+					}
+
+					if (column != -1) {
+						if (text.length() > 0) {
+							compiledForeachBody.add(text.toString());
+							text.setLength(0);
+						}
+
+						compiledForeachBody.add(column);
+						i = end - 1;
+					}
+					else
+						text.append(c);
+				}
+
+				if (text.length() > 0)
+					compiledForeachBody.add(text.toString());
+			}
+
+			return compiledForeachBody;
 		}
 
 		private int getColumnAmount() {
@@ -1672,6 +1987,7 @@ public class BalloonTemplateHandler {
 
 		private void setColumnAmount(int columnAmount) {
 			this.columnAmount = columnAmount;
+			compiledForeachBody = null;
 		}
 
 		private void convertStatementToProperSQL(int lod, String schemaName) throws Exception {
@@ -1681,6 +1997,7 @@ public class BalloonTemplateHandler {
 			String aggregateFunction = null;
 			List<String> columns = null;
 			String condition = null;
+			batchable = false;
 
 			int index = rawStatement.indexOf('/');
 			if (index == -1) {
@@ -1929,6 +2246,8 @@ public class BalloonTemplateHandler {
 				}
 			}
 
+			// aggregated values cannot be fetched for several objects at once
+			batchable = aggregateFunction == null;
 			setProperSQLStatement(sqlStatement);
 		}
 
@@ -3482,6 +3801,17 @@ public class BalloonTemplateHandler {
 		}
 	}
 
+	private String getPlaceHolders(int size) {
+		StringBuilder placeHolders = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			if (i > 0)
+				placeHolders.append(',');
+			placeHolders.append('?');
+		}
+
+		return placeHolders.toString();
+	}
+
 	private int getParameterCount(String query) {
 		// due to a bug in the Oracle JDBC driver, we cannot use getParameterMetaData().getParameterCount() to
 		// get the number of parameters in a prepared statement having a long query string...
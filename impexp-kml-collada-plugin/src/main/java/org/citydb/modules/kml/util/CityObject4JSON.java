@@ -128,9 +128,7 @@ public class CityObject4JSON {
 	public int getTileColumn() {
 		return tileColumn;
 	}
-	/*
 	public String getGmlId() {
 		return gmlId;
 	}
-	 */
 }
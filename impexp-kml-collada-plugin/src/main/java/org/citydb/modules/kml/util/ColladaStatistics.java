@@ -0,0 +1,101 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ColladaStatistics {
+	private final LongAdder surfaces = new LongAdder();
+	private final LongAdder simplifiedSurfaces = new LongAdder();
+	private final LongAdder removedSurfaces = new LongAdder();
+	private final LongAdder vertices = new LongAdder();
+	private final LongAdder retainedVertices = new LongAdder();
+	private final LongAdder triangles = new LongAdder();
+	private final LongAdder encodingTime = new LongAdder();
+
+	public void addSurface(int vertexCount, int[] indices, boolean simplified) {
+		BitSet referenced = new BitSet(vertexCount);
+		for (int index : indices)
+			referenced.set(index);
+
+		surfaces.increment();
+		if (simplified)
+			simplifiedSurfaces.increment();
+
+		if (simplified && indices.length == 0)
+			removedSurfaces.increment();
+
+		vertices.add(vertexCount);
+		retainedVertices.add(referenced.cardinality());
+		triangles.add(indices.length / 3);
+	}
+
+	public void addEncodingTime(long nanos) {
+		encodingTime.add(nanos);
+	}
+
+	public long getSurfaces() {
+		return surfaces.sum();
+	}
+
+	public long getSimplifiedSurfaces() {
+		return simplifiedSurfaces.sum();
+	}
+
+	public long getRemovedSurfaces() {
+		return removedSurfaces.sum();
+	}
+
+	public long getVertices() {
+		return vertices.sum();
+	}
+
+	public long getRetainedVertices() {
+		return retainedVertices.sum();
+	}
+
+	public long getTriangles() {
+		return triangles.sum();
+	}
+
+	public long getEncodingTime() {
+		return encodingTime.sum() / 1000000;
+	}
+
+	public void reset() {
+		surfaces.reset();
+		simplifiedSurfaces.reset();
+		removedSurfaces.reset();
+		vertices.reset();
+		retainedVertices.reset();
+		triangles.reset();
+		encodingTime.reset();
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Thread-safe cache of terrain triangles organized in a regular grid. Cells are
+ * loaded on demand by the first worker that needs them; other workers asking for
+ * the same cell wait for this load instead of querying the terrain again.
+ */
+public class ElevationGrid {
+	public static final int DEFAULT_MAX_CELLS = 1024;
+
+	private final double cellSize;
+	private final LinkedHashMap<Long, FutureTask<double[]>> cells;
+
+	public ElevationGrid(double cellSize) {
+		this(cellSize, DEFAULT_MAX_CELLS);
+	}
+
+	public ElevationGrid(double cellSize, int maxCells) {
+		this.cellSize = cellSize;
+		cells = new LinkedHashMap<Long, FutureTask<double[]>>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, FutureTask<double[]>> eldest) {
+				return size() > maxCells;
+			}
+		};
+	}
+
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Interpolates the terrain height at the given location.
+	 *
+	 * @return the terrain height or {@code Double.NaN} if the location is not covered by the terrain
+	 */
+	public double getElevation(double x, double y, CellLoader loader) throws SQLException {
+		long cellX = (long) Math.floor(x / cellSize);
+		long cellY = (long) Math.floor(y / cellSize);
+		long key = (cellX << 32) ^ (cellY & 0xffffffffL);
+
+		FutureTask<double[]> cell;
+		boolean load = false;
+
+		synchronized (cells) {
+			cell = cells.get(key);
+			if (cell == null) {
+				double minX = cellX * cellSize, minY = cellY * cellSize;
+				cell = new FutureTask<>(() -> loader.load(minX, minY, minX + cellSize, minY + cellSize));
+				cells.put(key, cell);
+				load = true;
+			}
+		}
+
+		if (load)
+			cell.run();
+
+		double[] triangles;
+		try {
+			triangles = cell.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Double.NaN;
+		} catch (ExecutionException e) {
+			synchronized (cells) {
+				cells.remove(key, cell);
+			}
+
+			throw e.getCause() instanceof SQLException ?
+					(SQLException) e.getCause() : new SQLException("Failed to load terrain cell.", e.getCause());
+		}
+
+		return interpolate(triangles, x, y);
+	}
+
+	private double interpolate(double[] triangles, double x, double y) {
+		for (int i = 0; i < triangles.length; i += 9) {
+			double x1 = triangles[i], y1 = triangles[i + 1];
+			double x2 = triangles[i + 3], y2 = triangles[i + 4];
+			double x3 = triangles[i + 6], y3 = triangles[i + 7];
+
+			double det = (y2 - y3) * (x1 - x3) + (x3 - x2) * (y1 - y3);
+			if (det == 0)
+				continue;
+
+			// barycentric coordinates of the location
+			double l1 = ((y2 - y3) * (x - x3) + (x3 - x2) * (y - y3)) / det;
+			double l2 = ((y3 - y1) * (x - x3) + (x1 - x3) * (y - y3)) / det;
+			double l3 = 1 - l1 - l2;
+
+			if (l1 >= 0 && l2 >= 0 && l3 >= 0)
+				return l1 * triangles[i + 2] + l2 * triangles[i + 5] + l3 * triangles[i + 8];
+		}
+
+		return Double.NaN;
+	}
+
+	public void clear() {
+		synchronized (cells) {
+			cells.clear();
+		}
+	}
+
+	@FunctionalInterface
+	public interface CellLoader {
+		/**
+		 * @return x, y, z coordinates of all terrain triangles intersecting the given cell
+		 */
+		double[] load(double minX, double minY, double maxX, double maxY) throws SQLException;
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+public interface ElevationProvider {
+
+	/**
+	 * Returns the offset to be added to the height values of a city object so that
+	 * the lowest of the candidate points is placed on the terrain.
+	 *
+	 * @param candidateCoords x, y, z coordinates of the candidate points
+	 * @return the altitude offset
+	 */
+	double getZOffset(double[] candidateCoords) throws Exception;
+
+	/**
+	 * @return whether the candidate coordinates must be given as WGS 84 longitude, latitude
+	 * and height instead of coordinates in the reference system of the database
+	 */
+	boolean requiresWGS84Coordinates();
+
+	String getName();
+
+}
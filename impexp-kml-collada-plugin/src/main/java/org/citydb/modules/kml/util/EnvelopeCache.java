@@ -0,0 +1,85 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class EnvelopeCache {
+	public static final int DEFAULT_MAX_ENTRIES = 500000;
+
+	private final LinkedHashMap<Long, Entry> envelopes;
+
+	public EnvelopeCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public EnvelopeCache(int maxEntries) {
+		envelopes = new LinkedHashMap<Long, Entry>(1024, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	public synchronized Entry get(long cityObjectId) {
+		return envelopes.get(cityObjectId);
+	}
+
+	public synchronized Entry put(long cityObjectId, double[] center, double[] envelopeInWGS84) {
+		Entry entry = new Entry(center, envelopeInWGS84);
+		envelopes.put(cityObjectId, entry);
+		return entry;
+	}
+
+	public synchronized void clear() {
+		envelopes.clear();
+	}
+
+	public static final class Entry {
+		private final double[] center;
+		private final double[] envelopeInWGS84;
+
+		private Entry(double[] center, double[] envelopeInWGS84) {
+			this.center = center;
+			this.envelopeInWGS84 = envelopeInWGS84;
+		}
+
+		public double[] getCenter() {
+			return center;
+		}
+
+		public double[] getEnvelopeInWGS84() {
+			return envelopeInWGS84;
+		}
+	}
+
+}
@@ -33,7 +33,10 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ExportTracker {
 	
 	private final ConcurrentHashMap<Long, CityObject4JSON> map;
+	private final ColladaStatistics colladaStatistics = new ColladaStatistics();
+	private final ConcurrentHashMap<Long, ImplicitGeometryPrototype> prototypes = new ConcurrentHashMap<>();
 	private String currentWorkingDirectoryPath;
+	private volatile KmzArchive currentKmzArchive;
 	
 	public ExportTracker() {
 		map = new ConcurrentHashMap<Long, CityObject4JSON>();
@@ -49,12 +52,21 @@ public class ExportTracker {
 	
 	public void clear() {
 		map.clear();
+		prototypes.clear();
 	}
 	
 	public Collection<CityObject4JSON> values() {
 		return map.values();
 	}
 
+	public ImplicitGeometryPrototype getImplicitGeometryPrototype(long id) {
+		return prototypes.computeIfAbsent(id, ImplicitGeometryPrototype::new);
+	}
+
+	public ColladaStatistics getColladaStatistics() {
+		return colladaStatistics;
+	}
+
 	public String getCurrentWorkingDirectoryPath() {
 		return currentWorkingDirectoryPath;
 	}
@@ -62,5 +74,13 @@ public class ExportTracker {
 	public void setCurrentWorkingDirectoryPath(String currentWorkingDirectoryPath) {
 		this.currentWorkingDirectoryPath = currentWorkingDirectoryPath;
 	}
+
+	public KmzArchive getCurrentKmzArchive() {
+		return currentKmzArchive;
+	}
+
+	public void setCurrentKmzArchive(KmzArchive currentKmzArchive) {
+		this.currentKmzArchive = currentKmzArchive;
+	}
 	
 }
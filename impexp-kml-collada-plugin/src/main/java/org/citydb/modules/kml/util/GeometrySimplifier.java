@@ -0,0 +1,248 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import org.citydb.modules.kml.util.PolygonTriangulator.Triangulation;
+
+import java.util.Arrays;
+
+/**
+ * Reduces the number of vertices of planar surfaces before they are triangulated.
+ * Vertices closer than the geometric error to their predecessor are clustered, and
+ * the remaining rings are simplified using the Douglas-Peucker algorithm. Rings
+ * that collapse or whose area falls below the squared geometric error are dropped.
+ */
+public class GeometrySimplifier {
+	private final double maxError;
+	private final double maxSquaredError;
+
+	private boolean[] keep = new boolean[64];
+	private int[] stack = new int[128];
+	private int[] retained = new int[64];
+	private double[] coordinates = new double[192];
+
+	public GeometrySimplifier(double maxError) {
+		this.maxError = maxError;
+		maxSquaredError = maxError * maxError;
+	}
+
+	public double getMaxError() {
+		return maxError;
+	}
+
+	/**
+	 * Simplifies and triangulates a polygon given as concatenated rings of x, y, z coordinates.
+	 *
+	 * @param triangulator the triangulator used for the simplified polygon
+	 * @param coordinates x, y, z coordinates of all rings
+	 * @param ringSizes number of vertices per ring
+	 * @return the triangulation, whose indices refer to the vertices in {@code coordinates}
+	 */
+	public Triangulation triangulate(PolygonTriangulator triangulator, double[] coordinates, int[] ringSizes) {
+		int vertices = coordinates.length / 3;
+		if (keep.length < vertices) {
+			keep = new boolean[vertices];
+			retained = new int[vertices];
+			this.coordinates = new double[vertices * 3];
+		}
+
+		int[] simplifiedRingSizes = new int[ringSizes.length];
+		int rings = 0;
+		int size = 0;
+
+		for (int ring = 0, start = 0; ring < ringSizes.length; start += ringSizes[ring++]) {
+			int count = simplifyRing(coordinates, start, ringSizes[ring]);
+			if (count < 3 || area(start, ringSizes[ring], coordinates) < maxSquaredError) {
+				// a collapsed exterior ring removes the whole surface
+				if (ring == 0)
+					return new Triangulation(new int[0], new double[]{0, 0, 1});
+
+				continue;
+			}
+
+			for (int i = start; i < start + ringSizes[ring]; i++) {
+				if (keep[i]) {
+					retained[size] = i;
+					System.arraycopy(coordinates, i * 3, this.coordinates, size * 3, 3);
+					size++;
+				}
+			}
+
+			simplifiedRingSizes[rings++] = count;
+		}
+
+		Triangulation triangulation = triangulator.triangulate(Arrays.copyOf(this.coordinates, size * 3), Arrays.copyOf(simplifiedRingSizes, rings));
+
+		// map the indices back to the vertices of the original polygon
+		int[] indices = triangulation.getIndices();
+		for (int i = 0; i < indices.length; i++)
+			indices[i] = retained[indices[i]];
+
+		return triangulation;
+	}
+
+	private int simplifyRing(double[] coordinates, int start, int count) {
+		int end = start + count;
+		Arrays.fill(keep, start, end, false);
+
+		// cluster vertices that are closer than the geometric error
+		int first = start, last = start, clustered = 1;
+		for (int i = start + 1; i < end; i++) {
+			if (squaredDistance(coordinates, i, last) > maxSquaredError) {
+				keep[i] = true;
+				last = i;
+				clustered++;
+			}
+		}
+
+		keep[first] = true;
+		if (clustered > 1 && squaredDistance(coordinates, last, first) <= maxSquaredError) {
+			keep[last] = false;
+			clustered--;
+		}
+
+		if (clustered < 3)
+			return clustered;
+
+		// split the closed ring at the vertex farthest from the first vertex
+		int farthest = first;
+		double maxDistance = 0;
+		for (int i = start + 1; i < end; i++) {
+			if (keep[i]) {
+				double distance = squaredDistance(coordinates, i, first);
+				if (distance > maxDistance) {
+					maxDistance = distance;
+					farthest = i;
+				}
+			}
+		}
+
+		int top = 0;
+		stack = ensureCapacity(stack, 4);
+		stack[top++] = first;
+		stack[top++] = farthest;
+		stack[top++] = farthest;
+		stack[top++] = end;
+
+		while (top > 0) {
+			int to = stack[--top];
+			int from = stack[--top];
+			int b = to == end ? first : to;
+
+			int index = -1;
+			maxDistance = maxSquaredError;
+			for (int i = from + 1; i < to; i++) {
+				if (keep[i]) {
+					double distance = squaredSegmentDistance(coordinates, i, from, b);
+					if (distance > maxDistance) {
+						maxDistance = distance;
+						index = i;
+					}
+				}
+			}
+
+			if (index != -1) {
+				stack = ensureCapacity(stack, top + 4);
+				stack[top++] = from;
+				stack[top++] = index;
+				stack[top++] = index;
+				stack[top++] = to;
+			} else {
+				for (int i = from + 1; i < to; i++)
+					keep[i] = false;
+			}
+		}
+
+		int simplified = 0;
+		for (int i = start; i < end; i++) {
+			if (keep[i])
+				simplified++;
+		}
+
+		return simplified;
+	}
+
+	private double area(int start, int count, double[] coordinates) {
+		double nx = 0, ny = 0, nz = 0;
+		int end = start + count;
+		int j = -1, firstKept = -1;
+
+		for (int i = start; i < end; i++) {
+			if (!keep[i])
+				continue;
+
+			if (j == -1)
+				firstKept = i;
+			else {
+				int a = j * 3, b = i * 3;
+				nx += (coordinates[a + 1] - coordinates[b + 1]) * (coordinates[a + 2] + coordinates[b + 2]);
+				ny += (coordinates[a + 2] - coordinates[b + 2]) * (coordinates[a] + coordinates[b]);
+				nz += (coordinates[a] - coordinates[b]) * (coordinates[a + 1] + coordinates[b + 1]);
+			}
+
+			j = i;
+		}
+
+		if (j != -1) {
+			int a = j * 3, b = firstKept * 3;
+			nx += (coordinates[a + 1] - coordinates[b + 1]) * (coordinates[a + 2] + coordinates[b + 2]);
+			ny += (coordinates[a + 2] - coordinates[b + 2]) * (coordinates[a] + coordinates[b]);
+			nz += (coordinates[a] - coordinates[b]) * (coordinates[a + 1] + coordinates[b + 1]);
+		}
+
+		return Math.sqrt(nx * nx + ny * ny + nz * nz) / 2;
+	}
+
+	private double squaredDistance(double[] coordinates, int i, int j) {
+		double dx = coordinates[i * 3] - coordinates[j * 3];
+		double dy = coordinates[i * 3 + 1] - coordinates[j * 3 + 1];
+		double dz = coordinates[i * 3 + 2] - coordinates[j * 3 + 2];
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	private double squaredSegmentDistance(double[] coordinates, int p, int a, int b) {
+		double ax = coordinates[a * 3], ay = coordinates[a * 3 + 1], az = coordinates[a * 3 + 2];
+		double dx = coordinates[b * 3] - ax, dy = coordinates[b * 3 + 1] - ay, dz = coordinates[b * 3 + 2] - az;
+		double px = coordinates[p * 3] - ax, py = coordinates[p * 3 + 1] - ay, pz = coordinates[p * 3 + 2] - az;
+
+		double length = dx * dx + dy * dy + dz * dz;
+		if (length > 0) {
+			double t = Math.max(0, Math.min(1, (px * dx + py * dy + pz * dz) / length));
+			px -= t * dx;
+			py -= t * dy;
+			pz -= t * dz;
+		}
+
+		return px * px + py * py + pz * pz;
+	}
+
+	private int[] ensureCapacity(int[] array, int capacity) {
+		return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import javax.vecmath.Point3d;
+
+public class ImplicitGeometryPrototype {
+	private final long id;
+	private boolean isExported;
+	private Point3d origin;
+
+	public ImplicitGeometryPrototype(long id) {
+		this.id = id;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return "implicit_" + id;
+	}
+
+	public boolean isExported() {
+		return isExported;
+	}
+
+	public void setExported(boolean isExported) {
+		this.isExported = isExported;
+	}
+
+	public boolean hasGeometry() {
+		return origin != null;
+	}
+
+	public Point3d getOrigin() {
+		return origin;
+	}
+
+	public void setOrigin(Point3d origin) {
+		this.origin = origin;
+	}
+
+}
@@ -0,0 +1,179 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+
+/**
+ * Streams the content of a KMZ file into the target archive. The main KML document
+ * is written directly, whereas models, textures and balloons are compressed in
+ * parallel and appended to the archive when it is closed.
+ */
+public class KmzArchive {
+	private final ZipArchiveOutputStream out;
+	private final ExecutorService executor;
+	private final ParallelScatterZipCreator scatterZipCreator;
+	private final Set<String> entryNames;
+
+	private boolean isMainEntryOpen;
+	private volatile boolean isClosed;
+
+	public KmzArchive(File file) throws IOException {
+		this(file, Runtime.getRuntime().availableProcessors());
+	}
+
+	public KmzArchive(File file, int threads) throws IOException {
+		out = new ZipArchiveOutputStream(file);
+
+		// pending entries keep their content in memory, so the queue is bounded and
+		// producers compress entries themselves once the compressor threads fall behind
+		int poolSize = Math.max(1, threads);
+		executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(poolSize * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+		scatterZipCreator = new ParallelScatterZipCreator(executor);
+		entryNames = ConcurrentHashMap.newKeySet();
+	}
+
+	public OutputStream openMainEntry(String name) throws IOException {
+		entryNames.add(name);
+		out.putArchiveEntry(createEntry(name));
+		isMainEntryOpen = true;
+
+		// the main entry is closed together with the archive
+		return new FilterOutputStream(out) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				if (!isClosed)
+					out.flush();
+			}
+
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+	}
+
+	public boolean addEntry(String name, byte[] content) {
+		return addEntry(name, () -> new ByteArrayInputStream(content));
+	}
+
+	public boolean addEntry(String name, Path file) {
+		return addEntry(name, () -> {
+			try {
+				return Files.newInputStream(file);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	public boolean addEntry(String name, InputStreamSupplier source) {
+		// entries shared by several objects (e.g., textures) must only be added once
+		if (!entryNames.add(name))
+			return false;
+
+		synchronized (scatterZipCreator) {
+			scatterZipCreator.addArchiveEntry(createEntry(name), source);
+		}
+
+		return true;
+	}
+
+	public boolean containsEntry(String name) {
+		return entryNames.contains(name);
+	}
+
+	public synchronized void close() throws IOException {
+		if (isClosed)
+			return;
+
+		isClosed = true;
+		try {
+			if (isMainEntryOpen) {
+				out.closeArchiveEntry();
+				isMainEntryOpen = false;
+			}
+
+			scatterZipCreator.writeTo(out);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing the KMZ archive.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to compress KMZ archive entry.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+			out.close();
+		}
+	}
+
+	public synchronized void discard() {
+		if (isClosed)
+			return;
+
+		isClosed = true;
+		executor.shutdownNow();
+		try {
+			out.close();
+		} catch (IOException e) {
+			//
+		}
+	}
+
+	private ZipArchiveEntry createEntry(String name) {
+		ZipArchiveEntry entry = new ZipArchiveEntry(name);
+		entry.setMethod(ZipEntry.DEFLATED);
+		return entry;
+	}
+
+}
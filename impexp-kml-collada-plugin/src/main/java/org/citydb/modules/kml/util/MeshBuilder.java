@@ -0,0 +1,232 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Builds indexed meshes from primitive arrays. Positions, normals and texture
+ * coordinates are quantized and welded so that each distinct value is stored only
+ * once, and triangles refer to them by index.
+ */
+public class MeshBuilder {
+	public static final double DEFAULT_POSITION_PRECISION = 1e3; // millimeters
+	public static final double DEFAULT_NORMAL_PRECISION = 1e5;
+	public static final double DEFAULT_TEX_COORD_PRECISION = 1e6;
+
+	private final AttributeBuffer positions;
+	private final AttributeBuffer normals;
+	private final AttributeBuffer texCoords;
+	private final HashMap<String, IndexBuffer> indexBuffers = new HashMap<>();
+
+	private BigInteger[] indexCache = new BigInteger[0];
+
+	public MeshBuilder() {
+		this(DEFAULT_POSITION_PRECISION, DEFAULT_NORMAL_PRECISION, DEFAULT_TEX_COORD_PRECISION);
+	}
+
+	public MeshBuilder(double positionPrecision, double normalPrecision, double texCoordPrecision) {
+		positions = new AttributeBuffer(3, positionPrecision);
+		normals = new AttributeBuffer(3, normalPrecision);
+		texCoords = new AttributeBuffer(2, texCoordPrecision);
+	}
+
+	public int addPosition(double x, double y, double z) {
+		return positions.add(x, y, z);
+	}
+
+	public int addNormal(double x, double y, double z) {
+		return normals.add(x, y, z);
+	}
+
+	public int addTexCoords(double s, double t) {
+		return texCoords.add(s, t, 0);
+	}
+
+	public IndexBuffer getIndexBuffer(String primitive) {
+		return indexBuffers.computeIfAbsent(primitive, v -> new IndexBuffer());
+	}
+
+	public double[] getPositions() {
+		return positions.toArray();
+	}
+
+	public double[] getNormals() {
+		return normals.toArray();
+	}
+
+	public double[] getTexCoords() {
+		return texCoords.toArray();
+	}
+
+	public int getPositionCount() {
+		return positions.size;
+	}
+
+	public List<BigInteger> getIndices(String primitive) {
+		IndexBuffer indexBuffer = indexBuffers.get(primitive);
+		if (indexBuffer == null)
+			return new IndexList(new int[0], 0);
+
+		// indices are shared between all primitives to avoid one object per index
+		int max = Math.max(positions.size, Math.max(normals.size, texCoords.size));
+		if (indexCache.length < max) {
+			int length = indexCache.length;
+			indexCache = Arrays.copyOf(indexCache, max);
+			for (int i = length; i < max; i++)
+				indexCache[i] = BigInteger.valueOf(i);
+		}
+
+		return new IndexList(indexBuffer.indices, indexBuffer.size);
+	}
+
+	public static final class IndexBuffer {
+		private int[] indices = new int[96];
+		private int size;
+
+		private IndexBuffer() {
+		}
+
+		public void add(int index) {
+			if (size == indices.length)
+				indices = Arrays.copyOf(indices, size * 2);
+
+			indices[size++] = index;
+		}
+
+		public int size() {
+			return size;
+		}
+	}
+
+	private final class IndexList extends AbstractList<BigInteger> {
+		private final int[] indices;
+		private final int size;
+
+		private IndexList(int[] indices, int size) {
+			this.indices = indices;
+			this.size = size;
+		}
+
+		@Override
+		public BigInteger get(int index) {
+			if (index >= size)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+			return indexCache[indices[index]];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	private static final class AttributeBuffer {
+		private final int dimension;
+		private final double precision;
+
+		private long[] values;
+		private int[] table = new int[256];
+		private int size;
+
+		private AttributeBuffer(int dimension, double precision) {
+			this.dimension = dimension;
+			this.precision = precision;
+			values = new long[64 * dimension];
+		}
+
+		private int add(double a, double b, double c) {
+			long qa = Math.round(a * precision);
+			long qb = Math.round(b * precision);
+			long qc = dimension == 3 ? Math.round(c * precision) : 0;
+
+			int mask = table.length - 1;
+			int slot = hash(qa, qb, qc) & mask;
+
+			// open addressing with linear probing, table entries store index + 1
+			while (table[slot] != 0) {
+				int offset = (table[slot] - 1) * dimension;
+				if (values[offset] == qa && values[offset + 1] == qb
+						&& (dimension == 2 || values[offset + 2] == qc))
+					return table[slot] - 1;
+
+				slot = (slot + 1) & mask;
+			}
+
+			if ((size + 1) * dimension > values.length)
+				values = Arrays.copyOf(values, values.length * 2);
+
+			int offset = size * dimension;
+			values[offset] = qa;
+			values[offset + 1] = qb;
+			if (dimension == 3)
+				values[offset + 2] = qc;
+
+			table[slot] = ++size;
+			if (size * 2 > table.length)
+				rehash();
+
+			return size - 1;
+		}
+
+		private void rehash() {
+			table = new int[table.length * 2];
+			int mask = table.length - 1;
+
+			for (int i = 0; i < size; i++) {
+				int offset = i * dimension;
+				int slot = hash(values[offset], values[offset + 1], dimension == 3 ? values[offset + 2] : 0) & mask;
+				while (table[slot] != 0)
+					slot = (slot + 1) & mask;
+
+				table[slot] = i + 1;
+			}
+		}
+
+		private int hash(long a, long b, long c) {
+			long hash = a * 0x9E3779B97F4A7C15L;
+			hash = (hash ^ b) * 0xC2B2AE3D27D4EB4FL;
+			hash = (hash ^ c) * 0x165667B19E3779F9L;
+			return (int) (hash ^ (hash >>> 32));
+		}
+
+		private double[] toArray() {
+			double[] result = new double[size * dimension];
+			for (int i = 0; i < result.length; i++)
+				result[i] = values[i] / precision;
+
+			return result;
+		}
+	}
+
+}
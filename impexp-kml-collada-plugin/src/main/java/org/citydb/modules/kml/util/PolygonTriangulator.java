@@ -0,0 +1,535 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import java.util.Arrays;
+
+/**
+ * Ear-clipping triangulator for planar polygons with holes.
+ * <p>
+ * The rings are projected onto the coordinate plane that is most parallel to
+ * the polygon, holes are bridged into the exterior ring, and ears are clipped
+ * from the resulting single ring. The triangles keep the orientation of the
+ * exterior ring, and a flat normal is derived from the exterior ring as well.
+ * <p>
+ * Instances reuse their internal buffers and must not be shared between threads.
+ */
+public class PolygonTriangulator {
+	private double[] x = new double[64];
+	private double[] y = new double[64];
+	private int[] vertex = new int[64];
+	private int[] prev = new int[64];
+	private int[] next = new int[64];
+	private boolean[] steiner = new boolean[64];
+	private int nodes;
+
+	private int[] indices = new int[192];
+	private int size;
+
+	private int[] holeQueue = new int[8];
+
+	/**
+	 * Triangulates a polygon given as concatenated rings of x, y, z coordinates.
+	 * The first ring is the exterior ring, the rings must not repeat their first vertex.
+	 *
+	 * @param coordinates x, y, z coordinates of all rings
+	 * @param ringSizes number of vertices per ring
+	 * @return the triangulation, whose indices refer to the vertices in {@code coordinates}
+	 */
+	public Triangulation triangulate(double[] coordinates, int[] ringSizes) {
+		nodes = 0;
+		size = 0;
+
+		double[] normal = new double[3];
+		if (ringSizes.length == 0 || ringSizes[0] < 3 || !computeNormal(coordinates, ringSizes[0], normal))
+			return new Triangulation(new int[0], normal);
+
+		// project onto the dominant plane so that the exterior ring turns counter-clockwise
+		int u, v;
+		double ax = Math.abs(normal[0]), ay = Math.abs(normal[1]), az = Math.abs(normal[2]);
+		if (az >= ax && az >= ay) {
+			u = normal[2] > 0 ? 0 : 1;
+			v = normal[2] > 0 ? 1 : 0;
+		} else if (ax >= ay) {
+			u = normal[0] > 0 ? 1 : 2;
+			v = normal[0] > 0 ? 2 : 1;
+		} else {
+			u = normal[1] > 0 ? 2 : 0;
+			v = normal[1] > 0 ? 0 : 2;
+		}
+
+		int outer = linkRing(coordinates, 0, ringSizes[0], u, v, true);
+		if (outer != -1 && ringSizes.length > 1)
+			outer = eliminateHoles(coordinates, ringSizes, u, v, outer);
+
+		if (outer != -1 && next[outer] != prev[outer])
+			clipEars(outer, 0);
+
+		return new Triangulation(Arrays.copyOf(indices, size), normal);
+	}
+
+	private boolean computeNormal(double[] coordinates, int count, double[] normal) {
+		// Newell's method is robust against collinear and slightly non-planar vertices
+		for (int i = 0, j = count - 1; i < count; j = i++) {
+			int a = j * 3, b = i * 3;
+			normal[0] += (coordinates[a + 1] - coordinates[b + 1]) * (coordinates[a + 2] + coordinates[b + 2]);
+			normal[1] += (coordinates[a + 2] - coordinates[b + 2]) * (coordinates[a] + coordinates[b]);
+			normal[2] += (coordinates[a] - coordinates[b]) * (coordinates[a + 1] + coordinates[b + 1]);
+		}
+
+		double length = Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]);
+		if (length == 0 || Double.isNaN(length))
+			return false;
+
+		normal[0] /= length;
+		normal[1] /= length;
+		normal[2] /= length;
+		return true;
+	}
+
+	private int linkRing(double[] coordinates, int start, int count, int u, int v, boolean counterClockwise) {
+		double area = 0;
+		for (int i = start, j = start + count - 1; i < start + count; j = i++)
+			area += coordinates[j * 3 + u] * coordinates[i * 3 + v] - coordinates[i * 3 + u] * coordinates[j * 3 + v];
+
+		int last = -1;
+		if (counterClockwise == area > 0) {
+			for (int i = start; i < start + count; i++)
+				last = insertNode(i, coordinates[i * 3 + u], coordinates[i * 3 + v], last);
+		} else {
+			for (int i = start + count - 1; i >= start; i--)
+				last = insertNode(i, coordinates[i * 3 + u], coordinates[i * 3 + v], last);
+		}
+
+		if (last != -1 && equals(last, next[last])) {
+			removeNode(last);
+			last = next[last];
+		}
+
+		return last;
+	}
+
+	private int eliminateHoles(double[] coordinates, int[] ringSizes, int u, int v, int outer) {
+		if (holeQueue.length < ringSizes.length)
+			holeQueue = new int[ringSizes.length];
+
+		int holes = 0;
+		for (int i = 1, start = ringSizes[0]; i < ringSizes.length; start += ringSizes[i++]) {
+			if (ringSizes[i] == 0)
+				continue;
+
+			int list = linkRing(coordinates, start, ringSizes[i], u, v, false);
+			if (list == -1)
+				continue;
+
+			if (list == next[list])
+				steiner[list] = true;
+
+			holeQueue[holes++] = getLeftmost(list);
+		}
+
+		// process holes from left to right
+		sortHoles(holes);
+
+		for (int i = 0; i < holes; i++) {
+			eliminateHole(holeQueue[i], outer);
+			outer = filterPoints(outer, next[outer]);
+		}
+
+		return outer;
+	}
+
+	private void sortHoles(int holes) {
+		for (int i = 1; i < holes; i++) {
+			int hole = holeQueue[i];
+			int j = i - 1;
+			while (j >= 0 && x[holeQueue[j]] > x[hole]) {
+				holeQueue[j + 1] = holeQueue[j];
+				j--;
+			}
+
+			holeQueue[j + 1] = hole;
+		}
+	}
+
+	private void eliminateHole(int hole, int outer) {
+		int bridge = findHoleBridge(hole, outer);
+		if (bridge != -1) {
+			int b = splitPolygon(bridge, hole);
+			filterPoints(b, next[b]);
+		}
+	}
+
+	private int findHoleBridge(int hole, int outer) {
+		// find a segment intersected by a ray from the hole's leftmost point to the left
+		int p = outer, m = -1;
+		double hx = x[hole], hy = y[hole], qx = Double.NEGATIVE_INFINITY;
+
+		do {
+			int n = next[p];
+			if (hy <= y[p] && hy >= y[n] && y[n] != y[p]) {
+				double ix = x[p] + (hy - y[p]) * (x[n] - x[p]) / (y[n] - y[p]);
+				if (ix <= hx && ix > qx) {
+					qx = ix;
+					if (ix == hx) {
+						if (hy == y[p])
+							return p;
+						if (hy == y[n])
+							return n;
+					}
+
+					m = x[p] < x[n] ? p : n;
+				}
+			}
+
+			p = n;
+		} while (p != outer);
+
+		if (m == -1)
+			return -1;
+
+		if (hx == qx)
+			return m;
+
+		// look for points inside the triangle of hole point, segment intersection and endpoint;
+		// if there are none, the endpoint is a valid connection, otherwise take the point
+		// with the minimum angle to the ray as connection point
+		int stop = m;
+		double mx = x[m], my = y[m], tanMin = Double.POSITIVE_INFINITY;
+		p = next[m];
+
+		while (p != stop) {
+			if (hx >= x[p] && x[p] >= mx && hx != x[p]
+					&& pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, x[p], y[p])) {
+				double tan = Math.abs(hy - y[p]) / (hx - x[p]);
+				if ((tan < tanMin || (tan == tanMin && x[p] > x[m])) && locallyInside(p, hole)) {
+					m = p;
+					tanMin = tan;
+				}
+			}
+
+			p = next[p];
+		}
+
+		return m;
+	}
+
+	private void clipEars(int ear, int pass) {
+		if (ear == -1)
+			return;
+
+		int stop = ear;
+		while (prev[ear] != next[ear]) {
+			int a = prev[ear], c = next[ear];
+
+			if (isEar(ear)) {
+				addTriangle(vertex[a], vertex[ear], vertex[c]);
+				removeNode(ear);
+
+				// skipping the next vertex leads to less sliver triangles
+				ear = next[c];
+				stop = next[c];
+				continue;
+			}
+
+			ear = c;
+
+			if (ear == stop) {
+				if (pass == 0)
+					clipEars(filterPoints(ear, -1), 1);
+				else if (pass == 1)
+					clipEars(cureLocalIntersections(filterPoints(ear, -1)), 2);
+				else
+					splitPolygonAndClip(ear);
+
+				break;
+			}
+		}
+	}
+
+	private boolean isEar(int ear) {
+		int a = prev[ear], c = next[ear];
+		if (area(a, ear, c) <= 0)
+			return false;
+
+		// no reflex vertex of the remaining ring must lie inside the ear
+		double ax = x[a], ay = y[a], bx = x[ear], by = y[ear], cx = x[c], cy = y[c];
+		for (int p = next[c]; p != a; p = next[p]) {
+			if (pointInTriangle(ax, ay, bx, by, cx, cy, x[p], y[p])
+					&& !equals(p, a) && !equals(p, c)
+					&& area(prev[p], p, next[p]) <= 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	private int cureLocalIntersections(int start) {
+		if (start == -1)
+			return -1;
+
+		int p = start;
+		do {
+			int a = prev[p], b = next[next[p]];
+			if (!equals(a, b) && intersects(a, p, next[p], b) && locallyInside(a, b) && locallyInside(b, a)) {
+				addTriangle(vertex[a], vertex[p], vertex[b]);
+
+				// remove the two nodes involved
+				removeNode(next[p]);
+				removeNode(p);
+				p = start = b;
+			}
+
+			p = next[p];
+		} while (p != start);
+
+		return p;
+	}
+
+	private void splitPolygonAndClip(int start) {
+		// try splitting the polygon into two along a valid diagonal and triangulate both halves
+		int a = start;
+		do {
+			int b = next[next[a]];
+			while (b != prev[a]) {
+				if (vertex[a] != vertex[b] && isValidDiagonal(a, b)) {
+					int c = splitPolygon(a, b);
+					a = filterPoints(a, next[a]);
+					c = filterPoints(c, next[c]);
+
+					clipEars(a, 0);
+					clipEars(c, 0);
+					return;
+				}
+
+				b = next[b];
+			}
+
+			a = next[a];
+		} while (a != start);
+	}
+
+	private int filterPoints(int start, int end) {
+		if (start == -1)
+			return -1;
+		if (end == -1)
+			end = start;
+
+		// remove duplicate and collinear points
+		int p = start;
+		boolean again;
+		do {
+			again = false;
+
+			if (!steiner[p] && (equals(p, next[p]) || area(prev[p], p, next[p]) == 0)) {
+				removeNode(p);
+				p = end = prev[p];
+				if (p == next[p])
+					break;
+
+				again = true;
+			} else
+				p = next[p];
+		} while (again || p != end);
+
+		return end;
+	}
+
+	private int getLeftmost(int start) {
+		int p = start, leftmost = start;
+		do {
+			if (x[p] < x[leftmost] || (x[p] == x[leftmost] && y[p] < y[leftmost]))
+				leftmost = p;
+
+			p = next[p];
+		} while (p != start);
+
+		return leftmost;
+	}
+
+	private boolean isValidDiagonal(int a, int b) {
+		return vertex[next[a]] != vertex[b] && vertex[prev[a]] != vertex[b] && !intersectsPolygon(a, b)
+				&& locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b);
+	}
+
+	private boolean intersectsPolygon(int a, int b) {
+		int p = a;
+		do {
+			int n = next[p];
+			if (vertex[p] != vertex[a] && vertex[n] != vertex[a] && vertex[p] != vertex[b] && vertex[n] != vertex[b]
+					&& intersects(p, n, a, b))
+				return true;
+
+			p = n;
+		} while (p != a);
+
+		return false;
+	}
+
+	private boolean intersects(int p1, int q1, int p2, int q2) {
+		if ((equals(p1, q1) && equals(p2, q2)) || (equals(p1, q2) && equals(p2, q1)))
+			return true;
+
+		return area(p1, q1, p2) < 0 != area(p1, q1, q2) < 0
+				&& area(p2, q2, p1) < 0 != area(p2, q2, q1) < 0;
+	}
+
+	private boolean locallyInside(int a, int b) {
+		return area(prev[a], a, next[a]) > 0 ?
+				area(a, b, next[a]) <= 0 && area(a, prev[a], b) <= 0 :
+					area(a, b, prev[a]) > 0 || area(a, next[a], b) > 0;
+	}
+
+	private boolean middleInside(int a, int b) {
+		int p = a;
+		boolean inside = false;
+		double px = (x[a] + x[b]) / 2, py = (y[a] + y[b]) / 2;
+
+		do {
+			int n = next[p];
+			if (((y[p] > py) != (y[n] > py)) && y[n] != y[p]
+					&& (px < (x[n] - x[p]) * (py - y[p]) / (y[n] - y[p]) + x[p]))
+				inside = !inside;
+
+			p = n;
+		} while (p != a);
+
+		return inside;
+	}
+
+	private int splitPolygon(int a, int b) {
+		// link two polygon vertices with a bridge; if the vertices belong to the same ring,
+		// the ring is split into two; if one belongs to the outer ring and another to a hole,
+		// the hole is merged into a single ring
+		int a2 = newNode(vertex[a], x[a], y[a]);
+		int b2 = newNode(vertex[b], x[b], y[b]);
+		int an = next[a];
+		int bp = prev[b];
+
+		next[a] = b;
+		prev[b] = a;
+
+		next[a2] = an;
+		prev[an] = a2;
+
+		next[b2] = a2;
+		prev[a2] = b2;
+
+		next[bp] = b2;
+		prev[b2] = bp;
+
+		return b2;
+	}
+
+	private int insertNode(int index, double px, double py, int last) {
+		int p = newNode(index, px, py);
+
+		if (last == -1) {
+			prev[p] = p;
+			next[p] = p;
+		} else {
+			next[p] = next[last];
+			prev[p] = last;
+			prev[next[last]] = p;
+			next[last] = p;
+		}
+
+		return p;
+	}
+
+	private int newNode(int index, double px, double py) {
+		if (nodes == x.length) {
+			int capacity = nodes * 2;
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			vertex = Arrays.copyOf(vertex, capacity);
+			prev = Arrays.copyOf(prev, capacity);
+			next = Arrays.copyOf(next, capacity);
+			steiner = Arrays.copyOf(steiner, capacity);
+		}
+
+		int p = nodes++;
+		x[p] = px;
+		y[p] = py;
+		vertex[p] = index;
+		steiner[p] = false;
+		return p;
+	}
+
+	private void removeNode(int p) {
+		prev[next[p]] = prev[p];
+		next[prev[p]] = next[p];
+	}
+
+	private void addTriangle(int a, int b, int c) {
+		if (size + 3 > indices.length)
+			indices = Arrays.copyOf(indices, indices.length * 2);
+
+		indices[size++] = a;
+		indices[size++] = b;
+		indices[size++] = c;
+	}
+
+	private double area(int p, int q, int r) {
+		// twice the signed area of the triangle, positive for counter-clockwise order
+		return (x[q] - x[p]) * (y[r] - y[p]) - (y[q] - y[p]) * (x[r] - x[p]);
+	}
+
+	private boolean equals(int p, int q) {
+		return x[p] == x[q] && y[p] == y[q];
+	}
+
+	private boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
+		return (cx - px) * (ay - py) >= (ax - px) * (cy - py)
+				&& (ax - px) * (by - py) >= (bx - px) * (ay - py)
+				&& (bx - px) * (cy - py) >= (cx - px) * (by - py);
+	}
+
+	public static class Triangulation {
+		private final int[] indices;
+		private final double[] normal;
+
+		Triangulation(int[] indices, double[] normal) {
+			this.indices = indices;
+			this.normal = normal;
+		}
+
+		public int[] getIndices() {
+			return indices;
+		}
+
+		public double[] getNormal() {
+			return normal;
+		}
+
+		public int getTriangleCount() {
+			return indices.length / 3;
+		}
+	}
+
+}
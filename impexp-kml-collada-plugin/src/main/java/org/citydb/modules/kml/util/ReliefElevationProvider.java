@@ -0,0 +1,131 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import org.citydb.config.geometry.GeometryObject;
+import org.citydb.database.adapter.AbstractDatabaseAdapter;
+import org.citydb.database.adapter.AbstractGeometryConverterAdapter;
+import org.citydb.log.Logger;
+import org.citydb.modules.kml.database.Queries;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Derives altitude offsets from the TIN relief components stored in the database.
+ * The terrain triangles are cached in a grid that is shared by all export workers.
+ */
+public class ReliefElevationProvider implements ElevationProvider {
+	private final Logger log = Logger.getInstance();
+	private final Connection connection;
+	private final AbstractGeometryConverterAdapter geometryConverterAdapter;
+	private final ElevationGrid grid;
+	private final String query;
+	private final int srid;
+
+	private PreparedStatement psTriangles;
+	private double[] triangles = new double[9 * 64];
+
+	public ReliefElevationProvider(Connection connection, AbstractDatabaseAdapter databaseAdapter, ElevationGrid grid) {
+		this.connection = connection;
+		this.grid = grid;
+
+		geometryConverterAdapter = databaseAdapter.getGeometryConverter();
+		srid = databaseAdapter.getConnectionMetaData().getReferenceSystem().getSrid();
+		query = new Queries(databaseAdapter, databaseAdapter.getConnectionDetails().getSchema()).getReliefTriangles();
+	}
+
+	@Override
+	public double getZOffset(double[] candidateCoords) throws Exception {
+		double zOffset = 0;
+		double minElevation = Double.MAX_VALUE;
+
+		for (int i = 0; i < candidateCoords.length; i += 3) {
+			double elevation = grid.getElevation(candidateCoords[i], candidateCoords[i + 1], this::loadCell);
+			if (!Double.isNaN(elevation) && elevation < minElevation) {
+				minElevation = elevation;
+				zOffset = elevation - candidateCoords[i + 2];
+			}
+		}
+
+		if (minElevation == Double.MAX_VALUE)
+			log.debug("No relief found below the candidate points; using an altitude offset of 0.");
+
+		return zOffset;
+	}
+
+	@Override
+	public boolean requiresWGS84Coordinates() {
+		return false;
+	}
+
+	@Override
+	public String getName() {
+		return "the relief data of the database";
+	}
+
+	private double[] loadCell(double minX, double minY, double maxX, double maxY) throws SQLException {
+		if (psTriangles == null)
+			psTriangles = connection.prepareStatement(query);
+
+		GeometryObject cell = GeometryObject.createEnvelope(new double[]{minX, minY, maxX, maxY}, 2, srid);
+		psTriangles.setObject(1, geometryConverterAdapter.getDatabaseObject(cell, connection));
+
+		int size = 0;
+		try (ResultSet rs = psTriangles.executeQuery()) {
+			while (rs.next()) {
+				GeometryObject polygon = geometryConverterAdapter.getPolygon(rs.getObject(1));
+				if (polygon == null)
+					continue;
+
+				// TIN patches are triangles, other polygons are split into a fan
+				double[] ring = polygon.getCoordinates(0);
+				int vertices = ring.length / 3 - 1;
+				for (int k = 1; k < vertices - 1; k++) {
+					if (size + 9 > triangles.length)
+						triangles = Arrays.copyOf(triangles, triangles.length * 2);
+
+					System.arraycopy(ring, 0, triangles, size, 3);
+					System.arraycopy(ring, k * 3, triangles, size + 3, 6);
+					size += 9;
+				}
+			}
+		}
+
+		return Arrays.copyOf(triangles, size);
+	}
+
+	public void close() throws SQLException {
+		if (psTriangles != null)
+			psTriangles.close();
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import org.citydb.textureAtlas.model.TextureImage;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class TextureCache {
+	private final LinkedHashMap<Long, CachedTexture> textures;
+	private final long maxSize;
+
+	private long size;
+	private long hits;
+	private long misses;
+
+	public TextureCache(long maxSize) {
+		this.maxSize = maxSize;
+		textures = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	public static TextureCache ofHeapFraction(int divisor) {
+		return new TextureCache(Runtime.getRuntime().maxMemory() / divisor);
+	}
+
+	public synchronized CachedTexture get(long texImageId) {
+		CachedTexture texture = textures.get(texImageId);
+		if (texture != null)
+			hits++;
+		else
+			misses++;
+
+		return texture;
+	}
+
+	public synchronized CachedTexture put(long texImageId, CachedTexture texture) {
+		if (texture.getSize() > maxSize)
+			return texture;
+
+		// keep the texture of the first worker so that all objects share the same instance
+		CachedTexture existing = textures.get(texImageId);
+		if (existing != null && existing.isSupportRGB() == texture.isSupportRGB())
+			return existing;
+
+		if (existing != null)
+			size -= existing.getSize();
+
+		textures.put(texImageId, texture);
+		size += texture.getSize();
+
+		Iterator<CachedTexture> iter = textures.values().iterator();
+		while (size > maxSize && iter.hasNext()) {
+			CachedTexture eldest = iter.next();
+			if (eldest == texture)
+				break;
+
+			size -= eldest.getSize();
+			iter.remove();
+		}
+
+		return texture;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized void clear() {
+		textures.clear();
+		size = 0;
+	}
+
+	public static class CachedTexture {
+		private final byte[] bytes;
+		private final TextureImage image;
+		private final boolean supportRGB;
+		private final long size;
+
+		public CachedTexture(byte[] bytes, TextureImage image, boolean supportRGB) {
+			this.bytes = bytes;
+			this.image = image;
+			this.supportRGB = supportRGB;
+
+			// decoded images are held as 4 bytes per pixel at most
+			size = bytes.length + (image != null ? (long) image.getWidth() * image.getHeight() * 4 : 0);
+		}
+
+		public byte[] getBytes() {
+			return bytes;
+		}
+
+		public TextureImage getImage() {
+			return image;
+		}
+
+		public boolean isSupported() {
+			return image != null;
+		}
+
+		public boolean isSupportRGB() {
+			return supportRGB;
+		}
+
+		public long getSize() {
+			return size;
+		}
+	}
+
+}
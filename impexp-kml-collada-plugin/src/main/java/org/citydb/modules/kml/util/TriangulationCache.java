@@ -0,0 +1,85 @@
+/*
+ * 3D City Database - The Open Source CityGML Database
+ * http://www.3dcitydb.org/
+ *
+ * Copyright 2013 - 2019
+ * Chair of Geoinformatics
+ * Technical University of Munich, Germany
+ * https://www.gis.bgu.tum.de/
+ *
+ * The 3D City Database is jointly developed with the following
+ * cooperation partners:
+ *
+ * virtualcitySYSTEMS GmbH, Berlin <http://www.virtualcitysystems.de/>
+ * M.O.S.S. Computer Grafik Systeme GmbH, Taufkirchen <http://www.moss.de/>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.citydb.modules.kml.util;
+
+import org.citydb.modules.kml.util.PolygonTriangulator.Triangulation;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class TriangulationCache {
+	public static final int DEFAULT_MAX_INDICES = 4 * 1024 * 1024;
+
+	private final LinkedHashMap<Long, Entry> triangulations;
+	private final int maxIndices;
+	private long indices;
+
+	public TriangulationCache() {
+		this(DEFAULT_MAX_INDICES);
+	}
+
+	public TriangulationCache(int maxIndices) {
+		this.maxIndices = maxIndices;
+		triangulations = new LinkedHashMap<>(1024, 0.75f, true);
+	}
+
+	public synchronized Triangulation get(long surfaceGeometryId, int vertexCount) {
+		Entry entry = triangulations.get(surfaceGeometryId);
+		return entry != null && entry.vertexCount == vertexCount ? entry.triangulation : null;
+	}
+
+	public synchronized void put(long surfaceGeometryId, int vertexCount, Triangulation triangulation) {
+		Entry previous = triangulations.put(surfaceGeometryId, new Entry(vertexCount, triangulation));
+		if (previous != null)
+			indices -= previous.triangulation.getIndices().length;
+
+		indices += triangulation.getIndices().length;
+
+		Iterator<Entry> iter = triangulations.values().iterator();
+		while (indices > maxIndices && iter.hasNext()) {
+			indices -= iter.next().triangulation.getIndices().length;
+			iter.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		triangulations.clear();
+		indices = 0;
+	}
+
+	private static final class Entry {
+		private final int vertexCount;
+		private final Triangulation triangulation;
+
+		private Entry(int vertexCount, Triangulation triangulation) {
+			this.vertexCount = vertexCount;
+			this.triangulation = triangulation;
+		}
+	}
+
+}